@@ -3,15 +3,27 @@ package com.dnikitin.hotel;
 import com.dnikitin.hotel.commandcontrol.Command;
 import com.dnikitin.hotel.commandcontrol.CommandRegistry;
 import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.NotifyingCommand;
+import com.dnikitin.hotel.commandcontrol.ParameterizedCommand;
 import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
 import com.dnikitin.hotel.exceptions.CommandCreationException;
 import com.dnikitin.hotel.exceptions.HotelDataException;
 import com.dnikitin.hotel.exceptions.InvalidCommandException;
+import com.dnikitin.hotel.journal.WriteAheadJournal;
 import com.dnikitin.hotel.model.Guest;
 import com.dnikitin.hotel.model.Hotel;
 import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.persistence.DeltaStore;
+import com.dnikitin.hotel.persistence.StateLoader;
+import com.dnikitin.hotel.scheduler.ConsoleNotices;
+import com.dnikitin.hotel.scheduler.HotelJobs;
+import com.dnikitin.hotel.scheduler.JobScheduler;
+import com.dnikitin.hotel.scheduler.JobStats;
+import com.dnikitin.hotel.scheduler.SchedulerSettings;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -19,6 +31,13 @@ import java.util.Scanner;
  * Main entry point for the Hotel Management System.
  * This class initializes the application state (Hotel), sets up the command registry,
  * and runs the main Read-Eval-Print Loop (REPL) to process user commands.
+ * Periodic background jobs (autosave, overdue sweeps, statistics snapshots) run next
+ * to the REPL on virtual threads and are stopped when the user types {@code exit};
+ * their messages are shown before the next prompt.
+ * With {@code -Dhotel.journal.dir=<directory>} every change is journaled before it
+ * completes, and the state is restored from the journal on the next start. A journal that
+ * cannot be read stops the start, unless {@code -Dhotel.journal.optional=true} allows running
+ * without it.
  */
 public class HotelApplication {
     /**
@@ -30,26 +49,94 @@ public class HotelApplication {
     public static void main(String[] args) {
 
         // configuration
-        Hotel hotel = setupHotel(args);
+        Hotel hotel = new Hotel();
+        WriteAheadJournal journal;
+        try {
+            journal = openJournal(hotel);
+        } catch (HotelDataException e) {
+            System.err.println("ERROR: Could not read the journal, start aborted: " + e.getMessage());
+            System.err.println("Fix or move the journal directory, or start with -Dhotel.journal.optional=true "
+                    + "to run without journaling.");
+            System.exit(1);
+            return;
+        }
+        if (journal == null || journal.getRecovery().isEmpty()) {
+            setupHotel(hotel, args);
+            if (journal != null) {
+                checkpoint(journal);
+            }
+        }
 
         //main loop
-        runMainLoop(hotel);
+        runMainLoop(hotel, journal);
+    }
+
+    /**
+     * Opens the journal configured with {@code hotel.journal.dir} and restores the hotel from it.
+     * If the journal cannot be read and {@code hotel.journal.optional} is {@code true}, the hotel
+     * starts empty and without journaling; the journal directory is left untouched.
+     *
+     * @param hotel The empty hotel to restore.
+     * @return The open journal, or {@code null} if journaling is disabled or the journal is optional
+     * and cannot be read.
+     * @throws HotelDataException if the journal cannot be read and is not optional.
+     */
+    private static WriteAheadJournal openJournal(Hotel hotel) throws HotelDataException {
+        String directory = System.getProperty("hotel.journal.dir");
+        if (directory == null || directory.isBlank()) {
+            return null;
+        }
+        try {
+            WriteAheadJournal journal = WriteAheadJournal.open(Path.of(directory.trim()), hotel);
+            WriteAheadJournal.Recovery recovery = journal.getRecovery();
+            if (!recovery.isEmpty()) {
+                System.out.println("Restored hotel state from journal " + directory + ": "
+                        + recovery.snapshotRooms() + " rooms from the snapshot, "
+                        + recovery.replayedRecords() + " changes replayed.");
+            }
+            if (recovery.tornTail()) {
+                System.err.println("ERROR: The last journal record was incomplete and has been dropped.");
+            }
+            return journal;
+        } catch (HotelDataException e) {
+            if (!Boolean.getBoolean("hotel.journal.optional")) {
+                throw e;
+            }
+            System.err.println("ERROR: Journal disabled, could not read it: " + e.getMessage());
+            hotel.clear();
+            return null;
+        }
+    }
+
+    /**
+     * Writes a journal checkpoint, printing an error if it fails.
+     *
+     * @param journal The journal to checkpoint.
+     */
+    private static void checkpoint(WriteAheadJournal journal) {
+        try {
+            journal.checkpoint();
+        } catch (HotelDataException e) {
+            System.err.println("ERROR: Could not write journal checkpoint: " + e.getMessage());
+        }
     }
 
     /**
      * Handles the initial setup of the Hotel object, either by loading
-     * from a file argument or initializing default data.
+     * from a file argument or initializing default data. A directory argument is loaded
+     * as partition files or as the incremental autosaves of a {@link DeltaStore}, depending
+     * on what it holds (see {@link StateLoader}); any other directory fails like a bad file.
      *
-     * @param args Command-line arguments passed to main.
-     * @return A fully initialized Hotel object.
+     * @param hotel The empty hotel to set up.
+     * @param args  Command-line arguments passed to main.
      */
-    private static Hotel setupHotel(String[] args) {
-        Hotel hotel = new Hotel();
+    private static void setupHotel(Hotel hotel, String[] args) {
         if (args.length > 0) {
             String filename = args[0];
             System.out.println("Attempting to load hotel state from argument: " + filename);
             try {
-                hotel.loadRoomsFromFile(filename);
+                int loaded = StateLoader.load(hotel, filename);
+                ConsoleFormatter.printHeader("Successfully read and saved " + loaded + " rooms");
             } catch (HotelDataException e) {
                 System.err.println("ERROR: Could not load data from file: " + e.getMessage());
                 System.out.println("Loading default hardcoded data instead.");
@@ -59,16 +146,18 @@ public class HotelApplication {
             System.out.println("No file path provided. Loading default hardcoded data.");
             initializeHotelData(hotel);
         }
-        return hotel;
     }
 
     /**
      * Runs the main Read-Eval-Print Loop (REPL) for the application.
      *
-     * @param hotel The initialized Hotel object.
+     * @param hotel   The initialized Hotel object.
+     * @param journal The journal of the hotel, or {@code null}.
      */
-    private static void runMainLoop(Hotel hotel){
+    private static void runMainLoop(Hotel hotel, WriteAheadJournal journal){
         CommandRegistry commandFactory = new CommandRegistry();
+        ConsoleNotices notices = new ConsoleNotices();
+        JobScheduler scheduler = startBackgroundJobs(hotel, journal, notices);
 
         Scanner scanner = new Scanner(System.in);
         boolean running = true;
@@ -79,6 +168,7 @@ public class HotelApplication {
         // MAIN APPLICATION LOOP(REPL)
 
         while (running) {
+            notices.printPending(System.out);
             System.out.print("\n> ");
             String input = scanner.nextLine();
 
@@ -100,30 +190,99 @@ public class HotelApplication {
             }
 
             // FACTORY AND STRATEGY PATTERN
-            executeCommand(hotel, commandFactory, input, scanner);
+            executeCommand(hotel, commandFactory, input, scanner, notices);
         }
 
+        stopBackgroundJobs(scheduler);
+        hotel.awaitBackgroundSaves();
+        notices.printPending(System.out);
+        if (journal != null) {
+            journal.close();
+        }
         scanner.close();
         ConsoleFormatter.printHeader("Shutting down application... Goodbye!");
     }
 
+    /**
+     * Starts the periodic background jobs configured by system properties
+     * (see {@link SchedulerSettings}).
+     *
+     * @param hotel   The hotel the jobs work on.
+     * @param journal The journal to checkpoint periodically, or {@code null}.
+     * @param notices Receives the messages of the jobs, printed before the next prompt.
+     * @return The running scheduler.
+     */
+    private static JobScheduler startBackgroundJobs(Hotel hotel, WriteAheadJournal journal, ConsoleNotices notices) {
+        JobScheduler scheduler = new JobScheduler(notices);
+        try {
+            SchedulerSettings settings = SchedulerSettings.fromSystemProperties();
+            HotelJobs.scheduleAll(scheduler, hotel, settings, notices);
+            if (journal != null) {
+                HotelJobs.scheduleCheckpoints(scheduler, journal, settings);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR: Background jobs disabled: " + e.getMessage());
+        }
+        return scheduler;
+    }
+
+    /**
+     * Stops the background jobs, waiting for runs in progress to finish, and prints their metrics.
+     *
+     * @param scheduler The running scheduler.
+     */
+    private static void stopBackgroundJobs(JobScheduler scheduler) {
+        scheduler.close();
+        List<JobStats> stats = scheduler.stats();
+        if (stats.isEmpty()) {
+            return;
+        }
+        String format = "| %-15s | %6s | %8s | %12s | %12s |%n";
+        int tableWidth = 71; // 15 + 6 + 8 + 12 + 12 + 16 (separators)
+
+        ConsoleFormatter.printHeader("Background jobs");
+        ConsoleFormatter.printSeparator(tableWidth);
+        ConsoleFormatter.printRow(format, "Job", "Runs", "Failures", "Avg ( ms )", "Max ( ms )");
+        ConsoleFormatter.printSeparator(tableWidth);
+        for (JobStats job : stats) {
+            ConsoleFormatter.printRow(format, job.name(), job.runs(), job.failures(),
+                    String.format("%.3f", job.averageDuration().toNanos() / 1e6),
+                    String.format("%.3f", job.maxDuration().toNanos() / 1e6));
+        }
+        ConsoleFormatter.printSeparator(tableWidth);
+    }
+
     /**
      * Tries to create and execute a command based on user input.
+     * The first word names the command, the remaining words are passed as its arguments.
      * All exceptions are caught and printed to System.err.
      *
      * @param input          The raw input string from the user.
      * @param commandFactory The registry to create commands from.
      * @param hotel          The hotel instance.
      * @param scanner        The scanner for interactive commands.
+     * @param notices        The notices printed before the next prompt.
      */
-    private static void executeCommand(Hotel hotel, CommandRegistry commandFactory, String input, Scanner scanner) {
+    private static void executeCommand(Hotel hotel, CommandRegistry commandFactory, String input, Scanner scanner,
+                                       ConsoleNotices notices) {
         try {
-            Command command = commandFactory.createCommand(input.toLowerCase());
+            String[] words = input.trim().split("\\s+");
+            List<String> arguments = Arrays.asList(words).subList(1, words.length);
+            Command command = commandFactory.createCommand(words[0].toLowerCase());
 
             command.setHotel(hotel);
             if (command instanceof InteractiveCommand) {
                 ((InteractiveCommand) command).setScanner(scanner);
             }
+            if (command instanceof NotifyingCommand) {
+                ((NotifyingCommand) command).setNotices(notices);
+            }
+            if (command instanceof ParameterizedCommand) {
+                ((ParameterizedCommand) command).setArguments(arguments);
+            } else if (!arguments.isEmpty()) {
+                System.err.println("ERROR: Command '" + words[0] + "' takes no arguments.");
+                return;
+            }
 
             command.execute();
 
@@ -175,10 +334,20 @@ public class HotelApplication {
         ConsoleFormatter.printProperty("list", "Show summary of all rooms and occupancy.");
         ConsoleFormatter.printProperty("prices", "Display the price list for all rooms.");
         ConsoleFormatter.printProperty("view", "Show detailed information for a specific room.");
+        ConsoleFormatter.printProperty("stats", "Show occupancy and revenue statistics.");
+        ConsoleFormatter.printProperty("search", "Find rooms available for given dates and criteria.");
+        ConsoleFormatter.printProperty("find-guest", "Find the room of a guest by (part of) their name.");
+        ConsoleFormatter.printProperty("report", "Show today's arrivals, departures and overdue stays.");
         ConsoleFormatter.printProperty("checkin", "Check a guest into a room.");
+        ConsoleFormatter.printProperty("groupcheckin", "Check a group into several rooms from a CSV file.");
         ConsoleFormatter.printProperty("checkout", "Check a guest out of a room.");
-        ConsoleFormatter.printProperty("save", "Save the current hotel state to a file.");
-        ConsoleFormatter.printProperty("load", "Load hotel state from a file.");
+        ConsoleFormatter.printProperty("rate", "Set or clear a seasonal rate of a room.");
+        ConsoleFormatter.printProperty("nightaudit", "Check out and bill every stay due by a date.");
+        ConsoleFormatter.printProperty("save", "Save the current hotel state to a file ('save --async' in the background, "
+                + "'save --format=bin' as a binary snapshot, 'csv.gz' or 'bin.z' compressed, "
+                + "'save --partition=floor|N' as one file per floor or per N rooms).");
+        ConsoleFormatter.printProperty("load", "Load hotel state from a CSV or binary snapshot file.");
+        ConsoleFormatter.printProperty("convert", "Convert a state file between CSV and binary snapshot.");
         ConsoleFormatter.printProperty("help", "Display this help menu.");
         ConsoleFormatter.printProperty("exit", "Exit the application.");
     }
@@ -0,0 +1,17 @@
+package com.dnikitin.hotel.commandcontrol;
+
+import com.dnikitin.hotel.scheduler.ConsoleNotices;
+
+/**
+ * An interface for commands that keep working after they return, e.g. {@code save --async}.
+ * The main application loop injects its {@link ConsoleNotices}, so messages of the background
+ * work are printed before the next prompt instead of breaking into the console.
+ */
+public interface NotifyingCommand {
+    /**
+     * Injects the notices printed before every prompt.
+     *
+     * @param notices The notices of the console.
+     */
+    void setNotices(ConsoleNotices notices);
+}
@@ -0,0 +1,17 @@
+package com.dnikitin.hotel.commandcontrol;
+
+import java.util.List;
+
+/**
+ * An interface for commands that accept options on the command line, e.g. {@code save --async}.
+ * The main application loop passes everything typed after the command name.
+ * Commands not implementing it accept no options.
+ */
+public interface ParameterizedCommand {
+    /**
+     * Injects the words typed after the command name.
+     *
+     * @param arguments The arguments, possibly empty.
+     */
+    void setArguments(List<String> arguments);
+}
@@ -7,6 +7,8 @@ import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
 import com.dnikitin.hotel.exceptions.RoomNotFoundException;
 import com.dnikitin.hotel.exceptions.RoomOccupiedException;
 import com.dnikitin.hotel.exceptions.RoomSmallCapacityException;
+import com.dnikitin.hotel.index.RoomPreferences;
+import com.dnikitin.hotel.model.DateRange;
 import com.dnikitin.hotel.model.Guest;
 import com.dnikitin.hotel.model.Room;
 
@@ -18,7 +20,8 @@ import java.util.Scanner;
 
 /**
  * Handles the interactive logic for checking a guest into a room.
- * It prompts for room number, guest details, duration, and check-in date.
+ * It prompts for the check-in date, duration, room number and guest details.
+ * If no room number is given, the best-fitting room free for those nights is assigned automatically.
  */
 @CommandName("checkin")
 public class CheckinCommand extends Command implements InteractiveCommand {
@@ -31,11 +34,32 @@ public class CheckinCommand extends Command implements InteractiveCommand {
         }
         ConsoleFormatter.printHeader("CHECK-IN");
         try {
-            System.out.print("Enter room number: ");
-            int roomNumber = Integer.parseInt(scanner.nextLine().trim());
+            System.out.print("Enter check-in date (YYYY-MM-DD) or press Enter for today: ");
+            String dateStr = scanner.nextLine().trim();
+            LocalDate checkInDate = dateStr.isBlank() ? LocalDate.now() : LocalDate.parse(dateStr);
+
+            System.out.print("Enter duration of stay (nights): ");
+            int duration = Integer.parseInt(scanner.nextLine().trim());
+            if (duration <= 0) {
+                throw new IllegalArgumentException("Duration must be at least 1 night.");
+            }
+            DateRange nights = DateRange.ofNights(checkInDate, duration);
 
-            Room room = hotel.getRoom(roomNumber);
-            roomValidation(room, roomNumber);
+            System.out.print("Enter room number (or press Enter to assign automatically): ");
+            String roomStr = scanner.nextLine().trim();
+
+            Room room;
+            int partySize = 0;
+            if (roomStr.isBlank()) {
+                System.out.print("Enter number of guests: ");
+                partySize = Integer.parseInt(scanner.nextLine().trim());
+                room = autoAssign(nights, partySize);
+            } else {
+                int roomNumber = Integer.parseInt(roomStr);
+                room = hotel.getRoom(roomNumber);
+                roomValidation(room, roomNumber, checkInDate);
+            }
+            int roomNumber = room.getRoomNumber();
 
             System.out.print("Enter main guest full name: ");
             String mainName = scanner.nextLine().trim();
@@ -44,23 +68,15 @@ public class CheckinCommand extends Command implements InteractiveCommand {
             }
 
             Guest mainGuest = new Guest(mainName);
-            int capacityLeft = Math.max(0, room.getCapacity() - 1);
-            List<Guest> additionalGuests = additionalGuestsValidation(capacityLeft);
-
-            System.out.print("Enter duration of stay (nights): ");
-            int duration = Integer.parseInt(scanner.nextLine().trim());
-            if (duration <= 0) {
-                throw new IllegalArgumentException("Duration must be at least 1 night.");
-            }
-
-            System.out.print("Enter check-in date (YYYY-MM-DD) or press Enter for today: ");
-            String dateStr = scanner.nextLine().trim();
-            if (dateStr.isBlank()) {
-                hotel.checkIn(roomNumber, mainGuest, additionalGuests, duration);
+            List<Guest> additionalGuests;
+            if (partySize > 0) {
+                additionalGuests = readGuestNames(partySize - 1);
             } else {
-                LocalDate checkInDate = LocalDate.parse(dateStr);
-                hotel.checkIn(roomNumber, mainGuest, additionalGuests, checkInDate, duration);
+                int capacityLeft = Math.max(0, room.getCapacity() - 1);
+                additionalGuests = additionalGuestsValidation(capacityLeft);
             }
+
+            hotel.checkIn(roomNumber, mainGuest, additionalGuests, checkInDate, duration);
             System.out.println("\nCheck-in completed successfully for room " + roomNumber + ".");
 
         } catch (NumberFormatException e) {
@@ -92,31 +108,67 @@ public class CheckinCommand extends Command implements InteractiveCommand {
                 throw new RoomSmallCapacityException("Number of additional guests must be between 0 and " + capacityLeft + ".");
             }
 
-            for (int i = 1; i <= additionalCount; i++) {
-                System.out.print("Enter name of additional guest " + i + ": ");
-                String name = scanner.nextLine().trim();
-                if (name.isBlank()) {
-                    throw new IllegalArgumentException("Guest name cannot be empty.");
-                }
-                others.add(new Guest(name));
+            others = readGuestNames(additionalCount);
+        }
+        return others;
+    }
+
+    /**
+     * Prompts for the names of the given number of additional guests.
+     *
+     * @param count The number of additional guests.
+     * @return A list of Guest objects for the additional guests.
+     * @throws IllegalArgumentException if a guest's name is left blank.
+     */
+    private List<Guest> readGuestNames(int count) {
+        List<Guest> others = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            System.out.print("Enter name of additional guest " + i + ": ");
+            String name = scanner.nextLine().trim();
+            if (name.isBlank()) {
+                throw new IllegalArgumentException("Guest name cannot be empty.");
             }
+            others.add(new Guest(name));
         }
         return others;
     }
 
     /**
-     * Validates a room to ensure it exists and is free for check-in.
+     * Picks the best-fitting room free for the given nights and announces it.
+     *
+     * @param nights    The nights of the stay.
+     * @param partySize The number of guests, including the main guest.
+     * @return The assigned room.
+     * @throws IllegalArgumentException if the party size is not positive.
+     * @throws RoomNotFoundException    if no room free for the nights can hold the party.
+     */
+    private Room autoAssign(DateRange nights, int partySize) {
+        if (partySize <= 0) {
+            throw new IllegalArgumentException("Number of guests must be at least 1.");
+        }
+        Room room = hotel.autoAssign(nights, partySize, RoomPreferences.none());
+        if (room == null) {
+            throw new RoomNotFoundException("No free room for " + partySize + " guests.");
+        }
+        System.out.println("Assigned room " + room.getRoomNumber() + " (capacity " + room.getCapacity() + ").");
+        return room;
+    }
+
+    /**
+     * Validates a room to ensure it exists and is not occupied on the check-in date.
+     * Overlaps with later nights of the stay are detected by the check-in itself.
      *
-     * @param room       The Room object to check.
-     * @param roomNumber The room number (used for error messages).
+     * @param room        The Room object to check.
+     * @param roomNumber  The room number (used for error messages).
+     * @param checkInDate The first night of the stay.
      * @throws RoomNotFoundException if the room is null (does not exist).
-     * @throws RoomOccupiedException if the room is not free.
+     * @throws RoomOccupiedException if the room is occupied on the check-in date.
      */
-    private void roomValidation(Room room, int roomNumber) {
+    private void roomValidation(Room room, int roomNumber, LocalDate checkInDate) {
         if (room == null) {
             throw new RoomNotFoundException("Room with number " + roomNumber + " does not exist.");
         }
-        if (!room.isFree()) {
+        if (room.isBookedOn(checkInDate)) {
             throw new RoomOccupiedException("Room " + roomNumber + " is already occupied.");
         }
     }
@@ -0,0 +1,57 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.commandcontrol.Command;
+import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.StateFormat;
+
+import java.util.Scanner;
+
+/**
+ * Converts a state file from CSV to a binary snapshot or the other way round.
+ * It prompts for the source file and the target file; by default the target gets the format
+ * the source does not have, compressed if the source is. A target named with the extension
+ * of a format, e.g. {@code state.csv.gz}, gets that format instead. The hotel state is not changed.
+ */
+@CommandName("convert")
+public class ConvertCommand extends Command implements InteractiveCommand {
+    private Scanner scanner;
+
+    @Override
+    public void execute() {
+        if (hotel == null || scanner == null) {
+            throw new IllegalStateException("Command not initialized. Call setHotel() and setScanner().");
+        }
+        System.out.print("Enter the state file to convert: ");
+        String source = scanner.nextLine().trim();
+
+        try {
+            StateFormat format = switch (StateFormat.detect(source)) {
+                case CSV -> StateFormat.BINARY;
+                case BINARY -> StateFormat.CSV;
+                case CSV_GZIP -> StateFormat.BINARY_DEFLATE;
+                case BINARY_DEFLATE -> StateFormat.CSV_GZIP;
+            };
+            String defaultTarget = format.withExtension(source);
+            System.out.print("Enter the target file (press Enter for '" + defaultTarget + "'): ");
+            String target = scanner.nextLine().trim();
+            if (target.isBlank()) {
+                target = defaultTarget;
+            } else if (StateFormat.forFileName(target) != null) {
+                format = StateFormat.forFileName(target);
+            }
+
+            int converted = hotel.convertStateFile(source, target, format);
+            ConsoleFormatter.printHeader("Converted " + converted + " rooms to " + target);
+        } catch (HotelDataException e) {
+            System.err.println("Error converting hotel state: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void setScanner(Scanner scanner) {
+        this.scanner = scanner;
+    }
+}
@@ -0,0 +1,80 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.commandcontrol.Command;
+import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
+import com.dnikitin.hotel.index.GuestMatch;
+import com.dnikitin.hotel.model.Reservation;
+
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Handles the interactive logic for finding the room of a guest.
+ * It looks for an exact name first, then for names starting with the input,
+ * and finally for similar names if the input was misspelled.
+ */
+@CommandName("find-guest")
+public class FindGuestCommand extends Command implements InteractiveCommand {
+    private static final int MAX_RESULTS = 20;
+
+    private Scanner scanner;
+
+    @Override
+    public void execute() {
+        if (hotel == null || scanner == null) {
+            throw new IllegalStateException("Command not initialized. Call setHotel() and setScanner().");
+        }
+        ConsoleFormatter.printHeader("FIND GUEST");
+        System.out.print("Enter guest name (or its beginning): ");
+        String query = scanner.nextLine().trim();
+        if (query.isBlank()) {
+            System.err.println("Error: Guest name cannot be empty.");
+            return;
+        }
+
+        List<GuestMatch> matches = hotel.findGuests(query);
+        if (matches.isEmpty()) {
+            matches = hotel.findGuestsByPrefix(query, MAX_RESULTS);
+        }
+        if (matches.isEmpty()) {
+            matches = hotel.findGuestsFuzzy(query, MAX_RESULTS);
+            if (!matches.isEmpty()) {
+                System.out.println("\nNo guest named '" + query + "'. Did you mean:");
+            }
+        }
+        printMatches(matches);
+    }
+
+    private void printMatches(List<GuestMatch> matches) {
+        String format = "| %-25s | %-8s | %-10s | %-13s | %-13s |%n";
+        int tableWidth = 85; // 25 + 8 + 10 + 13 + 13 + 16 (separators)
+
+        ConsoleFormatter.printHeader("GUESTS FOUND");
+        ConsoleFormatter.printSeparator(tableWidth);
+        ConsoleFormatter.printRow(format, "Guest", "Room Nr", "Role", "Checkin date", "Checkout date");
+        ConsoleFormatter.printSeparator(tableWidth);
+
+        if (matches.isEmpty()) {
+            ConsoleFormatter.printRow(format, " (No guest found)", "---", "---", "---", "---");
+        } else {
+            for (GuestMatch match : matches) {
+                Reservation stay = match.reservation();
+                ConsoleFormatter.printRow(format,
+                        match.name(),
+                        match.roomNumber(),
+                        match.mainGuest() ? "Main" : "Additional",
+                        stay.checkinDate(),
+                        stay.checkinDate().plusDays(stay.duration()));
+            }
+        }
+        ConsoleFormatter.printSeparator(tableWidth);
+        System.out.println();
+    }
+
+    @Override
+    public void setScanner(Scanner scanner) {
+        this.scanner = scanner;
+    }
+}
@@ -0,0 +1,86 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.commandcontrol.Command;
+import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.CheckinRequest;
+import com.dnikitin.hotel.model.CheckinResult;
+
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Handles the check-in of a group booking from a CSV file.
+ * All rooms of the group are checked in at once, or none of them if any row is invalid.
+ */
+@CommandName("groupcheckin")
+public class GroupCheckinCommand extends Command implements InteractiveCommand {
+    private Scanner scanner;
+
+    @Override
+    public void execute() {
+        if (hotel == null || scanner == null) {
+            throw new IllegalStateException("Command not initialized. Call setHotel() and setScanner().");
+        }
+        ConsoleFormatter.printHeader("GROUP CHECK-IN");
+        System.out.print("Enter group booking filename: ");
+        String filename = scanner.nextLine().trim();
+
+        try {
+            List<CheckinRequest> requests = hotel.readCheckinRequests(filename);
+            if (requests.isEmpty()) {
+                System.err.println("Error: The file contains no check-ins.");
+                return;
+            }
+            printResults(hotel.checkInAll(requests));
+
+        } catch (HotelDataException e) {
+            System.err.println("Error loading group booking: " + e.getMessage());
+        }
+    }
+
+    private void printResults(List<CheckinResult> results) {
+        String format = "| %-6s | %-20s | %-10s | %6s | %-10s |%n";
+        int tableWidth = 68; // 6 + 20 + 10 + 6 + 10 + 16 (separators)
+
+        ConsoleFormatter.printSeparator(tableWidth);
+        ConsoleFormatter.printRow(format, "Room", "Main guest", "Check-in", "Nights", "Result");
+        ConsoleFormatter.printSeparator(tableWidth);
+
+        boolean allCheckedIn = true;
+        for (CheckinResult result : results) {
+            CheckinRequest request = result.request();
+            ConsoleFormatter.printRow(format, request.roomNumber(), request.mainGuest().name(),
+                    request.checkinDate(), request.duration(), statusLabel(result.status()));
+            allCheckedIn &= result.isCheckedIn();
+        }
+        ConsoleFormatter.printSeparator(tableWidth);
+
+        if (allCheckedIn) {
+            ConsoleFormatter.printProperty("Checked in", results.size());
+        } else {
+            System.err.println("Error: Group check-in rejected, no guest was checked in.");
+            for (CheckinResult result : results) {
+                if (result.status() == CheckinResult.Status.REJECTED) {
+                    System.err.println("Error: " + result.message());
+                }
+            }
+        }
+        System.out.println();
+    }
+
+    private static String statusLabel(CheckinResult.Status status) {
+        return switch (status) {
+            case CHECKED_IN -> "Checked in";
+            case REJECTED -> "Rejected";
+            case SKIPPED -> "Skipped";
+        };
+    }
+
+    @Override
+    public void setScanner(Scanner scanner) {
+        this.scanner = scanner;
+    }
+}
@@ -64,9 +64,12 @@ public class ListCommand extends Command {
                     checkoutDate = checkin.plusDays(res.duration()).toString();
                 }
 
+                // the earliest stay may still be an advance booking
+                String status = (checkin != null && checkin.isAfter(LocalDate.now())) ? "Reserved" : "Occupied";
+
                 ConsoleFormatter.printRow(format,
                         room.getRoomNumber(),
-                        "Occupied",
+                        status,
                         guestName,
                         checkinDate,
                         checkoutDate
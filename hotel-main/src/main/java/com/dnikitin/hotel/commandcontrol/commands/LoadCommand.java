@@ -4,13 +4,17 @@ import com.dnikitin.hotel.commandcontrol.Command;
 import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
 import com.dnikitin.hotel.commandcontrol.commandutils.CommandConstants;
 import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
 import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.persistence.StateLoader;
 
 import java.util.Scanner;
 
 /**
- * Handles the interactive logic for loading the hotel state from a CSV file.
- * It prompts the user for a filename.
+ * Handles the interactive logic for loading the hotel state from a CSV file or a binary snapshot.
+ * It prompts the user for a filename; the format is detected from the file. The name of a
+ * directory loads the partition files saved there with {@code save --partition}, or the
+ * incremental autosaves kept there, see {@link StateLoader}.
  */
 @CommandName("load")
 public class LoadCommand extends Command implements InteractiveCommand {
@@ -29,7 +33,8 @@ public class LoadCommand extends Command implements InteractiveCommand {
         }
 
         try {
-            hotel.loadRoomsFromFile(filename);
+            int loaded = StateLoader.load(hotel, filename);
+            ConsoleFormatter.printHeader("Successfully read and saved " + loaded + " rooms");
         } catch (HotelDataException e) {
             System.err.println("Error loading hotel state: " + e.getMessage());
         }
@@ -0,0 +1,68 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.commandcontrol.Command;
+import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
+import com.dnikitin.hotel.model.AuditEntry;
+import com.dnikitin.hotel.model.AuditLedger;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Scanner;
+
+/**
+ * Handles the end-of-day night audit: checks out and bills every stay that is due
+ * by the audit date and prints the resulting ledger.
+ */
+@CommandName("nightaudit")
+public class NightAuditCommand extends Command implements InteractiveCommand {
+    private Scanner scanner;
+
+    @Override
+    public void execute() {
+        if (hotel == null || scanner == null) {
+            throw new IllegalStateException("Command not initialized. Call setHotel() and setScanner().");
+        }
+        ConsoleFormatter.printHeader("NIGHT AUDIT");
+        try {
+            System.out.print("Enter audit date (YYYY-MM-DD) or press Enter for today: ");
+            String dateStr = scanner.nextLine().trim();
+            LocalDate date = dateStr.isBlank() ? LocalDate.now() : LocalDate.parse(dateStr);
+
+            AuditLedger ledger = hotel.nightAudit(date);
+            printLedger(ledger);
+
+        } catch (DateTimeParseException e) {
+            System.err.println("Error: Invalid date format. Expected YYYY-MM-DD.");
+        }
+    }
+
+    private void printLedger(AuditLedger ledger) {
+        String format = "| %-6s | %-20s | %-10s | %-10s | %12s |%n";
+        int tableWidth = 74; // 6 + 20 + 10 + 10 + 12 + 16 (separators)
+
+        ConsoleFormatter.printHeader("Ledger for " + ledger.auditDate());
+        ConsoleFormatter.printSeparator(tableWidth);
+        ConsoleFormatter.printRow(format, "Room", "Main guest", "Check-in", "Check-out", "Bill ( $ )");
+        ConsoleFormatter.printSeparator(tableWidth);
+
+        if (ledger.entries().isEmpty()) {
+            ConsoleFormatter.printRow(format, "---", " (No stays due)", "---", "---", "---");
+        } else {
+            for (AuditEntry entry : ledger.entries()) {
+                ConsoleFormatter.printRow(format, entry.roomNumber(), entry.mainGuest(),
+                        entry.checkinDate(), entry.checkoutDate(), String.format("%.2f", entry.bill()));
+            }
+        }
+        ConsoleFormatter.printSeparator(tableWidth);
+        ConsoleFormatter.printProperty("Closed stays", ledger.size());
+        ConsoleFormatter.printProperty("Total revenue", String.format("%.2f$", ledger.total()));
+        System.out.println();
+    }
+
+    @Override
+    public void setScanner(Scanner scanner) {
+        this.scanner = scanner;
+    }
+}
@@ -9,7 +9,8 @@ import com.dnikitin.hotel.model.Room;
 import java.util.List;
 
 /**
- * Handles the logic for displaying a list of all rooms and their prices per night.
+ * Handles the logic for displaying a list of all rooms and their prices per night,
+ * cheapest first.
  */
 @CommandName("prices")
 public class PricesCommand extends Command {
@@ -20,7 +21,7 @@ public class PricesCommand extends Command {
         if(hotel == null){
             throw new IllegalStateException("Command not initialized. Call setHotel(hotel) before executing.");
         }
-        List<Room> rooms = hotel.getRooms();
+        List<Room> rooms = hotel.getRoomsByPrice();
 
         String format = "| %-12s | %20s |%n";
         int tableWidth = 39; // 12 + 20 + 7 (na | | | %n)
@@ -0,0 +1,68 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.commandcontrol.Command;
+import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
+import com.dnikitin.hotel.exceptions.RoomNotFoundException;
+import com.dnikitin.hotel.model.Rate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Scanner;
+
+/**
+ * Handles the interactive logic for setting a seasonal rate of a room.
+ * It prompts for the room number, the first night and the end of the season and the nightly
+ * price; an empty price clears any seasonal rate in that period.
+ */
+@CommandName("rate")
+public class RateCommand extends Command implements InteractiveCommand {
+
+    private Scanner scanner;
+
+    @Override
+    public void execute() {
+        if (hotel == null) {
+            throw new IllegalStateException("Command not initialized. 'hotel' is null.");
+        }
+        ConsoleFormatter.printHeader("SEASONAL RATE");
+        try {
+            System.out.print("Enter room number: ");
+            int roomNumber = Integer.parseInt(scanner.nextLine().trim());
+
+            System.out.print("Enter first night of the season (YYYY-MM-DD): ");
+            LocalDate from = LocalDate.parse(scanner.nextLine().trim());
+
+            System.out.print("Enter day the season ends (YYYY-MM-DD, exclusive): ");
+            LocalDate to = LocalDate.parse(scanner.nextLine().trim());
+
+            System.out.print("Enter price per night (or press Enter to clear the season): ");
+            String priceStr = scanner.nextLine().trim();
+
+            if (priceStr.isBlank()) {
+                hotel.clearRate(roomNumber, from, to);
+                System.out.printf("Room %d is charged its base price from %s to %s.%n", roomNumber, from, to);
+            } else {
+                double price = Double.parseDouble(priceStr);
+                if (price < 0) {
+                    throw new IllegalArgumentException("Price cannot be negative");
+                }
+                hotel.setRate(roomNumber, from, to, new Rate(price));
+                System.out.printf("Room %d is charged %.2f$ per night from %s to %s.%n", roomNumber, price, from, to);
+            }
+            System.out.println();
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Invalid number provided. Please enter digits only.");
+        } catch (DateTimeParseException e) {
+            System.err.println("Error: Invalid date format. Expected YYYY-MM-DD.");
+        } catch (RoomNotFoundException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void setScanner(Scanner scanner) {
+        this.scanner = scanner;
+    }
+}
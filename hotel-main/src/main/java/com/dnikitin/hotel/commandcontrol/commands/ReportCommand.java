@@ -0,0 +1,67 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.commandcontrol.Command;
+import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
+import com.dnikitin.hotel.index.ScheduledStay;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Handles the logic for printing the front-desk report of a day:
+ * expected arrivals, expected departures and overdue stays.
+ */
+@CommandName("report")
+public class ReportCommand extends Command implements InteractiveCommand {
+    private Scanner scanner;
+
+    @Override
+    public void execute() {
+        if (hotel == null || scanner == null) {
+            throw new IllegalStateException("Command not initialized. Call setHotel() and setScanner().");
+        }
+        ConsoleFormatter.printHeader("FRONT DESK REPORT");
+        try {
+            System.out.print("Enter report date (YYYY-MM-DD) or press Enter for today: ");
+            String dateStr = scanner.nextLine().trim();
+            LocalDate date = dateStr.isBlank() ? LocalDate.now() : LocalDate.parse(dateStr);
+
+            printStays("Arrivals on " + date, hotel.arrivalsOn(date));
+            printStays("Departures on " + date, hotel.departuresOn(date));
+            printStays("Overdue as of " + date, hotel.overdue(date));
+
+        } catch (DateTimeParseException e) {
+            System.err.println("Error: Invalid date format. Expected YYYY-MM-DD.");
+        }
+    }
+
+    private void printStays(String title, List<ScheduledStay> stays) {
+        String format = "| %-6s | %-25s | %-10s | %-10s |%n";
+        int tableWidth = 64; // 6 + 25 + 10 + 10 + 13 (separators)
+
+        ConsoleFormatter.printHeader(title);
+        ConsoleFormatter.printSeparator(tableWidth);
+        ConsoleFormatter.printRow(format, "Room", "Main guest", "Check-in", "Check-out");
+        ConsoleFormatter.printSeparator(tableWidth);
+
+        if (stays.isEmpty()) {
+            ConsoleFormatter.printRow(format, "---", " (None)", "---", "---");
+        } else {
+            for (ScheduledStay stay : stays) {
+                ConsoleFormatter.printRow(format, stay.roomNumber(), stay.reservation().mainGuest().name(),
+                        stay.arrival(), stay.departure());
+            }
+        }
+        ConsoleFormatter.printSeparator(tableWidth);
+        System.out.println();
+    }
+
+    @Override
+    public void setScanner(Scanner scanner) {
+        this.scanner = scanner;
+    }
+}
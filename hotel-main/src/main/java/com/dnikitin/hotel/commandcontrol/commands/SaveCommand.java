@@ -2,43 +2,142 @@ package com.dnikitin.hotel.commandcontrol.commands;
 
 import com.dnikitin.hotel.commandcontrol.Command;
 import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.NotifyingCommand;
+import com.dnikitin.hotel.commandcontrol.ParameterizedCommand;
 import com.dnikitin.hotel.commandcontrol.commandutils.CommandConstants;
 import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
 import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.BackgroundSave;
+import com.dnikitin.hotel.model.StateFormat;
+import com.dnikitin.hotel.model.StatePartitioning;
+import com.dnikitin.hotel.scheduler.ConsoleNotices;
 
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
 
 /**
  * Handles the interactive logic for saving the current hotel state to a CSV file.
  * It prompts the user for a filename.
+ * With {@code --async} the file is written in the background while the console stays usable;
+ * with {@code --format=bin} it is written as a binary snapshot instead of CSV, and
+ * {@code --format=csv.gz} or {@code --format=bin.z} compress either format.
+ * With {@code --partition=floor} or {@code --partition=N} the state is saved into a directory
+ * with one file per floor or per N rooms, written in parallel, and unchanged files are kept.
+ * The progress and the outcome of a background save are posted to the console notices, so
+ * they appear before the next prompt.
  */
 @CommandName("save")
-public class SaveCommand extends Command implements InteractiveCommand {
+public class SaveCommand extends Command implements InteractiveCommand, ParameterizedCommand, NotifyingCommand {
+
+    private static final String ASYNC_OPTION = "--async";
+    private static final String FORMAT_OPTION = "--format=";
+    private static final String PARTITION_OPTION = "--partition=";
+    private static final String USAGE = "Usage: save [" + ASYNC_OPTION + "] [" + FORMAT_OPTION + "csv|bin|csv.gz|bin.z] ["
+            + PARTITION_OPTION + "floor|N]";
 
     Scanner scanner;
+    private List<String> arguments = List.of();
+    private ConsoleNotices notices;
 
     @Override
     public void execute() {
         if (hotel == null) {
             throw new IllegalStateException("Command not initialized. Call setHotel(hotel) before executing.");
         }
-        System.out.println("Provide the name of the file where you want to save hotel state or press Enter for "
-                + CommandConstants.DEFAULT_FILENAME + " filename:");
+        boolean async = false;
+        StateFormat format = StateFormat.CSV;
+        StatePartitioning partitioning = null;
+        for (String argument : arguments) {
+            if (argument.equalsIgnoreCase(ASYNC_OPTION)) {
+                async = true;
+            } else if (argument.regionMatches(true, 0, FORMAT_OPTION, 0, FORMAT_OPTION.length())) {
+                try {
+                    format = StateFormat.fromOption(argument.substring(FORMAT_OPTION.length()));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error: " + e.getMessage() + ". " + USAGE);
+                    return;
+                }
+            } else if (argument.regionMatches(true, 0, PARTITION_OPTION, 0, PARTITION_OPTION.length())) {
+                try {
+                    partitioning = StatePartitioning.fromOption(argument.substring(PARTITION_OPTION.length()));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error: " + e.getMessage() + ". " + USAGE);
+                    return;
+                }
+            } else {
+                System.err.println("Error: Unknown option '" + argument + "'. " + USAGE);
+                return;
+            }
+        }
+        if (async && partitioning != null) {
+            System.err.println("Error: A partitioned state cannot be saved in the background. " + USAGE);
+            return;
+        }
+        String defaultFilename = partitioning != null
+                ? CommandConstants.DEFAULT_PARTITION_DIRECTORY
+                : format.withExtension(CommandConstants.DEFAULT_FILENAME);
+        String target = partitioning != null ? "directory" : "file";
+        System.out.println("Provide the name of the " + target + " where you want to save hotel state or press Enter for "
+                + defaultFilename + " " + (partitioning != null ? "directory" : "filename") + ":");
         String filename = scanner.nextLine();
 
         if (filename.isBlank()) {
-            filename = CommandConstants.DEFAULT_FILENAME;
+            filename = defaultFilename;
+        }
+        if (async) {
+            if (notices == null) {
+                throw new IllegalStateException("Command not initialized. Call setNotices() before saving in the background.");
+            }
+            saveInBackground(filename, format);
+            return;
         }
         try {
-            hotel.saveRoomsToFile(filename);
+            if (partitioning != null) {
+                hotel.saveRoomsToPartitions(filename, partitioning, format);
+                return;
+            }
+            hotel.saveRoomsToFile(filename, format);
         } catch (HotelDataException e) {
             System.err.println("Error saving hotel state: " + e.getMessage());
         }
 
     }
 
+    private void saveInBackground(String filename, StateFormat format) {
+        int[] reportedQuarter = {0};
+        BackgroundSave save = hotel.saveRoomsInBackground(filename, format, (written, total) -> {
+            int quarter = written * 4 / total;
+            if (quarter > reportedQuarter[0] && quarter < 4) {
+                reportedQuarter[0] = quarter;
+                notices.post("[save] " + quarter * 25 + "% (" + written + "/" + total + " rooms)");
+            }
+        });
+        System.out.println("Saving " + save.getTotalRooms() + " rooms to " + filename
+                + " in the background. You can keep working.");
+
+        save.result().whenComplete((rooms, failure) -> {
+            if (failure == null) {
+                notices.post("[save] Successfully saved " + rooms + " rooms to " + filename);
+            } else {
+                Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                notices.post("[save] Error saving hotel state: " + cause.getMessage());
+            }
+        });
+    }
+
     @Override
     public void setScanner(Scanner scanner) {
         this.scanner = scanner;
     }
+
+    @Override
+    public void setArguments(List<String> arguments) {
+        this.arguments = arguments;
+    }
+
+    @Override
+    public void setNotices(ConsoleNotices notices) {
+        this.notices = notices;
+    }
 }
@@ -0,0 +1,90 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.commandcontrol.Command;
+import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
+import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
+import com.dnikitin.hotel.model.DateRange;
+import com.dnikitin.hotel.model.Room;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Handles the interactive logic for searching available rooms.
+ * It prompts for the stay dates, party size, price limit and floor,
+ * and prints every matching room, cheapest first.
+ */
+@CommandName("search")
+public class SearchCommand extends Command implements InteractiveCommand {
+    private Scanner scanner;
+
+    @Override
+    public void execute() {
+        if (hotel == null || scanner == null) {
+            throw new IllegalStateException("Command not initialized. Call setHotel() and setScanner().");
+        }
+        ConsoleFormatter.printHeader("ROOM SEARCH");
+        try {
+            System.out.print("Enter check-in date (YYYY-MM-DD) or press Enter for today: ");
+            String dateStr = scanner.nextLine().trim();
+            LocalDate from = dateStr.isBlank() ? LocalDate.now() : LocalDate.parse(dateStr);
+
+            System.out.print("Enter duration of stay (nights): ");
+            int nights = Integer.parseInt(scanner.nextLine().trim());
+            if (nights <= 0) {
+                throw new IllegalArgumentException("Duration must be at least 1 night.");
+            }
+
+            System.out.print("Enter number of guests (press Enter for 1): ");
+            String guestsStr = scanner.nextLine().trim();
+            int guests = guestsStr.isBlank() ? 1 : Integer.parseInt(guestsStr);
+
+            System.out.print("Enter maximal price per night (press Enter for no limit): ");
+            String priceStr = scanner.nextLine().trim();
+            double maxPrice = priceStr.isBlank() ? Double.MAX_VALUE : Double.parseDouble(priceStr);
+
+            System.out.print("Enter floor (press Enter for any floor): ");
+            String floorStr = scanner.nextLine().trim();
+            Integer floor = floorStr.isBlank() ? null : Integer.parseInt(floorStr);
+
+            List<Room> rooms = hotel.findAvailable(DateRange.ofNights(from, nights), guests, maxPrice, floor);
+            printResults(rooms);
+
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Invalid number provided. Please enter digits only.");
+        } catch (DateTimeParseException e) {
+            System.err.println("Error: Invalid date format. Expected YYYY-MM-DD.");
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void printResults(List<Room> rooms) {
+        String format = "| %-11s | %-8s | %-8s | %17s |%n";
+        int tableWidth = 57; // 11 + 8 + 8 + 17 + 13 (separators)
+
+        ConsoleFormatter.printHeader("AVAILABLE ROOMS");
+        ConsoleFormatter.printSeparator(tableWidth);
+        ConsoleFormatter.printRow(format, "Room number", "Floor", "Capacity", "Price ( $/night )");
+        ConsoleFormatter.printSeparator(tableWidth);
+
+        if (rooms.isEmpty()) {
+            ConsoleFormatter.printRow(format, " (No rooms match)", "---", "---", "---");
+        } else {
+            for (Room room : rooms) {
+                ConsoleFormatter.printRow(format, room.getRoomNumber(), room.getFloor(),
+                        room.getCapacity(), room.getPrice());
+            }
+        }
+        ConsoleFormatter.printSeparator(tableWidth);
+        System.out.println();
+    }
+
+    @Override
+    public void setScanner(Scanner scanner) {
+        this.scanner = scanner;
+    }
+}
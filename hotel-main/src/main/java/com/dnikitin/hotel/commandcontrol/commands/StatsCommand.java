@@ -0,0 +1,57 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.commandcontrol.Command;
+import com.dnikitin.hotel.commandcontrol.commandutils.CommandName;
+import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
+import com.dnikitin.hotel.index.OccupancyStats;
+
+import java.util.Map;
+
+/**
+ * Handles the logic for displaying occupancy and revenue statistics,
+ * for the whole hotel and for every floor.
+ */
+@CommandName("stats")
+public class StatsCommand extends Command {
+
+    @Override
+    public void execute() {
+        if (hotel == null) {
+            throw new IllegalStateException("Command not initialized. Call setHotel(hotel) before executing.");
+        }
+        OccupancyStats.Snapshot total = hotel.getStatistics();
+
+        ConsoleFormatter.printHeader("HOTEL STATISTICS");
+        ConsoleFormatter.printProperty("Rooms", total.rooms());
+        ConsoleFormatter.printProperty("Booked rooms", total.bookedRooms());
+        ConsoleFormatter.printProperty("Unbooked rooms", total.unbookedRooms());
+        ConsoleFormatter.printProperty("Booked share", String.format("%.1f%%", total.bookedPercent()));
+        ConsoleFormatter.printProperty("Booked stays", total.stays());
+        ConsoleFormatter.printProperty("Guests", total.guests() + " / " + total.beds() + " beds");
+        ConsoleFormatter.printProperty("Revenue", String.format("%.2f$", total.projectedRevenue()));
+
+        String format = "| %-6s | %-6s | %-9s | %-12s | %15s |%n";
+        int tableWidth = 64; // 6 + 6 + 9 + 12 + 15 + 16 (separators)
+
+        ConsoleFormatter.printHeader("Bookings per floor");
+        ConsoleFormatter.printSeparator(tableWidth);
+        ConsoleFormatter.printRow(format, "Floor", "Rooms", "Booked", "Booked share", "Revenue ( $ )");
+        ConsoleFormatter.printSeparator(tableWidth);
+
+        Map<Integer, OccupancyStats.Snapshot> floors = hotel.getFloorStatistics();
+        if (floors.isEmpty()) {
+            ConsoleFormatter.printRow(format, "---", "---", "---", "---", "---");
+        } else {
+            for (OccupancyStats.Snapshot floor : floors.values()) {
+                ConsoleFormatter.printRow(format,
+                        floor.floor(),
+                        floor.rooms(),
+                        floor.bookedRooms(),
+                        String.format("%.1f%%", floor.bookedPercent()),
+                        String.format("%.2f", floor.projectedRevenue()));
+            }
+        }
+        ConsoleFormatter.printSeparator(tableWidth);
+        System.out.println();
+    }
+}
@@ -15,4 +15,10 @@ public final class CommandConstants {
      * if the user provides no other name.
      */
     public static final String DEFAULT_FILENAME = "hotel_state.csv";
+
+    /**
+     * The default directory used for saving the hotel state as partition files
+     * if the user provides no other name.
+     */
+    public static final String DEFAULT_PARTITION_DIRECTORY = "hotel_state";
 }
@@ -6,6 +6,15 @@ package com.dnikitin.hotel.exceptions;
  */
 public class HotelDataException extends Exception{
 
+    /**
+     * Constructs a new exception with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public HotelDataException(String message) {
+        super(message);
+    }
+
     /**
      * Constructs a new exception with the specified detail message and cause.
      *
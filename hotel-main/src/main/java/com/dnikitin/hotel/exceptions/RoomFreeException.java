@@ -2,9 +2,11 @@ package com.dnikitin.hotel.exceptions;
 
 /**
  * Thrown when an operation (like checkout) is attempted on a room that is already free.
+ * <p>
+ * It is an expected outcome of a checkout, so no stack trace is recorded.
  */
 public class RoomFreeException extends RuntimeException{
     public RoomFreeException(String msg){
-        super(msg);
+        super(msg, null, false, false);
     }
 }
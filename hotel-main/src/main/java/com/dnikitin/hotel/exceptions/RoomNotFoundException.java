@@ -2,9 +2,11 @@ package com.dnikitin.hotel.exceptions;
 
 /**
  * Thrown when an operation is attempted on a room number that does not exist in the hotel.
+ * <p>
+ * Usually caused by user input, so no stack trace is recorded.
  */
 public class RoomNotFoundException extends RuntimeException{
     public RoomNotFoundException(String msg){
-        super(msg);
+        super(msg, null, false, false);
     }
 }
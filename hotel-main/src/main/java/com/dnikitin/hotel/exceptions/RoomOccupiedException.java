@@ -2,9 +2,11 @@ package com.dnikitin.hotel.exceptions;
 
 /**
  * Thrown when an operation (like check-in) is attempted on a room that is already occupied.
+ * <p>
+ * Rejected bookings are frequent and expected, so no stack trace is recorded.
  */
 public class RoomOccupiedException extends RuntimeException{
     public RoomOccupiedException(String msg){
-        super(msg);
+        super(msg, null, false, false);
     }
 }
@@ -2,9 +2,11 @@ package com.dnikitin.hotel.exceptions;
 
 /**
  * Thrown when a check-in is attempted with more guests than the room's capacity allows.
+ * <p>
+ * Caused by the request, not by a bug, so no stack trace is recorded.
  */
 public class RoomSmallCapacityException extends RuntimeException{
     public RoomSmallCapacityException(String msg){
-        super(msg);
+        super(msg, null, false, false);
     }
 }
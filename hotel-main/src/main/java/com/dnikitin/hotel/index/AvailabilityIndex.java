@@ -0,0 +1,347 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.BookingCalendar;
+import com.dnikitin.hotel.model.DateRange;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.map.MyMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Index answering multi-criteria availability queries without scanning every room.
+ * <p>
+ * Every room is filed under the free intervals of its calendar, kept globally and per
+ * floor. A room without any stay is free for every date range. A booked room is free
+ * before its first stay, after its last stay and in the gaps between its stays. Each of
+ * these three kinds of intervals files the room in a {@link CapacityBuckets} structure:
+ * <ul>
+ *     <li>rooms free from the end of their last stay, in a {@link MyMap} keyed by that day,</li>
+ *     <li>rooms free until the start of their first stay, in a {@link MyMap} keyed by that day,</li>
+ *     <li>gaps between two stays, in a {@link GapTree} keyed by the end of the earlier stay
+ *     and the start of the later one.</li>
+ * </ul>
+ * For the nights {@code [from, to)} a query reads the rooms free from a day up to
+ * {@code from}, free until a day from {@code to} on, and the gaps starting on or before
+ * {@code from} and ending on or after {@code to}, all without looking at any calendar.
+ * Inside every interval only the rooms that are big enough and cheap enough are visited. A room fully booked for the range is never visited, so the
+ * cost depends on the days spanned by the stays and on the matching rooms, not on the
+ * number of booked rooms.
+ * <p>
+ * The index is updated by the {@link com.dnikitin.hotel.model.Hotel} on every room
+ * added, removed, checked in or checked out. The rooms are spread over a fixed number of
+ * stripes by room number, each with its own intervals and its own lock, so changes of rooms
+ * in different stripes do not wait for each other. A query visits the stripes one after
+ * another and merges their results.
+ */
+public class AvailabilityIndex {
+
+    private static final int STRIPES = 16;
+
+    /**
+     * Orders rooms the way {@link CapacityBuckets#bestFit(int, double)} picks them:
+     * smallest capacity first, then cheapest.
+     */
+    private static final Comparator<Room> BEST_FIT = Comparator.comparingInt(Room::getCapacity)
+            .thenComparing(CapacityBuckets.BY_PRICE);
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public AvailabilityIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Adds a new room to the index.
+     *
+     * @param room The room to add.
+     */
+    public void roomAdded(Room room) {
+        Stripe stripe = stripeOf(room);
+        synchronized (stripe) {
+            stripe.add(room);
+        }
+    }
+
+    /**
+     * Removes a room from the index.
+     *
+     * @param room The room to remove.
+     */
+    public void roomRemoved(Room room) {
+        Stripe stripe = stripeOf(room);
+        synchronized (stripe) {
+            stripe.remove(room);
+        }
+    }
+
+    /**
+     * Re-files a room under its free intervals after its booking state changed.
+     *
+     * @param room The room that changed.
+     */
+    public void roomChanged(Room room) {
+        Stripe stripe = stripeOf(room);
+        synchronized (stripe) {
+            stripe.remove(room);
+            stripe.add(room);
+        }
+    }
+
+    /**
+     * Removes all rooms from the index.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Finds rooms free for the whole date range that hold at least {@code minCapacity} guests
+     * and cost at most {@code maxPrice} per night, optionally limited to one floor.
+     *
+     * @param dateRange   The nights that must be free.
+     * @param minCapacity The minimal number of guests the room must hold.
+     * @param maxPrice    The maximal base price per night.
+     * @param floor       The floor to search on, or {@code null} for any floor.
+     * @return The matching rooms, cheapest first.
+     */
+    public List<Room> findAvailable(DateRange dateRange, int minCapacity, double maxPrice, Integer floor) {
+        long fromDay = dateRange.from().toEpochDay();
+        long toDay = dateRange.to().toEpochDay();
+        List<Room> result = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                FreeIntervals intervals = floor == null ? stripe.all : stripe.byFloor.get(floor);
+                if (intervals != null) {
+                    intervals.collect(fromDay, toDay, minCapacity, maxPrice, result);
+                }
+            }
+        }
+        result.sort(CapacityBuckets.BY_PRICE);
+        return result;
+    }
+
+    /**
+     * Picks the best-fitting room free for the whole date range: the smallest room that fits
+     * the party, and the cheapest one among those. The candidates are read from the same free
+     * intervals as {@link #findAvailable(DateRange, int, double, Integer)}, but every interval
+     * bucket only contributes its best fit.
+     *
+     * @param dateRange   The nights that must be free.
+     * @param partySize   The number of guests.
+     * @param preferences The optional floor and price limits.
+     * @return The chosen room, or {@code null} if no room fits.
+     */
+    public Room bestAvailableRoom(DateRange dateRange, int partySize, RoomPreferences preferences) {
+        long fromDay = dateRange.from().toEpochDay();
+        long toDay = dateRange.to().toEpochDay();
+        Room best = null;
+        for (Stripe stripe : stripes) {
+            Room candidate = null;
+            synchronized (stripe) {
+                FreeIntervals intervals = preferences.floor() == null
+                        ? stripe.all : stripe.byFloor.get(preferences.floor());
+                if (intervals != null) {
+                    candidate = intervals.bestFit(fromDay, toDay, partySize, preferences.maxPrice());
+                }
+            }
+            if (candidate != null && (best == null || BEST_FIT.compare(candidate, best) < 0)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    //PRIVATE HELPERS
+
+    private Stripe stripeOf(Room room) {
+        int h = room.getRoomNumber() * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * The days a room is filed under, taken from one calendar snapshot, so the room can be
+     * removed again after its calendar changed. A room without stays is filed as {@link #FREE}.
+     *
+     * @param lastEnd    The end of the last stay.
+     * @param firstStart The start of the first stay.
+     * @param gapStarts  The end of every stay that is followed by a gap before the next stay.
+     * @param gapEnds    The start of the stay after each of these gaps.
+     */
+    private record FiledDays(long lastEnd, long firstStart, long[] gapStarts, long[] gapEnds) {
+
+        static final FiledDays FREE = new FiledDays(0, 0, new long[0], new long[0]);
+
+        static FiledDays of(BookingCalendar calendar) {
+            if (calendar.isEmpty()) {
+                return FREE;
+            }
+            long[] starts = new long[calendar.size() - 1];
+            long[] ends = new long[calendar.size() - 1];
+            int count = 0;
+            for (int i = 1; i < calendar.size(); i++) {
+                long previousEnd = BookingCalendar.endOf(calendar.get(i - 1)).toEpochDay();
+                long start = calendar.get(i).checkinDate().toEpochDay();
+                if (start > previousEnd) {
+                    starts[count] = previousEnd;
+                    ends[count++] = start;
+                }
+            }
+            Reservation last = calendar.get(calendar.size() - 1);
+            return new FiledDays(BookingCalendar.endOf(last).toEpochDay(), calendar.get(0).checkinDate().toEpochDay(),
+                    Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+        }
+    }
+
+    /**
+     * The free intervals of the rooms of one stripe, overall and per floor, together with the
+     * days every room is filed under; guarded by the stripe's monitor.
+     */
+    private static final class Stripe {
+        private final FreeIntervals all = new FreeIntervals();
+        private final MyMap<Integer, FreeIntervals> byFloor = new MyMap<>();
+        private final MyMap<Integer, FiledDays> filed = new MyMap<>();
+
+        void add(Room room) {
+            FiledDays days = FiledDays.of(room.getCalendar());
+            all.add(room, days);
+            FreeIntervals floor = byFloor.get(room.getFloor());
+            if (floor == null) {
+                floor = new FreeIntervals();
+                byFloor.put(room.getFloor(), floor);
+            }
+            floor.add(room, days);
+            filed.put(room.getRoomNumber(), days);
+        }
+
+        void remove(Room room) {
+            if (!filed.contains(room.getRoomNumber())) {
+                return;
+            }
+            FiledDays days = filed.get(room.getRoomNumber());
+            filed.remove(room.getRoomNumber());
+            all.remove(room, days);
+            FreeIntervals floor = byFloor.get(room.getFloor());
+            if (floor != null) {
+                floor.remove(room, days);
+                if (floor.isEmpty()) {
+                    byFloor.remove(room.getFloor());
+                }
+            }
+        }
+
+        void clear() {
+            all.clear();
+            byFloor.clear();
+            filed.clear();
+        }
+    }
+
+    /**
+     * The rooms without stays and the three kinds of free intervals of the booked rooms.
+     */
+    private static final class FreeIntervals {
+        private final CapacityBuckets free = new CapacityBuckets();
+        private final MyMap<Long, CapacityBuckets> freeFrom = new MyMap<>();
+        private final MyMap<Long, CapacityBuckets> freeUntil = new MyMap<>();
+        private final GapTree gaps = new GapTree();
+
+        void add(Room room, FiledDays days) {
+            if (days == FiledDays.FREE) {
+                free.add(room);
+                return;
+            }
+            bucket(freeFrom, days.lastEnd()).add(room);
+            bucket(freeUntil, days.firstStart()).add(room);
+            for (int i = 0; i < days.gapEnds().length; i++) {
+                gaps.add(days.gapStarts()[i], days.gapEnds()[i], room);
+            }
+        }
+
+        void remove(Room room, FiledDays days) {
+            if (days == FiledDays.FREE) {
+                free.remove(room);
+                return;
+            }
+            removeFromBucket(freeFrom, days.lastEnd(), room);
+            removeFromBucket(freeUntil, days.firstStart(), room);
+            for (int i = 0; i < days.gapEnds().length; i++) {
+                gaps.remove(days.gapStarts()[i], days.gapEnds()[i], room);
+            }
+        }
+
+        /**
+         * Collects the rooms free for the nights {@code [fromDay, toDay)}. A room can only
+         * match one of its intervals, so no room is collected twice.
+         */
+        void collect(long fromDay, long toDay, int minCapacity, double maxPrice, List<Room> out) {
+            visit(fromDay, toDay, rooms -> rooms.collect(minCapacity, maxPrice, out));
+        }
+
+        /**
+         * Picks the best-fitting room free for the nights {@code [fromDay, toDay)}, comparing
+         * the best fit of every bucket that can hold such a room.
+         */
+        Room bestFit(long fromDay, long toDay, int minCapacity, double maxPrice) {
+            Room[] best = new Room[1];
+            visit(fromDay, toDay, rooms -> {
+                Room candidate = rooms.bestFit(minCapacity, maxPrice);
+                if (candidate != null && (best[0] == null || BEST_FIT.compare(candidate, best[0]) < 0)) {
+                    best[0] = candidate;
+                }
+            });
+            return best[0];
+        }
+
+        /**
+         * Hands every bucket of rooms free for the nights {@code [fromDay, toDay)} to the visitor.
+         */
+        private void visit(long fromDay, long toDay, Consumer<CapacityBuckets> visitor) {
+            visitor.accept(free);
+            for (java.util.Map.Entry<Long, CapacityBuckets> day : freeFrom.range(null, fromDay + 1)) {
+                visitor.accept(day.getValue());
+            }
+            for (java.util.Map.Entry<Long, CapacityBuckets> day : freeUntil.range(toDay, null)) {
+                visitor.accept(day.getValue());
+            }
+            gaps.forEachCovering(fromDay, toDay, visitor);
+        }
+
+        boolean isEmpty() {
+            return free.size() == 0 && freeFrom.isEmpty();
+        }
+
+        void clear() {
+            free.clear();
+            freeFrom.clear();
+            freeUntil.clear();
+            gaps.clear();
+        }
+
+        private static CapacityBuckets bucket(MyMap<Long, CapacityBuckets> byDay, long day) {
+            CapacityBuckets set = byDay.get(day);
+            if (set == null) {
+                set = new CapacityBuckets();
+                byDay.put(day, set);
+            }
+            return set;
+        }
+
+        private static void removeFromBucket(MyMap<Long, CapacityBuckets> byDay, long day, Room room) {
+            CapacityBuckets set = byDay.get(day);
+            if (set != null && set.remove(room) && set.size() == 0) {
+                byDay.remove(day);
+            }
+        }
+    }
+}
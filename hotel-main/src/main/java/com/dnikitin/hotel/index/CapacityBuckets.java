@@ -0,0 +1,118 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.map.MyMap;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A set of rooms bucketed by capacity, with every bucket sorted by price and then room number.
+ * <p>
+ * The capacity buckets live in a {@link MyMap}, so all buckets that can hold a party of
+ * a given size are reached with one O(log n) range lookup. Inside a bucket rooms are
+ * visited cheapest first, and the scan stops as soon as the price limit is exceeded.
+ */
+class CapacityBuckets {
+
+    /**
+     * Orders rooms by their base price and then by room number.
+     */
+    static final Comparator<Room> BY_PRICE = Comparator.comparingDouble(Room::getPrice)
+            .thenComparingInt(Room::getRoomNumber);
+
+    private final MyMap<Integer, MyMap<Room, Room>> buckets = new MyMap<>();
+    private int size;
+
+    /**
+     * Adds a room to its capacity bucket.
+     *
+     * @param room The room to add.
+     */
+    void add(Room room) {
+        MyMap<Room, Room> bucket = buckets.get(room.getCapacity());
+        if (bucket == null) {
+            bucket = new MyMap<>(BY_PRICE);
+            buckets.put(room.getCapacity(), bucket);
+        }
+        if (!bucket.contains(room)) {
+            size++;
+        }
+        bucket.put(room, room);
+    }
+
+    /**
+     * Removes a room from its capacity bucket. Empty buckets are dropped.
+     *
+     * @param room The room to remove.
+     * @return true if the room was present.
+     */
+    boolean remove(Room room) {
+        MyMap<Room, Room> bucket = buckets.get(room.getCapacity());
+        if (bucket == null || !bucket.remove(room)) {
+            return false;
+        }
+        size--;
+        if (bucket.isEmpty()) {
+            buckets.remove(room.getCapacity());
+        }
+        return true;
+    }
+
+    /**
+     * Collects rooms with at least {@code minCapacity} places and a price not above
+     * {@code maxPrice}.
+     *
+     * @param minCapacity The minimal room capacity.
+     * @param maxPrice    The maximal price per night.
+     * @param out         The list the matching rooms are appended to.
+     */
+    void collect(int minCapacity, double maxPrice, List<Room> out) {
+        for (java.util.Map.Entry<Integer, MyMap<Room, Room>> bucket : buckets.range(minCapacity, null)) {
+            for (java.util.Map.Entry<Room, Room> entry : bucket.getValue()) {
+                Room room = entry.getValue();
+                if (room.getPrice() > maxPrice) {
+                    break;
+                }
+                out.add(room);
+            }
+        }
+    }
+
+    /**
+     * Picks the best-fitting room: the smallest capacity of at least {@code minCapacity}
+     * and, within that capacity, the cheapest room not above {@code maxPrice}. Only the
+     * cheapest room of every capacity is looked at.
+     *
+     * @param minCapacity The number of guests the room must hold.
+     * @param maxPrice    The maximal price per night.
+     * @return The best-fitting room, or {@code null} if none qualifies.
+     */
+    Room bestFit(int minCapacity, double maxPrice) {
+        for (java.util.Map.Entry<Integer, MyMap<Room, Room>> bucket : buckets.range(minCapacity, null)) {
+            Room cheapest = bucket.getValue().firstEntry().getValue();
+            if (cheapest.getPrice() <= maxPrice) {
+                return cheapest;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the underlying buckets, keyed by capacity.
+     *
+     * @return The capacity buckets.
+     */
+    MyMap<Integer, MyMap<Room, Room>> buckets() {
+        return buckets;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        buckets.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.map.MyMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks which rooms changed since a given version of the hotel state.
+ * <p>
+ * Every change increments the state version and stamps the changed room with it. Recording
+ * a change takes no lock: the version is an {@link AtomicLong} and the stamp is appended to
+ * a concurrent queue. The stamps are sorted into two {@link MyMap}s, one keyed by room number
+ * and one by version, only when the changed rooms are listed (i.e. when a save runs), or in
+ * the background of a change once many stamps have piled up. Listing the rooms changed after
+ * a version then costs O(log n + k) for k changed rooms, no matter how many rooms the hotel
+ * has. Replacing all rooms (e.g. by loading a file) is tracked as a single reset, after which
+ * no earlier version can be brought up to date room by room.
+ * <p>
+ * All methods can be called from any thread.
+ */
+public class ChangeTracker {
+
+    private static final int DRAIN_THRESHOLD = 4096;
+
+    private final AtomicLong version = new AtomicLong();
+    private final ConcurrentLinkedQueue<Stamp> stamps = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile long resetVersion;
+
+    // guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final MyMap<Integer, Long> versionByRoom = new MyMap<>();
+    private final MyMap<Long, Integer> roomByVersion = new MyMap<>();
+
+    private record Stamp(long version, int roomNumber) {
+    }
+
+    /**
+     * Records a change of one room: added, replaced, booked or checked out.
+     *
+     * @param roomNumber The changed room.
+     * @return The new state version.
+     */
+    public long roomChanged(int roomNumber) {
+        long stamped = version.incrementAndGet();
+        stamps.add(new Stamp(stamped, roomNumber));
+        if (pending.incrementAndGet() >= DRAIN_THRESHOLD && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return stamped;
+    }
+
+    /**
+     * Records that all rooms were replaced at once. It must not run concurrently with
+     * {@link #roomChanged(int)}; the hotel calls both under its state lock.
+     *
+     * @return The new state version.
+     */
+    public long reset() {
+        lock.lock();
+        try {
+            stamps.clear();
+            pending.set(0);
+            versionByRoom.clear();
+            roomByVersion.clear();
+            long stamped = version.incrementAndGet();
+            resetVersion = stamped;
+            return stamped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current state version; it grows with every change.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Returns whether all rooms were replaced after the given version.
+     *
+     * @param since The version to compare with.
+     */
+    public boolean resetSince(long since) {
+        return resetVersion > since;
+    }
+
+    /**
+     * Returns the rooms changed after the given version, in the order of their last change.
+     * The result is only complete if {@link #resetSince(long)} is {@code false}, and only
+     * covers the changes that completed before the call.
+     *
+     * @param since The version to compare with.
+     * @return The numbers of the changed rooms.
+     */
+    public List<Integer> changedSince(long since) {
+        lock.lock();
+        try {
+            drain();
+            List<Integer> changed = new ArrayList<>();
+            for (java.util.Map.Entry<Long, Integer> entry : roomByVersion.range(since + 1, Long.MAX_VALUE)) {
+                changed.add(entry.getValue());
+            }
+            return changed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //PRIVATE HELPERS
+
+    /**
+     * Sorts the queued stamps into the ordered maps; the caller holds the lock. Stamps may
+     * arrive out of version order, so a stamp older than the room's current one is dropped.
+     */
+    private void drain() {
+        Stamp stamp;
+        while ((stamp = stamps.poll()) != null) {
+            pending.decrementAndGet();
+            Long previous = versionByRoom.get(stamp.roomNumber());
+            if (previous != null) {
+                if (previous > stamp.version()) {
+                    continue;
+                }
+                roomByVersion.remove(previous);
+            }
+            versionByRoom.put(stamp.roomNumber(), stamp.version());
+            roomByVersion.put(stamp.version(), stamp.roomNumber());
+        }
+    }
+}
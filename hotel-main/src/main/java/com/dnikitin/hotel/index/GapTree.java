@@ -0,0 +1,206 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Room;
+
+import java.util.function.Consumer;
+
+/**
+ * The gaps between the stays of rooms, as an interval tree: an AVL tree keyed by the start
+ * and then the end day of a gap, where every node also knows the latest end day in its subtree.
+ * Rooms sharing the same gap share one {@link CapacityBuckets} node.
+ * <p>
+ * Finding the gaps that cover the nights {@code [fromDay, toDay)} (start on or before
+ * {@code fromDay}, end on or after {@code toDay}) skips every subtree whose gaps all end
+ * before {@code toDay} and every subtree right of a gap starting after {@code fromDay}, so
+ * it costs O(log n) per covering gap instead of visiting every gap ending after {@code toDay}.
+ */
+final class GapTree {
+
+    private Node root;
+
+    /**
+     * Files a room under a gap.
+     *
+     * @param start The first free day, the end of the stay before the gap.
+     * @param end   The day the gap ends, the start of the stay after it.
+     * @param room  The room.
+     */
+    void add(long start, long end, Room room) {
+        root = add(root, start, end, room);
+    }
+
+    /**
+     * Removes a room from a gap. A gap without rooms is dropped.
+     *
+     * @param start The first free day of the gap.
+     * @param end   The day the gap ends.
+     * @param room  The room.
+     */
+    void remove(long start, long end, Room room) {
+        root = remove(root, start, end, room);
+    }
+
+    /**
+     * Hands the rooms of every gap that covers the nights {@code [fromDay, toDay)} to the visitor.
+     *
+     * @param fromDay The first night, as epoch day.
+     * @param toDay   The day after the last night, as epoch day.
+     * @param visitor Receives the rooms of one covering gap at a time.
+     */
+    void forEachCovering(long fromDay, long toDay, Consumer<CapacityBuckets> visitor) {
+        forEachCovering(root, fromDay, toDay, visitor);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    //PRIVATE HELPERS
+
+    private static void forEachCovering(Node node, long fromDay, long toDay, Consumer<CapacityBuckets> visitor) {
+        while (node != null && node.maxEnd >= toDay) {
+            forEachCovering(node.left, fromDay, toDay, visitor);
+            if (node.start > fromDay) {
+                // the right subtree only holds gaps starting even later
+                return;
+            }
+            if (node.end >= toDay) {
+                visitor.accept(node.rooms);
+            }
+            node = node.right;
+        }
+    }
+
+    private static Node add(Node node, long start, long end, Room room) {
+        if (node == null) {
+            Node created = new Node(start, end);
+            created.rooms.add(room);
+            return created;
+        }
+        int cmp = compare(start, end, node);
+        if (cmp < 0) {
+            node.left = add(node.left, start, end, room);
+        } else if (cmp > 0) {
+            node.right = add(node.right, start, end, room);
+        } else {
+            node.rooms.add(room);
+        }
+        return node.balance();
+    }
+
+    private static Node remove(Node node, long start, long end, Room room) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, end, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, end, room);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, end, room);
+        } else if (!node.rooms.remove(room) || node.rooms.size() > 0) {
+            return node;
+        } else if (node.left == null || node.right == null) {
+            return node.left == null ? node.right : node.left;
+        } else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeFirst(node.right);
+            successor.left = node.left;
+            successor.right = node.right;
+            node = successor;
+        }
+        return node.balance();
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeFirst(node.left);
+        return node.balance();
+    }
+
+    private static int compare(long start, long end, Node node) {
+        int cmp = Long.compare(start, node.start);
+        return cmp != 0 ? cmp : Long.compare(end, node.end);
+    }
+
+    private static final class Node {
+        private final long start;
+        private final long end;
+        private final CapacityBuckets rooms = new CapacityBuckets();
+        private Node left;
+        private Node right;
+        private int height = 1;
+        private long maxEnd;
+
+        Node(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+
+        /**
+         * Restores the AVL balance of this subtree after one of its children changed and
+         * recomputes the height and latest end day of every node that moved.
+         *
+         * @return The new root of the subtree.
+         */
+        Node balance() {
+            update();
+            int balance = heightOf(left) - heightOf(right);
+            if (balance > 1) {
+                if (heightOf(left.left) < heightOf(left.right)) {
+                    left = left.rotateLeft();
+                }
+                return rotateRight();
+            }
+            if (balance < -1) {
+                if (heightOf(right.right) < heightOf(right.left)) {
+                    right = right.rotateRight();
+                }
+                return rotateLeft();
+            }
+            return this;
+        }
+
+        private Node rotateRight() {
+            Node pivot = left;
+            left = pivot.right;
+            pivot.right = this;
+            update();
+            pivot.update();
+            return pivot;
+        }
+
+        private Node rotateLeft() {
+            Node pivot = right;
+            right = pivot.left;
+            pivot.left = this;
+            update();
+            pivot.update();
+            return pivot;
+        }
+
+        private void update() {
+            height = Math.max(heightOf(left), heightOf(right)) + 1;
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+
+        private static int heightOf(Node node) {
+            return node == null ? 0 : node.height;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Reservation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Incrementally maintained index of all main and additional guests of all stays.
+ * <p>
+ * Guests are stored under their normalized name (trimmed, lower case, single spaces)
+ * in a sorted map. Because the names are sorted, all names sharing a prefix form
+ * one contiguous key range, so prefix search behaves like a trie walk: O(log n) to
+ * reach the prefix plus O(k) for the hits. Exact lookups are a single O(log n) get.
+ * <p>
+ * For fuzzy matching every name is also split into trigrams kept in an inverted
+ * index; a query only scores names that share at least one trigram with it, ranked
+ * by their Dice similarity.
+ * <p>
+ * Both maps are concurrent, so searches take no lock. Changes take the lock of one of a
+ * fixed number of stripes, chosen by the normalized name, so bookings of guests with
+ * different names do not wait for each other. The matches of one name are kept in a concurrent
+ * sorted map keyed by room, check-in day and position of the guest in the stay, so adding or
+ * removing one of k guests sharing a name costs O(log k), and matches come out in that order.
+ */
+public class GuestIndex {
+
+    /**
+     * Minimal Dice similarity of trigram sets for a name to count as a fuzzy match.
+     */
+    private static final double FUZZY_THRESHOLD = 0.4;
+
+    private static final int STRIPES = 16;
+
+    private final ConcurrentSkipListMap<String, ConcurrentSkipListMap<Slot, GuestMatch>> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object[] stripes = new Object[STRIPES];
+
+    public GuestIndex() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Indexes all guests of a stay.
+     *
+     * @param roomNumber  The room of the stay.
+     * @param reservation The stay.
+     */
+    public void reservationAdded(int roomNumber, Reservation reservation) {
+        add(new GuestMatch(reservation.mainGuest().name(), roomNumber, reservation, true), 0);
+        List<Guest> additionalGuests = reservation.additionalGuests();
+        for (int i = 0; i < additionalGuests.size(); i++) {
+            add(new GuestMatch(additionalGuests.get(i).name(), roomNumber, reservation, false), i + 1);
+        }
+    }
+
+    /**
+     * Removes all guests of a stay from the index.
+     *
+     * @param roomNumber  The room of the stay.
+     * @param reservation The stay.
+     */
+    public void reservationRemoved(int roomNumber, Reservation reservation) {
+        remove(reservation.mainGuest().name(), roomNumber, reservation, 0);
+        List<Guest> additionalGuests = reservation.additionalGuests();
+        for (int i = 0; i < additionalGuests.size(); i++) {
+            remove(additionalGuests.get(i).name(), roomNumber, reservation, i + 1);
+        }
+    }
+
+    /**
+     * Removes all guests from the index. It must not run concurrently with other changes.
+     */
+    public void clear() {
+        byName.clear();
+        trigrams.clear();
+        size.set(0);
+    }
+
+    /**
+     * Finds guests whose name equals the query, ignoring case and extra whitespace.
+     *
+     * @param name The name to look for.
+     * @return All matching guests.
+     */
+    public List<GuestMatch> findExact(String name) {
+        Map<Slot, GuestMatch> matches = byName.get(normalize(name));
+        return matches == null ? List.of() : new ArrayList<>(matches.values());
+    }
+
+    /**
+     * Finds guests whose name starts with the given prefix, in alphabetical order.
+     *
+     * @param prefix The beginning of the name.
+     * @param limit  The maximal number of results.
+     * @return The matching guests.
+     */
+    public List<GuestMatch> findByPrefix(String prefix, int limit) {
+        String from = normalize(prefix);
+        List<GuestMatch> result = new ArrayList<>();
+        if (from.isEmpty()) {
+            return result;
+        }
+        // every name starting with the prefix sorts before prefix + the highest char
+        String to = from + Character.MAX_VALUE;
+        for (Map<Slot, GuestMatch> matches : byName.subMap(from, to).values()) {
+            for (GuestMatch match : matches.values()) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(match);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds guests whose name is similar to the query (e.g. misspelled), best matches first.
+     *
+     * @param query The approximate name.
+     * @param limit The maximal number of results.
+     * @return The matching guests.
+     */
+    public List<GuestMatch> findFuzzy(String query, int limit) {
+        Set<String> queryTrigrams = trigramsOf(normalize(query));
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            for (String name : trigrams.getOrDefault(trigram, Set.of())) {
+                shared.merge(name, 1, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Double>> scored = new ArrayList<>();
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            int candidateSize = trigramsOf(candidate.getKey()).size();
+            double dice = 2.0 * candidate.getValue() / (queryTrigrams.size() + candidateSize);
+            if (dice >= FUZZY_THRESHOLD) {
+                scored.add(Map.entry(candidate.getKey(), dice));
+            }
+        }
+        scored.sort(Map.Entry.<String, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        List<GuestMatch> result = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : scored) {
+            Map<Slot, GuestMatch> matches = byName.get(entry.getKey());
+            if (matches == null) {
+                continue;
+            }
+            for (GuestMatch match : matches.values()) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(match);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The number of indexed guest records.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    //PRIVATE HELPERS
+
+    private void add(GuestMatch match, int position) {
+        String key = normalize(match.name());
+        Slot slot = Slot.of(match.roomNumber(), match.reservation(), position);
+        synchronized (stripeOf(key)) {
+            ConcurrentSkipListMap<Slot, GuestMatch> matches = byName.get(key);
+            if (matches == null) {
+                matches = new ConcurrentSkipListMap<>();
+                byName.put(key, matches);
+                for (String trigram : trigramsOf(key)) {
+                    trigrams.compute(trigram, (t, names) -> {
+                        Set<String> result = names == null ? ConcurrentHashMap.newKeySet() : names;
+                        result.add(key);
+                        return result;
+                    });
+                }
+            }
+            if (matches.put(slot, match) == null) {
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    private void remove(String name, int roomNumber, Reservation reservation, int position) {
+        String key = normalize(name);
+        synchronized (stripeOf(key)) {
+            ConcurrentSkipListMap<Slot, GuestMatch> matches = byName.get(key);
+            if (matches == null) {
+                return;
+            }
+            Slot slot = Slot.of(roomNumber, reservation, position);
+            GuestMatch match = matches.get(slot);
+            if (match != null && match.reservation().equals(reservation)) {
+                matches.remove(slot);
+                size.decrementAndGet();
+            }
+            if (!matches.isEmpty()) {
+                return;
+            }
+            byName.remove(key);
+            for (String trigram : trigramsOf(key)) {
+                trigrams.computeIfPresent(trigram, (t, names) -> {
+                    names.remove(key);
+                    return names.isEmpty() ? null : names;
+                });
+            }
+        }
+    }
+
+    private Object stripeOf(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * Where a guest record sits: the stays of a room never overlap, so the room, the check-in
+     * day and the position of the guest in the stay (0 for the main guest) identify it.
+     */
+    private record Slot(int roomNumber, long checkinDay, int position) implements Comparable<Slot> {
+
+        static Slot of(int roomNumber, Reservation reservation, int position) {
+            return new Slot(roomNumber, reservation.checkinDate().toEpochDay(), position);
+        }
+
+        @Override
+        public int compareTo(Slot other) {
+            int result = Integer.compare(roomNumber, other.roomNumber);
+            if (result == 0) {
+                result = Long.compare(checkinDay, other.checkinDay);
+            }
+            return result != 0 ? result : Integer.compare(position, other.position);
+        }
+    }
+
+    /**
+     * Normalizes a name for indexing: trimmed, lower case and with single spaces.
+     */
+    static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a normalized name into trigrams, padding it so that short names
+     * and word boundaries also produce trigrams.
+     */
+    static Set<String> trigramsOf(String normalized) {
+        Set<String> result = new HashSet<>();
+        String padded = "  " + normalized + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Reservation;
+
+/**
+ * A single hit of a guest search: a guest together with the room and stay they belong to.
+ *
+ * @param name        The guest's name as it was entered.
+ * @param roomNumber  The room of the stay.
+ * @param reservation The stay the guest belongs to.
+ * @param mainGuest   true if the guest is the main guest of the stay.
+ */
+public record GuestMatch(String name, int roomNumber, Reservation reservation, boolean mainGuest) {
+}
@@ -0,0 +1,299 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.map.MyMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The primary store of the hotel's rooms, keyed by room number, together with any number
+ * of named secondary indexes.
+ * <p>
+ * A secondary index is declared with a key-extractor function, e.g. {@code Room::getPrice}.
+ * Every index is a sorted map from the extracted key (never {@code null}) to the rooms
+ * sharing that key, so an exact lookup costs O(log n + k) and a range scan returns the rooms
+ * already sorted by the index key, without sorting on every call.
+ * <p>
+ * Keys may depend on the booking state of a room. After such a change the owner calls
+ * {@link #reindex(Room)}, which moves the room under its new keys. The key every room
+ * was filed under is remembered, so the old entry is found even though the room changed.
+ * <p>
+ * The primary map is a {@link MyMap}. It only changes when rooms are added or removed,
+ * which must not run concurrently with any other call; the hotel makes these changes under
+ * the write lock of its state and everything else under the read lock, so lookups by room
+ * number take no lock of their own. Keys change on every booking, which the hotel runs for
+ * many rooms at once, so the indexes are {@link ConcurrentSkipListMap}s: scans and
+ * {@link #reindex(Room)} of a room whose keys did not change take no lock at all, and moving
+ * a room to a new key is synchronized on its index only. Readers see every completed move,
+ * but a scan running next to a move may miss the moving room.
+ */
+public class IndexedRoomStore implements Iterable<Room> {
+
+    private final MyMap<Integer, Room> primary = new MyMap<>();
+    private final ConcurrentHashMap<String, SecondaryIndex<?>> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Declares a secondary index ordered by the natural ordering of its keys.
+     * Rooms already in the store are indexed immediately.
+     *
+     * @param name         The unique name of the index.
+     * @param keyExtractor The function computing the index key of a room.
+     * @param <K>          The type of the index key.
+     * @throws IllegalArgumentException if an index with the same name already exists.
+     */
+    public synchronized <K extends Comparable<? super K>> void addIndex(String name, Function<Room, K> keyExtractor) {
+        addIndex(name, keyExtractor, Comparator.naturalOrder());
+    }
+
+    /**
+     * Declares a secondary index ordered by the given comparator.
+     * Rooms already in the store are indexed immediately.
+     *
+     * @param name         The unique name of the index.
+     * @param keyExtractor The function computing the index key of a room.
+     * @param keyOrder     The order of the index keys.
+     * @param <K>          The type of the index key.
+     * @throws IllegalArgumentException if an index with the same name already exists.
+     */
+    public synchronized <K> void addIndex(String name, Function<Room, K> keyExtractor, Comparator<? super K> keyOrder) {
+        if (indexes.containsKey(name)) {
+            throw new IllegalArgumentException("Index " + name + " already exists");
+        }
+        SecondaryIndex<K> index = new SecondaryIndex<>(keyExtractor, keyOrder);
+        for (Room room : this) {
+            index.add(room);
+        }
+        indexes.put(name, index);
+    }
+
+    /**
+     * Stores a room, replacing a room with the same number.
+     *
+     * @param room The room to store.
+     * @return The replaced room, or {@code null} if there was none.
+     */
+    public synchronized Room put(Room room) {
+        Room previous = remove(room.getRoomNumber());
+        primary.put(room.getRoomNumber(), room);
+        for (SecondaryIndex<?> index : indexes.values()) {
+            index.add(room);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the room with the given number from the store and all indexes.
+     *
+     * @param roomNumber The room number.
+     * @return The removed room, or {@code null} if there was none.
+     */
+    public synchronized Room remove(int roomNumber) {
+        Room room = primary.get(roomNumber);
+        if (room == null) {
+            return null;
+        }
+        primary.remove(roomNumber);
+        for (SecondaryIndex<?> index : indexes.values()) {
+            index.remove(room);
+        }
+        return room;
+    }
+
+    /**
+     * Moves a room under its current index keys after its state has changed.
+     * Indexes whose key did not change are left untouched, without taking any lock.
+     * Concurrent calls for the same room must be ordered by the caller, and like every
+     * lookup it must not run next to adding or removing rooms.
+     *
+     * @param room The changed room.
+     */
+    public void reindex(Room room) {
+        if (primary.get(room.getRoomNumber()) != room) {
+            return;
+        }
+        for (SecondaryIndex<?> index : indexes.values()) {
+            index.update(room);
+        }
+    }
+
+    public Room get(int roomNumber) {
+        return primary.get(roomNumber);
+    }
+
+    public boolean contains(int roomNumber) {
+        return primary.contains(roomNumber);
+    }
+
+    public int size() {
+        return primary.size();
+    }
+
+    public boolean isEmpty() {
+        return primary.isEmpty();
+    }
+
+    /**
+     * Removes all rooms. Declared indexes are kept, but emptied.
+     */
+    public synchronized void clear() {
+        primary.clear();
+        for (SecondaryIndex<?> index : indexes.values()) {
+            index.clear();
+        }
+    }
+
+    /**
+     * Returns the rooms whose index key equals the given key, ordered by room number.
+     *
+     * @param indexName The name of the index.
+     * @param key       The key to look up.
+     * @param <K>       The type of the index key.
+     * @return The matching rooms, possibly empty.
+     * @throws IllegalArgumentException if no index with that name exists.
+     */
+    public <K> List<Room> lookup(String indexName, K key) {
+        SecondaryIndex<K> index = index(indexName);
+        NavigableMap<Integer, Room> rooms = index.entries.get(key);
+        return rooms == null ? new ArrayList<>() : new ArrayList<>(rooms.values());
+    }
+
+    /**
+     * Returns the rooms whose index key lies in {@code [fromInclusive, toExclusive)},
+     * sorted by the index key and then by room number. A {@code null} bound is unbounded.
+     *
+     * @param indexName     The name of the index.
+     * @param fromInclusive The lower bound, or {@code null}.
+     * @param toExclusive   The upper bound, or {@code null}.
+     * @param <K>           The type of the index key.
+     * @return The matching rooms, possibly empty.
+     * @throws IllegalArgumentException if no index with that name exists.
+     */
+    public <K> List<Room> range(String indexName, K fromInclusive, K toExclusive) {
+        SecondaryIndex<K> index = index(indexName);
+        NavigableMap<K, ConcurrentSkipListMap<Integer, Room>> entries = index.entries;
+        if (fromInclusive != null) {
+            entries = entries.tailMap(fromInclusive, true);
+        }
+        if (toExclusive != null) {
+            entries = entries.headMap(toExclusive, false);
+        }
+        List<Room> result = new ArrayList<>();
+        for (ConcurrentSkipListMap<Integer, Room> rooms : entries.values()) {
+            result.addAll(rooms.values());
+        }
+        return result;
+    }
+
+    /**
+     * Returns all rooms sorted by the key of the given index and then by room number.
+     *
+     * @param indexName The name of the index.
+     * @return All rooms in index order.
+     * @throws IllegalArgumentException if no index with that name exists.
+     */
+    public List<Room> scan(String indexName) {
+        return range(indexName, null, null);
+    }
+
+    /**
+     * Returns all rooms in ascending order of their numbers.
+     *
+     * @return A copy of the rooms, safe to use while the store changes.
+     */
+    public List<Room> toList() {
+        List<Room> rooms = new ArrayList<>(primary.size());
+        forEach(rooms::add);
+        return rooms;
+    }
+
+    /**
+     * Returns an iterator over a copy of all rooms in ascending order of their numbers.
+     */
+    @Override
+    public Iterator<Room> iterator() {
+        return toList().iterator();
+    }
+
+    /**
+     * Passes all rooms to the action in ascending order of their numbers, straight from the
+     * primary map instead of a copy.
+     */
+    @Override
+    public void forEach(Consumer<? super Room> action) {
+        for (java.util.Map.Entry<Integer, Room> entry : primary) {
+            action.accept(entry.getValue());
+        }
+    }
+
+    //PRIVATE HELPERS
+
+    @SuppressWarnings("unchecked")
+    private <K> SecondaryIndex<K> index(String name) {
+        SecondaryIndex<?> index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown index " + name);
+        }
+        return (SecondaryIndex<K>) index;
+    }
+
+    /**
+     * A single secondary index: extracted key -> rooms with that key, ordered by room number.
+     * The key each room is currently filed under is kept in {@code filedUnder}. Changes of
+     * the index are synchronized on the index itself, so the indexes of one store do not
+     * wait for each other, and an unchanged key is recognized without any lock.
+     */
+    private static final class SecondaryIndex<K> {
+        private final Function<Room, K> keyExtractor;
+        private final ConcurrentSkipListMap<K, ConcurrentSkipListMap<Integer, Room>> entries;
+        private final ConcurrentHashMap<Integer, K> filedUnder = new ConcurrentHashMap<>();
+
+        SecondaryIndex(Function<Room, K> keyExtractor, Comparator<? super K> keyOrder) {
+            this.keyExtractor = keyExtractor;
+            this.entries = new ConcurrentSkipListMap<>(keyOrder);
+        }
+
+        synchronized void add(Room room) {
+            K key = keyExtractor.apply(room);
+            entries.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>()).put(room.getRoomNumber(), room);
+            filedUnder.put(room.getRoomNumber(), key);
+        }
+
+        synchronized void remove(Room room) {
+            int roomNumber = room.getRoomNumber();
+            K key = filedUnder.remove(roomNumber);
+            if (key == null) {
+                return;
+            }
+            ConcurrentSkipListMap<Integer, Room> rooms = entries.get(key);
+            rooms.remove(roomNumber);
+            if (rooms.isEmpty()) {
+                entries.remove(key);
+            }
+        }
+
+        void update(Room room) {
+            K previous = filedUnder.get(room.getRoomNumber());
+            if (previous != null && Objects.equals(keyExtractor.apply(room), previous)) {
+                return;
+            }
+            synchronized (this) {
+                remove(room);
+                add(room);
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            filedUnder.clear();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.BookingCalendar;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Occupancy and revenue counters of the hotel, kept overall and per floor.
+ * <p>
+ * Every counter is a {@link LongAdder} updated in O(1) on each booking change, so
+ * reports never have to walk the rooms and concurrent updates are never lost.
+ * A room counts as booked while it holds any stay, current or future; whether it
+ * became booked or unbooked is read from the calendar installed by the change, not
+ * from the room, which another thread may have changed again in the meantime.
+ * <p>
+ * Revenue is counted in whole cents to keep the sums exact. The projected revenue
+ * of every stay is remembered when it is booked, so the same amount is subtracted
+ * on checkout, and recalculated when the room's seasonal rates change.
+ */
+public class OccupancyStats {
+
+    /**
+     * Identifies a single stay: a room never holds two stays starting on the same day.
+     */
+    private record StayKey(int roomNumber, LocalDate checkinDate) {
+    }
+
+    private final Counters total = new Counters();
+    private final Map<Integer, Counters> floors = new ConcurrentHashMap<>();
+    private final Map<StayKey, Long> stayRevenue = new ConcurrentHashMap<>();
+
+    /**
+     * Counts a new room together with all the stays it already holds.
+     *
+     * @param room The room added to the hotel.
+     */
+    public void roomAdded(Room room) {
+        Counters floor = floor(room.getFloor());
+        total.rooms.increment();
+        floor.rooms.increment();
+        total.beds.add(room.getCapacity());
+        floor.beds.add(room.getCapacity());
+        if (!room.isFree()) {
+            total.booked.increment();
+            floor.booked.increment();
+        }
+        for (Reservation reservation : room.getReservations()) {
+            countStay(room, reservation, floor);
+        }
+    }
+
+    /**
+     * Removes a room and all its stays from the counters.
+     *
+     * @param room The room removed from the hotel.
+     */
+    public void roomRemoved(Room room) {
+        Counters floor = floor(room.getFloor());
+        total.rooms.decrement();
+        floor.rooms.decrement();
+        total.beds.add(-room.getCapacity());
+        floor.beds.add(-room.getCapacity());
+        if (!room.isFree()) {
+            total.booked.decrement();
+            floor.booked.decrement();
+        }
+        for (Reservation reservation : room.getReservations()) {
+            uncountStay(room, reservation, floor);
+        }
+    }
+
+    /**
+     * Counts a stay that was just booked into the room.
+     *
+     * @param room        The room, already holding the stay.
+     * @param reservation The new stay.
+     * @param calendar    The calendar installed by the booking.
+     */
+    public void reservationAdded(Room room, Reservation reservation, BookingCalendar calendar) {
+        Counters floor = floor(room.getFloor());
+        if (calendar.size() == 1) {
+            total.booked.increment();
+            floor.booked.increment();
+        }
+        countStay(room, reservation, floor);
+    }
+
+    /**
+     * Removes a stay that was just checked out of the room.
+     *
+     * @param room        The room, no longer holding the stay.
+     * @param reservation The removed stay.
+     * @param calendar    The calendar installed by the checkout.
+     */
+    public void reservationRemoved(Room room, Reservation reservation, BookingCalendar calendar) {
+        Counters floor = floor(room.getFloor());
+        if (calendar.isEmpty()) {
+            total.booked.decrement();
+            floor.booked.decrement();
+        }
+        uncountStay(room, reservation, floor);
+    }
+
+    /**
+     * Recalculates the projected revenue of the room's stays after its seasonal rates changed.
+     * A stay checked out concurrently is either recalculated before it is subtracted or not at all.
+     *
+     * @param room The room whose rates changed.
+     */
+    public void ratesChanged(Room room) {
+        Counters floor = floor(room.getFloor());
+        for (Reservation reservation : room.getReservations()) {
+            long[] delta = new long[1];
+            stayRevenue.computeIfPresent(new StayKey(room.getRoomNumber(), reservation.checkinDate()), (key, old) -> {
+                long cents = priceInCents(room, reservation);
+                delta[0] = cents - old;
+                return cents;
+            });
+            total.revenueCents.add(delta[0]);
+            floor.revenueCents.add(delta[0]);
+        }
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void clear() {
+        total.reset();
+        floors.clear();
+        stayRevenue.clear();
+    }
+
+    /**
+     * Reads the counters of the whole hotel.
+     *
+     * @return The current totals.
+     */
+    public Snapshot total() {
+        return total.snapshot(0);
+    }
+
+    /**
+     * Reads the counters of every floor that has rooms.
+     *
+     * @return The per-floor totals, ordered by floor number.
+     */
+    public Map<Integer, Snapshot> byFloor() {
+        Map<Integer, Snapshot> result = new TreeMap<>();
+        for (Map.Entry<Integer, Counters> entry : floors.entrySet()) {
+            Snapshot snapshot = entry.getValue().snapshot(entry.getKey());
+            if (snapshot.rooms() > 0) {
+                result.put(entry.getKey(), snapshot);
+            }
+        }
+        return result;
+    }
+
+    //PRIVATE HELPERS
+
+    private Counters floor(int floor) {
+        return floors.computeIfAbsent(floor, f -> new Counters());
+    }
+
+    private static long priceInCents(Room room, Reservation reservation) {
+        return Math.round(room.priceStay(reservation.checkinDate(), BookingCalendar.endOf(reservation)) * 100);
+    }
+
+    private void countStay(Room room, Reservation reservation, Counters floor) {
+        long cents = priceInCents(room, reservation);
+        stayRevenue.put(new StayKey(room.getRoomNumber(), reservation.checkinDate()), cents);
+
+        int guests = reservation.additionalGuests().size() + 1;
+        total.stays.increment();
+        floor.stays.increment();
+        total.guests.add(guests);
+        floor.guests.add(guests);
+        total.revenueCents.add(cents);
+        floor.revenueCents.add(cents);
+    }
+
+    private void uncountStay(Room room, Reservation reservation, Counters floor) {
+        Long cents = stayRevenue.remove(new StayKey(room.getRoomNumber(), reservation.checkinDate()));
+        if (cents == null) {
+            return;
+        }
+        int guests = reservation.additionalGuests().size() + 1;
+        total.stays.decrement();
+        floor.stays.decrement();
+        total.guests.add(-guests);
+        floor.guests.add(-guests);
+        total.revenueCents.add(-cents);
+        floor.revenueCents.add(-cents);
+    }
+
+    /**
+     * A point-in-time reading of the counters.
+     *
+     * @param floor            The floor number, or 0 for the whole hotel.
+     * @param rooms            The number of rooms.
+     * @param bookedRooms      The number of rooms holding at least one stay, current or future.
+     * @param beds             The total capacity of the rooms.
+     * @param stays            The number of booked stays.
+     * @param guests           The number of guests in all booked stays.
+     * @param projectedRevenue The total price of all booked stays.
+     */
+    public record Snapshot(int floor, long rooms, long bookedRooms, long beds,
+                           long stays, long guests, double projectedRevenue) {
+
+        /**
+         * @return The number of rooms without any stay.
+         */
+        public long unbookedRooms() {
+            return rooms - bookedRooms;
+        }
+
+        /**
+         * @return The share of booked rooms in percent.
+         */
+        public double bookedPercent() {
+            return rooms == 0 ? 0 : 100.0 * bookedRooms / rooms;
+        }
+    }
+
+    /**
+     * The set of counters kept for the hotel and for each floor.
+     */
+    private static final class Counters {
+        final LongAdder rooms = new LongAdder();
+        final LongAdder booked = new LongAdder();
+        final LongAdder beds = new LongAdder();
+        final LongAdder stays = new LongAdder();
+        final LongAdder guests = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+
+        Snapshot snapshot(int floor) {
+            return new Snapshot(floor, rooms.sum(), booked.sum(), beds.sum(),
+                    stays.sum(), guests.sum(), revenueCents.sum() / 100.0);
+        }
+
+        void reset() {
+            rooms.reset();
+            booked.reset();
+            beds.reset();
+            stays.reset();
+            guests.reset();
+            revenueCents.reset();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.dnikitin.hotel.index;
+
+/**
+ * Optional wishes taken into account when a room is assigned automatically.
+ *
+ * @param floor    The floor the room must be on, or {@code null} for any floor.
+ * @param maxPrice The maximal price per night.
+ */
+public record RoomPreferences(Integer floor, double maxPrice) {
+
+    /**
+     * @return Preferences without any floor or price limit.
+     */
+    public static RoomPreferences none() {
+        return new RoomPreferences(null, Double.MAX_VALUE);
+    }
+}
@@ -0,0 +1,16 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Reservation;
+
+import java.time.LocalDate;
+
+/**
+ * A stay together with its room and its expected arrival and departure dates.
+ *
+ * @param roomNumber  The room of the stay.
+ * @param reservation The stay.
+ * @param arrival     The check-in date.
+ * @param departure   The expected check-out date.
+ */
+public record ScheduledStay(int roomNumber, Reservation reservation, LocalDate arrival, LocalDate departure) {
+}
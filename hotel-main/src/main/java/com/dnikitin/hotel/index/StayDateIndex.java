@@ -0,0 +1,172 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.BookingCalendar;
+import com.dnikitin.hotel.model.Reservation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Incrementally maintained index of expected arrivals and departures of all stays.
+ * <p>
+ * Stays are kept in two sorted maps keyed by their arrival and departure dates, each
+ * holding the stays of that day ordered by room number. A room never has two stays
+ * starting or ending on the same day, so the room number identifies a stay within a day.
+ * Listing the stays of one day, or of all days before a date, costs O(log n + k).
+ * <p>
+ * The maps are {@link ConcurrentSkipListMap}s, so listings take no lock. Adding a stay to
+ * a day, or removing it, locks only that day's bucket, so changes of stays on different
+ * days do not wait for each other.
+ */
+public class StayDateIndex {
+
+    private final ConcurrentSkipListMap<LocalDate, Day> arrivals = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<LocalDate, Day> departures = new ConcurrentSkipListMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * The stays of one day, ordered by room number. A bucket emptied by a removal is
+     * marked as dropped and unlinked; a change that finds a dropped bucket retries with a
+     * new one.
+     */
+    private static final class Day {
+        private final ConcurrentSkipListMap<Integer, ScheduledStay> stays = new ConcurrentSkipListMap<>();
+        private boolean dropped;
+    }
+
+    /**
+     * Indexes a stay under its arrival and departure dates.
+     *
+     * @param roomNumber  The room of the stay.
+     * @param reservation The stay.
+     */
+    public void reservationAdded(int roomNumber, Reservation reservation) {
+        ScheduledStay stay = new ScheduledStay(roomNumber, reservation,
+                reservation.checkinDate(), BookingCalendar.endOf(reservation));
+        put(arrivals, stay.arrival(), stay);
+        put(departures, stay.departure(), stay);
+        size.incrementAndGet();
+    }
+
+    /**
+     * Removes a stay from the index.
+     *
+     * @param roomNumber  The room of the stay.
+     * @param reservation The stay.
+     */
+    public void reservationRemoved(int roomNumber, Reservation reservation) {
+        if (remove(arrivals, reservation.checkinDate(), roomNumber, reservation)) {
+            remove(departures, BookingCalendar.endOf(reservation), roomNumber, reservation);
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the stays starting on the given date, ordered by room number.
+     *
+     * @param date The arrival date.
+     * @return The arriving stays, possibly empty.
+     */
+    public List<ScheduledStay> arrivalsOn(LocalDate date) {
+        return collect(arrivals, date, date.plusDays(1));
+    }
+
+    /**
+     * Returns the stays expected to check out on the given date, ordered by room number.
+     *
+     * @param date The departure date.
+     * @return The departing stays, possibly empty.
+     */
+    public List<ScheduledStay> departuresOn(LocalDate date) {
+        return collect(departures, date, date.plusDays(1));
+    }
+
+    /**
+     * Returns the stays that should have checked out before the given date,
+     * ordered by departure date and then by room number.
+     *
+     * @param asOf The current date.
+     * @return The overdue stays, possibly empty.
+     */
+    public List<ScheduledStay> overdue(LocalDate asOf) {
+        return collect(departures, null, asOf);
+    }
+
+    /**
+     * Returns the stays expected to check out on or before the given date,
+     * ordered by departure date and then by room number.
+     *
+     * @param date The last departure date to include.
+     * @return The due stays, possibly empty.
+     */
+    public List<ScheduledStay> dueBy(LocalDate date) {
+        return collect(departures, null, date.plusDays(1));
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Removes all stays. It must not run concurrently with other changes.
+     */
+    public void clear() {
+        arrivals.clear();
+        departures.clear();
+        size.set(0);
+    }
+
+    //PRIVATE HELPERS
+
+    private static void put(ConcurrentSkipListMap<LocalDate, Day> byDate, LocalDate date, ScheduledStay stay) {
+        while (true) {
+            Day day = byDate.computeIfAbsent(date, d -> new Day());
+            synchronized (day) {
+                if (!day.dropped) {
+                    day.stays.put(stay.roomNumber(), stay);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean remove(ConcurrentSkipListMap<LocalDate, Day> byDate, LocalDate date,
+                                  int roomNumber, Reservation reservation) {
+        Day day = byDate.get(date);
+        if (day == null) {
+            return false;
+        }
+        synchronized (day) {
+            ScheduledStay stay = day.stays.get(roomNumber);
+            if (day.dropped || stay == null || !stay.reservation().equals(reservation)) {
+                return false;
+            }
+            day.stays.remove(roomNumber);
+            if (day.stays.isEmpty()) {
+                day.dropped = true;
+                byDate.remove(date, day);
+            }
+        }
+        return true;
+    }
+
+    private static List<ScheduledStay> collect(ConcurrentSkipListMap<LocalDate, Day> byDate,
+                                               LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Day> days = byDate;
+        if (from != null) {
+            days = days.tailMap(from, true);
+        }
+        if (to != null) {
+            days = days.headMap(to, false);
+        }
+        List<ScheduledStay> result = new ArrayList<>();
+        for (Day day : days.values()) {
+            result.addAll(day.stays.values());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,207 @@
+package com.dnikitin.hotel.journal;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Rate;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.map.Map;
+import com.dnikitin.map.RangeMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * The binary records of the write-ahead journal and their replay.
+ * <p>
+ * Every record is framed as {@code [int length][int crc32c][payload]}, where the payload
+ * starts with a one-byte type. A record whose frame is incomplete or whose checksum does not
+ * match marks a torn write at the end of the log. Dates are stored as epoch days, strings
+ * as modified UTF-8.
+ */
+final class JournalRecord {
+
+    static final byte ROOM_ADDED = 1;
+    static final byte STAY_ADDED = 2;
+    static final byte STAY_REMOVED = 3;
+    static final byte RESET = 4;
+    static final byte RATES_CHANGED = 5;
+
+    /**
+     * Size of the frame preceding every payload.
+     */
+    static final int FRAME_HEADER = 8;
+
+    private JournalRecord() {
+    }
+
+    static byte[] roomAdded(Room room) {
+        return encode(out -> {
+            out.writeByte(ROOM_ADDED);
+            out.writeInt(room.getRoomNumber());
+            out.writeDouble(room.getPrice());
+            out.writeInt(room.getCapacity());
+        });
+    }
+
+    static byte[] stayAdded(int roomNumber, Reservation reservation) {
+        return encode(out -> {
+            out.writeByte(STAY_ADDED);
+            out.writeInt(roomNumber);
+            out.writeLong(reservation.checkinDate().toEpochDay());
+            out.writeInt(reservation.duration());
+            out.writeUTF(reservation.mainGuest().name());
+            out.writeShort(reservation.additionalGuests().size());
+            for (Guest guest : reservation.additionalGuests()) {
+                out.writeUTF(guest.name());
+            }
+        });
+    }
+
+    static byte[] stayRemoved(int roomNumber, Reservation reservation) {
+        return encode(out -> {
+            out.writeByte(STAY_REMOVED);
+            out.writeInt(roomNumber);
+            out.writeLong(reservation.checkinDate().toEpochDay());
+        });
+    }
+
+    /**
+     * Encodes all seasons of a room; replaying the record replaces the seasons the room had.
+     */
+    static byte[] ratesChanged(int roomNumber, List<RangeMap.Range<LocalDate, Rate>> seasons) {
+        return encode(out -> {
+            out.writeByte(RATES_CHANGED);
+            out.writeInt(roomNumber);
+            out.writeInt(seasons.size());
+            for (RangeMap.Range<LocalDate, Rate> season : seasons) {
+                out.writeLong(season.from().toEpochDay());
+                out.writeLong(season.to().toEpochDay());
+                out.writeDouble(season.value().nightlyPrice());
+            }
+        });
+    }
+
+    static byte[] reset() {
+        return encode(out -> out.writeByte(RESET));
+    }
+
+    /**
+     * Applies a record payload to rooms that do not belong to a hotel yet, so that replaying
+     * takes no locks and the hotel indexes the result only once.
+     *
+     * @throws HotelDataException if the record does not fit the current state.
+     */
+    static void replay(byte[] payload, Map<Integer, Room> rooms) throws IOException, HotelDataException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case ROOM_ADDED -> {
+                Room room = new Room(in.readInt(), in.readDouble(), in.readInt());
+                rooms.put(room.getRoomNumber(), room);
+            }
+            case STAY_ADDED -> {
+                int roomNumber = in.readInt();
+                LocalDate checkin = LocalDate.ofEpochDay(in.readLong());
+                int duration = in.readInt();
+                Guest mainGuest = new Guest(in.readUTF());
+                int others = in.readUnsignedShort();
+                List<Guest> additionalGuests = new ArrayList<>(others);
+                for (int i = 0; i < others; i++) {
+                    additionalGuests.add(new Guest(in.readUTF()));
+                }
+                Room room = rooms.get(roomNumber);
+                if (room == null) {
+                    throw new HotelDataException("Inconsistent journal record: no room " + roomNumber);
+                }
+                try {
+                    room.checkIn(new Reservation(mainGuest, additionalGuests, checkin, duration));
+                } catch (RuntimeException e) {
+                    throw new HotelDataException("Inconsistent journal record: " + e.getMessage(), e);
+                }
+            }
+            case STAY_REMOVED -> {
+                int roomNumber = in.readInt();
+                LocalDate checkin = LocalDate.ofEpochDay(in.readLong());
+                Room room = rooms.get(roomNumber);
+                Reservation stay = room == null ? null : room.getReservationOn(checkin);
+                if (stay == null || !stay.checkinDate().equals(checkin) || !room.removeReservation(stay)) {
+                    throw new HotelDataException("Inconsistent journal record: no stay from " + checkin
+                            + " in room " + roomNumber);
+                }
+            }
+            case RATES_CHANGED -> {
+                int roomNumber = in.readInt();
+                int count = in.readInt();
+                List<RangeMap.Range<LocalDate, Rate>> seasons = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    LocalDate from = LocalDate.ofEpochDay(in.readLong());
+                    LocalDate to = LocalDate.ofEpochDay(in.readLong());
+                    seasons.add(new RangeMap.Range<>(from, to, new Rate(in.readDouble())));
+                }
+                Room room = rooms.get(roomNumber);
+                if (room == null) {
+                    throw new HotelDataException("Inconsistent journal record: no room " + roomNumber);
+                }
+                try {
+                    room.setSeasons(seasons);
+                } catch (RuntimeException e) {
+                    throw new HotelDataException("Inconsistent journal record: " + e.getMessage(), e);
+                }
+            }
+            case RESET -> rooms.clear();
+            default -> throw new HotelDataException("Unknown journal record type " + type);
+        }
+    }
+
+    /**
+     * Computes the checksum stored in the frame of a payload.
+     */
+    static int checksum(byte[] payload, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload, offset, length);
+        return (int) crc.getValue();
+    }
+
+    //PRIVATE HELPERS
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Serializes a payload and puts the frame in front of it.
+     */
+    private static byte[] encode(Writer writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(0); // frame placeholder
+            writer.write(out);
+            byte[] record = bytes.toByteArray();
+
+            int length = record.length - FRAME_HEADER;
+            int crc = checksum(record, FRAME_HEADER, length);
+            writeInt(record, 0, length);
+            writeInt(record, 4, crc);
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+}
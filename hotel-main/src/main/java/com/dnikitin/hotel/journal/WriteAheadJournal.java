@@ -0,0 +1,542 @@
+package com.dnikitin.hotel.journal;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.HotelChangeListener;
+import com.dnikitin.hotel.model.Rate;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.map.Map;
+import com.dnikitin.map.MyMap;
+import com.dnikitin.map.RangeMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Makes every change of a {@link Hotel} durable by appending it to a binary log before the
+ * change method returns.
+ * <p>
+ * The journal directory holds at most one snapshot {@code snapshot-G.csv} and the log
+ * segments {@code journal-G.wal}, {@code journal-G+1.wal}, ... with the changes made after
+ * that snapshot. On {@link #open(Path, Hotel)} the hotel is restored from the snapshot and
+ * the segments are replayed in order; a record cut off by a crash at the end of the last
+ * segment is dropped.
+ * <p>
+ * Records are collected from all threads and written by one flusher thread, which forces a
+ * whole batch to disk with a single {@code fsync} (group commit). A change method waits in
+ * {@link #sync()} until its records are on disk, so under load many concurrent changes share
+ * one disk flush. {@link #checkpoint()} writes a new snapshot and deletes the log segments
+ * it covers, which keeps the log, and with it the recovery time, short.
+ * <p>
+ * Once a flush has failed the journal no longer knows what is on disk, so it rejects every
+ * further change in {@link #beforeChange()} before the hotel applies it. The hotel keeps
+ * serving reads; a restart recovers the state that reached the disk.
+ * <p>
+ * The records are appended by the hotel's listener after a change has been applied in memory,
+ * so for the change in flight the log is written behind, not ahead. When its flush fails,
+ * {@link #sync()} throws and the hotel rolls the change back before the exception reaches the
+ * caller; nothing is written after a failed flush, including the records of the rollback. A
+ * change whose flush failed may still be on disk (e.g. the write succeeded and only the
+ * {@code fsync} failed), so it may or may not reappear after a restart.
+ */
+public class WriteAheadJournal implements HotelChangeListener, AutoCloseable {
+
+    private static final int MAGIC = 0x484A4E4C; // "HJNL"
+    private static final byte VERSION = 1;
+    private static final int SEGMENT_HEADER = 5;
+
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.csv");
+    private static final Pattern SEGMENT_FILE = Pattern.compile("journal-(\\d+)\\.wal");
+
+    private final Path directory;
+    private final Hotel hotel;
+    private final Recovery recovery;
+    private final Thread flusher;
+
+    // guarded by lock
+    private final Object lock = new Object();
+    private List<byte[]> pending = new ArrayList<>();
+    private long appendedRecords;
+    private long flushedRecords;
+    private long flushes;
+    private FileChannel segment;
+    private long generation;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * What {@link #open(Path, Hotel)} found in the journal directory.
+     *
+     * @param snapshotLoaded  Whether a snapshot was loaded.
+     * @param snapshotRooms   The number of rooms in the snapshot.
+     * @param replayedRecords The number of log records replayed on top of the snapshot.
+     * @param tornTail        Whether an incomplete record was dropped from the end of the log.
+     */
+    public record Recovery(boolean snapshotLoaded, int snapshotRooms, long replayedRecords, boolean tornTail) {
+
+        /**
+         * Returns whether the directory held no hotel state at all.
+         */
+        public boolean isEmpty() {
+            return !snapshotLoaded && replayedRecords == 0;
+        }
+    }
+
+    private WriteAheadJournal(Path directory, Hotel hotel, Recovery recovery, long generation, FileChannel segment) {
+        this.directory = directory;
+        this.hotel = hotel;
+        this.recovery = recovery;
+        this.generation = generation;
+        this.segment = segment;
+        this.flusher = Thread.ofPlatform().name("hotel-journal").daemon().unstarted(this::runFlusher);
+    }
+
+    /**
+     * Restores the hotel from the journal directory and starts journaling its changes.
+     * The hotel is expected to be empty; it must not be changed by anyone else while the
+     * journal is being opened.
+     *
+     * @param directory The journal directory, created if it does not exist.
+     * @param hotel     The hotel to restore and to journal.
+     * @return The open journal, registered as the hotel's change listener.
+     * @throws HotelDataException if the directory cannot be read or holds a corrupted log.
+     */
+    public static WriteAheadJournal open(Path directory, Hotel hotel) throws HotelDataException {
+        try {
+            Files.createDirectories(directory);
+            TreeMap<Long, Path> snapshots = list(directory, SNAPSHOT_FILE);
+            TreeMap<Long, Path> segments = list(directory, SEGMENT_FILE);
+
+            long base = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+            Map<Integer, Room> rooms = new MyMap<>();
+            if (!snapshots.isEmpty()) {
+                rooms = hotel.parseRoomsFile(snapshots.lastEntry().getValue().toString());
+            }
+            int snapshotRooms = rooms.size();
+
+            long replayed = 0;
+            boolean tornTail = false;
+            long lastGeneration = base;
+            for (java.util.Map.Entry<Long, Path> entry : segments.tailMap(base, true).entrySet()) {
+                boolean last = entry.getKey().equals(segments.lastKey());
+                Replay replay = replaySegment(entry.getValue(), rooms, last);
+                replayed += replay.records();
+                tornTail |= replay.tornTail();
+                lastGeneration = entry.getKey();
+            }
+
+            if (!rooms.isEmpty()) {
+                hotel.restoreRooms(rooms);
+            }
+
+            FileChannel channel = openSegment(segmentPath(directory, lastGeneration));
+            WriteAheadJournal journal = new WriteAheadJournal(directory, hotel,
+                    new Recovery(!snapshots.isEmpty(), snapshotRooms, replayed, tornTail), lastGeneration, channel);
+            journal.deleteOlderThan(base);
+            hotel.setChangeListener(journal);
+            journal.flusher.start();
+            return journal;
+
+        } catch (IOException e) {
+            throw new HotelDataException("Error reading journal (I/O): " + directory, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the hotel and deletes the log segments it makes obsolete.
+     * <p>
+     * A new log segment is started at the moment the snapshot is taken. While the snapshot
+     * is copied the hotel waits for the records not yet on disk; the file itself is written
+     * while the hotel keeps working.
+     *
+     * @return The number of rooms in the snapshot.
+     * @throws HotelDataException if the snapshot or the new segment cannot be written.
+     */
+    public synchronized int checkpoint() throws HotelDataException {
+        long next;
+        synchronized (lock) {
+            next = generation + 1;
+        }
+        Path temp = directory.resolve(snapshotPath(directory, next).getFileName() + ".tmp");
+        try {
+            int rooms = hotel.writeRoomsToFile(temp.toString(), () -> roll(next));
+            Files.move(temp, snapshotPath(directory, next),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteOlderThan(next);
+            return rooms;
+        } catch (IOException | UncheckedIOException e) {
+            throw new HotelDataException("Error writing journal checkpoint (I/O): " + directory, e);
+        }
+    }
+
+    /**
+     * Returns what was restored when the journal was opened.
+     */
+    public Recovery getRecovery() {
+        return recovery;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the number of records appended since the journal was opened.
+     */
+    public long getAppendedRecords() {
+        synchronized (lock) {
+            return appendedRecords;
+        }
+    }
+
+    /**
+     * Returns the number of disk flushes so far; each one made a whole batch of records durable.
+     */
+    public long getFlushes() {
+        synchronized (lock) {
+            return flushes;
+        }
+    }
+
+    /**
+     * Returns whether every flush so far has succeeded, i.e. whether the journal still
+     * accepts changes.
+     */
+    public boolean isHealthy() {
+        synchronized (lock) {
+            return failure == null;
+        }
+    }
+
+    /**
+     * Rejects the change if an earlier flush has failed.
+     *
+     * @throws UncheckedIOException if the journal could not be written.
+     */
+    @Override
+    public void beforeChange() {
+        synchronized (lock) {
+            if (failure != null) {
+                throw new UncheckedIOException("Journal is not writable, change rejected (I/O): " + directory, failure);
+            }
+        }
+    }
+
+    @Override
+    public void roomAdded(Room room) {
+        appendRoom(room);
+    }
+
+    @Override
+    public void roomsReplaced(List<Room> rooms) {
+        append(JournalRecord.reset());
+        for (Room room : rooms) {
+            appendRoom(room);
+        }
+    }
+
+    @Override
+    public void reservationAdded(Room room, Reservation reservation) {
+        append(JournalRecord.stayAdded(room.getRoomNumber(), reservation));
+    }
+
+    @Override
+    public void reservationRemoved(Room room, Reservation reservation) {
+        append(JournalRecord.stayRemoved(room.getRoomNumber(), reservation));
+    }
+
+    @Override
+    public void ratesChanged(Room room) {
+        append(JournalRecord.ratesChanged(room.getRoomNumber(), room.getRates().getSeasons()));
+    }
+
+    /**
+     * Waits until every record appended so far is on disk.
+     *
+     * @throws UncheckedIOException if the journal could not be written.
+     */
+    @Override
+    public void sync() {
+        synchronized (lock) {
+            awaitFlushed(appendedRecords);
+        }
+    }
+
+    /**
+     * Stops journaling, writes the remaining records and closes the log.
+     */
+    @Override
+    public void close() {
+        hotel.setChangeListener(null);
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        boolean interrupted = false;
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        synchronized (lock) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                System.err.println("Error: Could not close journal: " + e.getMessage());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //PRIVATE HELPERS
+
+    /**
+     * Appends the records that rebuild a room: the room, its seasons and its stays.
+     */
+    private void appendRoom(Room room) {
+        append(JournalRecord.roomAdded(room));
+        List<RangeMap.Range<LocalDate, Rate>> seasons = room.getRates().getSeasons();
+        if (!seasons.isEmpty()) {
+            append(JournalRecord.ratesChanged(room.getRoomNumber(), seasons));
+        }
+        for (Reservation reservation : room.getReservations()) {
+            append(JournalRecord.stayAdded(room.getRoomNumber(), reservation));
+        }
+    }
+
+    private void append(byte[] record) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            pending.add(record);
+            appendedRecords++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until the given number of records is on disk; the caller holds the lock.
+     */
+    private void awaitFlushed(long records) {
+        boolean interrupted = false;
+        while (flushedRecords < records && failure == null) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Error writing journal (I/O): " + directory, failure);
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<byte[]> batch;
+            long upTo;
+            FileChannel target;
+            boolean failed;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                upTo = appendedRecords;
+                target = segment;
+                failed = failure != null;
+            }
+
+            // after a failed flush the log must stay a prefix of what was synced: drop the batch
+            IOException error = null;
+            if (!failed) {
+                try {
+                    write(target, batch);
+                    target.force(false);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+
+            synchronized (lock) {
+                if (error != null && failure == null) {
+                    failure = error;
+                }
+                flushedRecords = upTo;
+                flushes++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Switches to a new log segment once all records so far are on disk.
+     * Runs while the hotel is locked for the snapshot of a checkpoint.
+     */
+    private void roll(long next) {
+        synchronized (lock) {
+            awaitFlushed(appendedRecords);
+            try {
+                FileChannel nextSegment = openSegment(segmentPath(directory, next));
+                segment.close();
+                segment = nextSegment;
+                generation = next;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void deleteOlderThan(long base) throws IOException {
+        for (Path path : list(directory, SNAPSHOT_FILE).headMap(base, false).values()) {
+            Files.deleteIfExists(path);
+        }
+        for (Path path : list(directory, SEGMENT_FILE).headMap(base, false).values()) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static void write(FileChannel channel, List<byte[]> records) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[records.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(records.get(i));
+        }
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    /**
+     * Opens a log segment for appending, writing the header if the segment is new.
+     */
+    private static FileChannel openSegment(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER).putInt(MAGIC).put(VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        }
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private record Replay(long records, boolean tornTail) {
+    }
+
+    /**
+     * Replays all complete records of a segment. An incomplete record at the end of the
+     * last segment is cut off, anywhere else it means the log is corrupted.
+     */
+    private static Replay replaySegment(Path path, Map<Integer, Room> rooms, boolean last)
+            throws IOException, HotelDataException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (data.remaining() < SEGMENT_HEADER) {
+            if (last) {
+                truncate(path, 0);
+                return new Replay(0, data.remaining() > 0);
+            }
+            throw new HotelDataException("Journal segment has no header: " + path);
+        }
+        if (data.getInt() != MAGIC || data.get() != VERSION) {
+            throw new HotelDataException("Not a journal segment: " + path);
+        }
+
+        long records = 0;
+        while (data.hasRemaining()) {
+            int start = data.position();
+            byte[] payload = nextPayload(data);
+            if (payload == null) {
+                if (!last) {
+                    throw new HotelDataException("Corrupted journal record in " + path + " at offset " + start);
+                }
+                truncate(path, start);
+                return new Replay(records, true);
+            }
+            try {
+                JournalRecord.replay(payload, rooms);
+            } catch (IOException e) {
+                throw new HotelDataException("Malformed journal record in " + path + " at offset " + start, e);
+            }
+            records++;
+        }
+        return new Replay(records, false);
+    }
+
+    /**
+     * Reads the next record payload, or returns {@code null} if the record is incomplete or
+     * does not match its checksum.
+     */
+    private static byte[] nextPayload(ByteBuffer data) {
+        if (data.remaining() < JournalRecord.FRAME_HEADER) {
+            return null;
+        }
+        int length = data.getInt();
+        int crc = data.getInt();
+        if (length <= 0 || length > data.remaining()) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        data.get(payload);
+        return JournalRecord.checksum(payload, 0, length) == crc ? payload : null;
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+    }
+
+    private static TreeMap<Long, Path> list(Path directory, Pattern pattern) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                Matcher matcher = pattern.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Long.parseLong(matcher.group(1)), path);
+                }
+            });
+        }
+        return files;
+    }
+
+    private static Path snapshotPath(Path directory, long generation) {
+        return directory.resolve(String.format("snapshot-%06d.csv", generation));
+    }
+
+    private static Path segmentPath(Path directory, long generation) {
+        return directory.resolve(String.format("journal-%06d.wal", generation));
+    }
+}
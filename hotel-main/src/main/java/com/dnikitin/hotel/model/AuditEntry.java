@@ -0,0 +1,17 @@
+package com.dnikitin.hotel.model;
+
+import java.time.LocalDate;
+
+/**
+ * A single line of the night-audit ledger: one stay that was closed and billed.
+ *
+ * @param roomNumber   The room of the stay.
+ * @param mainGuest    The name of the main guest.
+ * @param checkinDate  The date the stay started.
+ * @param checkoutDate The date the stay was billed up to: its expected check-out date, or the
+ *                     audit date if the guest stayed past it.
+ * @param bill         The total price of the stay.
+ */
+public record AuditEntry(int roomNumber, String mainGuest, LocalDate checkinDate, LocalDate checkoutDate,
+                         double bill) {
+}
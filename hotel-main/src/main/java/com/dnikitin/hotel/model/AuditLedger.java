@@ -0,0 +1,36 @@
+package com.dnikitin.hotel.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The summary of a night audit: every stay that was closed, ordered by check-out date
+ * and room number, together with the total revenue.
+ *
+ * @param auditDate The date the audit was run for.
+ * @param entries   The closed stays.
+ */
+public record AuditLedger(LocalDate auditDate, List<AuditEntry> entries) {
+
+    public AuditLedger {
+        entries = List.copyOf(entries);
+    }
+
+    /**
+     * @return The sum of all bills in the ledger.
+     */
+    public double total() {
+        double total = 0;
+        for (AuditEntry entry : entries) {
+            total += entry.bill();
+        }
+        return total;
+    }
+
+    /**
+     * @return The number of closed stays.
+     */
+    public int size() {
+        return entries.size();
+    }
+}
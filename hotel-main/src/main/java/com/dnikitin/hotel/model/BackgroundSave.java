@@ -0,0 +1,75 @@
+package com.dnikitin.hotel.model;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A save of the hotel state running on a background thread, see
+ * {@link Hotel#saveRoomsInBackground(String, Progress)}.
+ * <p>
+ * The state was captured when the save started; changes made afterwards are not part of
+ * the file. The file appears under its final name only when it is complete.
+ */
+public class BackgroundSave {
+
+    /**
+     * Receives the progress of a background save, on the saving thread.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * Called after every written room.
+         *
+         * @param writtenRooms The number of rooms written so far.
+         * @param totalRooms   The number of rooms to write.
+         */
+        void update(int writtenRooms, int totalRooms);
+    }
+
+    private final String path;
+    private final int totalRooms;
+    private final CompletableFuture<Integer> result = new CompletableFuture<>();
+    private volatile int writtenRooms;
+
+    BackgroundSave(String path, int totalRooms) {
+        this.path = path;
+        this.totalRooms = totalRooms;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getTotalRooms() {
+        return totalRooms;
+    }
+
+    public int getWrittenRooms() {
+        return writtenRooms;
+    }
+
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * Returns the future completed with the number of saved rooms once the file is in place,
+     * or exceptionally with a {@link com.dnikitin.hotel.exceptions.HotelDataException}.
+     */
+    public CompletableFuture<Integer> result() {
+        return result;
+    }
+
+    //PRIVATE HELPERS
+
+    void roomWritten(int written) {
+        writtenRooms = written;
+    }
+
+    void complete(Throwable failure) {
+        if (failure == null) {
+            result.complete(totalRooms);
+        } else {
+            result.completeExceptionally(failure);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.dnikitin.hotel.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable calendar of all non-overlapping stays booked for a single room.
+ * <p>
+ * Stays are kept in an array sorted by check-in date. Since stays never overlap, both
+ * their start and end dates are sorted in the same order, so the stay that could collide
+ * with a new booking is always the last one starting before the new check-out date.
+ * Overlap checks and "booked on date" queries are therefore a binary search, O(log n).
+ * <p>
+ * Adding or removing a stay returns a new calendar and leaves this one untouched
+ * (copy-on-write, O(n) in the stays of one room, which are few). This lets a {@link Room}
+ * publish its calendar through a single atomic reference: readers always see a
+ * complete calendar, and writers switch to a new one with compare-and-set.
+ */
+public final class BookingCalendar {
+
+    /**
+     * The calendar of a room without any stay.
+     */
+    public static final BookingCalendar EMPTY = new BookingCalendar(new Reservation[0]);
+
+    private final Reservation[] stays;
+
+    private BookingCalendar(Reservation[] stays) {
+        this.stays = stays;
+    }
+
+    /**
+     * Returns the day the given stay ends. Every stay blocks at least one night.
+     *
+     * @param reservation The stay.
+     * @return The check-out date (exclusive end of the stay).
+     */
+    public static LocalDate endOf(Reservation reservation) {
+        return reservation.checkinDate().plusDays(Math.max(1, reservation.duration()));
+    }
+
+    /**
+     * Checks whether no stay overlaps the nights {@code [from, to)}.
+     *
+     * @param from The first night (inclusive).
+     * @param to   The check-out date (exclusive).
+     * @return true if the whole period is free.
+     */
+    public boolean isAvailable(LocalDate from, LocalDate to) {
+        return isAvailable(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Same as {@link #isAvailable(LocalDate, LocalDate)} with both dates given as epoch days.
+     * Allocates nothing.
+     *
+     * @param fromDay The first night (inclusive), as epoch day.
+     * @param toDay   The check-out date (exclusive), as epoch day.
+     * @return true if the whole period is free.
+     */
+    public boolean isAvailable(long fromDay, long toDay) {
+        int candidate = lowerIndex(toDay);
+        return candidate < 0 || endDayOf(stays[candidate]) <= fromDay;
+    }
+
+    /**
+     * Returns a calendar with the given stay added, if it does not overlap any existing stay.
+     *
+     * @param reservation The stay to add.
+     * @return The new calendar, or {@code null} if the stay overlaps another stay.
+     */
+    public BookingCalendar with(Reservation reservation) {
+        long from = reservation.checkinDate().toEpochDay();
+        if (!isAvailable(from, endDayOf(reservation))) {
+            return null;
+        }
+        int at = lowerIndex(from) + 1;
+        Reservation[] next = new Reservation[stays.length + 1];
+        System.arraycopy(stays, 0, next, 0, at);
+        next[at] = reservation;
+        System.arraycopy(stays, at, next, at + 1, stays.length - at);
+        return new BookingCalendar(next);
+    }
+
+    /**
+     * Returns a calendar without the given stay.
+     *
+     * @param reservation The stay to remove.
+     * @return The new calendar, or {@code null} if the stay is not on this calendar.
+     */
+    public BookingCalendar without(Reservation reservation) {
+        int at = indexOf(reservation.checkinDate().toEpochDay());
+        if (at < 0 || !stays[at].equals(reservation)) {
+            return null;
+        }
+        if (stays.length == 1) {
+            return EMPTY;
+        }
+        Reservation[] next = new Reservation[stays.length - 1];
+        System.arraycopy(stays, 0, next, 0, at);
+        System.arraycopy(stays, at + 1, next, at, stays.length - at - 1);
+        return new BookingCalendar(next);
+    }
+
+    /**
+     * Returns the earliest stay on the calendar: the stay in progress or the next arrival.
+     *
+     * @return The first stay, or {@code null} if nothing is booked.
+     */
+    public Reservation first() {
+        return stays.length == 0 ? null : stays[0];
+    }
+
+    /**
+     * Returns the stay covering the night of the given date.
+     *
+     * @param date The date to check.
+     * @return The stay covering the date, or {@code null} if the room is free that night.
+     */
+    public Reservation on(LocalDate date) {
+        long day = date.toEpochDay();
+        int floor = lowerIndex(day + 1);
+        if (floor < 0 || endDayOf(stays[floor]) <= day) {
+            return null;
+        }
+        return stays[floor];
+    }
+
+    /**
+     * Finds the first date on or after {@code from} whose night is not booked.
+     * Back-to-back stays are skipped as one booked block.
+     *
+     * @param from The date to start looking from.
+     * @return {@code from} itself if it is free, otherwise the end of the booked block covering it.
+     */
+    public LocalDate nextFreeDate(LocalDate from) {
+        int i = lowerIndex(from.toEpochDay() + 1);
+        LocalDate free = from;
+        while (i >= 0 && i < stays.length && !stays[i].checkinDate().isAfter(free)) {
+            LocalDate end = endOf(stays[i]);
+            if (end.isAfter(free)) {
+                free = end;
+            }
+            i++;
+        }
+        return free;
+    }
+
+    /**
+     * Returns all stays in chronological order.
+     *
+     * @return An unmodifiable list of the booked stays.
+     */
+    public List<Reservation> reservations() {
+        return List.of(stays);
+    }
+
+    /**
+     * Returns a stay by its position in chronological order, without copying the calendar
+     * like {@link #reservations()} does.
+     *
+     * @param index The position, from 0 to {@code size() - 1}.
+     * @return The stay.
+     * @throws IndexOutOfBoundsException if there is no stay at that position.
+     */
+    public Reservation get(int index) {
+        return stays[index];
+    }
+
+    public int size() {
+        return stays.length;
+    }
+
+    public boolean isEmpty() {
+        return stays.length == 0;
+    }
+
+    //PRIVATE HELPERS
+
+    /**
+     * Returns the epoch day the given stay ends, see {@link #endOf(Reservation)}.
+     */
+    private static long endDayOf(Reservation reservation) {
+        return reservation.checkinDate().toEpochDay() + Math.max(1, reservation.duration());
+    }
+
+    /**
+     * Returns the index of the last stay starting before the given epoch day, or -1.
+     */
+    private int lowerIndex(long day) {
+        int idx = indexOf(day);
+        return idx >= 0 ? idx - 1 : -idx - 2;
+    }
+
+    /**
+     * Binary search for a stay starting on the given epoch day, with the contract of {@link Arrays#binarySearch}.
+     */
+    private int indexOf(long checkinDay) {
+        int low = 0;
+        int high = stays.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long start = stays[mid].checkinDate().toEpochDay();
+            if (start < checkinDay) {
+                low = mid + 1;
+            } else if (start > checkinDay) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
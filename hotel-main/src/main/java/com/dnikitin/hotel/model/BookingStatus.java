@@ -0,0 +1,32 @@
+package com.dnikitin.hotel.model;
+
+/**
+ * The outcome of a check-in or check-out attempt made with {@link Hotel#tryCheckIn} or
+ * {@link Hotel#tryCheckOut}, which report failures without throwing.
+ */
+public enum BookingStatus {
+    /**
+     * The operation succeeded.
+     */
+    OK,
+    /**
+     * No room with the given number exists.
+     */
+    ROOM_NOT_FOUND,
+    /**
+     * The stay overlaps another stay of the room.
+     */
+    ROOM_OCCUPIED,
+    /**
+     * The room cannot hold that many guests.
+     */
+    CAPACITY_EXCEEDED,
+    /**
+     * There is no stay to check out: the room is free, or its next stay has not begun yet.
+     */
+    ROOM_FREE;
+
+    public boolean isOk() {
+        return this == OK;
+    }
+}
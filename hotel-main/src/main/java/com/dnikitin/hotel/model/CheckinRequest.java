@@ -0,0 +1,24 @@
+package com.dnikitin.hotel.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A single check-in of a group booking, see {@link Hotel#checkInAll(List)}.
+ *
+ * @param roomNumber       The room to check into.
+ * @param mainGuest        The main guest.
+ * @param additionalGuests The other guests staying in the room.
+ * @param checkinDate      The date the stay starts.
+ * @param duration         The duration of the stay in nights.
+ */
+public record CheckinRequest(int roomNumber, Guest mainGuest, List<Guest> additionalGuests,
+                             LocalDate checkinDate, int duration) {
+
+    /**
+     * @return The reservation this request books.
+     */
+    public Reservation toReservation() {
+        return new Reservation(mainGuest, additionalGuests, checkinDate, duration);
+    }
+}
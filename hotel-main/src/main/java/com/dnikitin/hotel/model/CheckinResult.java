@@ -0,0 +1,30 @@
+package com.dnikitin.hotel.model;
+
+/**
+ * The outcome of one request of a group check-in, see {@link Hotel#checkInAll(java.util.List)}.
+ *
+ * @param request The request.
+ * @param status  What happened to the request.
+ * @param message The reason the request was rejected or skipped, {@code null} if it was checked in.
+ */
+public record CheckinResult(CheckinRequest request, Status status, String message) {
+
+    public enum Status {
+        /**
+         * The guests have been checked in.
+         */
+        CHECKED_IN,
+        /**
+         * The request itself is invalid, so the whole batch was rejected.
+         */
+        REJECTED,
+        /**
+         * The request is valid, but was not applied because another request of the batch was rejected.
+         */
+        SKIPPED
+    }
+
+    public boolean isCheckedIn() {
+        return status == Status.CHECKED_IN;
+    }
+}
@@ -0,0 +1,40 @@
+package com.dnikitin.hotel.model;
+
+/**
+ * The outcome of a check-out attempt: the status and, if it succeeded, the bill.
+ * <p>
+ * Failed results are shared constants, so a failed attempt allocates nothing.
+ *
+ * @param status The outcome.
+ * @param bill   The bill of the closed stay, 0 if the check-out failed.
+ */
+public record CheckoutResult(BookingStatus status, double bill) {
+
+    private static final CheckoutResult[] FAILURES = new CheckoutResult[BookingStatus.values().length];
+
+    static {
+        for (BookingStatus status : BookingStatus.values()) {
+            FAILURES[status.ordinal()] = new CheckoutResult(status, 0);
+        }
+    }
+
+    /**
+     * @param bill The bill of the closed stay.
+     * @return A successful result.
+     */
+    public static CheckoutResult billed(double bill) {
+        return new CheckoutResult(BookingStatus.OK, bill);
+    }
+
+    /**
+     * @param status The reason of the failure.
+     * @return The shared result for that failure.
+     */
+    public static CheckoutResult failed(BookingStatus status) {
+        return FAILURES[status.ordinal()];
+    }
+
+    public boolean isOk() {
+        return status.isOk();
+    }
+}
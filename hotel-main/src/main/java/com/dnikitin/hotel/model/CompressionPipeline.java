@@ -0,0 +1,583 @@
+package com.dnikitin.hotel.model;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Compresses and decompresses state files on a second thread, so that encoding or parsing
+ * the rows overlaps with the work of {@link Deflater} and {@link Inflater}.
+ * <p>
+ * Both directions pass chunks of up to {@link #CHUNK_BYTES} through a few reused buffers:
+ * while the caller fills one chunk, the pipeline thread compresses and writes the previous
+ * one, and when loading it reads and inflates the next chunk while the caller parses the
+ * current one. Two kinds of streams are supported:
+ * <ul>
+ *   <li>gzip, for {@code .csv.gz} files, so they can also be read with any gzip tool;</li>
+ *   <li>deflate frames, for compressed binary snapshots: every chunk is deflated on its own
+ *   and framed as {@code [int rawLength][int deflatedLength][int crc32c][deflated bytes]},
+ *   the checksum covering the deflated bytes, so a damaged frame is detected before it is
+ *   inflated.</li>
+ * </ul>
+ * Chunks are deflated at {@link Deflater#BEST_SPEED}; state files repeat dates, prices and
+ * empty fields so much that higher levels gain little, and a slower compressor would become
+ * the bottleneck of a save. A failure of the pipeline thread is rethrown to the caller on its
+ * next read, write or close. Damaged compressed data surfaces as a {@link ZipException},
+ * data that ends too early as an {@link EOFException}.
+ */
+final class CompressionPipeline {
+
+    static final int CHUNK_BYTES = 1 << 20;
+
+    /**
+     * The buffers of one pipeline: one being filled or read by the caller, one being worked
+     * on by the pipeline thread, and the rest queued in between.
+     */
+    private static final int POOLED_CHUNKS = 4;
+    private static final int FRAME_HEADER = 12;
+    /**
+     * Deflate never grows a chunk by more than a few bytes per 16 KiB, so a longer frame can
+     * only be damaged.
+     */
+    private static final int MAX_DEFLATED_BYTES = CHUNK_BYTES + (CHUNK_BYTES >> 6);
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private CompressionPipeline() {
+    }
+
+    /**
+     * Returns a channel that gzips everything written to it into the given file, starting at
+     * its current position. Closing it finishes the gzip stream and closes the file.
+     */
+    static WritableByteChannel gzipOutput(FileChannel file) {
+        return new Output(file, new GzipSink(file));
+    }
+
+    /**
+     * Returns a channel that writes everything written to it as deflate frames into the given
+     * file, starting at its current position. Closing it closes the file.
+     */
+    static WritableByteChannel deflateFrameOutput(FileChannel file) {
+        return new Output(file, new FrameSink(file));
+    }
+
+    /**
+     * Returns a channel that reads the gzip stream of the given file from its current
+     * position. Closing it closes the file.
+     *
+     * @throws IOException if the file does not start with a gzip header.
+     */
+    static ReadableByteChannel gzipInput(FileChannel file) throws IOException {
+        return new Input(file, new GzipSource(file));
+    }
+
+    /**
+     * Returns a channel that reads deflate frames from the given file, starting at its
+     * current position. Closing it closes the file.
+     */
+    static ReadableByteChannel deflateFrameInput(FileChannel file) {
+        return new Input(file, new FrameSource(file));
+    }
+
+    //PRIVATE HELPERS
+
+    private static void writeFully(FileChannel file, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T element) throws InterruptedIOException {
+        try {
+            queue.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compression thread");
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue) throws InterruptedIOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compression thread");
+        }
+    }
+
+    private static IOException asIOException(Exception e) {
+        return e instanceof IOException io ? io : new IOException(e);
+    }
+
+    /**
+     * Compresses chunks on the pipeline thread and writes them to the file.
+     */
+    private interface Sink extends Closeable {
+        void write(ByteBuffer chunk) throws IOException;
+
+        /**
+         * Writes whatever ends the stream after the last chunk.
+         */
+        void finish() throws IOException;
+    }
+
+    /**
+     * Reads and decompresses the file on the pipeline thread.
+     */
+    private interface Source extends Closeable {
+        /**
+         * Fills the chunk with the next decompressed bytes.
+         *
+         * @return The number of bytes read, or {@code -1} at the end of the stream.
+         */
+        int read(ByteBuffer chunk) throws IOException;
+    }
+
+    /**
+     * Takes the bytes written by the caller in chunks and hands full chunks to the pipeline thread.
+     */
+    private static final class Output implements WritableByteChannel {
+        private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+        private final FileChannel file;
+        private final Sink sink;
+        private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(POOLED_CHUNKS);
+        private final BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>(POOLED_CHUNKS);
+        private final Thread worker;
+        private volatile IOException failure;
+        private ByteBuffer current = ByteBuffer.allocate(CHUNK_BYTES);
+        private boolean open = true;
+
+        private Output(FileChannel file, Sink sink) {
+            this.file = file;
+            this.sink = sink;
+            for (int i = 1; i < POOLED_CHUNKS; i++) {
+                free.add(ByteBuffer.allocate(CHUNK_BYTES));
+            }
+            this.worker = Thread.ofPlatform().daemon().name("hotel-compress").start(this::compress);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            int written = src.remaining();
+            while (src.hasRemaining()) {
+                if (!current.hasRemaining()) {
+                    handOff();
+                }
+                int length = Math.min(src.remaining(), current.remaining());
+                current.put(src.slice(src.position(), length));
+                src.position(src.position() + length);
+            }
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        /**
+         * Hands the last chunk to the pipeline thread, waits until everything is written and
+         * closes the file.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!open) {
+                return;
+            }
+            open = false;
+            try {
+                if (current.position() > 0) {
+                    put(filled, current.flip());
+                }
+                put(filled, END);
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the compression thread");
+            } finally {
+                // after an interrupt the pipeline thread may still wait for chunks that never come
+                worker.interrupt();
+                try (file) {
+                    sink.close();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        private void handOff() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            put(filled, current.flip());
+            current = take(free);
+        }
+
+        /**
+         * The loop of the pipeline thread. After a failure it keeps taking chunks without
+         * writing them, so the caller never waits for a free chunk in vain.
+         */
+        private void compress() {
+            try {
+                for (ByteBuffer chunk = filled.take(); chunk != END; chunk = filled.take()) {
+                    if (failure == null) {
+                        try {
+                            sink.write(chunk);
+                        } catch (IOException | RuntimeException e) {
+                            failure = asIOException(e);
+                        }
+                    }
+                    free.put(chunk.clear());
+                }
+                if (failure == null) {
+                    sink.finish();
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = asIOException(e);
+            } catch (InterruptedException e) {
+                failure = new InterruptedIOException("Compression was interrupted");
+            }
+        }
+    }
+
+    /**
+     * Hands chunks decompressed by the pipeline thread to the caller.
+     */
+    private static final class Input implements ReadableByteChannel {
+        private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+        private final FileChannel file;
+        private final Source source;
+        private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(POOLED_CHUNKS);
+        private final BlockingQueue<ByteBuffer> filled = new ArrayBlockingQueue<>(POOLED_CHUNKS);
+        private final Thread worker;
+        private volatile IOException failure;
+        private ByteBuffer current;
+        private boolean ended;
+        private boolean open = true;
+
+        private Input(FileChannel file, Source source) {
+            this.file = file;
+            this.source = source;
+            for (int i = 0; i < POOLED_CHUNKS; i++) {
+                free.add(ByteBuffer.allocate(CHUNK_BYTES));
+            }
+            this.worker = Thread.ofPlatform().daemon().name("hotel-decompress").start(this::decompress);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            while (current == null || !current.hasRemaining()) {
+                if (ended) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return -1;
+                }
+                if (current != null) {
+                    free.add(current.clear());
+                }
+                current = take(filled);
+                if (current == END) {
+                    current = null;
+                    ended = true;
+                }
+            }
+            int length = Math.min(dst.remaining(), current.remaining());
+            dst.put(current.slice(current.position(), length));
+            current.position(current.position() + length);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        /**
+         * Stops the pipeline thread, even if the stream was not read to its end, and closes the file.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!open) {
+                return;
+            }
+            open = false;
+            worker.interrupt();
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try (file) {
+                    source.close();
+                }
+            }
+        }
+
+        /**
+         * The loop of the pipeline thread; it always ends the queue with {@code END} unless
+         * the channel is closed before.
+         */
+        private void decompress() {
+            try {
+                while (true) {
+                    ByteBuffer chunk = free.take();
+                    if (source.read(chunk) < 0) {
+                        break;
+                    }
+                    filled.put(chunk.flip());
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = asIOException(e);
+            } catch (InterruptedException e) {
+                // closed before the end of the stream
+                return;
+            }
+            try {
+                filled.put(END);
+            } catch (InterruptedException e) {
+                // closed before the end was read
+            }
+        }
+    }
+
+    /**
+     * Writes a single-member gzip stream: the header, the raw deflate stream of all chunks
+     * and a trailer with the CRC-32 and the length of the uncompressed data.
+     */
+    private static final class GzipSink implements Sink {
+        private final FileChannel file;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        private final CRC32 crc = new CRC32();
+        private final ByteBuffer out = ByteBuffer.allocate(1 << 16);
+        private long length;
+
+        private GzipSink(FileChannel file) {
+            this.file = file;
+            out.put(GZIP_HEADER);
+        }
+
+        @Override
+        public void write(ByteBuffer chunk) throws IOException {
+            crc.update(chunk.duplicate());
+            length += chunk.remaining();
+            // by array: a buffer would stay referenced and be read again once it is cleared for reuse
+            deflater.setInput(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            while (!deflater.needsInput()) {
+                deflateInto();
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflateInto();
+            }
+            if (out.remaining() < 8) {
+                drain();
+            }
+            out.order(ByteOrder.LITTLE_ENDIAN).putInt((int) crc.getValue()).putInt((int) length);
+            drain();
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+        }
+
+        private void deflateInto() throws IOException {
+            if (!out.hasRemaining()) {
+                drain();
+            }
+            deflater.deflate(out);
+        }
+
+        private void drain() throws IOException {
+            writeFully(file, out.flip());
+            out.clear();
+        }
+    }
+
+    /**
+     * Deflates every chunk on its own and writes it as one frame.
+     */
+    private static final class FrameSink implements Sink {
+        private final FileChannel file;
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER);
+        private final ByteBuffer deflated = ByteBuffer.allocate(MAX_DEFLATED_BYTES);
+
+        private FrameSink(FileChannel file) {
+            this.file = file;
+        }
+
+        @Override
+        public void write(ByteBuffer chunk) throws IOException {
+            int rawLength = chunk.remaining();
+            deflater.reset();
+            deflater.setInput(chunk);
+            deflater.finish();
+            deflated.clear();
+            while (!deflater.finished()) {
+                if (!deflated.hasRemaining()) {
+                    throw new IOException("Deflated chunk exceeds " + MAX_DEFLATED_BYTES + " bytes");
+                }
+                deflater.deflate(deflated);
+            }
+            deflated.flip();
+            CRC32C crc = new CRC32C();
+            crc.update(deflated.duplicate());
+            frame.clear().putInt(rawLength).putInt(deflated.remaining()).putInt((int) crc.getValue()).flip();
+            writeFully(file, frame);
+            writeFully(file, deflated);
+        }
+
+        @Override
+        public void finish() {
+            // frames need no trailer
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads a gzip stream, including streams of several members as written by other tools.
+     */
+    private static final class GzipSource implements Source {
+        private final InputStream in;
+
+        private GzipSource(FileChannel file) throws IOException {
+            this.in = new GZIPInputStream(Channels.newInputStream(file), 1 << 16);
+        }
+
+        @Override
+        public int read(ByteBuffer chunk) throws IOException {
+            int start = chunk.position();
+            while (chunk.hasRemaining()) {
+                int read = in.read(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+                if (read < 0) {
+                    break;
+                }
+                chunk.position(chunk.position() + read);
+            }
+            int read = chunk.position() - start;
+            return read == 0 && chunk.hasRemaining() ? -1 : read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads one frame per chunk, checking its checksum before inflating it.
+     */
+    private static final class FrameSource implements Source {
+        private final FileChannel file;
+        private final Inflater inflater = new Inflater();
+        private final ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER);
+        private final ByteBuffer deflated = ByteBuffer.allocate(MAX_DEFLATED_BYTES);
+        private int frames;
+
+        private FrameSource(FileChannel file) {
+            this.file = file;
+        }
+
+        @Override
+        public int read(ByteBuffer chunk) throws IOException {
+            frame.clear();
+            if (!readFully(frame) && frame.position() == 0) {
+                return -1;
+            }
+            frames++;
+            if (frame.hasRemaining()) {
+                throw new EOFException("Compressed frame " + frames + " is cut off");
+            }
+            int rawLength = frame.getInt(0);
+            int deflatedLength = frame.getInt(4);
+            if (rawLength < 0 || rawLength > chunk.remaining()
+                    || deflatedLength < 0 || deflatedLength > MAX_DEFLATED_BYTES) {
+                throw new ZipException("Invalid length in compressed frame " + frames);
+            }
+            deflated.clear().limit(deflatedLength);
+            if (!readFully(deflated)) {
+                throw new EOFException("Compressed frame " + frames + " is cut off");
+            }
+            deflated.flip();
+            CRC32C crc = new CRC32C();
+            crc.update(deflated.duplicate());
+            if ((int) crc.getValue() != frame.getInt(8)) {
+                throw new ZipException("Checksum mismatch in compressed frame " + frames);
+            }
+
+            inflater.reset();
+            inflater.setInput(deflated);
+            int start = chunk.position();
+            chunk.limit(start + rawLength);
+            try {
+                while (chunk.hasRemaining() && !inflater.finished()) {
+                    if (inflater.inflate(chunk) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid data in compressed frame " + frames + ": " + e.getMessage());
+            }
+            if (chunk.hasRemaining() || !inflater.finished()) {
+                throw new ZipException("Length mismatch in compressed frame " + frames);
+            }
+            return rawLength;
+        }
+
+        @Override
+        public void close() {
+            inflater.end();
+        }
+
+        /**
+         * Reads until the buffer is full or the file ends.
+         *
+         * @return {@code false} if the file ended first.
+         */
+        private boolean readFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (file.read(buffer) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
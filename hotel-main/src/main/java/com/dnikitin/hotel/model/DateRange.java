@@ -0,0 +1,40 @@
+package com.dnikitin.hotel.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Represents a half-open period of nights {@code [from, to)}, e.g. the dates of a requested stay.
+ *
+ * @param from The first night (the check-in date).
+ * @param to   The check-out date (exclusive).
+ */
+public record DateRange(LocalDate from, LocalDate to) {
+
+    public DateRange {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Date range bounds cannot be null.");
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Date range must contain at least one night.");
+        }
+    }
+
+    /**
+     * Creates a range starting on the given date and lasting the given number of nights.
+     *
+     * @param from   The first night.
+     * @param nights The number of nights (at least 1).
+     * @return The date range.
+     */
+    public static DateRange ofNights(LocalDate from, int nights) {
+        return new DateRange(from, from.plusDays(nights));
+    }
+
+    /**
+     * @return The number of nights in this range.
+     */
+    public long nights() {
+        return ChronoUnit.DAYS.between(from, to);
+    }
+}
@@ -2,127 +2,305 @@ package com.dnikitin.hotel.model;
 
 import com.dnikitin.hotel.commandcontrol.commandutils.ConsoleFormatter;
 import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.exceptions.RoomFreeException;
 import com.dnikitin.hotel.exceptions.RoomNotFoundException;
+import com.dnikitin.hotel.exceptions.RoomOccupiedException;
+import com.dnikitin.hotel.exceptions.RoomSmallCapacityException;
+import com.dnikitin.hotel.index.AvailabilityIndex;
+import com.dnikitin.hotel.index.ChangeTracker;
+import com.dnikitin.hotel.index.GuestIndex;
+import com.dnikitin.hotel.index.GuestMatch;
+import com.dnikitin.hotel.index.IndexedRoomStore;
+import com.dnikitin.hotel.index.OccupancyStats;
+import com.dnikitin.hotel.index.RoomPreferences;
+import com.dnikitin.hotel.index.ScheduledStay;
+import com.dnikitin.hotel.index.StayDateIndex;
 import com.dnikitin.map.MyMap;
 import com.dnikitin.map.Map;
+import com.dnikitin.map.RangeMap;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Represents the entire hotel, managing all rooms, reservations,
- * and data persistence (loading/saving to CSV).
+ * and data persistence (loading/saving to CSV or binary snapshot files).
+ * <p>
+ * The hotel is thread-safe without a global lock. Rooms switch their booking state with
+ * compare-and-set on an immutable calendar, so reading a room never blocks. Changes of a
+ * room made through the hotel still take one of a fixed number of striped locks, so the
+ * check-in and check-out path is lock-based. The CAS alone decides which change of a room
+ * wins; the lock keeps the notifications of one room in the order of its state changes.
+ * The journal must log a stay before its removal to replay it, and the guest and stay-date
+ * indexes file stays as additions and removals, which cannot be applied out of order.
+ * Check-ins and check-outs of different rooms still run in parallel.
+ * A read/write lock coordinates them with operations that replace or read the whole
+ * state: room operations share its read lock, while adding rooms, loading and taking the
+ * snapshot for saving hold the write lock. The indexes are concurrent or striped
+ * themselves, so the index updates of a check-in take no lock shared by all rooms.
  */
 public class Hotel {
 
-    private final Map<Integer, Room> rooms;
-    private static final String[] STATE_HEADERS = {
-            "RoomNumber", "Capacity", "Price",
-            "GuestName", "CheckinDate", "Duration", "AdditionalGuests"
-    };
+    private static final String PRICE_INDEX = "price";
+    private static final String FLOOR_INDEX = "floor";
+
+    private final IndexedRoomStore rooms;
+    private final AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+    private final GuestIndex guestIndex = new GuestIndex();
+    private final StayDateIndex stayDates = new StayDateIndex();
+    private final OccupancyStats stats = new OccupancyStats();
+    private final ChangeTracker changes = new ChangeTracker();
+    private final Set<BackgroundSave> runningSaves = ConcurrentHashMap.newKeySet();
+    private final RoomStateListener indexUpdater = new IndexUpdater();
+    private volatile HotelChangeListener changeListener;
+
     /**
-     * CSV format for parsing (reading) files.
-     * Assumes file has a header and skips it.
+     * The inverse of every change the current thread made in its running public change method,
+     * recorded only while a change listener is registered; see {@link #syncChanges()}.
      */
-    private static final CSVFormat STATE_FORMAT_PARSER = CSVFormat.Builder.create(CSVFormat.DEFAULT)
-            .setDelimiter(';')
-            .setHeader(STATE_HEADERS)
-            .setSkipHeaderRecord(true)   // skip header when reading
-            .get();
+    private final ThreadLocal<List<Runnable>> undoLog = ThreadLocal.withInitial(ArrayList::new);
+
+    private static final int LOCK_STRIPES = 64;
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final StripedLocks roomLocks = new StripedLocks(LOCK_STRIPES);
 
     /**
-     * CSV format for printing (writing) files.
-     * Includes the header in the output.
+     * The file that lists the partitions of a state saved with
+     * {@link #writeRoomsToPartitions(String, StatePartitioning, StateFormat)}.
+     */
+    public static final String PARTITION_MANIFEST = StatePartitions.MANIFEST;
+
+    static final String[] STATE_HEADERS = {
+            "RoomNumber", "Capacity", "Price",
+            "GuestName", "CheckinDate", "Duration", "AdditionalGuests", "Seasons"
+    };
+    private static final String[] BATCH_HEADERS = {
+            "RoomNumber", "GuestName", "CheckinDate", "Duration", "AdditionalGuests"
+    };
+    /**
+     * CSV format of group check-in files, see {@link #readCheckinRequests(String)}.
      */
-    private static final CSVFormat STATE_FORMAT_PRINTER = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+    private static final CSVFormat BATCH_FORMAT_PARSER = CSVFormat.Builder.create(CSVFormat.DEFAULT)
             .setDelimiter(';')
-            .setHeader(STATE_HEADERS)
-            .setSkipHeaderRecord(false)  // write header when saving
+            .setHeader(BATCH_HEADERS)
+            .setSkipHeaderRecord(true)
             .get();
 
-
     /**
      * Constructs a new, empty Hotel.
      */
     public Hotel() {
-        this.rooms = new MyMap<Integer, Room>();
+        this.rooms = new IndexedRoomStore();
+        this.rooms.addIndex(PRICE_INDEX, Room::getPrice);
+        this.rooms.addIndex(FLOOR_INDEX, Room::getFloor);
     }
 
     /**
      * Adds a new room to the hotel's room map.
+     * A room with the same number is replaced.
      *
      * @param room The room to add.
      */
     public void addRoom(Room room) {
-        rooms.put(room.getRoomNumber(), room);
+        beforeChange();
+        stateLock.writeLock().lock();
+        try {
+            Room previous = rooms.put(room);
+            if (previous != null) {
+                detach(previous);
+            }
+            attach(room);
+            changes.roomChanged(room.getRoomNumber());
+            HotelChangeListener listener = changeListener;
+            if (listener != null) {
+                listener.roomAdded(room);
+                recordUndo(() -> undoAddRoom(room, previous));
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        syncChanges();
+    }
+
+    /**
+     * Removes all rooms from the hotel.
+     */
+    public void clear() {
+        beforeChange();
+        replaceRooms(new MyMap<>());
+        syncChanges();
+    }
+
+    /**
+     * Registers the listener receiving every change of the hotel state, replacing the previous one.
+     *
+     * @param listener The listener, or {@code null} to remove it.
+     */
+    public void setChangeListener(HotelChangeListener listener) {
+        stateLock.writeLock().lock();
+        try {
+            this.changeListener = listener;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
     }
 
     /**
-     * Loads the entire hotel state (rooms and reservations) from a CSV file.
+     * Loads the entire hotel state (rooms and reservations) from a CSV file or a binary
+     * snapshot; the format is detected from the content of the file.
      * This will clear any existing room data in the hotel.
      *
-     * @param path The file system path to the CSV file.
+     * @param path The file system path to the state file.
      * @throws HotelDataException if an I/O error occurs or if the data
      * in the file is malformed (e.g., bad number/date).
      */
     public void loadRoomsFromFile(String path) throws HotelDataException {
-        Map<Integer, Room> tempRooms = new MyMap<>();
-        long currentLine = 1;
+        int loaded = readRoomsFromFile(path);
+        ConsoleFormatter.printHeader("Successfully read and saved " + loaded + " rooms");
+    }
 
-        try (Reader reader = new FileReader(path);
-             CSVParser parser = new CSVParser(reader, STATE_FORMAT_PARSER)) {
+    /**
+     * Replaces the hotel state with the content of a CSV file, like
+     * {@link #loadRoomsFromFile(String)}, without printing anything to the console.
+     *
+     * @param path The file system path to the CSV file.
+     * @return The number of loaded rooms.
+     * @throws HotelDataException if an I/O error occurs or if the data in the file is malformed.
+     */
+    public int readRoomsFromFile(String path) throws HotelDataException {
+        return restoreRooms(parseRoomsFile(path));
+    }
 
-            for (CSVRecord csvRecord : parser) {
-                currentLine = csvRecord.getRecordNumber();
+    /**
+     * Parses a CSV state file or a binary snapshot into new rooms without touching the hotel state.
+     *
+     * @param path The file system path to the state file, or to the directory of a partitioned state.
+     * @return The rooms of the file together with their stays, keyed by room number.
+     * @throws HotelDataException if an I/O error occurs or if the data in the file is malformed.
+     */
+    public MyMap<Integer, Room> parseRoomsFile(String path) throws HotelDataException {
+        return parseRoomsFile(path, Runtime.getRuntime().availableProcessors());
+    }
 
-                int roomNumber = Integer.parseInt(csvRecord.get("RoomNumber").trim());
-                double price = Double.parseDouble(csvRecord.get("Price").trim());
-                int capacity = Integer.parseInt(csvRecord.get("Capacity").trim());
+    /**
+     * Parses a CSV state file like {@link #parseRoomsFile(String)}, using at most the given
+     * number of threads. A file is split into chunks at record boundaries, parsed on all
+     * threads and merged with one bulk build. Every chunk holds at least
+     * {@link StateFileReader#MIN_CHUNK_BYTES} (1 MiB), so fewer threads are used for smaller
+     * files and files under 2 MiB are parsed sequentially. A binary snapshot is always read on the calling thread, and so is
+     * a compressed file, which is decompressed on a second thread while it is read. A directory
+     * written by {@link #writeRoomsToPartitions(String, StatePartitioning, StateFormat)} is
+     * read one partition file per thread.
+     *
+     * @param path        The file system path to the state file.
+     * @param parallelism The maximal number of chunks parsed at once; {@code 1} parses sequentially.
+     * @return The rooms of the file together with their stays, keyed by room number.
+     * @throws HotelDataException if an I/O error occurs or if the data in the file is malformed.
+     */
+    public MyMap<Integer, Room> parseRoomsFile(String path, int parallelism) throws HotelDataException {
+        if (StatePartitions.isPartitioned(path)) {
+            return StatePartitions.read(path, partition -> parseRoomsFile(partition, 1));
+        }
+        return switch (StateFormat.detect(path)) {
+            case CSV -> StateFileReader.read(path, parallelism);
+            case CSV_GZIP -> StateFileReader.readGzip(path);
+            case BINARY, BINARY_DEFLATE -> StateSnapshotFile.read(path);
+        };
+    }
 
-                Room room = new Room(roomNumber, price, capacity);
+    /**
+     * Rewrites a state file in another format without touching the hotel state, e.g. a CSV
+     * file as a binary snapshot or the other way round. The target is written under a
+     * temporary name and then renamed.
+     *
+     * @param source The file system path to the state file to read, in either format.
+     * @param target The file system path to write to.
+     * @param format The format of the target file.
+     * @return The number of converted rooms.
+     * @throws HotelDataException if a file cannot be read or written, or if the source is malformed.
+     */
+    public int convertStateFile(String source, String target, StateFormat format) throws HotelDataException {
+        MyMap<Integer, Room> parsed = parseRoomsFile(source);
+        StateSnapshot snapshot = new StateSnapshot(parsed.size());
+        for (java.util.Map.Entry<Integer, Room> entry : parsed) {
+            snapshot.add(entry.getValue());
+        }
+        writeAtomically(target, snapshot, format, null);
+        return snapshot.size();
+    }
 
-                String mainGuestName = csvRecord.get("GuestName").trim();
+    /**
+     * Replaces all rooms of the hotel with rooms built elsewhere, e.g. parsed from a file
+     * or rebuilt from a journal. The rooms are indexed once, as a whole.
+     *
+     * @param newRooms The new rooms, keyed by room number; they must not belong to another hotel.
+     * @return The number of rooms after the replacement.
+     */
+    public int restoreRooms(Map<Integer, Room> newRooms) {
+        beforeChange();
+        int restored = replaceRooms(newRooms);
+        syncChanges();
+        return restored;
+    }
 
-                if (mainGuestName != null && !mainGuestName.isBlank()) {
-                    Guest mainGuest = new Guest(mainGuestName);
-                    LocalDate checkin = LocalDate.parse(csvRecord.get("CheckinDate").trim());
-                    int duration = Integer.parseInt(csvRecord.get("Duration").trim());
+    /**
+     * Reads the check-ins of a group booking from a CSV file with the columns
+     * {@code RoomNumber;GuestName;CheckinDate;Duration;AdditionalGuests}.
+     * An empty check-in date means today; additional guests are separated by {@code |}.
+     *
+     * @param path The file system path to the CSV file.
+     * @return The requests in file order.
+     * @throws HotelDataException if an I/O error occurs or if a row is malformed.
+     */
+    public List<CheckinRequest> readCheckinRequests(String path) throws HotelDataException {
+        List<CheckinRequest> requests = new ArrayList<>();
+        long currentLine = 1;
 
-                    String additionalGuestsString = csvRecord.get("AdditionalGuests");
-                    List<Guest> additionalGuests = parseAdditionalGuestsList(additionalGuestsString);
+        try (Reader reader = new FileReader(path);
+             CSVParser parser = new CSVParser(reader, BATCH_FORMAT_PARSER)) {
 
-                    Reservation reservation = new Reservation(
-                            mainGuest,
-                            additionalGuests,
-                            checkin,
-                            duration
-                    );
-                    room.checkIn(reservation);
+            for (CSVRecord csvRecord : parser) {
+                currentLine = csvRecord.getRecordNumber();
 
+                int roomNumber = Integer.parseInt(csvRecord.get("RoomNumber").trim());
+                String mainGuestName = csvRecord.get("GuestName").trim();
+                if (mainGuestName.isBlank()) {
+                    throw new HotelDataException("Missing guest name in file near line " + currentLine);
                 }
-                tempRooms.put(roomNumber, room);
-            }
-            this.rooms.clear();
+                String checkinString = csvRecord.get("CheckinDate").trim();
+                LocalDate checkin = checkinString.isBlank() ? LocalDate.now() : LocalDate.parse(checkinString);
+                int duration = Integer.parseInt(csvRecord.get("Duration").trim());
+                List<Guest> additionalGuests =
+                        StateFileReader.parseAdditionalGuestsList(csvRecord.get("AdditionalGuests"));
 
-            for (java.util.Map.Entry<Integer, Room> entry : (Iterable<java.util.Map.Entry<Integer, Room>>) tempRooms) {
-                this.rooms.put(entry.getKey(), entry.getValue());
+                requests.add(new CheckinRequest(roomNumber, new Guest(mainGuestName), additionalGuests,
+                        checkin, duration));
             }
-            ConsoleFormatter.printHeader("Successfully read and saved " + rooms.size() + " rooms");
+            return requests;
         } catch (IOException e) {
             throw new HotelDataException("Error reading file (I/O): " + path, e);
         } catch (DateTimeParseException e) {
             throw new HotelDataException("Error parsing data in file near line " +
                     currentLine + ": " + e.getParsedString(), e);
-        } catch (NumberFormatException e) {
+        } catch (IllegalArgumentException e) {
             throw new HotelDataException("Error parsing data in file near line " +
                     currentLine + ": " + e.getMessage(), e);
         }
@@ -130,48 +308,221 @@ public class Hotel {
 
     /**
      * Saves the current hotel state (all rooms and reservations) to a CSV file.
-     * The output is sorted by room number.
+     * The output is sorted by room number. A free room is written as a single row
+     * without guest data; a booked room is written as one row per stay.
      *
      * @param path The file system path to write to.
      * @throws HotelDataException if an I/O error occurs during writing.
      */
     public void saveRoomsToFile(String path) throws HotelDataException {
-        List<Room> roomsList = getRooms();
-        roomsList.sort(Comparator.comparingInt(Room::getRoomNumber));
-
-        try (Writer writer = new FileWriter(path);
-             CSVPrinter printer = new CSVPrinter(writer, STATE_FORMAT_PRINTER)) {
-            for (Room room : roomsList) {
-                if (room.isFree()) {
-                    printer.printRecord(
-                            room.getRoomNumber(),
-                            room.getCapacity(),
-                            room.getPrice(),
-                            "", "", "", ""
-                    );
-                } else {
-                    Reservation res = room.getReservation();
-                    Guest guest = res.mainGuest();
-
-                    String additionalGuestsString = res.additionalGuests().stream()
-                            .map(Guest::name)
-                            .collect(Collectors.joining("|"));
-
-                    printer.printRecord(
-                            room.getRoomNumber(),
-                            room.getCapacity(),
-                            room.getPrice(),
-                            guest.name(),
-                            res.checkinDate().toString(),
-                            res.duration(),
-                            additionalGuestsString
-                    );
+        saveRoomsToFile(path, StateFormat.CSV);
+    }
+
+    /**
+     * Saves the current hotel state like {@link #saveRoomsToFile(String)}, in the given format.
+     *
+     * @param path   The file system path to write to.
+     * @param format The format of the file.
+     * @throws HotelDataException if an I/O error occurs during writing.
+     */
+    public void saveRoomsToFile(String path, StateFormat format) throws HotelDataException {
+        int saved = writeRoomsToFile(path, format);
+        ConsoleFormatter.printHeader("Successfully saved to the file " + saved + " rooms");
+    }
+
+    /**
+     * Writes the current hotel state to a CSV file in the same format as
+     * {@link #saveRoomsToFile(String)}, without printing anything to the console.
+     * Used by background jobs such as autosave.
+     * <p>
+     * The state is captured under the write lock, which only takes as long as copying the
+     * references to the rooms and their immutable calendars; the file itself is streamed from
+     * that capture without blocking other operations. It is written under a temporary name
+     * and then atomically renamed, so the target never holds a partly written file.
+     *
+     * @param path The file system path to write to.
+     * @return The number of rooms written.
+     * @throws HotelDataException if an I/O error occurs during writing.
+     */
+    public int writeRoomsToFile(String path) throws HotelDataException {
+        return writeRoomsToFile(path, () -> {
+        });
+    }
+
+    /**
+     * Writes the current hotel state like {@link #writeRoomsToFile(String)}, in the given format.
+     *
+     * @param path   The file system path to write to.
+     * @param format The format of the file.
+     * @return The number of rooms written.
+     * @throws HotelDataException if an I/O error occurs during writing.
+     */
+    public int writeRoomsToFile(String path, StateFormat format) throws HotelDataException {
+        StateSnapshot snapshot = snapshot(() -> {
+        });
+        writeAtomically(path, snapshot, format, null);
+        return snapshot.size();
+    }
+
+    /**
+     * Same as {@link #writeRoomsToFile(String)}, but runs an action at the moment the snapshot
+     * is taken, while no change can happen. A journal uses this to start a new log segment
+     * exactly at the state the file contains.
+     *
+     * @param path       The file system path to save the CSV file to.
+     * @param atSnapshot The action to run while the state is locked.
+     * @return The number of saved rooms.
+     * @throws HotelDataException if an I/O error occurs during writing.
+     */
+    public int writeRoomsToFile(String path, Runnable atSnapshot) throws HotelDataException {
+        StateSnapshot snapshot = snapshot(atSnapshot);
+        writeAtomically(path, snapshot, StateFormat.CSV, null);
+        return snapshot.size();
+    }
+
+    /**
+     * Saves the current hotel state like {@link #saveRoomsToFile(String, StateFormat)}, split
+     * into partition files, see {@link #writeRoomsToPartitions(String, StatePartitioning, StateFormat)}.
+     *
+     * @param directory    The directory of the partition files.
+     * @param partitioning How to split the rooms into files.
+     * @param format       The format of the partition files.
+     * @throws HotelDataException if an I/O error occurs during writing.
+     */
+    public void saveRoomsToPartitions(String directory, StatePartitioning partitioning, StateFormat format)
+            throws HotelDataException {
+        PartitionSaveResult result = writeRoomsToPartitions(directory, partitioning, format);
+        ConsoleFormatter.printHeader("Successfully saved " + result.rooms() + " rooms in " + result.partitions()
+                + " partitions, " + (result.partitions() - result.written()) + " of them unchanged");
+    }
+
+    /**
+     * Writes the current hotel state as a directory of partition files, one per floor or per
+     * run of rooms, and a manifest listing them, without printing anything to the console.
+     * The partitions are written in parallel; a partition whose content has the checksum the
+     * manifest already lists for its file is not written again. Every file is written under a
+     * temporary name and renamed, and the manifest is replaced last, so the directory always
+     * holds one complete state. {@link #parseRoomsFile(String)} reads it back.
+     *
+     * @param directory    The directory of the partition files, created if needed.
+     * @param partitioning How to split the rooms into files.
+     * @param format       The format of the partition files.
+     * @return The numbers of saved rooms and partitions, and of the partition files written.
+     * @throws HotelDataException if an I/O error occurs during writing.
+     */
+    public PartitionSaveResult writeRoomsToPartitions(String directory, StatePartitioning partitioning,
+                                                      StateFormat format) throws HotelDataException {
+        StateSnapshot snapshot = snapshot(() -> {
+        });
+        return StatePartitions.write(directory, snapshot, partitioning, format,
+                (path, partition) -> writeAtomically(path, partition, format, null));
+    }
+
+    /**
+     * Saves the hotel state like {@link #writeRoomsToFile(String)}, but writes the file on a
+     * background virtual thread, so the caller and all other operations can go on at once.
+     * <p>
+     * The state is captured before this method returns; later changes are not saved. The
+     * rooms are written to a temporary file next to the target, which is then atomically
+     * renamed, so readers of the target never see a partly written file.
+     *
+     * @param path     The file system path to write to.
+     * @param progress Receives the progress on the saving thread, or {@code null}.
+     * @return The running save.
+     */
+    public BackgroundSave saveRoomsInBackground(String path, BackgroundSave.Progress progress) {
+        return saveRoomsInBackground(path, StateFormat.CSV, progress);
+    }
+
+    /**
+     * Saves the hotel state in the background like {@link #saveRoomsInBackground(String, BackgroundSave.Progress)},
+     * in the given format.
+     *
+     * @param path     The file system path to write to.
+     * @param format   The format of the file.
+     * @param progress Receives the progress on the saving thread, or {@code null}.
+     * @return The running save.
+     */
+    public BackgroundSave saveRoomsInBackground(String path, StateFormat format, BackgroundSave.Progress progress) {
+        StateSnapshot snapshot = snapshot(() -> {
+        });
+        BackgroundSave save = new BackgroundSave(path, snapshot.size());
+        runningSaves.add(save);
+        Thread.ofVirtual().name("hotel-save").start(() -> {
+            try {
+                writeAtomically(path, snapshot, format, (written, total) -> {
+                    save.roomWritten(written);
+                    if (progress != null) {
+                        progress.update(written, total);
+                    }
+                });
+                save.complete(null);
+            } catch (HotelDataException | RuntimeException e) {
+                save.complete(e);
+            } finally {
+                runningSaves.remove(save);
+            }
+        });
+        return save;
+    }
+
+    /**
+     * Waits until all saves started with {@link #saveRoomsInBackground} are finished.
+     */
+    public void awaitBackgroundSaves() {
+        for (BackgroundSave save : runningSaves) {
+            try {
+                save.result().join();
+            } catch (RuntimeException e) {
+                // the failure was reported to whoever started the save
+            }
+        }
+    }
+
+    /**
+     * Writes only the rooms changed after the given state version, in the format of
+     * {@link #saveRoomsToFile(String)}, so that saving a few changes of a large hotel costs
+     * I/O for those rooms only. If all rooms were replaced since that version (e.g. by
+     * loading a file), every room is written and the result is marked complete; passing
+     * {@code -1} always writes every room.
+     *
+     * @param path         The file system path to write to.
+     * @param sinceVersion The state version of the last save, see {@link #getStateVersion()}.
+     * @return The state version the file is current with, and what it contains.
+     * @throws HotelDataException if an I/O error occurs during writing.
+     */
+    public SaveResult writeChangedRoomsToFile(String path, long sinceVersion) throws HotelDataException {
+        stateLock.writeLock().lock();
+        long version;
+        boolean complete;
+        StateSnapshot snapshot;
+        try {
+            version = changes.version();
+            complete = changes.resetSince(sinceVersion);
+            if (complete) {
+                snapshot = snapshot(() -> {
+                });
+            } else {
+                List<Integer> changed = changes.changedSince(sinceVersion);
+                changed.sort(null);
+                snapshot = new StateSnapshot(changed.size());
+                for (int roomNumber : changed) {
+                    snapshot.add(rooms.get(roomNumber));
                 }
             }
-            ConsoleFormatter.printHeader("Successfully saved to the file " + rooms.size() + " rooms");
-        } catch (IOException e) {
-            throw new HotelDataException("Error writing file (I/O): " + path, e);
+        } finally {
+            stateLock.writeLock().unlock();
         }
+        writeState(path, snapshot, StateFormat.CSV, null);
+        return new SaveResult(version, snapshot.size(), complete);
+    }
+
+    /**
+     * Returns the version of the hotel state. It grows with every change, so two equal
+     * versions mean the state did not change in between.
+     */
+    public long getStateVersion() {
+        return changes.version();
     }
 
     /**
@@ -181,25 +532,53 @@ public class Hotel {
      * @return The {@link Room} object, or {@code null} if not found.
      */
     public Room getRoom(int roomNumber) {
-        return rooms.get(roomNumber);
+        return read(() -> rooms.get(roomNumber));
     }
 
     /**
      * Gets a list of all rooms in the hotel.
      *
-     * @return A {@link List} containing all {@link Room} objects.
+     * @return A {@link List} containing all {@link Room} objects, ordered by room number.
      */
     public List<Room> getRooms() {
-        List<Room> allRooms = new ArrayList<>();
         // O(n)
-        for (java.util.Map.Entry<Integer, Room> entry : (Iterable<java.util.Map.Entry<Integer, Room>>) this.rooms) {
-            allRooms.add(entry.getValue());
-        }
-        return allRooms;
+        return read(rooms::toList);
+    }
+
+    /**
+     * Gets all rooms ordered by their base price per night, then by room number.
+     * The rooms are read from a price index kept up to date on every change, so no sorting is done.
+     *
+     * @return The rooms, cheapest first.
+     */
+    public List<Room> getRoomsByPrice() {
+        return read(() -> rooms.scan(PRICE_INDEX));
+    }
+
+    /**
+     * Gets all rooms priced within {@code [minPrice, maxPrice)} per night, cheapest first.
+     *
+     * @param minPrice The minimal price (inclusive).
+     * @param maxPrice The maximal price (exclusive).
+     * @return The matching rooms.
+     */
+    public List<Room> getRoomsInPriceRange(double minPrice, double maxPrice) {
+        return read(() -> rooms.range(PRICE_INDEX, minPrice, maxPrice));
+    }
+
+    /**
+     * Gets all rooms on the given floor, ordered by room number.
+     *
+     * @param floor The floor.
+     * @return The rooms on that floor, possibly empty.
+     */
+    public List<Room> getRoomsOnFloor(int floor) {
+        return read(() -> rooms.lookup(FLOOR_INDEX, floor));
     }
 
     /**
      * Checks a guest into a specific room with a given date.
+     * The date may lie in the future, which books the stay in advance.
      *
      * @param roomNumber    The room number.
      * @param mainGuest     The main guest.
@@ -207,13 +586,43 @@ public class Hotel {
      * @param checkInDate   The specific date of check-in.
      * @param duration      The duration of the stay in nights.
      * @throws RoomNotFoundException if the room number does not exist.
+     * @throws RoomOccupiedException if the stay overlaps another stay in that room.
+     * @throws RoomSmallCapacityException if the room cannot hold all guests.
      */
     public void checkIn(int roomNumber, Guest mainGuest, List<Guest> others, LocalDate checkInDate, int duration) {
-        if (!rooms.contains(roomNumber)) {
-            throw new RoomNotFoundException("Room with number " + roomNumber + " does not exists");
-        }
         Reservation reservation = new Reservation(mainGuest, others, checkInDate, duration);
-        rooms.get(roomNumber).checkIn(reservation);
+        beforeChange();
+        withRoom(roomNumber, () -> {
+            Room room = rooms.get(roomNumber);
+            if (room == null) {
+                throw new RoomNotFoundException("Room with number " + roomNumber + " does not exists");
+            }
+            room.checkIn(reservation);
+            return null;
+        });
+        syncChanges();
+    }
+
+    /**
+     * Same as {@link #checkIn(int, Guest, List, LocalDate, int)}, but reports a rejected
+     * check-in through the returned status instead of an exception, for callers that
+     * probe rooms at a high rate. A rejected attempt builds no exception or message.
+     *
+     * @param roomNumber  The room number.
+     * @param mainGuest   The main guest.
+     * @param others      A list of additional guests.
+     * @param checkInDate The specific date of check-in.
+     * @param duration    The duration of the stay in nights.
+     * @return {@link BookingStatus#OK} if the guests have been checked in, otherwise the reason.
+     */
+    public BookingStatus tryCheckIn(int roomNumber, Guest mainGuest, List<Guest> others,
+                                    LocalDate checkInDate, int duration) {
+        beforeChange();
+        BookingStatus status = tryCheckInLocked(roomNumber, mainGuest, others, checkInDate, duration);
+        if (status.isOk()) {
+            syncChanges();
+        }
+        return status;
     }
 
     /**
@@ -230,19 +639,290 @@ public class Hotel {
         checkIn(roomNumber, mainGuest, others, checkInDate, duration);
     }
 
+    /**
+     * Checks in a group booking: either every request is checked in, or none is.
+     * <p>
+     * The locks of all rooms in the batch are taken up front in ascending stripe order,
+     * so concurrent batches cannot deadlock and no other check-in can slip in between
+     * validation and apply. All requests are validated in one pass, each against its room's
+     * calendar and the earlier requests of the batch for the same room. Only if all of them
+     * are valid the batch is applied.
+     *
+     * @param requests The check-ins of the group.
+     * @return One result per request, in the order of the requests.
+     */
+    public List<CheckinResult> checkInAll(List<CheckinRequest> requests) {
+        beforeChange();
+        Lock[] locks = roomLocks.forRooms(requests.stream().mapToInt(CheckinRequest::roomNumber).toArray());
+        List<CheckinResult> results = new ArrayList<>(requests.size());
+        stateLock.readLock().lock();
+        int locked = 0;
+        try {
+            for (Lock lock : locks) {
+                lock.lock();
+                locked++;
+            }
+            String[] errors = validateBatch(requests);
+            boolean valid = Arrays.stream(errors).allMatch(Objects::isNull);
+            if (valid) {
+                applyBatch(requests);
+            }
+
+            for (int i = 0; i < requests.size(); i++) {
+                if (errors[i] != null) {
+                    results.add(new CheckinResult(requests.get(i), CheckinResult.Status.REJECTED, errors[i]));
+                } else if (valid) {
+                    results.add(new CheckinResult(requests.get(i), CheckinResult.Status.CHECKED_IN, null));
+                } else {
+                    results.add(new CheckinResult(requests.get(i), CheckinResult.Status.SKIPPED,
+                            "Not applied, another request of the batch was rejected"));
+                }
+            }
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+            stateLock.readLock().unlock();
+        }
+        if (!results.isEmpty() && results.getFirst().isCheckedIn()) {
+            syncChanges();
+        }
+        return results;
+    }
+
     /**
      * Checks out a guest from a specific room number.
      *
      * @param roomNumber The room number to check out.
      * @return The calculated bill for the stay.
      * @throws RoomNotFoundException if the room number does not exist.
+     * @throws RoomFreeException if the room has no stay to check out, e.g. only one that begins after today.
      */
     public double checkOut(int roomNumber) {
-        Room room = rooms.get(roomNumber);
-        if (room == null) {
-            throw new RoomNotFoundException("Room with number " + roomNumber + " does not exist");
+        CheckoutResult result = tryCheckOut(roomNumber);
+        return switch (result.status()) {
+            case ROOM_NOT_FOUND ->
+                    throw new RoomNotFoundException("Room with number " + roomNumber + " does not exist");
+            case ROOM_FREE -> throw new RoomFreeException("Room " + roomNumber + " is free");
+            default -> result.bill();
+        };
+    }
+
+    /**
+     * Same as {@link #checkOut(int)}, but reports a failed check-out through the returned
+     * result instead of an exception. A failed attempt allocates nothing.
+     *
+     * @param roomNumber The room number to check out.
+     * @return The bill, or the shared result for {@link BookingStatus#ROOM_NOT_FOUND}
+     * or {@link BookingStatus#ROOM_FREE}.
+     */
+    public CheckoutResult tryCheckOut(int roomNumber) {
+        beforeChange();
+        CheckoutResult result = tryCheckOutLocked(roomNumber);
+        if (result.isOk()) {
+            syncChanges();
         }
-        return room.checkOut();
+        return result;
+    }
+
+    /**
+     * Applies a seasonal rate to the nights {@code [from, to)} of a room, replacing any
+     * previous seasonal rate in that period (see {@link Room#setRate(LocalDate, LocalDate, Rate)}).
+     * The projected revenue of the room's stays follows the new rate, and the seasons are
+     * saved and journaled with the room like its stays.
+     *
+     * @param roomNumber The room number.
+     * @param from       The first night of the season (inclusive).
+     * @param to         The day the season ends (exclusive).
+     * @param rate       The rate to charge.
+     * @throws RoomNotFoundException    if the room number does not exist.
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}.
+     */
+    public void setRate(int roomNumber, LocalDate from, LocalDate to, Rate rate) {
+        changeRates(roomNumber, room -> room.setRate(from, to, rate));
+    }
+
+    /**
+     * Removes any seasonal rate in {@code [from, to)} of a room, so these nights fall back
+     * to its base price. Saved and journaled like {@link #setRate(int, LocalDate, LocalDate, Rate)}.
+     *
+     * @param roomNumber The room number.
+     * @param from       The first night to clear (inclusive).
+     * @param to         The day to stop clearing (exclusive).
+     * @throws RoomNotFoundException    if the room number does not exist.
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}.
+     */
+    public void clearRate(int roomNumber, LocalDate from, LocalDate to) {
+        changeRates(roomNumber, room -> room.clearRate(from, to));
+    }
+
+    /**
+     * Runs the night audit: closes and bills every stay expected to check out on or before
+     * the given date.
+     * <p>
+     * A stay is billed up to its expected check-out date, or up to the audit date if the guest
+     * stayed past it, so an overdue stay is billed like a {@link #checkOut(int)} on the audit
+     * date would bill it.
+     * <p>
+     * The due stays are taken from the departure index in O(log n + k). Their bills only
+     * read the rate calendars, so they are computed in parallel on the common fork-join pool.
+     * The checkouts are then applied one room at a time under that room's lock; a stay that
+     * has been checked out in the meantime is skipped and does not appear in the ledger.
+     *
+     * @param auditDate The date the audit is run for.
+     * @return The ledger of all closed stays with their bills.
+     */
+    public AuditLedger nightAudit(LocalDate auditDate) {
+        beforeChange();
+        AuditLedger ledger = read(() -> {
+            List<ScheduledStay> due = stayDates.dueBy(auditDate);
+
+            List<AuditEntry> bills = due.parallelStream()
+                    .map(stay -> {
+                        LocalDate billedUntil = stay.departure().isAfter(auditDate) ? stay.departure() : auditDate;
+                        return new AuditEntry(
+                                stay.roomNumber(),
+                                stay.reservation().mainGuest().name(),
+                                stay.arrival(),
+                                billedUntil,
+                                rooms.get(stay.roomNumber()).priceStay(stay.arrival(), billedUntil));
+                    })
+                    .toList();
+
+            List<AuditEntry> closed = new ArrayList<>(bills.size());
+            for (int i = 0; i < due.size(); i++) {
+                ScheduledStay stay = due.get(i);
+                boolean removed = withRoom(stay.roomNumber(),
+                        () -> rooms.get(stay.roomNumber()).removeReservation(stay.reservation()));
+                if (removed) {
+                    closed.add(bills.get(i));
+                }
+            }
+            return new AuditLedger(auditDate, closed);
+        });
+        if (ledger.size() > 0) {
+            syncChanges();
+        }
+        return ledger;
+    }
+
+    /**
+     * Finds rooms that are free for every night of the given date range, hold at least
+     * {@code minCapacity} guests and cost at most {@code maxPrice} per night.
+     * <p>
+     * The query is answered from an {@link AvailabilityIndex} maintained on every
+     * check-in and check-out, so it only visits rooms that fit the capacity and price
+     * limits instead of scanning {@link #getRooms()}.
+     *
+     * @param dateRange   The nights the room must be free.
+     * @param minCapacity The minimal number of guests.
+     * @param maxPrice    The maximal base price per night.
+     * @param floor       The floor to search on, or {@code null} for any floor.
+     * @return The matching rooms, cheapest first.
+     */
+    public List<Room> findAvailable(DateRange dateRange, int minCapacity, double maxPrice, Integer floor) {
+        return read(() -> availabilityIndex.findAvailable(dateRange, minCapacity, maxPrice, floor));
+    }
+
+    /**
+     * Picks the best-fitting room free for the given nights: the smallest room that holds
+     * everyone and, among rooms of that size, the cheapest one.
+     * <p>
+     * The choice is read from the free intervals of the {@link AvailabilityIndex}, the same
+     * ones {@link #findAvailable(DateRange, int, double, Integer)} uses. Every interval
+     * bucket is bucketed by capacity and sorted by price, so it only contributes its best fit,
+     * and rooms booked for the nights are never visited.
+     *
+     * @param dateRange   The nights the room must be free.
+     * @param partySize   The number of guests, including the main guest.
+     * @param preferences The optional floor and price limits.
+     * @return The chosen room, or {@code null} if no room fits.
+     */
+    public Room autoAssign(DateRange dateRange, int partySize, RoomPreferences preferences) {
+        return read(() -> availabilityIndex.bestAvailableRoom(dateRange, partySize, preferences));
+    }
+
+    /**
+     * Lists the stays starting on the given date.
+     *
+     * @param date The arrival date.
+     * @return The arriving stays, ordered by room number.
+     */
+    public List<ScheduledStay> arrivalsOn(LocalDate date) {
+        return read(() -> stayDates.arrivalsOn(date));
+    }
+
+    /**
+     * Lists the stays expected to check out on the given date.
+     * Stays are indexed by their departure date, so this takes O(log n + k).
+     *
+     * @param date The departure date.
+     * @return The departing stays, ordered by room number.
+     */
+    public List<ScheduledStay> departuresOn(LocalDate date) {
+        return read(() -> stayDates.departuresOn(date));
+    }
+
+    /**
+     * Lists the stays that should have checked out before the given date but are still booked.
+     *
+     * @param asOf The current date.
+     * @return The overdue stays, oldest departure first.
+     */
+    public List<ScheduledStay> overdue(LocalDate asOf) {
+        return read(() -> stayDates.overdue(asOf));
+    }
+
+    /**
+     * Finds all guests (main and additional) with exactly the given name,
+     * ignoring case and extra whitespace. Runs in O(log n).
+     *
+     * @param name The full name of the guest.
+     * @return The matching guests with their rooms and stays.
+     */
+    public List<GuestMatch> findGuests(String name) {
+        return read(() -> guestIndex.findExact(name));
+    }
+
+    /**
+     * Finds guests whose name starts with the given prefix, in alphabetical order.
+     *
+     * @param prefix The beginning of the guest's name.
+     * @param limit  The maximal number of results.
+     * @return The matching guests with their rooms and stays.
+     */
+    public List<GuestMatch> findGuestsByPrefix(String prefix, int limit) {
+        return read(() -> guestIndex.findByPrefix(prefix, limit));
+    }
+
+    /**
+     * Finds guests whose name is similar to the query, e.g. when it was misspelled.
+     *
+     * @param query The approximate name of the guest.
+     * @param limit The maximal number of results.
+     * @return The matching guests, best matches first.
+     */
+    public List<GuestMatch> findGuestsFuzzy(String query, int limit) {
+        return read(() -> guestIndex.findFuzzy(query, limit));
+    }
+
+    /**
+     * Returns the occupancy and revenue counters of the whole hotel.
+     * The counters are maintained on every change, so this call is O(1).
+     *
+     * @return The current hotel-wide statistics.
+     */
+    public OccupancyStats.Snapshot getStatistics() {
+        return stats.total();
+    }
+
+    /**
+     * Returns the occupancy and revenue counters of every floor.
+     *
+     * @return The statistics keyed and ordered by floor number.
+     */
+    public java.util.Map<Integer, OccupancyStats.Snapshot> getFloorStatistics() {
+        return stats.byFloor();
     }
 
     /**
@@ -252,17 +932,23 @@ public class Hotel {
      * @param room The room to display.
      */
     public void showRoomInfo(Room room) {
+        BookingCalendar calendar = room.getCalendar();
+
         ConsoleFormatter.printHeader("Information about room " + room.getRoomNumber());
         ConsoleFormatter.printProperty("Price per night", room.getPrice() + "$");
         ConsoleFormatter.printProperty("Room capacity", room.getCapacity());
+        for (RangeMap.Range<LocalDate, Rate> season : room.getRates().getSeasons()) {
+            ConsoleFormatter.printProperty("Seasonal price",
+                    season.value().nightlyPrice() + "$ (" + season.from() + " - " + season.to() + ")");
+        }
 
-        if (room.isFree()) {
+        if (calendar.isEmpty()) {
             ConsoleFormatter.printProperty("Status", "free");
 
         } else {
             ConsoleFormatter.printProperty("Status", "busy");
 
-            Reservation reservation = room.getReservation();
+            Reservation reservation = calendar.first();
 
             ConsoleFormatter.printHeader("Reservation information");
             ConsoleFormatter.printProperty("Main guest", reservation.mainGuest().name());
@@ -280,26 +966,470 @@ public class Hotel {
                     ConsoleFormatter.printProperty("", additionalGuest.name());
                 }
             }
+
+            List<Reservation> upcoming = calendar.reservations();
+            if (upcoming.size() > 1) {
+                ConsoleFormatter.printHeader("Upcoming stays");
+                for (Reservation stay : upcoming.subList(1, upcoming.size())) {
+                    ConsoleFormatter.printProperty(stay.checkinDate().toString(),
+                            stay.mainGuest().name() + " (" + stay.duration() + " nights)");
+                }
+            }
         }
     }
 
     //PRIVATE HELPERS
+
+    /**
+     * Lets the change listener reject a public change method before it touches the state;
+     * called outside all locks.
+     */
+    private void beforeChange() {
+        HotelChangeListener listener = changeListener;
+        if (listener != null) {
+            undoLog.get().clear();
+            listener.beforeChange();
+        }
+    }
+
+    /**
+     * Tells the change listener that a public change method is done; called outside all locks.
+     * <p>
+     * The listener sees a change only after it has been applied, so a listener that fails
+     * to persist it (e.g. a journal whose flush failed) would leave a change in memory that
+     * the caller is told has failed. Therefore the changes of the method are rolled back, in
+     * reverse order, before the listener's exception is rethrown. Another thread may have
+     * built on a change in the meantime; such a change is rolled back as far as it still
+     * applies.
+     */
+    private void syncChanges() {
+        HotelChangeListener listener = changeListener;
+        if (listener == null) {
+            return;
+        }
+        List<Runnable> undo = undoLog.get();
+        try {
+            listener.sync();
+        } catch (RuntimeException e) {
+            List<Runnable> actions = new ArrayList<>(undo);
+            undo.clear();
+            for (int i = actions.size() - 1; i >= 0; i--) {
+                try {
+                    actions.get(i).run();
+                } catch (RuntimeException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+            }
+            throw e;
+        } finally {
+            undo.clear();
+        }
+    }
+
+    /**
+     * Remembers how to take back a change of the running public change method.
+     */
+    private void recordUndo(Runnable action) {
+        undoLog.get().add(action);
+    }
+
     /**
-     * Parses the pipe-separated string of additional guests into a List.
+     * Takes back {@link #addRoom(Room)}: removes the room again and puts back the room it replaced.
+     */
+    private void undoAddRoom(Room room, Room previous) {
+        stateLock.writeLock().lock();
+        try {
+            if (rooms.get(room.getRoomNumber()) != room) {
+                return;
+            }
+            rooms.remove(room.getRoomNumber());
+            detach(room);
+            if (previous != null) {
+                rooms.put(previous);
+                attach(previous);
+            }
+            changes.roomChanged(room.getRoomNumber());
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The locked part of {@link #tryCheckIn}, written without a lambda so that a rejected
+     * attempt allocates nothing.
+     */
+    private BookingStatus tryCheckInLocked(int roomNumber, Guest mainGuest, List<Guest> others,
+                                           LocalDate checkInDate, int duration) {
+        stateLock.readLock().lock();
+        Lock roomLock = roomLocks.forRoom(roomNumber);
+        roomLock.lock();
+        try {
+            Room room = rooms.get(roomNumber);
+            if (room == null) {
+                return BookingStatus.ROOM_NOT_FOUND;
+            }
+            // checked before the reservation is built, so a rejected attempt allocates nothing
+            long firstNight = checkInDate.toEpochDay();
+            if (!room.getCalendar().isAvailable(firstNight, firstNight + Math.max(1, duration))) {
+                return BookingStatus.ROOM_OCCUPIED;
+            }
+            if (others.size() + 1 > room.getCapacity()) {
+                return BookingStatus.CAPACITY_EXCEEDED;
+            }
+            return room.tryCheckIn(new Reservation(mainGuest, others, checkInDate, duration));
+        } finally {
+            roomLock.unlock();
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The locked part of {@link #tryCheckOut}.
+     */
+    private CheckoutResult tryCheckOutLocked(int roomNumber) {
+        stateLock.readLock().lock();
+        Lock roomLock = roomLocks.forRoom(roomNumber);
+        roomLock.lock();
+        try {
+            Room room = rooms.get(roomNumber);
+            if (room == null) {
+                return CheckoutResult.failed(BookingStatus.ROOM_NOT_FOUND);
+            }
+            return room.tryCheckOut();
+        } finally {
+            roomLock.unlock();
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes the seasons of a room under its lock, remembering the previous seasons for a rollback.
+     */
+    private void changeRates(int roomNumber, Consumer<Room> change) {
+        beforeChange();
+        withRoom(roomNumber, () -> {
+            Room room = rooms.get(roomNumber);
+            if (room == null) {
+                throw new RoomNotFoundException("Room with number " + roomNumber + " does not exist");
+            }
+            List<RangeMap.Range<LocalDate, Rate>> previous = room.getRates().getSeasons();
+            change.accept(room);
+            if (changeListener != null) {
+                recordUndo(() -> withRoom(roomNumber, () -> {
+                    room.setSeasons(previous);
+                    return null;
+                }));
+            }
+            return null;
+        });
+        syncChanges();
+    }
+
+    /**
+     * Runs an action under the read lock of the hotel state.
+     */
+    private <T> T read(Supplier<T> action) {
+        stateLock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a change of a room under the read lock of the hotel state and the lock of the room.
+     * The room lock is held until the listeners have seen the change, so the next change of
+     * the same room is notified after it.
+     */
+    private <T> T withRoom(int roomNumber, Supplier<T> action) {
+        stateLock.readLock().lock();
+        Lock roomLock = roomLocks.forRoom(roomNumber);
+        roomLock.lock();
+        try {
+            return action.get();
+        } finally {
+            roomLock.unlock();
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rooms in ascending order of their numbers, each with the calendar it had when the
+     * snapshot was taken. Calendars are immutable, so taking a snapshot only copies references
+     * into two flat arrays; no list or object is created per room.
+     */
+    static final class StateSnapshot {
+        private final Room[] rooms;
+        private final BookingCalendar[] calendars;
+        private int size;
+
+        StateSnapshot(int capacity) {
+            this.rooms = new Room[capacity];
+            this.calendars = new BookingCalendar[capacity];
+        }
+
+        void add(Room room) {
+            rooms[size] = room;
+            calendars[size] = room.getCalendar();
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        Room room(int index) {
+            return rooms[index];
+        }
+
+        BookingCalendar calendar(int index) {
+            return calendars[index];
+        }
+
+        /**
+         * Returns the rooms from {@code from} inclusive to {@code to} exclusive with the
+         * calendars captured here.
+         */
+        StateSnapshot range(int from, int to) {
+            StateSnapshot result = new StateSnapshot(to - from);
+            System.arraycopy(rooms, from, result.rooms, 0, to - from);
+            System.arraycopy(calendars, from, result.calendars, 0, to - from);
+            result.size = to - from;
+            return result;
+        }
+    }
+
+    /**
+     * Writes a snapshot as a state file of the given format.
+     */
+    private void writeState(String path, StateSnapshot snapshot, StateFormat format,
+                            BackgroundSave.Progress progress) throws HotelDataException {
+        switch (format) {
+            case CSV, CSV_GZIP -> printRooms(path, snapshot, format.isCompressed(), progress);
+            case BINARY, BINARY_DEFLATE -> StateSnapshotFile.write(path, snapshot, format.isCompressed(), progress);
+        }
+    }
+
+    /**
+     * Streams a snapshot as rows of a CSV state file; a room without stays takes one row
+     * without guest, a room with stays one row per stay. A gzipped file is compressed on a
+     * second thread while the rows are encoded.
+     */
+    private void printRooms(String path, StateSnapshot snapshot, boolean gzip, BackgroundSave.Progress progress)
+            throws HotelDataException {
+        try (StateCsvWriter writer = StateCsvWriter.open(path, gzip)) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                writer.writeRoom(snapshot.room(i), snapshot.calendar(i));
+                if (progress != null) {
+                    progress.update(i + 1, snapshot.size());
+                }
+            }
+        } catch (IOException e) {
+            throw new HotelDataException("Error writing file (I/O): " + path, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file in the target directory and renames it to the target.
+     */
+    private void writeAtomically(String path, StateSnapshot snapshot, StateFormat format,
+                                 BackgroundSave.Progress progress) throws HotelDataException {
+        Path target = Path.of(path).toAbsolutePath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            writeState(temp.toString(), snapshot, format, progress);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new HotelDataException("Error writing file (I/O): " + path, e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // the temporary file is only left behind
+                }
+            }
+        }
+    }
+
+    /**
+     * Captures the calendars of all rooms under the write lock, so the capture is consistent
+     * across rooms.
+     */
+    private StateSnapshot snapshot(Runnable atSnapshot) {
+        stateLock.writeLock().lock();
+        try {
+            StateSnapshot result = new StateSnapshot(rooms.size());
+            rooms.forEach(result::add);
+            atSnapshot.run();
+            return result;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces all rooms of the hotel under the write lock, detaching the old rooms
+     * and re-indexing the new ones.
      *
-     * @param additionalGuestsString The raw string from the CSV record (e.g., "G1|G2").
-     * @return A List of Guest objects, or an empty list if the string is blank.
+     * @param newRooms The rooms to keep, keyed by room number.
+     * @return The number of rooms after the replacement.
      */
-    private List<Guest> parseAdditionalGuestsList(String additionalGuestsString) {
-        List<Guest> additionalGuests = new ArrayList<>();
-        if (additionalGuestsString != null && !additionalGuestsString.isBlank()) {
-            // "|" as separator for additional guests
-            String[] guestNames = additionalGuestsString.split("\\|");
+    private int replaceRooms(Map<Integer, Room> newRooms) {
+        stateLock.writeLock().lock();
+        try {
+            HotelChangeListener listener = changeListener;
+            if (listener != null) {
+                MyMap<Integer, Room> replaced = new MyMap<>();
+                this.rooms.forEach(room -> replaced.put(room.getRoomNumber(), room));
+                recordUndo(() -> replaceRooms(replaced));
+            }
+            for (Room room : this.rooms) {
+                room.setListener(null);
+            }
+            this.rooms.clear();
+            availabilityIndex.clear();
+            guestIndex.clear();
+            stayDates.clear();
+            stats.clear();
 
-            for (String guestName : guestNames) {
-                additionalGuests.add(new Guest(guestName));
+            for (java.util.Map.Entry<Integer, Room> entry : (Iterable<java.util.Map.Entry<Integer, Room>>) newRooms) {
+                this.rooms.put(entry.getValue());
+                attach(entry.getValue());
+            }
+            changes.reset();
+            if (listener != null) {
+                listener.roomsReplaced(this.rooms.toList());
+            }
+            return this.rooms.size();
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers the hotel as the room's listener and adds the room to all indexes.
+     */
+    private void attach(Room room) {
+        room.setListener(indexUpdater);
+        availabilityIndex.roomAdded(room);
+        stats.roomAdded(room);
+        for (Reservation reservation : room.getReservations()) {
+            guestIndex.reservationAdded(room.getRoomNumber(), reservation);
+            stayDates.reservationAdded(room.getRoomNumber(), reservation);
+        }
+    }
+
+    /**
+     * Stops listening to the room and removes it from all indexes.
+     */
+    private void detach(Room room) {
+        room.setListener(null);
+        availabilityIndex.roomRemoved(room);
+        stats.roomRemoved(room);
+        for (Reservation reservation : room.getReservations()) {
+            guestIndex.reservationRemoved(room.getRoomNumber(), reservation);
+            stayDates.reservationRemoved(room.getRoomNumber(), reservation);
+        }
+    }
+
+    /**
+     * Keeps the hotel's indexes in sync with the booking changes of its rooms.
+     */
+    private final class IndexUpdater implements RoomStateListener {
+        @Override
+        public void reservationAdded(Room room, Reservation reservation, BookingCalendar calendar) {
+            rooms.reindex(room);
+            availabilityIndex.roomChanged(room);
+            guestIndex.reservationAdded(room.getRoomNumber(), reservation);
+            stayDates.reservationAdded(room.getRoomNumber(), reservation);
+            stats.reservationAdded(room, reservation, calendar);
+            changes.roomChanged(room.getRoomNumber());
+            HotelChangeListener listener = changeListener;
+            if (listener != null) {
+                listener.reservationAdded(room, reservation);
+                recordUndo(() -> withRoom(room.getRoomNumber(), () -> room.removeReservation(reservation)));
+            }
+        }
+
+        @Override
+        public void reservationRemoved(Room room, Reservation reservation, BookingCalendar calendar) {
+            rooms.reindex(room);
+            availabilityIndex.roomChanged(room);
+            guestIndex.reservationRemoved(room.getRoomNumber(), reservation);
+            stayDates.reservationRemoved(room.getRoomNumber(), reservation);
+            stats.reservationRemoved(room, reservation, calendar);
+            changes.roomChanged(room.getRoomNumber());
+            HotelChangeListener listener = changeListener;
+            if (listener != null) {
+                listener.reservationRemoved(room, reservation);
+                recordUndo(() -> withRoom(room.getRoomNumber(), () -> room.tryCheckIn(reservation)));
+            }
+        }
+
+        @Override
+        public void ratesChanged(Room room) {
+            stats.ratesChanged(room);
+            changes.roomChanged(room.getRoomNumber());
+            HotelChangeListener listener = changeListener;
+            if (listener != null) {
+                listener.ratesChanged(room);
+            }
+        }
+    }
+
+    /**
+     * Validates a batch of check-ins; the caller holds the locks of all its rooms.
+     *
+     * @return The error of every request, {@code null} for valid requests.
+     */
+    private String[] validateBatch(List<CheckinRequest> requests) {
+        String[] errors = new String[requests.size()];
+        MyMap<Integer, BookingCalendar> planned = new MyMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            CheckinRequest request = requests.get(i);
+            Room room = rooms.get(request.roomNumber());
+            if (room == null) {
+                errors[i] = "Room with number " + request.roomNumber() + " does not exist";
+                continue;
+            }
+            if (request.additionalGuests().size() + 1 > room.getCapacity()) {
+                errors[i] = "Room " + request.roomNumber() + " holds at most " + room.getCapacity() + " guests";
+                continue;
+            }
+            BookingCalendar calendar = planned.contains(request.roomNumber())
+                    ? planned.get(request.roomNumber())
+                    : room.getCalendar();
+            BookingCalendar next = calendar.with(request.toReservation());
+            if (next == null) {
+                errors[i] = "Room " + request.roomNumber() + " already occupied";
+                continue;
+            }
+            planned.put(request.roomNumber(), next);
+        }
+        return errors;
+    }
+
+    /**
+     * Checks in a validated batch. Should a check-in still fail, the ones already
+     * applied are removed again before the exception is rethrown.
+     */
+    private void applyBatch(List<CheckinRequest> requests) {
+        List<Reservation> applied = new ArrayList<>(requests.size());
+        try {
+            for (CheckinRequest request : requests) {
+                Reservation reservation = request.toReservation();
+                rooms.get(request.roomNumber()).checkIn(reservation);
+                applied.add(reservation);
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < applied.size(); i++) {
+                rooms.get(requests.get(i).roomNumber()).removeReservation(applied.get(i));
             }
+            throw e;
         }
-        return additionalGuests;
     }
 }
@@ -0,0 +1,66 @@
+package com.dnikitin.hotel.model;
+
+import java.util.List;
+
+/**
+ * Receives every change of a {@link Hotel}'s state, e.g. to persist it as it happens.
+ * <p>
+ * The events are delivered while the hotel holds the lock of the changed room (or of the
+ * whole state), so the events of one room arrive in the order of its changes. At the end
+ * of every public change method, after all locks have been released, the hotel calls
+ * {@link #sync()}, giving the listener a chance to wait until the changes are durable.
+ * Before it changes anything, the hotel calls {@link #beforeChange()}, so a listener that
+ * can no longer persist the changes can reject them while the state is still untouched.
+ */
+public interface HotelChangeListener {
+
+    /**
+     * Called after a room has been added to the hotel, or has replaced a room with the same number.
+     *
+     * @param room The new room, together with the stays it already holds.
+     */
+    void roomAdded(Room room);
+
+    /**
+     * Called after all rooms have been replaced, e.g. by loading a file.
+     *
+     * @param rooms The new rooms together with their stays, ordered by room number.
+     */
+    void roomsReplaced(List<Room> rooms);
+
+    /**
+     * Called after a stay has been booked into a room of the hotel.
+     *
+     * @param room        The room that changed.
+     * @param reservation The stay that was booked.
+     */
+    void reservationAdded(Room room, Reservation reservation);
+
+    /**
+     * Called after a stay has been removed from a room of the hotel.
+     *
+     * @param room        The room that changed.
+     * @param reservation The stay that was checked out.
+     */
+    void reservationRemoved(Room room, Reservation reservation);
+
+    /**
+     * Called after the seasonal rates of a room of the hotel have changed.
+     *
+     * @param room The room, already holding its new seasons.
+     */
+    void ratesChanged(Room room);
+
+    /**
+     * Called by the hotel before a change, outside of all its locks.
+     * An exception thrown here rejects the change; the hotel state is left as it was.
+     */
+    default void beforeChange() {
+    }
+
+    /**
+     * Called by the hotel after a change, outside of all its locks.
+     */
+    default void sync() {
+    }
+}
@@ -0,0 +1,11 @@
+package com.dnikitin.hotel.model;
+
+/**
+ * The outcome of {@link Hotel#writeRoomsToPartitions(String, StatePartitioning, StateFormat)}.
+ *
+ * @param rooms      The number of rooms in all partitions.
+ * @param partitions The number of partitions in the manifest.
+ * @param written    The number of partition files written; the others were unchanged and kept.
+ */
+public record PartitionSaveResult(int rooms, int partitions, int written) {
+}
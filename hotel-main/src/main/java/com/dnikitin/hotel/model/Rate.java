@@ -0,0 +1,10 @@
+package com.dnikitin.hotel.model;
+
+/**
+ * Represents a nightly rate applied to a room over some period of time
+ * (e.g. a season, a weekend or a promotion).
+ *
+ * @param nightlyPrice The price of a single night.
+ */
+public record Rate(double nightlyPrice) {
+}
@@ -0,0 +1,221 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.map.RangeMap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the nightly rates of a single room: a base price plus any number of
+ * non-overlapping seasonal rates stored in a {@link RangeMap}.
+ * <p>
+ * Stays are priced from prefix sums: for every season the calendar keeps the total
+ * cost of all nights from the epoch up to the season start, so the price of any stay
+ * is the difference of two prefix values. Pricing a stay takes O(log n) time
+ * regardless of its length. The prefix sums are rebuilt lazily after the seasons change.
+ * <p>
+ * Changes to the seasons are synchronized; pricing reads an immutable prefix-sum snapshot
+ * without locking, so stays of one room can be priced from many threads at once. The seasons
+ * are changed through {@link Room#setRate(LocalDate, LocalDate, Rate)}, which tells the owning
+ * hotel about the change.
+ */
+public class RateCalendar {
+
+    private final double basePrice;
+    private final RangeMap<LocalDate, Rate> seasons = new RangeMap<>();
+
+    /**
+     * Cached prefix sums, or {@code null} if the seasons changed since the last rebuild.
+     */
+    private volatile PrefixSums prefixSums;
+
+    /**
+     * Constructs a calendar without seasons, charging the base price every night.
+     *
+     * @param basePrice The price per night outside any season.
+     */
+    public RateCalendar(double basePrice) {
+        this.basePrice = basePrice;
+    }
+
+    /**
+     * Applies a rate to every night in {@code [from, to)}, replacing any previous
+     * seasonal rate in that period.
+     *
+     * @param from The first night of the season (inclusive).
+     * @param to   The day the season ends (exclusive).
+     * @param rate The rate to charge.
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}.
+     */
+    synchronized void setRate(LocalDate from, LocalDate to, Rate rate) {
+        seasons.put(from, to, rate);
+        prefixSums = null;
+    }
+
+    /**
+     * Removes any seasonal rate in {@code [from, to)}, so these nights fall back to the base price.
+     *
+     * @param from The first night to clear (inclusive).
+     * @param to   The day to stop clearing (exclusive).
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}.
+     */
+    synchronized void clearRate(LocalDate from, LocalDate to) {
+        seasons.remove(from, to);
+        prefixSums = null;
+    }
+
+    /**
+     * Replaces all seasonal rates with the given ones.
+     *
+     * @param replacement The new seasons, non-overlapping.
+     */
+    synchronized void replaceSeasons(List<RangeMap.Range<LocalDate, Rate>> replacement) {
+        seasons.clear();
+        for (RangeMap.Range<LocalDate, Rate> season : replacement) {
+            seasons.put(season.from(), season.to(), season.value());
+        }
+        prefixSums = null;
+    }
+
+    /**
+     * Returns whether any seasonal rate is set, without copying the seasons.
+     */
+    boolean hasSeasons() {
+        return prefixSums().starts.length > 0;
+    }
+
+    /**
+     * Returns the price charged for the night starting on the given date.
+     *
+     * @param date The date of the night.
+     * @return The seasonal price, or the base price if no season covers the date.
+     */
+    public synchronized double rateOn(LocalDate date) {
+        Rate rate = seasons.get(date);
+        return rate == null ? basePrice : rate.nightlyPrice();
+    }
+
+    /**
+     * Calculates the price of all nights in {@code [from, to)}.
+     * If {@code to} is before {@code from} the result is negative, mirroring
+     * {@code basePrice * nights} for a negative number of nights.
+     *
+     * @param from The check-in date.
+     * @param to   The check-out date.
+     * @return The total price of the stay.
+     */
+    public double priceStay(LocalDate from, LocalDate to) {
+        long start = from.toEpochDay();
+        long end = to.toEpochDay();
+        PrefixSums sums = prefixSums();
+
+        if (!sums.overlaps(Math.min(start, end), Math.max(start, end))) {
+            return basePrice * (end - start);
+        }
+        return sums.costUntil(end) - sums.costUntil(start);
+    }
+
+    /**
+     * Returns all seasonal rates in ascending order.
+     *
+     * @return The seasons, possibly empty.
+     */
+    public synchronized List<RangeMap.Range<LocalDate, Rate>> getSeasons() {
+        List<RangeMap.Range<LocalDate, Rate>> result = new ArrayList<>();
+        for (RangeMap.Range<LocalDate, Rate> season : seasons) {
+            result.add(season);
+        }
+        return result;
+    }
+
+    public double getBasePrice() {
+        return basePrice;
+    }
+
+    //PRIVATE HELPERS
+
+    /**
+     * Returns the current prefix sums, rebuilding them if the seasons changed.
+     */
+    private PrefixSums prefixSums() {
+        PrefixSums sums = prefixSums;
+        if (sums == null) {
+            synchronized (this) {
+                sums = prefixSums;
+                if (sums == null) {
+                    sums = new PrefixSums(seasons, basePrice);
+                    prefixSums = sums;
+                }
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Immutable snapshot of the seasons as parallel arrays of epoch days together
+     * with the cumulative cost of all nights before every season start.
+     */
+    private static final class PrefixSums {
+        private final double basePrice;
+        private final long[] starts;
+        private final long[] ends;
+        private final double[] rates;
+        private final double[] cumulative;
+
+        PrefixSums(RangeMap<LocalDate, Rate> seasons, double basePrice) {
+            int n = seasons.size();
+            this.basePrice = basePrice;
+            this.starts = new long[n];
+            this.ends = new long[n];
+            this.rates = new double[n];
+            this.cumulative = new double[n];
+
+            int i = 0;
+            for (RangeMap.Range<LocalDate, Rate> season : seasons) {
+                starts[i] = season.from().toEpochDay();
+                ends[i] = season.to().toEpochDay();
+                rates[i] = season.value().nightlyPrice();
+                cumulative[i] = i == 0
+                        ? basePrice * starts[0]
+                        : cumulative[i - 1] + rates[i - 1] * (ends[i - 1] - starts[i - 1])
+                        + basePrice * (starts[i] - ends[i - 1]);
+                i++;
+            }
+        }
+
+        /**
+         * Returns the index of the last season starting on or before the given day, or -1.
+         */
+        private int floorIndex(long day) {
+            int idx = Arrays.binarySearch(starts, day);
+            return idx >= 0 ? idx : -idx - 2;
+        }
+
+        /**
+         * Checks whether any season intersects the nights {@code [from, to)}.
+         */
+        boolean overlaps(long from, long to) {
+            if (from == to) {
+                return false;
+            }
+            int i = floorIndex(to - 1);
+            return i >= 0 && ends[i] > from;
+        }
+
+        /**
+         * Returns the cost of all nights from the epoch up to (excluding) the given day.
+         */
+        double costUntil(long day) {
+            int i = floorIndex(day);
+            if (i < 0) {
+                return basePrice * day;
+            }
+            if (day < ends[i]) {
+                return cumulative[i] + rates[i] * (day - starts[i]);
+            }
+            return cumulative[i] + rates[i] * (ends[i] - starts[i]) + basePrice * (day - ends[i]);
+        }
+    }
+}
@@ -3,20 +3,46 @@ package com.dnikitin.hotel.model;
 import com.dnikitin.hotel.exceptions.RoomFreeException;
 import com.dnikitin.hotel.exceptions.RoomOccupiedException;
 import com.dnikitin.hotel.exceptions.RoomSmallCapacityException;
+import com.dnikitin.map.RangeMap;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Objects;
 
 /**
- * Represents a single hotel room, managing its price, capacity, and current reservation state.
+ * Represents a single hotel room, managing its price, capacity, and the calendar of
+ * its booked stays. A room can hold any number of non-overlapping stays, so advance
+ * bookings can be taken while a guest is still in the room.
+ * <p>
+ * The booking state is an immutable {@link BookingCalendar} published through a volatile
+ * field and replaced with compare-and-set, so rooms are thread-safe without locks:
+ * readers always see a complete calendar, a check-in only succeeds if its nights were
+ * free in the calendar it replaced, and a check-out bills exactly the stay its CAS removed.
+ * The listener is called after the CAS without any lock, so concurrent changes may be
+ * notified in a different order than they were made; {@link Hotel} therefore changes its
+ * rooms under a per-room lock.
  */
 public class Room {
     private final int roomNumber;
     private final double price;
     private final int capacity;
+    private final RateCalendar rates;
+    private volatile BookingCalendar calendar = BookingCalendar.EMPTY;
 
-    private Reservation reservation;
+    private volatile RoomStateListener listener;
+
+    private static final VarHandle CALENDAR;
+
+    static {
+        try {
+            CALENDAR = MethodHandles.lookup().findVarHandle(Room.class, "calendar", BookingCalendar.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * Constructs a new Room.
@@ -29,52 +55,241 @@ public class Room {
         this.roomNumber = number;
         this.price = price;
         this.capacity = capacity;
-        this.reservation = null;
+        this.rates = new RateCalendar(price);
     }
 
     /**
-     * Checks if the room is currently free (not reserved).
+     * Checks if the room is free, i.e. holds no current or upcoming stay.
      *
      * @return true if the room is free, false otherwise.
      */
     public boolean isFree() {
-        return reservation == null;
+        return calendar.isEmpty();
     }
 
     /**
-     * Checks a guest into the room with the given reservation details.
+     * Books a stay into the room's calendar. The stay may start in the future,
+     * as long as it does not overlap any other stay of this room.
+     * <p>
+     * The new calendar is installed with compare-and-set; if another thread changed the
+     * calendar in between, the overlap check is repeated against the new state.
      *
      * @param reservation The reservation to assign to the room.
-     * @throws RoomOccupiedException      if the room is already occupied.
+     * @throws RoomOccupiedException      if the stay overlaps an existing one.
      * @throws RoomSmallCapacityException if the number of guests exceeds the room's capacity.
      */
     public void checkIn(Reservation reservation) {
-        if (!isFree()) {
-            throw new RoomOccupiedException("Room " + roomNumber + " already occupied");
+        switch (tryCheckIn(reservation)) {
+            case ROOM_OCCUPIED -> throw new RoomOccupiedException("Room " + roomNumber + " already occupied");
+            case CAPACITY_EXCEEDED ->
+                    throw new RoomSmallCapacityException("Too many guest. Room capacity is" + capacity);
+            default -> {
+                // booked
+            }
         }
-        if (reservation.additionalGuests().size() + 1 > capacity) {
-            throw new RoomSmallCapacityException("Too many guest. Room capacity is" + capacity);
+    }
+
+    /**
+     * Same as {@link #checkIn(Reservation)}, but reports a rejected stay through the returned
+     * status instead of an exception. A rejected attempt allocates nothing.
+     *
+     * @param reservation The reservation to assign to the room.
+     * @return {@link BookingStatus#OK}, {@link BookingStatus#ROOM_OCCUPIED} or {@link BookingStatus#CAPACITY_EXCEEDED}.
+     */
+    public BookingStatus tryCheckIn(Reservation reservation) {
+        long from = reservation.checkinDate().toEpochDay();
+        long to = from + Math.max(1, reservation.duration());
+        BookingCalendar current;
+        BookingCalendar next;
+        do {
+            current = calendar;
+            if (!current.isAvailable(from, to)) {
+                return BookingStatus.ROOM_OCCUPIED;
+            }
+            if (reservation.additionalGuests().size() + 1 > capacity) {
+                return BookingStatus.CAPACITY_EXCEEDED;
+            }
+            next = current.with(reservation);
+        } while (!CALENDAR.compareAndSet(this, current, next));
+
+        RoomStateListener l = listener;
+        if (l != null) {
+            l.reservationAdded(this, reservation, next);
         }
-        this.reservation = reservation;
+        return BookingStatus.OK;
     }
 
     /**
-     * Checks a guest out of the room. This frees the room and calculates the total bill
-     * based on the check-in date and the current date.
+     * Checks out the earliest stay of the room (see {@link #getReservation()}) if it has
+     * already begun, and calculates the total bill based on the check-in date and the current
+     * date. At least one night is charged, and every night is charged at the rate valid on that
+     * night (see {@link #getRates()}). A stay booked for a later date is not checked out.
+     * <p>
+     * The bill is calculated for the stay removed by the winning compare-and-set, so two
+     * concurrent check-outs never bill the same stay twice.
      *
      * @return The calculated total price for the stay.
-     * @throws RoomFreeException if the room is already free.
+     * @throws RoomFreeException if the room is free today.
      */
     public double checkOut() {
-        if (isFree()) {
+        CheckoutResult result = tryCheckOut();
+        if (!result.isOk()) {
             throw new RoomFreeException("Room " + roomNumber + " is free");
         }
+        return result.bill();
+    }
+
+    /**
+     * Same as {@link #checkOut()}, but reports a room that is free today through the returned
+     * status instead of an exception. A failed attempt allocates nothing.
+     *
+     * @return The bill, or the shared {@link BookingStatus#ROOM_FREE} result.
+     */
+    public CheckoutResult tryCheckOut() {
+        LocalDate today = LocalDate.now();
+        BookingCalendar current;
+        BookingCalendar next;
+        Reservation reservation;
+        do {
+            current = calendar;
+            reservation = current.first();
+            if (reservation == null || reservation.checkinDate().isAfter(today)) {
+                return CheckoutResult.failed(BookingStatus.ROOM_FREE);
+            }
+            next = current.without(reservation);
+        } while (!CALENDAR.compareAndSet(this, current, next));
+        notifyRemoved(reservation, next);
+
+        LocalDate checkinDate = reservation.checkinDate();
+        long nights = Math.max(1, ChronoUnit.DAYS.between(checkinDate, today));
+        return CheckoutResult.billed(priceStay(checkinDate, checkinDate.plusDays(nights)));
+    }
+
+    /**
+     * Removes the given stay from the calendar without billing it.
+     * Used when the bill has already been computed elsewhere, e.g. by the night audit.
+     *
+     * @param reservation The stay to remove.
+     * @return true if the stay was booked in this room and has been removed.
+     */
+    public boolean removeReservation(Reservation reservation) {
+        BookingCalendar current;
+        BookingCalendar next;
+        do {
+            current = calendar;
+            next = current.without(reservation);
+            if (next == null) {
+                return false;
+            }
+        } while (!CALENDAR.compareAndSet(this, current, next));
+        notifyRemoved(reservation, next);
+        return true;
+    }
+
+    /**
+     * Applies a seasonal rate to every night in {@code [from, to)}, replacing any previous
+     * seasonal rate in that period. The owning hotel is told about the change, so the
+     * projected revenue of the stays already booked follows the new rate.
+     *
+     * @param from The first night of the season (inclusive).
+     * @param to   The day the season ends (exclusive).
+     * @param rate The rate to charge.
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}.
+     */
+    public void setRate(LocalDate from, LocalDate to, Rate rate) {
+        rates.setRate(from, to, rate);
+        notifyRatesChanged();
+    }
+
+    /**
+     * Removes any seasonal rate in {@code [from, to)}, so these nights fall back to the base price.
+     *
+     * @param from The first night to clear (inclusive).
+     * @param to   The day to stop clearing (exclusive).
+     * @throws IllegalArgumentException if {@code from} is not before {@code to}.
+     */
+    public void clearRate(LocalDate from, LocalDate to) {
+        rates.clearRate(from, to);
+        notifyRatesChanged();
+    }
+
+    /**
+     * Replaces all seasonal rates of the room, e.g. with the seasons read from a saved state.
+     * The owning hotel is told about the change like for {@link #setRate(LocalDate, LocalDate, Rate)}.
+     *
+     * @param seasons The new seasons, non-overlapping; empty to charge the base price every night.
+     */
+    public void setSeasons(List<RangeMap.Range<LocalDate, Rate>> seasons) {
+        rates.replaceSeasons(seasons);
+        notifyRatesChanged();
+    }
 
-        long diff = ChronoUnit.DAYS.between(reservation.checkinDate(), LocalDate.now());
-        double finalPrice = price * (diff == 0 ? 1 : diff);
-        reservation = null;
+    /**
+     * Calculates the price of a stay from {@code from} (inclusive) to {@code to} (exclusive),
+     * summing the seasonal rates over the nights they cover. Runs in O(log n) in the
+     * number of seasons, independently of the length of the stay.
+     *
+     * @param from The check-in date.
+     * @param to   The check-out date.
+     * @return The total price of the stay.
+     */
+    public double priceStay(LocalDate from, LocalDate to) {
+        return rates.priceStay(from, to);
+    }
 
-        return finalPrice;
+    /**
+     * Checks whether the night of the given date is booked. Runs in O(log n).
+     *
+     * @param date The date to check.
+     * @return true if a stay covers the date.
+     */
+    public boolean isBookedOn(LocalDate date) {
+        return calendar.on(date) != null;
+    }
+
+    /**
+     * Checks whether the room is free for every night in {@code [from, to)}. Runs in O(log n).
+     *
+     * @param from The first night (inclusive).
+     * @param to   The check-out date (exclusive).
+     * @return true if no stay overlaps the period.
+     */
+    public boolean isAvailable(LocalDate from, LocalDate to) {
+        return calendar.isAvailable(from, to);
+    }
+
+    /**
+     * Finds the first date on or after {@code from} on which the room is free. Runs in O(log n).
+     *
+     * @param from The date to start looking from.
+     * @return The first free date.
+     */
+    public LocalDate nextFreeDate(LocalDate from) {
+        return calendar.nextFreeDate(from);
+    }
+
+    /**
+     * Registers the listener notified about every booking change of this room.
+     * Only the owning {@link Hotel} attaches itself here.
+     *
+     * @param listener The listener, or {@code null} to detach.
+     */
+    void setListener(RoomStateListener listener) {
+        this.listener = listener;
+    }
+
+    private void notifyRemoved(Reservation reservation, BookingCalendar next) {
+        RoomStateListener l = listener;
+        if (l != null) {
+            l.reservationRemoved(this, reservation, next);
+        }
+    }
+
+    private void notifyRatesChanged() {
+        RoomStateListener l = listener;
+        if (l != null) {
+            l.ratesChanged(this);
+        }
     }
 
     // GETTERS
@@ -82,6 +297,15 @@ public class Room {
         return roomNumber;
     }
 
+    /**
+     * Returns the floor of the room, encoded by the leading digits of its number (e.g. 101 is on floor 1).
+     *
+     * @return The floor number.
+     */
+    public int getFloor() {
+        return roomNumber / 100;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -90,8 +314,54 @@ public class Room {
         return capacity;
     }
 
+    public RateCalendar getRates() {
+        return rates;
+    }
+
+    /**
+     * Returns the current booking calendar. The calendar is immutable, so all queries
+     * on the returned value see the same point in time.
+     *
+     * @return The calendar snapshot.
+     */
+    public BookingCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Returns the earliest stay of the room: the stay in progress, or the next arrival
+     * if nobody is in the room yet. This is the stay {@link #checkOut()} closes once it has begun.
+     *
+     * @return The earliest reservation, or {@code null} if the room is free.
+     */
     public Reservation getReservation() {
-        return reservation;
+        return calendar.first();
+    }
+
+    /**
+     * Returns the stay covering the night of the given date.
+     *
+     * @param date The date to check.
+     * @return The reservation, or {@code null} if the room is free that night.
+     */
+    public Reservation getReservationOn(LocalDate date) {
+        return calendar.on(date);
+    }
+
+    /**
+     * @return The number of stays booked for this room.
+     */
+    public int getReservationCount() {
+        return calendar.size();
+    }
+
+    /**
+     * Returns all stays booked for this room in chronological order.
+     *
+     * @return A list of reservations, empty if the room is free.
+     */
+    public List<Reservation> getReservations() {
+        return calendar.reservations();
     }
 
     // Overrides
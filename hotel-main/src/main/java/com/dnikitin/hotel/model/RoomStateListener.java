@@ -0,0 +1,35 @@
+package com.dnikitin.hotel.model;
+
+/**
+ * Receives notifications whenever the booking state of a {@link Room} changes.
+ * The {@link Hotel} registers itself on each of its rooms and uses these events
+ * to keep its search indexes up to date, no matter whether a stay was booked
+ * through the hotel or directly on the room.
+ */
+public interface RoomStateListener {
+
+    /**
+     * Called after a stay has been added to the room's calendar.
+     *
+     * @param room        The room that changed.
+     * @param reservation The stay that was booked.
+     * @param calendar    The calendar installed by this change; the room may have changed again since.
+     */
+    void reservationAdded(Room room, Reservation reservation, BookingCalendar calendar);
+
+    /**
+     * Called after a stay has been removed from the room's calendar.
+     *
+     * @param room        The room that changed.
+     * @param reservation The stay that was checked out.
+     * @param calendar    The calendar installed by this change; the room may have changed again since.
+     */
+    void reservationRemoved(Room room, Reservation reservation, BookingCalendar calendar);
+
+    /**
+     * Called after the seasonal rates of the room have changed.
+     *
+     * @param room The room that changed.
+     */
+    void ratesChanged(Room room);
+}
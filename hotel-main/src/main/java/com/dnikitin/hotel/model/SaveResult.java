@@ -0,0 +1,11 @@
+package com.dnikitin.hotel.model;
+
+/**
+ * The outcome of {@link Hotel#writeChangedRoomsToFile(String, long)}.
+ *
+ * @param version  The state version the written file is current with.
+ * @param rooms    The number of rooms written.
+ * @param complete Whether the file holds every room of the hotel, not only the changed ones.
+ */
+public record SaveResult(long version, int rooms, boolean complete) {
+}
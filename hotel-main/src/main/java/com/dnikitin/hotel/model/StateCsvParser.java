@@ -0,0 +1,669 @@
+package com.dnikitin.hotel.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the rows of a CSV state file (see {@link Hotel#STATE_HEADERS}) field by field,
+ * straight from the bytes of the file.
+ * <p>
+ * The file is memory-mapped in windows of up to {@link #MAP_WINDOW_BYTES}, so rows are parsed
+ * from the page cache without copying them to the heap first. Each window is unmapped as soon
+ * as the parser moves past it or is closed. Files that cannot be mapped are read through a
+ * reused heap buffer instead, and so are gzipped state files, which are inflated on a second
+ * thread by the {@link CompressionPipeline} while the rows are parsed.
+ * <p>
+ * It accepts everything commons-csv writes with the state format: {@code ;} delimiters,
+ * fields quoted with {@code "} and {@code ""} escapes, quoted line breaks, CRLF, LF or CR
+ * line ends and empty lines. Numbers and ISO dates are parsed from the bytes without
+ * building a string; check-in dates and guests are looked up in small caches, so a row of
+ * a free room allocates nothing and a booked row only what its room keeps. A value the
+ * fast paths do not understand is handed to {@link Integer#parseInt}, {@link Double#parseDouble}
+ * or {@link LocalDate#parse}, so malformed values fail with the same exceptions as before.
+ */
+final class StateCsvParser implements Closeable {
+
+    static final int ROOM_NUMBER = 0;
+    static final int CAPACITY = 1;
+    static final int PRICE = 2;
+    static final int GUEST_NAME = 3;
+    static final int CHECKIN_DATE = 4;
+    static final int DURATION = 5;
+    static final int ADDITIONAL_GUESTS = 6;
+    static final int SEASONS = 7;
+
+    private static final int COLUMNS = Hotel.STATE_HEADERS.length;
+    private static final int BUFFER_BYTES = 1 << 16;
+    /**
+     * The default size of a mapped window; a window always starts at a record boundary and is
+     * doubled while a single record does not fit.
+     */
+    static final int MAP_WINDOW_BYTES = 1 << 28;
+    private static final int GUEST_CACHE_BITS = 12;
+    private static final int DATE_CACHE_BITS = 10;
+
+    /**
+     * Powers of ten that are exact doubles; a decimal with a mantissa below 2^53 divided by
+     * one of them is rounded exactly like {@link Double#parseDouble}.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * The file, or the decompressed stream of a gzipped file, which is read sequentially.
+     */
+    private final ReadableByteChannel channel;
+    private final long end;
+    private long filePosition;
+    private boolean endOfInput;
+
+    private ByteBuffer buffer;
+    private int limit;
+    private int position;
+    private Arena mapping;
+    private int mapWindow;
+
+    private final int[] fieldStart = new int[COLUMNS];
+    private final int[] fieldEnd = new int[COLUMNS];
+    private final boolean[] fieldQuoted = new boolean[COLUMNS];
+    private final boolean[] fieldEscaped = new boolean[COLUMNS];
+    private int fields;
+    private long recordNumber;
+
+    private final byte[][] guestKeys = new byte[1 << GUEST_CACHE_BITS][];
+    private final Guest[] guests = new Guest[1 << GUEST_CACHE_BITS];
+    private final int[] dateKeys = new int[1 << DATE_CACHE_BITS];
+    private final LocalDate[] dates = new LocalDate[1 << DATE_CACHE_BITS];
+
+    private StateCsvParser(ReadableByteChannel channel, long start, long end) {
+        this.channel = channel;
+        this.filePosition = start;
+        this.end = end;
+    }
+
+    /**
+     * Opens a whole state file and skips its header.
+     *
+     * @param path The file system path to the CSV file.
+     * @return A parser positioned before the first row.
+     * @throws IOException if the file cannot be opened or read.
+     */
+    static StateCsvParser open(String path) throws IOException {
+        FileChannel channel = FileChannel.open(Path.of(path));
+        return open(channel, 0, channel.size(), true);
+    }
+
+    /**
+     * Opens a gzipped state file and skips its header. The file is inflated on a second
+     * thread and parsed through the heap buffer.
+     *
+     * @param path The file system path to the gzipped CSV file.
+     * @return A parser positioned before the first row.
+     * @throws IOException if the file cannot be opened or read, or is not gzipped.
+     */
+    static StateCsvParser openGzip(String path) throws IOException {
+        FileChannel file = FileChannel.open(Path.of(path));
+        ReadableByteChannel inflated;
+        try {
+            inflated = CompressionPipeline.gzipInput(file);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        return open(inflated, 0, Long.MAX_VALUE, true, 0);
+    }
+
+    /**
+     * Opens a byte range of a state file that starts at a record boundary, mapping it if the
+     * channel supports it.
+     *
+     * @param channel    The channel of the file; it is closed with the parser.
+     * @param start      The offset of the first byte.
+     * @param end        The offset after the last byte.
+     * @param skipHeader Whether the range starts with the header of the file.
+     * @return A parser positioned before the first row of the range.
+     * @throws IOException if the file cannot be read.
+     */
+    static StateCsvParser open(FileChannel channel, long start, long end, boolean skipHeader) throws IOException {
+        return open(channel, start, end, skipHeader, MAP_WINDOW_BYTES);
+    }
+
+    /**
+     * Opens a byte range of a state file like {@link #open(FileChannel, long, long, boolean)},
+     * with a given size of the mapped windows. A channel that is not a file channel is read
+     * sequentially from where it stands and never mapped.
+     *
+     * @param mapWindow The initial size of a mapped window in bytes, or {@code 0} to read the
+     *                  range through a heap buffer without mapping it.
+     */
+    static StateCsvParser open(ReadableByteChannel channel, long start, long end, boolean skipHeader, int mapWindow)
+            throws IOException {
+        StateCsvParser parser = new StateCsvParser(channel, start, end);
+        try {
+            if (mapWindow > 0 && channel instanceof FileChannel) {
+                parser.mapFirstWindow(mapWindow);
+            }
+            if (parser.mapping == null) {
+                parser.buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            }
+            if (skipHeader) {
+                parser.scanRecord();
+            }
+            return parser;
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next row, skipping empty lines.
+     *
+     * @return {@code false} once all rows have been read.
+     * @throws IOException if the file cannot be read or ends inside a quoted field.
+     */
+    boolean next() throws IOException {
+        while (scanRecord()) {
+            boolean emptyLine = fields == 1 && fieldStart[0] == fieldEnd[0] && !fieldQuoted[0];
+            if (!emptyLine) {
+                recordNumber++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of the current row, counting from 1 after the header.
+     */
+    long recordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Parses a field as an {@code int}, ignoring surrounding whitespace.
+     *
+     * @throws NumberFormatException if the field is not a number.
+     */
+    int intField(int column) {
+        int start = trimStart(column);
+        int stop = trimEnd(column, start);
+        if (fieldEscaped[column]) {
+            return Integer.parseInt(stringField(column).trim());
+        }
+        boolean negative = start < stop && buffer.get(start) == '-';
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < stop; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                return Integer.parseInt(decode(start, stop));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (stop - start == (negative ? 1 : 0) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Integer.parseInt(decode(start, stop));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as a {@code double}, ignoring surrounding whitespace.
+     *
+     * @throws NumberFormatException if the field is not a number.
+     */
+    double doubleField(int column) {
+        int start = trimStart(column);
+        int stop = trimEnd(column, start);
+        if (fieldEscaped[column]) {
+            return Double.parseDouble(stringField(column));
+        }
+        boolean negative = start < stop && buffer.get(start) == '-';
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (int i = negative ? start + 1 : start; i < stop; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || mantissa >= MAX_EXACT_MANTISSA / 10 - 1) {
+                return Double.parseDouble(decode(start, stop));
+            }
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(decode(start, stop));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field as an ISO date ({@code yyyy-MM-dd}), ignoring surrounding whitespace.
+     * Dates seen before are returned from a cache.
+     *
+     * @throws java.time.format.DateTimeParseException if the field is not a valid date.
+     */
+    LocalDate dateField(int column) {
+        int start = trimStart(column);
+        int stop = trimEnd(column, start);
+        if (fieldEscaped[column]) {
+            return LocalDate.parse(stringField(column).trim());
+        }
+        if (stop - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            return LocalDate.parse(decode(start, stop));
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return LocalDate.parse(decode(start, stop));
+        }
+        int key = year * 10_000 + month * 100 + day;
+        int slot = (key * 0x9E3779B1) >>> (32 - DATE_CACHE_BITS);
+        LocalDate date = dates[slot];
+        if (date != null && dateKeys[slot] == key) {
+            return date;
+        }
+        try {
+            date = LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            // reports the invalid date the way the ISO parser does
+            return LocalDate.parse(decode(start, stop));
+        }
+        dateKeys[slot] = key;
+        dates[slot] = date;
+        return date;
+    }
+
+    /**
+     * Reads the trimmed field as a guest; repeated names return the same cached guest.
+     *
+     * @return The guest, or {@code null} if the field is blank.
+     */
+    Guest guestField(int column) {
+        int start = trimStart(column);
+        int stop = trimEnd(column, start);
+        if (fieldEscaped[column]) {
+            String name = stringField(column).trim();
+            return name.isBlank() ? null : new Guest(name);
+        }
+        if (isBlank(start, stop)) {
+            return null;
+        }
+        return guest(start, stop);
+    }
+
+    /**
+     * Reads the field as {@code |}-separated guest names, like {@code String.split("\\|")}:
+     * names are not trimmed and trailing empty names are dropped.
+     *
+     * @return The guests, or an empty list if the field is blank.
+     */
+    List<Guest> guestListField(int column) {
+        if (fieldEscaped[column]) {
+            return StateFileReader.parseAdditionalGuestsList(stringField(column));
+        }
+        int start = fieldStart(column);
+        int stop = fieldEnd[column];
+        if (isBlank(start, stop)) {
+            return List.of();
+        }
+        while (stop > start && buffer.get(stop - 1) == '|') {
+            stop--;
+        }
+        if (stop == start) {
+            return List.of();
+        }
+        int count = 1;
+        for (int i = start; i < stop; i++) {
+            if (buffer.get(i) == '|') {
+                count++;
+            }
+        }
+        List<Guest> result = new ArrayList<>(count);
+        int nameStart = start;
+        for (int i = start; i <= stop; i++) {
+            if (i == stop || buffer.get(i) == '|') {
+                result.add(guest(nameStart, i));
+                nameStart = i + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the row has a non-blank value in the given column; files written before
+     * a column was added lack it.
+     */
+    boolean hasValue(int column) {
+        if (column >= fields) {
+            return false;
+        }
+        int start = trimStart(column);
+        return !isBlank(start, trimEnd(column, start));
+    }
+
+    /**
+     * Returns the field as a string, with {@code ""} escapes of quoted fields resolved.
+     */
+    String stringField(int column) {
+        String value = decode(fieldStart(column), fieldEnd[column]);
+        return fieldEscaped[column] ? value.replace("\"\"", "\"") : value;
+    }
+
+    /**
+     * Returns whether the file is read from mapped memory rather than through a heap buffer.
+     */
+    boolean isMapped() {
+        return mapping != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            if (mapping != null) {
+                mapping.close();
+                mapping = null;
+            }
+        }
+    }
+
+    //PRIVATE HELPERS
+
+    /**
+     * Finds the fields of the next record, reading more of the file whenever the record does
+     * not end within the buffer. Fields beyond the state columns are ignored.
+     *
+     * @return {@code false} at the end of the input.
+     */
+    private boolean scanRecord() throws IOException {
+        while (true) {
+            if (position == limit && endOfInput) {
+                return false;
+            }
+            int next = scanFrom(position);
+            if (next >= 0) {
+                position = next;
+                return true;
+            }
+            refill();
+        }
+    }
+
+    /**
+     * Scans one record starting at the given position.
+     *
+     * @return The position after the record, or {@code -1} if more input is needed.
+     */
+    private int scanFrom(int start) throws IOException {
+        int i = start;
+        fields = 0;
+        while (true) {
+            int valueStart;
+            int valueEnd;
+            boolean quoted = i < limit && buffer.get(i) == '"';
+            boolean escaped = false;
+            if (quoted) {
+                valueStart = ++i;
+                while (true) {
+                    if (i >= limit) {
+                        if (endOfInput) {
+                            throw new IOException("EOF reached before encapsulated token finished");
+                        }
+                        return -1;
+                    }
+                    if (buffer.get(i) == '"') {
+                        if (i + 1 >= limit && !endOfInput) {
+                            return -1;
+                        }
+                        if (i + 1 < limit && buffer.get(i + 1) == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                valueEnd = i++;
+                // anything between the closing quote and the delimiter is dropped
+                while (i < limit && !isSeparator(buffer.get(i))) {
+                    i++;
+                }
+            } else {
+                valueStart = i;
+                while (i < limit && !isSeparator(buffer.get(i))) {
+                    i++;
+                }
+                valueEnd = i;
+            }
+            if (i >= limit && !endOfInput) {
+                return -1;
+            }
+            if (fields < COLUMNS) {
+                fieldStart[fields] = valueStart;
+                fieldEnd[fields] = valueEnd;
+                fieldQuoted[fields] = quoted;
+                fieldEscaped[fields] = escaped;
+            }
+            fields++;
+
+            if (i >= limit) {
+                return i;
+            }
+            byte separator = buffer.get(i++);
+            if (separator == '\n') {
+                return i;
+            }
+            if (separator == '\r') {
+                if (i >= limit && !endOfInput) {
+                    return -1;
+                }
+                return i < limit && buffer.get(i) == '\n' ? i + 1 : i;
+            }
+        }
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ';' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * Maps the first window of the range; leaves the parser unmapped if the file system or
+     * the channel does not support mapping.
+     */
+    private void mapFirstWindow(int window) throws IOException {
+        mapWindow = window;
+        try {
+            map(filePosition, Math.min(window, end - filePosition));
+        } catch (UnsupportedOperationException e) {
+            // not a file channel of the default file system
+        } catch (IOException e) {
+            if (!channel.isOpen()) {
+                throw e;
+            }
+            // e.g. a special file, or a file system without mmap support
+        }
+    }
+
+    /**
+     * Replaces the current window with a mapping of the given bytes of the file.
+     */
+    private void map(long offset, long size) throws IOException {
+        Arena arena = Arena.ofConfined();
+        try {
+            buffer = ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY, offset, size, arena).asByteBuffer();
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+        if (mapping != null) {
+            mapping.close();
+        }
+        mapping = arena;
+        position = 0;
+        limit = (int) size;
+        filePosition = offset + size;
+        endOfInput = filePosition >= end;
+    }
+
+    /**
+     * Provides more input behind the unread bytes: maps the next window starting at the
+     * unfinished record, or reads the next block into the heap buffer.
+     */
+    private void refill() throws IOException {
+        if (mapping != null) {
+            int unread = limit - position;
+            if (position == 0) {
+                // a single record fills the window
+                mapWindow = (int) Math.min(2L * mapWindow, Integer.MAX_VALUE - 8);
+            }
+            long offset = filePosition - unread;
+            map(offset, Math.min(mapWindow, end - offset));
+            return;
+        }
+        int unread = limit - position;
+        if (position == 0 && limit == buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            larger.put(0, buffer, 0, limit);
+            buffer = larger;
+        } else if (unread > 0) {
+            buffer.put(0, buffer, position, unread);
+        }
+        limit = unread;
+        position = 0;
+
+        while (limit < buffer.capacity() && filePosition < end) {
+            int wanted = (int) Math.min(buffer.capacity() - limit, end - filePosition);
+            buffer.limit(limit + wanted).position(limit);
+            int read = channel instanceof FileChannel file ? file.read(buffer, filePosition) : channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            limit += read;
+            filePosition += read;
+        }
+        buffer.clear();
+        endOfInput = filePosition >= end || limit < buffer.capacity();
+    }
+
+    private int fieldStart(int column) {
+        if (column >= fields) {
+            throw new IllegalArgumentException("Missing value for column " + Hotel.STATE_HEADERS[column]);
+        }
+        return fieldStart[column];
+    }
+
+    /**
+     * Returns the start of the field without leading whitespace, as {@link String#trim()} defines it.
+     */
+    private int trimStart(int column) {
+        int start = fieldStart(column);
+        while (start < fieldEnd[column] && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int column, int start) {
+        int stop = fieldEnd[column];
+        while (stop > start && (buffer.get(stop - 1) & 0xFF) <= ' ') {
+            stop--;
+        }
+        return stop;
+    }
+
+    /**
+     * Checks the bytes like {@link String#isBlank()}; only decodes them if they hold nothing
+     * but whitespace and non-ASCII characters.
+     */
+    private boolean isBlank(int start, int stop) {
+        boolean nonAscii = false;
+        for (int i = start; i < stop; i++) {
+            byte b = buffer.get(i);
+            if (b < 0) {
+                nonAscii = true;
+            } else if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return !nonAscii || decode(start, stop).isBlank();
+    }
+
+    /**
+     * Parses a fixed number of decimal digits.
+     *
+     * @return The value, or {@code -1} if a byte is not a digit.
+     */
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the guest with the name in the given bytes, from the cache if it was seen before.
+     */
+    private Guest guest(int start, int stop) {
+        int hash = 1;
+        for (int i = start; i < stop; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int slot = (hash * 0x9E3779B1) >>> (32 - GUEST_CACHE_BITS);
+        byte[] key = guestKeys[slot];
+        if (key != null && sameBytes(key, start, stop)) {
+            return guests[slot];
+        }
+        key = new byte[stop - start];
+        buffer.get(start, key);
+        Guest guest = new Guest(new String(key, StandardCharsets.UTF_8));
+        guestKeys[slot] = key;
+        guests[slot] = guest;
+        return guest;
+    }
+
+    private boolean sameBytes(byte[] key, int start, int stop) {
+        if (key.length != stop - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int start, int stop) {
+        byte[] bytes = new byte[stop - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
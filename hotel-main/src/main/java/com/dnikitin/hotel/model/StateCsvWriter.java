@@ -0,0 +1,319 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.map.RangeMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Writes CSV state files (see {@link Hotel#STATE_HEADERS}) room by room into one large
+ * reused buffer, which is drained to a {@link FileChannel} whenever it is full, or to a
+ * {@link CompressionPipeline} that gzips it on a second thread.
+ * <p>
+ * The output is the same as commons-csv printed with the state format: {@code ;} delimiters,
+ * CRLF line ends, UTF-8, and values quoted with {@code "} only where its minimal quote mode
+ * quotes them (a value starting with a character up to {@code #}, ending with whitespace, or
+ * holding a delimiter, quote or line break). Numbers and dates are written digit by digit and
+ * additional guests are joined in a reused builder, so writing a row allocates nothing but the
+ * text of a price not seen recently.
+ * <p>
+ * Every row of a room repeats its seasonal rates in the last column as {@code from/to=price}
+ * values joined by {@code |}, e.g. {@code 2025-07-01/2025-09-01=300.0}; the column is empty
+ * for a room without seasons.
+ */
+final class StateCsvWriter implements Closeable {
+
+    static final int BUFFER_BYTES = 1 << 20;
+
+    private static final byte[] LINE_END = {'\r', '\n'};
+    private static final byte[] FREE_ROOM_COLUMNS = {';', ';', ';', ';'};
+    private static final int PRICE_CACHE_BITS = 8;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final byte[] digits = new byte[11];
+    private final StringBuilder guests = new StringBuilder();
+    private final StringBuilder seasons = new StringBuilder();
+    private final long[] priceKeys = new long[1 << PRICE_CACHE_BITS];
+    private final byte[][] prices = new byte[1 << PRICE_CACHE_BITS][];
+
+    private StateCsvWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates or truncates a state file and writes its header.
+     *
+     * @param path The file system path to write to.
+     * @param gzip Whether to gzip the file.
+     * @return A writer positioned after the header.
+     * @throws IOException if the file cannot be opened or written.
+     */
+    static StateCsvWriter open(String path, boolean gzip) throws IOException {
+        FileChannel file = FileChannel.open(Path.of(path), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        return open(gzip ? CompressionPipeline.gzipOutput(file) : file);
+    }
+
+    /**
+     * Writes the header of a state file to a channel, e.g. one that only computes a checksum
+     * of the rows.
+     *
+     * @param channel The channel to write to; closing the writer closes it.
+     * @return A writer positioned after the header.
+     * @throws IOException if the channel cannot be written.
+     */
+    static StateCsvWriter open(WritableByteChannel channel) throws IOException {
+        StateCsvWriter writer = new StateCsvWriter(channel);
+        try {
+            for (int column = 0; column < Hotel.STATE_HEADERS.length; column++) {
+                if (column > 0) {
+                    writer.put((byte) ';');
+                }
+                writer.writeValue(Hotel.STATE_HEADERS[column]);
+            }
+            writer.put(LINE_END);
+            return writer;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the rows of a room: one row without guest data if the calendar is empty,
+     * one row per stay otherwise.
+     *
+     * @param room     The room.
+     * @param calendar The stays of the room to write.
+     * @throws IOException if the file cannot be written.
+     */
+    void writeRoom(Room room, BookingCalendar calendar) throws IOException {
+        CharSequence seasons = joinedSeasons(room.getRates());
+        if (calendar.isEmpty()) {
+            writeRoomColumns(room);
+            put(FREE_ROOM_COLUMNS);
+            put((byte) ';');
+            writeValue(seasons);
+            put(LINE_END);
+            return;
+        }
+        for (int i = 0; i < calendar.size(); i++) {
+            Reservation stay = calendar.get(i);
+            writeRoomColumns(room);
+            put((byte) ';');
+            writeValue(stay.mainGuest().name());
+            put((byte) ';');
+            writeDate(stay.checkinDate());
+            put((byte) ';');
+            writeInt(stay.duration());
+            put((byte) ';');
+            writeValue(joinedNames(stay.additionalGuests()));
+            put((byte) ';');
+            writeValue(seasons);
+            put(LINE_END);
+        }
+    }
+
+    /**
+     * Writes what is left in the buffer and closes the file, after the pipeline has
+     * compressed everything if the file is gzipped.
+     */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            flush();
+        }
+    }
+
+    //PRIVATE HELPERS
+
+    private void writeRoomColumns(Room room) throws IOException {
+        writeInt(room.getRoomNumber());
+        put((byte) ';');
+        writeInt(room.getCapacity());
+        put((byte) ';');
+        writePrice(room.getPrice());
+    }
+
+    private CharSequence joinedSeasons(RateCalendar rates) {
+        seasons.setLength(0);
+        if (!rates.hasSeasons()) {
+            return seasons;
+        }
+        for (RangeMap.Range<LocalDate, Rate> season : rates.getSeasons()) {
+            if (!seasons.isEmpty()) {
+                seasons.append('|');
+            }
+            seasons.append(season.from()).append('/').append(season.to())
+                    .append('=').append(season.value().nightlyPrice());
+        }
+        return seasons;
+    }
+
+    private CharSequence joinedNames(List<Guest> additionalGuests) {
+        guests.setLength(0);
+        for (int i = 0; i < additionalGuests.size(); i++) {
+            if (i > 0) {
+                guests.append('|');
+            }
+            guests.append(additionalGuests.get(i).name());
+        }
+        return guests;
+    }
+
+    /**
+     * Writes a text value, quoted and with doubled quotes where commons-csv would quote it.
+     */
+    private void writeValue(CharSequence value) throws IOException {
+        boolean quote = needsQuotes(value);
+        if (quote) {
+            put((byte) '"');
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' && quote) {
+                    buffer.put((byte) '"');
+                }
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate, replaced like String.getBytes does
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+    }
+
+    /**
+     * Applies the rules of commons-csv's minimal quote mode to a value that is not the first
+     * of its row; empty values are never quoted there.
+     */
+    private static boolean needsQuotes(CharSequence value) {
+        int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        if (value.charAt(0) <= '#') {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ';' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return value.charAt(length - 1) <= ' ';
+    }
+
+    private void writeInt(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            put(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (buffer.remaining() < digits.length) {
+            flush();
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        buffer.put(digits, position, digits.length - position);
+    }
+
+    /**
+     * Writes a date as {@code yyyy-MM-dd}, the format of {@link LocalDate#toString()} for
+     * four-digit years.
+     */
+    private void writeDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            put(date.toString().getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (buffer.remaining() < 10) {
+            flush();
+        }
+        putDigits(year, 4);
+        buffer.put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    private void putDigits(int value, int count) {
+        for (int divisor = count == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Writes a price as {@link Double#toString(double)} does; the text of recent prices is
+     * cached, as many rooms share a price and every stay of a room repeats it.
+     */
+    private void writePrice(double price) throws IOException {
+        long key = Double.doubleToRawLongBits(price);
+        int slot = (int) ((key ^ key >>> 32) * 0x9E3779B1L) >>> (32 - PRICE_CACHE_BITS);
+        byte[] text = prices[slot];
+        if (text == null || priceKeys[slot] != key) {
+            text = Double.toString(price).getBytes(StandardCharsets.US_ASCII);
+            prices[slot] = text;
+            priceKeys[slot] = key;
+        }
+        put(text);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            flush();
+        }
+        buffer.put(bytes);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,364 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.exceptions.RoomOccupiedException;
+import com.dnikitin.hotel.exceptions.RoomSmallCapacityException;
+import com.dnikitin.map.MyMap;
+import com.dnikitin.map.RangeMap;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipException;
+
+/**
+ * Parses CSV state files (see {@link Hotel#saveRoomsToFile(String)}) into detached rooms,
+ * reading the rows with a {@link StateCsvParser}.
+ * <p>
+ * Large files are parsed in parallel: one quote-aware pass over the raw bytes cuts the file
+ * at record boundaries into chunks of about equal size, every chunk is parsed into its own
+ * map on the common fork-join pool, and the chunks are then merged in file order. When the
+ * chunks hold ascending, disjoint room numbers, as every saved file does, the merged map is
+ * built in one pass with {@link MyMap#ofSorted(List)}. Errors name the same line as a
+ * sequential parse would.
+ */
+final class StateFileReader {
+
+    /**
+     * Files are only split into chunks of at least this size; smaller ones are parsed sequentially.
+     */
+    static final long MIN_CHUNK_BYTES = 1L << 20;
+
+    private static final int SCAN_BUFFER_BYTES = 1 << 20;
+
+    private StateFileReader() {
+    }
+
+    /**
+     * Parses a state file, in parallel if it is large enough to give every thread a chunk of
+     * at least {@link #MIN_CHUNK_BYTES}.
+     *
+     * @param path        The file system path to the CSV file.
+     * @param parallelism The maximal number of chunks parsed at once.
+     * @return The rooms of the file together with their stays, keyed by room number.
+     * @throws HotelDataException if an I/O error occurs or if the data in the file is malformed.
+     */
+    static MyMap<Integer, Room> read(String path, int parallelism) throws HotelDataException {
+        long size = new File(path).length();
+        int chunks = (int) Math.min(parallelism, size / MIN_CHUNK_BYTES);
+        if (chunks <= 1) {
+            return readSequential(path);
+        }
+        return readChunked(path, chunks);
+    }
+
+    /**
+     * Parses a state file on the calling thread.
+     */
+    static MyMap<Integer, Room> readSequential(String path) throws HotelDataException {
+        return readRows(path, false);
+    }
+
+    /**
+     * Parses a gzipped state file on the calling thread while it is inflated on a second one.
+     * A gzip stream cannot be split, so it is never parsed in chunks.
+     *
+     * @param path The file system path to the gzipped CSV file.
+     * @return The rooms of the file together with their stays, keyed by room number.
+     * @throws HotelDataException if an I/O error occurs, or if the compressed data or the rows are malformed.
+     */
+    static MyMap<Integer, Room> readGzip(String path) throws HotelDataException {
+        return readRows(path, true);
+    }
+
+    /**
+     * Splits a state file into the given number of chunks and parses them in parallel.
+     * A chunk may be empty if a single record spans several chunk lengths.
+     */
+    static MyMap<Integer, Room> readChunked(String path, int chunkCount) throws HotelDataException {
+        List<Chunk> chunks = split(path, chunkCount);
+        chunks.parallelStream().forEach(Chunk::parse);
+
+        List<java.util.Map.Entry<Integer, Room>> sorted = new ArrayList<>();
+        MyMap<Integer, Room> unsorted = null;
+        long lineOffset = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.ioFailure != null) {
+                throw new HotelDataException("Error reading file (I/O): " + path, chunk.ioFailure);
+            }
+            for (java.util.Map.Entry<Integer, Room> entry : chunk.rooms) {
+                int roomNumber = entry.getKey();
+                if (unsorted == null && !sorted.isEmpty() && sorted.getLast().getKey() > roomNumber) {
+                    // a hand-written file; fall back to merging room by room
+                    unsorted = new MyMap<>();
+                    for (java.util.Map.Entry<Integer, Room> done : sorted) {
+                        unsorted.put(done.getKey(), done.getValue());
+                    }
+                }
+                Room existing = unsorted != null ? unsorted.get(roomNumber) : lastIfSame(sorted, roomNumber);
+                if (existing != null) {
+                    mergeStays(existing, entry.getValue(), chunk, lineOffset);
+                } else if (unsorted != null) {
+                    unsorted.put(roomNumber, entry.getValue());
+                } else {
+                    sorted.add(entry);
+                }
+            }
+            if (chunk.failure != null) {
+                throw parseError(chunk.failure, lineOffset + chunk.records);
+            }
+            lineOffset += chunk.records;
+        }
+        return unsorted != null ? unsorted : MyMap.ofSorted(sorted);
+    }
+
+    //PRIVATE HELPERS
+
+    private static MyMap<Integer, Room> readRows(String path, boolean gzip) throws HotelDataException {
+        MyMap<Integer, Room> tempRooms = new MyMap<>();
+        long currentLine = 1;
+
+        try (StateCsvParser parser = gzip ? StateCsvParser.openGzip(path) : StateCsvParser.open(path)) {
+            while (parser.next()) {
+                currentLine = parser.recordNumber();
+                readRecord(parser, tempRooms);
+            }
+            return tempRooms;
+        } catch (ZipException | EOFException e) {
+            throw new HotelDataException("Corrupted compressed data in file " + path + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new HotelDataException("Error reading file (I/O): " + path, e);
+        } catch (DateTimeParseException | IllegalArgumentException
+                 | RoomOccupiedException | RoomSmallCapacityException e) {
+            throw parseError(e, currentLine);
+        }
+    }
+
+    /**
+     * Turns the exception of a malformed row into the error reported for the file.
+     */
+    private static HotelDataException parseError(RuntimeException e, long line) {
+        if (e instanceof DateTimeParseException dateError) {
+            return new HotelDataException("Error parsing data in file near line " +
+                    line + ": " + dateError.getParsedString(), e);
+        }
+        if (e instanceof IllegalArgumentException) {
+            return new HotelDataException("Error parsing data in file near line " +
+                    line + ": " + e.getMessage(), e);
+        }
+        return new HotelDataException("Inconsistent reservation in file near line " +
+                line + ": " + e.getMessage(), e);
+    }
+
+    /**
+     * Adds the current row to the room it describes; a room with several stays is stored as
+     * one row per stay.
+     */
+    private static void readRecord(StateCsvParser row, MyMap<Integer, Room> tempRooms) {
+        int roomNumber = row.intField(StateCsvParser.ROOM_NUMBER);
+        double price = row.doubleField(StateCsvParser.PRICE);
+        int capacity = row.intField(StateCsvParser.CAPACITY);
+
+        Room room = tempRooms.get(roomNumber);
+        if (room == null) {
+            room = new Room(roomNumber, price, capacity);
+            if (row.hasValue(StateCsvParser.SEASONS)) {
+                for (RangeMap.Range<LocalDate, Rate> season : parseSeasons(row.stringField(StateCsvParser.SEASONS))) {
+                    room.getRates().setRate(season.from(), season.to(), season.value());
+                }
+            }
+            tempRooms.put(roomNumber, room);
+        }
+
+        Guest mainGuest = row.guestField(StateCsvParser.GUEST_NAME);
+
+        if (mainGuest != null) {
+            LocalDate checkin = row.dateField(StateCsvParser.CHECKIN_DATE);
+            int duration = row.intField(StateCsvParser.DURATION);
+            List<Guest> additionalGuests = row.guestListField(StateCsvParser.ADDITIONAL_GUESTS);
+
+            room.checkIn(new Reservation(mainGuest, additionalGuests, checkin, duration));
+        }
+    }
+
+    /**
+     * Parses the pipe-separated string of additional guests into a List.
+     *
+     * @param additionalGuestsString The raw string from the CSV record (e.g., "G1|G2").
+     * @return A List of Guest objects, or an empty list if the string is blank.
+     */
+    static List<Guest> parseAdditionalGuestsList(String additionalGuestsString) {
+        List<Guest> additionalGuests = new ArrayList<>();
+        if (additionalGuestsString != null && !additionalGuestsString.isBlank()) {
+            // "|" as separator for additional guests
+            String[] guestNames = additionalGuestsString.split("\\|");
+
+            for (String guestName : guestNames) {
+                additionalGuests.add(new Guest(guestName));
+            }
+        }
+        return additionalGuests;
+    }
+
+    /**
+     * Parses the pipe-separated seasonal rates of a room, each written as {@code from/to=price}.
+     *
+     * @param seasonsString The raw string from the CSV record (e.g., "2025-07-01/2025-09-01=300.0").
+     * @return The seasons in the order of the string.
+     * @throws IllegalArgumentException if a season is malformed.
+     * @throws DateTimeParseException if a date of a season is malformed.
+     */
+    static List<RangeMap.Range<LocalDate, Rate>> parseSeasons(String seasonsString) {
+        List<RangeMap.Range<LocalDate, Rate>> seasons = new ArrayList<>();
+        for (String season : seasonsString.trim().split("\\|")) {
+            int slash = season.indexOf('/');
+            int equals = season.indexOf('=', slash + 1);
+            if (slash < 0 || equals < 0) {
+                throw new IllegalArgumentException("Malformed season: " + season);
+            }
+            seasons.add(new RangeMap.Range<>(LocalDate.parse(season.substring(0, slash)),
+                    LocalDate.parse(season.substring(slash + 1, equals)),
+                    new Rate(Double.parseDouble(season.substring(equals + 1)))));
+        }
+        return seasons;
+    }
+
+    /**
+     * Returns the last room of the sorted rooms if it has the given number; in a saved file
+     * only the last room of a chunk can continue in the next one.
+     */
+    private static Room lastIfSame(List<java.util.Map.Entry<Integer, Room>> sorted, int roomNumber) {
+        if (sorted.isEmpty() || sorted.getLast().getKey() != roomNumber) {
+            return null;
+        }
+        return sorted.getLast().getValue();
+    }
+
+    /**
+     * Moves the stays of a room that continues in a later chunk to the room parsed first,
+     * as a sequential parse would have added them.
+     */
+    private static void mergeStays(Room target, Room later, Chunk chunk, long lineOffset) throws HotelDataException {
+        for (Reservation reservation : later.getReservations()) {
+            try {
+                target.checkIn(reservation);
+            } catch (RoomOccupiedException | RoomSmallCapacityException e) {
+                throw parseError(e, lineOffset + chunk.lineOf(later.getRoomNumber(), reservation.checkinDate()));
+            }
+        }
+    }
+
+    /**
+     * Cuts the file into chunks of about {@code size / chunkCount} bytes, each ending after a
+     * line break outside quotes. Quotes are only toggled, as an escaped {@code ""} toggles twice.
+     */
+    private static List<Chunk> split(String path, int chunkCount) throws HotelDataException {
+        List<Chunk> chunks = new ArrayList<>(chunkCount);
+        try (FileChannel channel = FileChannel.open(Path.of(path))) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BUFFER_BYTES);
+            boolean quoted = false;
+            long chunkStart = 0;
+            long nextCut = size / chunkCount;
+            long position = 0;
+
+            while (position < size && chunks.size() < chunkCount - 1) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                for (int i = 0; i < read && chunks.size() < chunkCount - 1; i++) {
+                    byte b = buffer.get(i);
+                    if (b == '"') {
+                        quoted = !quoted;
+                    } else if (b == '\n' && !quoted && position + i + 1 >= nextCut) {
+                        long cut = position + i + 1;
+                        chunks.add(new Chunk(path, chunkStart, cut, chunks.isEmpty()));
+                        chunkStart = cut;
+                        nextCut = size * (chunks.size() + 1) / chunkCount;
+                    }
+                }
+                position += read;
+            }
+            chunks.add(new Chunk(path, chunkStart, size, chunks.isEmpty()));
+            return chunks;
+        } catch (IOException e) {
+            throw new HotelDataException("Error reading file (I/O): " + path, e);
+        }
+    }
+
+    /**
+     * A byte range of the file starting at a record boundary, and what parsing it produced.
+     */
+    private static final class Chunk {
+        private final String path;
+        private final long start;
+        private final long end;
+        private final boolean first;
+
+        private final MyMap<Integer, Room> rooms = new MyMap<>();
+        /**
+         * The number of data records read; on failure the number of the failed record.
+         * Record numbers do not count the header, so they add up across chunks.
+         */
+        private long records;
+        private RuntimeException failure;
+        private IOException ioFailure;
+
+        private Chunk(String path, long start, long end, boolean first) {
+            this.path = path;
+            this.start = start;
+            this.end = end;
+            this.first = first;
+        }
+
+        /**
+         * Parses the chunk, keeping the rooms read before a malformed row.
+         */
+        private void parse() {
+            try (StateCsvParser parser = open()) {
+                while (parser.next()) {
+                    records = parser.recordNumber();
+                    readRecord(parser, rooms);
+                }
+                records = parser.recordNumber();
+            } catch (IOException e) {
+                ioFailure = e;
+            } catch (DateTimeParseException | IllegalArgumentException
+                     | RoomOccupiedException | RoomSmallCapacityException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Finds the record of a stay within the chunk again; only called to report an error.
+         */
+        private long lineOf(int roomNumber, LocalDate checkin) throws HotelDataException {
+            try (StateCsvParser parser = open()) {
+                while (parser.next()) {
+                    if (parser.intField(StateCsvParser.ROOM_NUMBER) == roomNumber
+                            && parser.guestField(StateCsvParser.GUEST_NAME) != null
+                            && parser.dateField(StateCsvParser.CHECKIN_DATE).equals(checkin)) {
+                        return parser.recordNumber();
+                    }
+                }
+                return records;
+            } catch (IOException e) {
+                throw new HotelDataException("Error reading file (I/O): " + path, e);
+            }
+        }
+
+        private StateCsvParser open() throws IOException {
+            return StateCsvParser.open(FileChannel.open(Path.of(path)), start, end, first);
+        }
+    }
+}
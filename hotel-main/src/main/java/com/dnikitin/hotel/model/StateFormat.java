@@ -0,0 +1,140 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * The encodings of a hotel state file. Loading detects the format from the first bytes of
+ * the file, so the file name does not matter. Both formats have a compressed variant, which
+ * is compressed and decompressed on a second thread while the state is written or read.
+ */
+public enum StateFormat {
+
+    /**
+     * Text rows, one per stay, see {@link Hotel#saveRoomsToFile(String)}.
+     */
+    CSV("csv", ".csv"),
+
+    /**
+     * The binary snapshot, see {@link StateSnapshotFile}.
+     */
+    BINARY("bin", ".hsnap"),
+
+    /**
+     * CSV rows in a gzip file, readable by any gzip tool.
+     */
+    CSV_GZIP("csv.gz", ".csv.gz"),
+
+    /**
+     * The blocks of a binary snapshot in deflate frames, see {@link CompressionPipeline}.
+     */
+    BINARY_DEFLATE("bin.z", ".hsnap.z");
+
+    private static final int GZIP_MAGIC = 0x1f8b;
+
+    private final String option;
+    private final String extension;
+
+    StateFormat(String option, String extension) {
+        this.option = option;
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the name of the format on the command line, e.g. {@code save --format=bin}.
+     */
+    public String getOption() {
+        return option;
+    }
+
+    /**
+     * Returns the usual file name extension of the format, including the dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Returns whether files of this format are compressed.
+     */
+    public boolean isCompressed() {
+        return this == CSV_GZIP || this == BINARY_DEFLATE;
+    }
+
+    /**
+     * Replaces the extension of a state file name with the usual one of this format, or
+     * appends it if the name has none of the known extensions.
+     *
+     * @param filename The file name, e.g. {@code state.csv}.
+     * @return The file name with this format's extension, e.g. {@code state.hsnap}.
+     */
+    public String withExtension(String filename) {
+        StateFormat current = forFileName(filename);
+        if (current == null) {
+            return filename + extension;
+        }
+        return filename.substring(0, filename.length() - current.extension.length()) + extension;
+    }
+
+    /**
+     * Looks up a format by the extension of a file name.
+     *
+     * @param filename The file name.
+     * @return The format whose usual extension the name has, or {@code null} if it has none of them.
+     */
+    public static StateFormat forFileName(String filename) {
+        for (StateFormat format : values()) {
+            if (filename.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up a format by its command line name, ignoring case.
+     *
+     * @param option The name, {@code csv}, {@code bin}, {@code csv.gz} or {@code bin.z}.
+     * @return The format.
+     * @throws IllegalArgumentException if no format has that name.
+     */
+    public static StateFormat fromOption(String option) {
+        for (StateFormat format : values()) {
+            if (format.option.equalsIgnoreCase(option)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown state file format: " + option);
+    }
+
+    /**
+     * Detects the format of an existing state file from its first bytes.
+     *
+     * @param path The file system path to the state file.
+     * @return {@link #BINARY} or {@link #BINARY_DEFLATE} if the file starts like a binary
+     * snapshot, {@link #CSV_GZIP} if it starts like a gzip file, {@link #CSV} otherwise.
+     * @throws HotelDataException if the file cannot be read.
+     */
+    public static StateFormat detect(String path) throws HotelDataException {
+        try (FileChannel channel = FileChannel.open(Path.of(path))) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES + 1);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // a file shorter than the magic is not a snapshot
+            }
+            if (magic.position() >= Short.BYTES && Short.toUnsignedInt(magic.getShort(0)) == GZIP_MAGIC) {
+                return CSV_GZIP;
+            }
+            if (magic.position() < Integer.BYTES || magic.getInt(0) != StateSnapshotFile.MAGIC) {
+                return CSV;
+            }
+            return magic.position() > Integer.BYTES && magic.get(Integer.BYTES) == StateSnapshotFile.DEFLATE_VERSION
+                    ? BINARY_DEFLATE : BINARY;
+        } catch (IOException e) {
+            throw new HotelDataException("Error reading file (I/O): " + path, e);
+        }
+    }
+}
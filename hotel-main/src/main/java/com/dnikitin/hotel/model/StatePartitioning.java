@@ -0,0 +1,58 @@
+package com.dnikitin.hotel.model;
+
+/**
+ * How {@link Hotel#writeRoomsToPartitions(String, StatePartitioning, StateFormat)} splits the
+ * rooms into partition files: one file per floor, or one file per run of a fixed number of
+ * rooms in ascending order of their numbers.
+ *
+ * @param roomsPerPartition The number of rooms per file, or {@code 0} for one file per floor.
+ */
+public record StatePartitioning(int roomsPerPartition) {
+
+    private static final String FLOOR_OPTION = "floor";
+
+    public StatePartitioning {
+        if (roomsPerPartition < 0) {
+            throw new IllegalArgumentException("Number of rooms per partition cannot be negative: " + roomsPerPartition);
+        }
+    }
+
+    /**
+     * Returns the partitioning with one file per floor.
+     */
+    public static StatePartitioning byFloor() {
+        return new StatePartitioning(0);
+    }
+
+    /**
+     * Returns the partitioning with one file per the given number of rooms.
+     *
+     * @throws IllegalArgumentException if the number is not positive.
+     */
+    public static StatePartitioning ofRooms(int roomsPerPartition) {
+        if (roomsPerPartition <= 0) {
+            throw new IllegalArgumentException("Number of rooms per partition must be positive: " + roomsPerPartition);
+        }
+        return new StatePartitioning(roomsPerPartition);
+    }
+
+    /**
+     * Parses a partitioning given on the command line: {@code floor} or a number of rooms.
+     *
+     * @throws IllegalArgumentException if the option is neither.
+     */
+    public static StatePartitioning fromOption(String option) {
+        if (option.equalsIgnoreCase(FLOOR_OPTION)) {
+            return byFloor();
+        }
+        try {
+            return ofRooms(Integer.parseInt(option.trim()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown partitioning: " + option);
+        }
+    }
+
+    public boolean isByFloor() {
+        return roomsPerPartition == 0;
+    }
+}
@@ -0,0 +1,360 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.map.MyMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Saves the hotel state as a directory of partition files, one per floor or per run of
+ * rooms (see {@link StatePartitioning}), listed in a manifest, so that a large state is
+ * written and read by all cores at once instead of through one file.
+ * <p>
+ * The manifest {@value #MANIFEST} is a CSV file with one row per partition in ascending
+ * order of room numbers: the file name, its number of rooms and the checksum of its
+ * content. The checksum is the CRC-32C of the partition's rows in the CSV state format,
+ * whatever the format of the file, so it only changes when a room or a stay of the
+ * partition changes. It is part of the file name as well: a save first encodes every
+ * partition into its checksum only, keeps the files whose name and checksum the manifest
+ * already lists, and writes the others under their new names. Then the manifest is
+ * replaced atomically and the files it no longer lists are deleted, so a crash in between
+ * leaves the previous manifest and all of its files intact.
+ * <p>
+ * Loading reads all partition files on the common fork-join pool, checks their numbers of
+ * rooms against the manifest and merges them in one bulk build with {@link MyMap#ofSorted(List)}.
+ * Every file may be in any format; it is detected like for a single state file.
+ */
+final class StatePartitions {
+
+    static final String MANIFEST = "manifest.csv";
+
+    private static final String MANIFEST_HEADER = "File;Rooms;Checksum";
+
+    private StatePartitions() {
+    }
+
+    /**
+     * Writes one partition to a file; implemented by the hotel with its atomic save.
+     */
+    interface PartitionWriter {
+        void write(String path, Hotel.StateSnapshot partition) throws HotelDataException;
+    }
+
+    /**
+     * Parses one partition file; implemented by the hotel with its format detection.
+     */
+    interface PartitionReader {
+        MyMap<Integer, Room> read(String path) throws HotelDataException;
+    }
+
+    /**
+     * Returns whether a state path names a directory, which can only hold a partitioned state;
+     * reading one without a manifest fails.
+     */
+    static boolean isPartitioned(String path) {
+        return Files.isDirectory(Path.of(path));
+    }
+
+    /**
+     * Writes the changed partitions of a snapshot in parallel and then the manifest of all of them.
+     *
+     * @param directory    The directory of the partitions, created if needed.
+     * @param snapshot     The rooms to save, in ascending order.
+     * @param partitioning How to split the rooms into partitions.
+     * @param format       The format of new partition files.
+     * @param writer       Writes a single partition file.
+     * @return The numbers of rooms, partitions and written partition files.
+     * @throws HotelDataException if a file cannot be written.
+     */
+    static PartitionSaveResult write(String directory, Hotel.StateSnapshot snapshot, StatePartitioning partitioning,
+                                     StateFormat format, PartitionWriter writer) throws HotelDataException {
+        Path dir = Path.of(directory);
+        Path manifest = dir.resolve(MANIFEST);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new HotelDataException("Error writing file (I/O): " + directory, e);
+        }
+        java.util.Map<String, Partition> previous = new HashMap<>();
+        if (Files.exists(manifest)) {
+            try {
+                for (Partition partition : readManifest(manifest)) {
+                    previous.put(partition.file(), partition);
+                }
+            } catch (HotelDataException e) {
+                // a damaged manifest only means that no partition can be kept
+            }
+        }
+
+        List<PendingPartition> pending = split(snapshot, partitioning);
+        IntStream.range(0, pending.size()).parallel()
+                .forEach(i -> pending.get(i).save(dir, format, previous, writer));
+
+        List<Partition> partitions = new ArrayList<>(pending.size());
+        int written = 0;
+        HotelDataException failure = null;
+        for (PendingPartition partition : pending) {
+            if (partition.failure != null && failure == null) {
+                failure = partition.failure;
+            }
+            if (partition.written) {
+                written++;
+            }
+            partitions.add(partition.result);
+        }
+        if (failure != null) {
+            deleteWritten(dir, pending, previous);
+            throw failure;
+        }
+
+        writeManifest(manifest, partitions);
+        Set<String> current = new HashSet<>();
+        for (Partition partition : partitions) {
+            current.add(partition.file());
+        }
+        for (String file : previous.keySet()) {
+            if (!current.contains(file)) {
+                deleteQuietly(dir.resolve(file));
+            }
+        }
+        return new PartitionSaveResult(snapshot.size(), partitions.size(), written);
+    }
+
+    /**
+     * Reads all partitions listed in the manifest of a directory in parallel and merges them.
+     *
+     * @param directory The directory of the partitions.
+     * @param reader    Parses a single partition file.
+     * @return The rooms of all partitions together with their stays, keyed by room number.
+     * @throws HotelDataException if a file cannot be read or is malformed, or if a partition
+     *                            does not hold the rooms the manifest lists.
+     */
+    static MyMap<Integer, Room> read(String directory, PartitionReader reader) throws HotelDataException {
+        Path dir = Path.of(directory);
+        List<Partition> partitions = readManifest(dir.resolve(MANIFEST));
+        List<MyMap<Integer, Room>> parsed = new ArrayList<>(partitions.size());
+        HotelDataException[] failures = new HotelDataException[partitions.size()];
+        for (int i = 0; i < partitions.size(); i++) {
+            parsed.add(null);
+        }
+        IntStream.range(0, partitions.size()).parallel().forEach(i -> {
+            try {
+                parsed.set(i, reader.read(dir.resolve(partitions.get(i).file()).toString()));
+            } catch (HotelDataException e) {
+                failures[i] = e;
+            }
+        });
+
+        List<java.util.Map.Entry<Integer, Room>> entries = new ArrayList<>();
+        boolean ascending = true;
+        for (int i = 0; i < partitions.size(); i++) {
+            if (failures[i] != null) {
+                throw failures[i];
+            }
+            Partition partition = partitions.get(i);
+            MyMap<Integer, Room> rooms = parsed.get(i);
+            if (rooms.size() != partition.rooms()) {
+                throw new HotelDataException("Partition file " + dir.resolve(partition.file()) + " holds "
+                        + rooms.size() + " rooms, but the manifest lists " + partition.rooms());
+            }
+            for (java.util.Map.Entry<Integer, Room> entry : rooms) {
+                if (!entries.isEmpty() && entries.getLast().getKey() >= entry.getKey()) {
+                    ascending = false;
+                }
+                entries.add(entry);
+            }
+        }
+        if (!ascending) {
+            // a manifest edited by hand; the partitions must still be disjoint
+            entries.sort(java.util.Map.Entry.comparingByKey());
+            for (int i = 1; i < entries.size(); i++) {
+                if (entries.get(i - 1).getKey().equals(entries.get(i).getKey())) {
+                    throw new HotelDataException("Room " + entries.get(i).getKey()
+                            + " is in more than one partition of " + directory);
+                }
+            }
+        }
+        return MyMap.ofSorted(entries);
+    }
+
+    //PRIVATE HELPERS
+
+    /**
+     * A row of the manifest.
+     */
+    private record Partition(String file, int rooms, int checksum) {
+    }
+
+    /**
+     * A partition of the snapshot on its way to a file.
+     */
+    private static final class PendingPartition {
+        private final String name;
+        private final Hotel.StateSnapshot rooms;
+        private Partition result;
+        private boolean written;
+        private HotelDataException failure;
+
+        private PendingPartition(String name, Hotel.StateSnapshot rooms) {
+            this.name = name;
+            this.rooms = rooms;
+        }
+
+        /**
+         * Writes the partition unless the previous manifest lists a file with the same content.
+         */
+        private void save(Path dir, StateFormat format, java.util.Map<String, Partition> previous,
+                          PartitionWriter writer) {
+            Path path = null;
+            try {
+                int checksum = checksum(rooms);
+                result = new Partition(name + "-" + String.format("%08x", checksum) + format.getExtension(),
+                        rooms.size(), checksum);
+                path = dir.resolve(result.file());
+                if (!result.equals(previous.get(result.file())) || !Files.exists(path)) {
+                    writer.write(path.toString(), rooms);
+                    written = true;
+                }
+            } catch (IOException e) {
+                failure = new HotelDataException("Error writing file (I/O): " + path, e);
+            } catch (HotelDataException e) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Cuts the snapshot into partitions at floor changes or after every run of rooms.
+     */
+    private static List<PendingPartition> split(Hotel.StateSnapshot snapshot, StatePartitioning partitioning) {
+        List<PendingPartition> partitions = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= snapshot.size(); i++) {
+            boolean cut = i == snapshot.size() || (partitioning.isByFloor()
+                    ? snapshot.room(i).getFloor() != snapshot.room(from).getFloor()
+                    : i - from == partitioning.roomsPerPartition());
+            if (cut) {
+                String name = partitioning.isByFloor()
+                        ? "floor-" + snapshot.room(from).getFloor()
+                        : "rooms-" + partitions.size();
+                partitions.add(new PendingPartition(name, snapshot.range(from, i)));
+                from = i;
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Encodes the rows of a partition into their CRC-32C without writing them anywhere.
+     */
+    private static int checksum(Hotel.StateSnapshot rooms) throws IOException {
+        CRC32C crc = new CRC32C();
+        WritableByteChannel channel = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int length = src.remaining();
+                crc.update(src);
+                return length;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+                // nothing to release
+            }
+        };
+        try (StateCsvWriter writer = StateCsvWriter.open(channel)) {
+            for (int i = 0; i < rooms.size(); i++) {
+                writer.writeRoom(rooms.room(i), rooms.calendar(i));
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    private static List<Partition> readManifest(Path manifest) throws HotelDataException {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            throw new HotelDataException("Missing manifest of partitioned state: " + manifest, e);
+        } catch (IOException e) {
+            throw new HotelDataException("Error reading file (I/O): " + manifest, e);
+        }
+        if (lines.isEmpty() || !lines.getFirst().equals(MANIFEST_HEADER)) {
+            throw new HotelDataException("Error parsing manifest " + manifest + " near line 1: " + MANIFEST_HEADER + " expected");
+        }
+        List<Partition> partitions = new ArrayList<>(lines.size() - 1);
+        for (int line = 2; line <= lines.size(); line++) {
+            String[] columns = lines.get(line - 1).split(";");
+            try {
+                if (columns.length != 3 || columns[0].isBlank() || columns[0].contains("/")
+                        || columns[0].contains("\\") || columns[0].equals(MANIFEST)) {
+                    throw new IllegalArgumentException("File;Rooms;Checksum expected");
+                }
+                partitions.add(new Partition(columns[0], Integer.parseInt(columns[1]),
+                        Integer.parseUnsignedInt(columns[2], 16)));
+            } catch (IllegalArgumentException e) {
+                throw new HotelDataException("Error parsing manifest " + manifest + " near line " + line
+                        + ": " + e.getMessage(), e);
+            }
+        }
+        return partitions;
+    }
+
+    private static void writeManifest(Path manifest, List<Partition> partitions) throws HotelDataException {
+        List<String> lines = new ArrayList<>(partitions.size() + 1);
+        lines.add(MANIFEST_HEADER);
+        for (Partition partition : partitions) {
+            lines.add(partition.file() + ";" + partition.rooms() + ";" + String.format("%08x", partition.checksum()));
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(manifest.getParent(), MANIFEST, ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            Files.move(temp, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new HotelDataException("Error writing file (I/O): " + manifest, e);
+        } finally {
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    /**
+     * Deletes the files of a failed save that the previous manifest does not list.
+     */
+    private static void deleteWritten(Path dir, List<PendingPartition> pending, java.util.Map<String, Partition> previous) {
+        for (PendingPartition partition : pending) {
+            if (partition.written && !previous.containsKey(partition.result.file())) {
+                deleteQuietly(dir.resolve(partition.result.file()));
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // the file is only left behind
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.exceptions.RoomOccupiedException;
+import com.dnikitin.hotel.exceptions.RoomSmallCapacityException;
+import com.dnikitin.map.MyMap;
+import com.dnikitin.map.RangeMap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.ZipException;
+
+/**
+ * Writes and reads the binary state snapshot ({@code .hsnap}), which holds the same data as
+ * a CSV state file but loads without parsing any text.
+ * <p>
+ * A snapshot starts with {@code [int magic "HSNP"][byte version]}, followed by blocks framed
+ * as {@code [byte type][int length][int crc32c][payload]}. The checksum covers the type and
+ * the payload, so a damaged block is detected before it is decoded. All numbers are
+ * big-endian. The blocks are:
+ * <ul>
+ *   <li>{@code STRINGS}: {@code [int count]} and {@code count} times {@code [int length][UTF-8 bytes]}.
+ *   Every guest name of the snapshot is stored once; the strings of all string blocks are
+ *   numbered from 0 in file order, and rooms refer to guests by that number.</li>
+ *   <li>{@code ROOMS}: {@code [int rooms][int stays][int guestRefs]}, then fixed-width records:
+ *   per room {@code [int number][int capacity][double price][int stayCount]}, per stay
+ *   {@code [int checkinEpochDay][int duration][int mainGuest][int additionalGuestCount]},
+ *   and the additional guests of all stays as {@code [int guest]}. Rooms are in ascending
+ *   order, stays in the order of their rooms.</li>
+ *   <li>{@code SEASONS}: {@code [int count]} and {@code count} times
+ *   {@code [int room][int fromEpochDay][int toEpochDay][double price]}, the seasonal rates of
+ *   rooms of the blocks before, in ascending order of room and start.</li>
+ *   <li>{@code END}: {@code [int rooms][int strings]}, the totals of the snapshot. A file
+ *   without it was cut off.</li>
+ * </ul>
+ * All string blocks precede the room blocks, and those precede the season blocks. A string or
+ * room block is closed after a fixed number of entries, or earlier when the next entry would
+ * make its payload longer than {@link #MAX_BLOCK_BYTES}.
+ * <p>
+ * A compressed snapshot ({@code .hsnap.z}) has version {@link #DEFLATE_VERSION}; its header is
+ * followed by the same blocks, cut into the deflate frames of a {@link CompressionPipeline}.
+ */
+final class StateSnapshotFile {
+
+    /**
+     * The first four bytes of every snapshot, {@code "HSNP"}.
+     */
+    static final int MAGIC = 0x48534E50;
+    static final byte VERSION = 1;
+    static final byte DEFLATE_VERSION = 2;
+
+    static final byte STRINGS = 1;
+    static final byte ROOMS = 2;
+    static final byte END = 3;
+    static final byte SEASONS = 4;
+
+    private static final int FILE_HEADER = 5;
+    private static final int FRAME_HEADER = 9;
+    private static final int ROOM_BYTES = 20;
+    private static final int STAY_BYTES = 16;
+    private static final int SEASON_BYTES = 20;
+    private static final int ROOMS_PER_BLOCK = 4096;
+    private static final int STRINGS_PER_BLOCK = 4096;
+    private static final int SEASONS_PER_BLOCK = 4096;
+    /**
+     * The longest payload of a block. The writer closes blocks before they grow longer and
+     * fails on a single entry that does not fit, so a larger length can only be a damaged frame.
+     */
+    private static final int MAX_BLOCK_BYTES = 1 << 26;
+
+    private StateSnapshotFile() {
+    }
+
+    /**
+     * Writes room snapshots as a binary snapshot file.
+     *
+     * @param path     The file system path to write to.
+     * @param snapshot The rooms to write, in ascending order of their numbers.
+     * @param deflate  Whether to write a compressed snapshot; the blocks are then deflated on
+     *                 a second thread while the next ones are encoded.
+     * @param progress Receives the number of written rooms, or {@code null}.
+     * @throws HotelDataException if an I/O error occurs during writing.
+     */
+    static void write(String path, Hotel.StateSnapshot snapshot, boolean deflate, BackgroundSave.Progress progress)
+            throws HotelDataException {
+        HashMap<String, Integer> ids = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            BookingCalendar calendar = snapshot.calendar(i);
+            for (int j = 0; j < calendar.size(); j++) {
+                Reservation stay = calendar.get(j);
+                idOf(stay.mainGuest(), ids, strings);
+                for (Guest guest : stay.additionalGuests()) {
+                    idOf(guest, ids, strings);
+                }
+            }
+        }
+
+        try (FileChannel file = FileChannel.open(Path.of(path), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer.writeFully(file, ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC)
+                    .put(deflate ? DEFLATE_VERSION : VERSION).flip());
+            try (WritableByteChannel channel = deflate ? CompressionPipeline.deflateFrameOutput(file) : file) {
+                writeBlocks(new Writer(channel), snapshot, strings, ids, progress);
+            }
+        } catch (IOException e) {
+            throw new HotelDataException("Error writing file (I/O): " + path, e);
+        } catch (ArithmeticException e) {
+            throw new HotelDataException("Check-in date out of range for a binary snapshot: " + path, e);
+        }
+    }
+
+    /**
+     * Reads a binary snapshot file into detached rooms.
+     *
+     * @param path The file system path to the snapshot.
+     * @return The rooms of the snapshot together with their stays, keyed by room number.
+     * @throws HotelDataException if an I/O error occurs, or if the file is not a snapshot of a
+     *                            supported version, is damaged or was cut off.
+     */
+    static MyMap<Integer, Room> read(String path) throws HotelDataException {
+        try (FileChannel file = FileChannel.open(Path.of(path))) {
+            Reader reader = new Reader(file, path);
+            ByteBuffer header = reader.readFully(FILE_HEADER);
+            if (header == null || header.getInt(0) != MAGIC) {
+                throw new HotelDataException("Not a binary snapshot file: " + path);
+            }
+            if (header.get(4) == VERSION) {
+                return reader.readBlocks();
+            }
+            if (header.get(4) == DEFLATE_VERSION) {
+                try (ReadableByteChannel frames = CompressionPipeline.deflateFrameInput(file)) {
+                    return new Reader(frames, path).readBlocks();
+                }
+            }
+            throw new HotelDataException("Unsupported snapshot version " + header.get(4) + " in file: " + path);
+        } catch (ZipException | EOFException e) {
+            throw new HotelDataException("Corrupted compressed data in file " + path + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new HotelDataException("Error reading file (I/O): " + path, e);
+        }
+    }
+
+    //PRIVATE HELPERS
+
+    /**
+     * Writes the string blocks, the room blocks, the season blocks and the end block of a snapshot.
+     */
+    private static void writeBlocks(Writer writer, Hotel.StateSnapshot snapshot, List<String> strings,
+                                    HashMap<String, Integer> ids, BackgroundSave.Progress progress)
+            throws IOException {
+        writer.writeStrings(strings);
+        for (int from = 0, to; from < snapshot.size(); from = to) {
+            to = from + 1;
+            long bytes = 3L * Integer.BYTES + roomBytes(snapshot.calendar(from));
+            while (to < snapshot.size() && to - from < ROOMS_PER_BLOCK) {
+                long next = roomBytes(snapshot.calendar(to));
+                if (bytes + next > MAX_BLOCK_BYTES) {
+                    break;
+                }
+                bytes += next;
+                to++;
+            }
+            writer.writeRooms(snapshot, from, to, bytes, ids);
+            if (progress != null) {
+                for (int written = from + 1; written <= to; written++) {
+                    progress.update(written, snapshot.size());
+                }
+            }
+        }
+        List<Season> seasons = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Room room = snapshot.room(i);
+            if (room.getRates().hasSeasons()) {
+                for (RangeMap.Range<LocalDate, Rate> season : room.getRates().getSeasons()) {
+                    seasons.add(new Season(room.getRoomNumber(), season));
+                }
+            }
+        }
+        for (int from = 0; from < seasons.size(); from += SEASONS_PER_BLOCK) {
+            writer.writeSeasons(seasons.subList(from, Math.min(from + SEASONS_PER_BLOCK, seasons.size())));
+        }
+        writer.payload(2 * Integer.BYTES).putInt(snapshot.size()).putInt(strings.size());
+        writer.writeBlock(END);
+    }
+
+    /**
+     * The bytes a room takes in a room block: its record, its stays and their additional guests.
+     */
+    private static long roomBytes(BookingCalendar calendar) {
+        long bytes = ROOM_BYTES + (long) calendar.size() * STAY_BYTES;
+        for (int i = 0; i < calendar.size(); i++) {
+            bytes += (long) calendar.get(i).additionalGuests().size() * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    private record Season(int roomNumber, RangeMap.Range<LocalDate, Rate> range) {
+    }
+
+    private static void idOf(Guest guest, HashMap<String, Integer> ids, List<String> strings) {
+        if (ids.putIfAbsent(guest.name(), strings.size()) == null) {
+            strings.add(guest.name());
+        }
+    }
+
+    private static int checksum(byte type, ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Encodes blocks into one reused payload buffer and writes them with their frames.
+     */
+    private static final class Writer {
+        private final WritableByteChannel channel;
+        private final ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER);
+        private ByteBuffer payload = ByteBuffer.allocate(1 << 16);
+
+        private Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Clears the payload buffer, making sure it holds at least the given number of bytes.
+         *
+         * @throws IOException if a block of that length would be rejected when it is read.
+         */
+        private ByteBuffer payload(long bytes) throws IOException {
+            if (bytes > MAX_BLOCK_BYTES) {
+                throw new IOException("Snapshot block of " + bytes + " bytes exceeds the limit of "
+                        + MAX_BLOCK_BYTES + " bytes");
+            }
+            if (payload.capacity() < bytes) {
+                payload = ByteBuffer.allocate(Math.max((int) bytes, payload.capacity() * 2));
+            }
+            return payload.clear();
+        }
+
+        /**
+         * Writes all strings, in as many string blocks as needed.
+         */
+        private void writeStrings(List<String> strings) throws IOException {
+            List<byte[]> encoded = new ArrayList<>(Math.min(strings.size(), STRINGS_PER_BLOCK));
+            long bytes = Integer.BYTES;
+            for (String string : strings) {
+                byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+                if (!encoded.isEmpty() && (encoded.size() == STRINGS_PER_BLOCK
+                        || bytes + Integer.BYTES + utf8.length > MAX_BLOCK_BYTES)) {
+                    writeStringBlock(encoded, bytes);
+                    encoded.clear();
+                    bytes = Integer.BYTES;
+                }
+                encoded.add(utf8);
+                bytes += Integer.BYTES + utf8.length;
+            }
+            if (!encoded.isEmpty()) {
+                writeStringBlock(encoded, bytes);
+            }
+        }
+
+        private void writeStringBlock(List<byte[]> encoded, long bytes) throws IOException {
+            ByteBuffer out = payload(bytes).putInt(encoded.size());
+            for (byte[] utf8 : encoded) {
+                out.putInt(utf8.length).put(utf8);
+            }
+            writeBlock(STRINGS);
+        }
+
+        private void writeRooms(Hotel.StateSnapshot snapshot, int from, int to, long bytes,
+                                HashMap<String, Integer> ids) throws IOException {
+            int stays = 0;
+            int guestRefs = 0;
+            for (int i = from; i < to; i++) {
+                BookingCalendar calendar = snapshot.calendar(i);
+                stays += calendar.size();
+                for (int j = 0; j < calendar.size(); j++) {
+                    guestRefs += calendar.get(j).additionalGuests().size();
+                }
+            }
+            ByteBuffer out = payload(bytes);
+            out.putInt(to - from).putInt(stays).putInt(guestRefs);
+            for (int i = from; i < to; i++) {
+                Room room = snapshot.room(i);
+                out.putInt(room.getRoomNumber())
+                        .putInt(room.getCapacity())
+                        .putDouble(room.getPrice())
+                        .putInt(snapshot.calendar(i).size());
+            }
+            for (int i = from; i < to; i++) {
+                BookingCalendar calendar = snapshot.calendar(i);
+                for (int j = 0; j < calendar.size(); j++) {
+                    Reservation stay = calendar.get(j);
+                    out.putInt(Math.toIntExact(stay.checkinDate().toEpochDay()))
+                            .putInt(stay.duration())
+                            .putInt(ids.get(stay.mainGuest().name()))
+                            .putInt(stay.additionalGuests().size());
+                }
+            }
+            for (int i = from; i < to; i++) {
+                BookingCalendar calendar = snapshot.calendar(i);
+                for (int j = 0; j < calendar.size(); j++) {
+                    for (Guest guest : calendar.get(j).additionalGuests()) {
+                        out.putInt(ids.get(guest.name()));
+                    }
+                }
+            }
+            writeBlock(ROOMS);
+        }
+
+        private void writeSeasons(List<Season> block) throws IOException {
+            ByteBuffer out = payload(Integer.BYTES + block.size() * SEASON_BYTES).putInt(block.size());
+            for (Season season : block) {
+                out.putInt(season.roomNumber())
+                        .putInt(Math.toIntExact(season.range().from().toEpochDay()))
+                        .putInt(Math.toIntExact(season.range().to().toEpochDay()))
+                        .putDouble(season.range().value().nightlyPrice());
+            }
+            writeBlock(SEASONS);
+        }
+
+        /**
+         * Writes the current payload as a block of the given type.
+         */
+        private void writeBlock(byte type) throws IOException {
+            payload.flip();
+            frame.clear().put(type).putInt(payload.remaining()).putInt(checksum(type, payload)).flip();
+            writeFully(channel, frame);
+            writeFully(channel, payload);
+        }
+
+        private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads and checks the blocks of a snapshot one by one, building the rooms as it goes.
+     */
+    private static final class Reader {
+        private final ReadableByteChannel channel;
+        private final String path;
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private final List<Guest> guests = new ArrayList<>();
+        private final List<java.util.Map.Entry<Integer, Room>> rooms = new ArrayList<>();
+        private int block;
+
+        private Reader(ReadableByteChannel channel, String path) {
+            this.channel = channel;
+            this.path = path;
+        }
+
+        private MyMap<Integer, Room> readBlocks() throws IOException, HotelDataException {
+            while (true) {
+                ByteBuffer frame = readFully(FRAME_HEADER);
+                if (frame == null) {
+                    throw new HotelDataException("Snapshot file is cut off after block " + block + ": " + path);
+                }
+                block++;
+                byte type = frame.get(0);
+                int length = frame.getInt(1);
+                int crc = frame.getInt(5);
+                if (length < 0 || length > MAX_BLOCK_BYTES) {
+                    throw corrupted("invalid length " + length);
+                }
+                ByteBuffer payload = readFully(length);
+                if (payload == null) {
+                    throw new HotelDataException("Snapshot file is cut off in block " + block + ": " + path);
+                }
+                if (checksum(type, payload) != crc) {
+                    throw corrupted("checksum mismatch");
+                }
+                try {
+                    switch (type) {
+                        case STRINGS -> readStrings(payload);
+                        case ROOMS -> readRooms(payload);
+                        case SEASONS -> readSeasons(payload);
+                        case END -> {
+                            if (payload.getInt() != rooms.size() || payload.getInt() != guests.size()) {
+                                throw corrupted("totals do not match the blocks before");
+                            }
+                            return MyMap.ofSorted(rooms);
+                        }
+                        default -> throw corrupted("unknown block type " + type);
+                    }
+                } catch (RuntimeException e) {
+                    // a buffer underflow or a bad guest number; the checksum matched, so it was written this way
+                    throw new HotelDataException("Corrupted block " + block + " in file " + path + ": " + e, e);
+                }
+            }
+        }
+
+        private void readStrings(ByteBuffer payload) {
+            int count = payload.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] utf8 = new byte[payload.getInt()];
+                payload.get(utf8);
+                guests.add(new Guest(new String(utf8, StandardCharsets.UTF_8)));
+            }
+        }
+
+        private void readRooms(ByteBuffer payload) throws HotelDataException {
+            int roomCount = payload.getInt();
+            int stayCount = payload.getInt();
+            int guestRefs = payload.getInt();
+            long expected = 3L * Integer.BYTES + (long) roomCount * ROOM_BYTES
+                    + (long) stayCount * STAY_BYTES + (long) guestRefs * Integer.BYTES;
+            if (roomCount < 0 || stayCount < 0 || guestRefs < 0 || expected != payload.limit()) {
+                throw corrupted("record counts do not match the block length");
+            }
+            int stayPosition = payload.position() + roomCount * ROOM_BYTES;
+            int guestPosition = stayPosition + stayCount * STAY_BYTES;
+            for (int r = 0; r < roomCount; r++) {
+                int number = payload.getInt();
+                int capacity = payload.getInt();
+                double price = payload.getDouble();
+                int stays = payload.getInt();
+                if (!rooms.isEmpty() && rooms.getLast().getKey() >= number) {
+                    throw corrupted("room " + number + " is out of order");
+                }
+                Room room = new Room(number, price, capacity);
+                for (int s = 0; s < stays; s++) {
+                    LocalDate checkin = LocalDate.ofEpochDay(payload.getInt(stayPosition));
+                    int duration = payload.getInt(stayPosition + 4);
+                    Guest mainGuest = guests.get(payload.getInt(stayPosition + 8));
+                    int others = payload.getInt(stayPosition + 12);
+                    stayPosition += STAY_BYTES;
+                    List<Guest> additionalGuests = new ArrayList<>(others);
+                    for (int g = 0; g < others; g++) {
+                        additionalGuests.add(guests.get(payload.getInt(guestPosition)));
+                        guestPosition += Integer.BYTES;
+                    }
+                    try {
+                        room.checkIn(new Reservation(mainGuest, additionalGuests, checkin, duration));
+                    } catch (RoomOccupiedException | RoomSmallCapacityException e) {
+                        throw new HotelDataException("Inconsistent reservation in file near room " +
+                                number + ": " + e.getMessage(), e);
+                    }
+                }
+                rooms.add(java.util.Map.entry(number, room));
+            }
+            if (stayPosition != roomCount * ROOM_BYTES + 3 * Integer.BYTES + stayCount * STAY_BYTES
+                    || guestPosition != payload.limit()) {
+                throw corrupted("stay counts do not match the block");
+            }
+        }
+
+        private void readSeasons(ByteBuffer payload) throws HotelDataException {
+            int count = payload.getInt();
+            if (count < 0 || Integer.BYTES + (long) count * SEASON_BYTES != payload.limit()) {
+                throw corrupted("season count does not match the block length");
+            }
+            for (int i = 0; i < count; i++) {
+                int number = payload.getInt();
+                LocalDate from = LocalDate.ofEpochDay(payload.getInt());
+                LocalDate to = LocalDate.ofEpochDay(payload.getInt());
+                double price = payload.getDouble();
+                Room room = roomOf(number);
+                if (room == null) {
+                    throw corrupted("season of unknown room " + number);
+                }
+                room.getRates().setRate(from, to, new Rate(price));
+            }
+        }
+
+        /**
+         * Finds a room of the blocks read so far, which are in ascending order.
+         */
+        private Room roomOf(int number) {
+            int low = 0;
+            int high = rooms.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int key = rooms.get(middle).getKey();
+                if (key < number) {
+                    low = middle + 1;
+                } else if (key > number) {
+                    high = middle - 1;
+                } else {
+                    return rooms.get(middle).getValue();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Reads exactly the given number of bytes at the current position of the channel.
+         *
+         * @return The bytes, or {@code null} if the file ends before.
+         */
+        private ByteBuffer readFully(int bytes) throws IOException {
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2));
+            }
+            buffer.clear().limit(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return null;
+                }
+            }
+            return buffer.flip();
+        }
+
+        private HotelDataException corrupted(String reason) {
+            return new HotelDataException("Corrupted block " + block + " in file " + path + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.dnikitin.hotel.model;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by all rooms: every room number maps to one stripe.
+ * <p>
+ * Operations on rooms in different stripes run in parallel, while the number of lock
+ * objects stays constant no matter how many rooms the hotel has. Whoever needs
+ * several stripes at once must take them in ascending stripe order
+ * (see {@link #stripeOf(int)}) to avoid deadlocks.
+ */
+final class StripedLocks {
+
+    private final Lock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripeCount The number of stripes, rounded up to a power of two.
+     */
+    StripedLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Lock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the stripe index of a room. Room numbers are mixed first, so
+     * consecutive numbers on one floor end up in different stripes.
+     *
+     * @param roomNumber The room number.
+     * @return The stripe index.
+     */
+    int stripeOf(int roomNumber) {
+        int h = roomNumber * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * @param roomNumber The room number.
+     * @return The lock guarding the room.
+     */
+    Lock forRoom(int roomNumber) {
+        return stripes[stripeOf(roomNumber)];
+    }
+
+    /**
+     * Returns the distinct locks guarding the given rooms in ascending stripe order,
+     * the order in which they have to be taken.
+     *
+     * @param roomNumbers The room numbers, in any order and possibly repeated.
+     * @return The locks to take, one per stripe.
+     */
+    Lock[] forRooms(int[] roomNumbers) {
+        boolean[] needed = new boolean[stripes.length];
+        int count = 0;
+        for (int roomNumber : roomNumbers) {
+            int stripe = stripeOf(roomNumber);
+            if (!needed[stripe]) {
+                needed[stripe] = true;
+                count++;
+            }
+        }
+        Lock[] result = new Lock[count];
+        int next = 0;
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            if (needed[stripe]) {
+                result[next++] = stripes[stripe];
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return stripes.length;
+    }
+}
@@ -0,0 +1,223 @@
+package com.dnikitin.hotel.persistence;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.model.SaveResult;
+import com.dnikitin.map.MyMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Saves a {@link Hotel} incrementally: a full snapshot followed by delta files holding only
+ * the rooms changed since the previous save.
+ * <p>
+ * The directory holds one generation of files: {@code state-G.csv} with every room and
+ * {@code state-G.delta-N.csv} with the rooms changed after it, all in the CSV state format.
+ * A room in a delta replaces the same room of the snapshot and of older deltas. After
+ * {@code maxDeltas} deltas, or when all rooms have been replaced (e.g. by loading a file),
+ * the next save consolidates the state into the snapshot of a new generation and deletes
+ * the old one. Every file is written under a temporary name and then renamed, so a crash
+ * never leaves a partly written file behind.
+ */
+public class DeltaStore {
+
+    public static final int DEFAULT_MAX_DELTAS = 10;
+
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("state-(\\d+)\\.csv");
+    private static final Pattern DELTA_FILE = Pattern.compile("state-(\\d+)\\.delta-(\\d+)\\.csv");
+
+    private final Path directory;
+    private final Hotel hotel;
+    private final int maxDeltas;
+
+    private long generation;
+    private int deltas;
+    private long savedVersion = -1;
+
+    /**
+     * Creates a store; nothing is read or written until {@link #load()} or {@link #save()}.
+     *
+     * @param directory The directory of the state files, created on the first save.
+     * @param hotel     The hotel to save.
+     * @param maxDeltas The number of deltas after which the state is consolidated into a new snapshot.
+     * @throws IllegalArgumentException if {@code maxDeltas} is negative.
+     */
+    public DeltaStore(Path directory, Hotel hotel, int maxDeltas) {
+        if (maxDeltas < 0) {
+            throw new IllegalArgumentException("Number of deltas cannot be negative: " + maxDeltas);
+        }
+        this.directory = directory;
+        this.hotel = hotel;
+        this.maxDeltas = maxDeltas;
+    }
+
+    /**
+     * Replaces the hotel state with the newest snapshot and its deltas.
+     *
+     * @return The number of loaded rooms, 0 if the directory holds no snapshot.
+     * @throws HotelDataException if a file cannot be read or is malformed.
+     */
+    public synchronized int load() throws HotelDataException {
+        List<Path> snapshots = list(SNAPSHOT_FILE);
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        Path snapshot = snapshots.getLast();
+        long newest = generationOf(snapshot, SNAPSHOT_FILE);
+
+        MyMap<Integer, Room> rooms = hotel.parseRoomsFile(snapshot.toString());
+        List<Path> newestDeltas = deltasOf(newest);
+        for (Path delta : newestDeltas) {
+            for (java.util.Map.Entry<Integer, Room> entry : hotel.parseRoomsFile(delta.toString())) {
+                rooms.put(entry.getKey(), entry.getValue());
+            }
+        }
+        int loaded = hotel.restoreRooms(rooms);
+
+        generation = newest;
+        deltas = newestDeltas.size();
+        savedVersion = hotel.getStateVersion();
+        return loaded;
+    }
+
+    /**
+     * Saves the changes since the previous save or load: nothing if the state did not change,
+     * a new snapshot if there is none yet or it is due for consolidation, a delta otherwise.
+     *
+     * @return What was written; no rooms if nothing changed.
+     * @throws HotelDataException if a file cannot be written.
+     */
+    public synchronized SaveResult save() throws HotelDataException {
+        if (savedVersion >= 0 && hotel.getStateVersion() == savedVersion) {
+            return new SaveResult(savedVersion, 0, false);
+        }
+        if (savedVersion < 0 || deltas >= maxDeltas) {
+            return consolidate();
+        }
+        return write(savedVersion);
+    }
+
+    /**
+     * Writes the whole state as the snapshot of a new generation and deletes all older files.
+     *
+     * @return What was written.
+     * @throws HotelDataException if a file cannot be written.
+     */
+    public synchronized SaveResult consolidate() throws HotelDataException {
+        return write(-1);
+    }
+
+    /**
+     * Returns whether the directory holds a snapshot this store can load.
+     *
+     * @throws HotelDataException if the directory cannot be listed.
+     */
+    public boolean holdsSnapshot() throws HotelDataException {
+        return !list(SNAPSHOT_FILE).isEmpty();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the number of deltas written on top of the current snapshot.
+     */
+    public synchronized int getDeltaCount() {
+        return deltas;
+    }
+
+    //PRIVATE HELPERS
+
+    private SaveResult write(long sinceVersion) throws HotelDataException {
+        try {
+            Files.createDirectories(directory);
+            Path temp = directory.resolve("state.tmp");
+            SaveResult result = hotel.writeChangedRoomsToFile(temp.toString(), sinceVersion);
+            if (result.complete()) {
+                // a store that did not load the directory must not fall behind its files
+                List<Path> snapshots = list(SNAPSHOT_FILE);
+                long newest = snapshots.isEmpty() ? 0 : generationOf(snapshots.getLast(), SNAPSHOT_FILE);
+                long next = Math.max(generation, newest) + 1;
+                Files.move(temp, snapshotPath(next),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                generation = next;
+                deltas = 0;
+                deleteOlderGenerations();
+            } else {
+                Files.move(temp, deltaPath(generation, deltas + 1),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                deltas++;
+            }
+            savedVersion = result.version();
+            return result;
+        } catch (IOException e) {
+            throw new HotelDataException("Error writing file (I/O): " + directory, e);
+        }
+    }
+
+    private void deleteOlderGenerations() throws IOException, HotelDataException {
+        for (Path snapshot : list(SNAPSHOT_FILE)) {
+            if (generationOf(snapshot, SNAPSHOT_FILE) < generation) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        for (Path delta : list(DELTA_FILE)) {
+            if (generationOf(delta, DELTA_FILE) < generation) {
+                Files.deleteIfExists(delta);
+            }
+        }
+    }
+
+    private List<Path> deltasOf(long snapshotGeneration) throws HotelDataException {
+        List<Path> result = new ArrayList<>();
+        for (Path delta : list(DELTA_FILE)) {
+            if (generationOf(delta, DELTA_FILE) == snapshotGeneration) {
+                result.add(delta);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Lists the files matching the pattern, ordered by name; the zero-padded numbers make
+     * this the order of generations and deltas.
+     */
+    private List<Path> list(Pattern pattern) throws HotelDataException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> pattern.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new HotelDataException("Error reading directory (I/O): " + directory, e);
+        }
+    }
+
+    private static long generationOf(Path path, Pattern pattern) {
+        Matcher matcher = pattern.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a state file: " + path);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private Path snapshotPath(long generation) {
+        return directory.resolve(String.format("state-%06d.csv", generation));
+    }
+
+    private Path deltaPath(long generation, int delta) {
+        return directory.resolve(String.format("state-%06d.delta-%06d.csv", generation, delta));
+    }
+}
@@ -0,0 +1,54 @@
+package com.dnikitin.hotel.persistence;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Hotel;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loads a saved hotel state from whatever a user names: a single state file in any format,
+ * a directory of partition files written by {@code save --partition}, or a directory of
+ * incremental autosaves kept by a {@link DeltaStore}.
+ * <p>
+ * A directory is recognized by its content: the partition manifest
+ * ({@value Hotel#PARTITION_MANIFEST}) or the {@code state-*.csv} snapshots of a delta store.
+ * A directory holding neither, or both, is rejected instead of being loaded as an empty hotel.
+ */
+public final class StateLoader {
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private StateLoader() {
+    }
+
+    /**
+     * Replaces the hotel state with the saved state at the given path, without printing anything.
+     *
+     * @param hotel The hotel to load into.
+     * @param path  The file system path to a state file or a state directory.
+     * @return The number of loaded rooms.
+     * @throws HotelDataException if nothing loadable is found, a file cannot be read or is malformed.
+     */
+    public static int load(Hotel hotel, String path) throws HotelDataException {
+        Path location = Path.of(path);
+        if (!Files.isDirectory(location)) {
+            return hotel.readRoomsFromFile(path);
+        }
+        DeltaStore store = new DeltaStore(location, hotel, DeltaStore.DEFAULT_MAX_DELTAS);
+        boolean partitioned = Files.exists(location.resolve(Hotel.PARTITION_MANIFEST));
+        boolean incremental = store.holdsSnapshot();
+        if (partitioned && incremental) {
+            throw new HotelDataException("Directory " + path + " holds both partition files and incremental saves");
+        }
+        if (partitioned) {
+            return hotel.readRoomsFromFile(path);
+        }
+        if (incremental) {
+            return store.load();
+        }
+        throw new HotelDataException("No saved hotel state in directory " + path + ": neither "
+                + Hotel.PARTITION_MANIFEST + " nor state-*.csv files found");
+    }
+}
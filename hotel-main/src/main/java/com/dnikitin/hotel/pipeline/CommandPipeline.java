@@ -0,0 +1,175 @@
+package com.dnikitin.hotel.pipeline;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies all changes of a {@link Hotel} on a single writer thread.
+ * <p>
+ * Producers queue {@link HotelMutation}s on a bounded {@link RingBuffer} and get a future
+ * for the result. The writer takes them in batches and applies them one after another,
+ * so changes are applied in exactly the order they were queued and the hotel's locks are
+ * never contended. Reads go straight to {@link #hotel()}: rooms publish their state as
+ * immutable snapshots, so reading never waits for the writer. A completed future
+ * guarantees that the change is visible to the thread that waited for it.
+ * <p>
+ * When the buffer is full, producers wait for the writer (back-pressure). After
+ * {@link #close()} every queued change is still applied, new ones are rejected.
+ */
+public class CommandPipeline implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private static final int SPINS_BEFORE_PARK = 1000;
+
+    private final Hotel hotel;
+    private final RingBuffer<PendingMutation<?>> ring;
+    private final int batchSize;
+    private final Thread writer;
+
+    private volatile boolean writerParked;
+    private volatile long appliedMutations;
+    private volatile long batches;
+
+    /**
+     * Starts a pipeline with the default capacity and batch size.
+     *
+     * @param hotel The hotel to change.
+     */
+    public CommandPipeline(Hotel hotel) {
+        this(hotel, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Starts a pipeline and its writer thread.
+     *
+     * @param hotel     The hotel to change.
+     * @param capacity  The number of queued changes before producers have to wait, a power of two.
+     * @param batchSize The maximal number of changes applied in one batch.
+     * @throws IllegalArgumentException if the capacity is not a power of two or the batch size is below 1.
+     */
+    public CommandPipeline(Hotel hotel, int capacity, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.hotel = hotel;
+        this.ring = new RingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.writer = Thread.ofPlatform().name("hotel-writer").daemon().start(this::runWriter);
+    }
+
+    /**
+     * Queues a change for the writer thread.
+     *
+     * @param mutation The change to apply.
+     * @param <T>      The type of the result.
+     * @return A future completed with the result, or exceptionally with the exception the change threw.
+     * @throws IllegalStateException if the pipeline has been closed.
+     */
+    public <T> CompletableFuture<T> submit(HotelMutation<T> mutation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long sequence = ring.claim();
+        ring.publish(sequence, new PendingMutation<>(mutation, result));
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return result;
+    }
+
+    public CompletableFuture<Void> addRoom(Room room) {
+        return submit(new HotelMutation.AddRoom(room));
+    }
+
+    public CompletableFuture<Void> checkIn(int roomNumber, Guest mainGuest, List<Guest> others,
+                                           LocalDate checkInDate, int duration) {
+        return submit(new HotelMutation.CheckIn(roomNumber, mainGuest, others, checkInDate, duration));
+    }
+
+    public CompletableFuture<Double> checkOut(int roomNumber) {
+        return submit(new HotelMutation.CheckOut(roomNumber));
+    }
+
+    /**
+     * Returns the hotel for reading. Changes must go through the pipeline.
+     */
+    public Hotel hotel() {
+        return hotel;
+    }
+
+    public long getAppliedMutations() {
+        return appliedMutations;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Rejects new changes, applies the queued ones and waits for the writer thread to finish.
+     */
+    @Override
+    public void close() {
+        ring.close();
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //PRIVATE HELPERS
+
+    private void runWriter() {
+        int idle = 0;
+        while (true) {
+            int applied = ring.drain(batchSize, this::apply);
+            if (applied > 0) {
+                batches++;
+                idle = 0;
+            } else if (ring.isDrained()) {
+                return;
+            } else if (++idle < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                writerParked = true;
+                if (!ring.hasPublished() && !ring.isClosed()) {
+                    LockSupport.park(this);
+                }
+                writerParked = false;
+                idle = 0;
+            }
+        }
+    }
+
+    private void apply(PendingMutation<?> pending) {
+        appliedMutations++;
+        pending.apply(hotel);
+    }
+
+    /**
+     * A queued change together with the future waiting for its result.
+     */
+    private record PendingMutation<T>(HotelMutation<T> mutation, CompletableFuture<T> result) {
+        void apply(Hotel hotel) {
+            try {
+                result.complete(mutation.applyTo(hotel));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.dnikitin.hotel.pipeline;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A change of the hotel state, queued on a {@link CommandPipeline} and applied by its writer thread.
+ *
+ * @param <T> the type of the result
+ */
+public sealed interface HotelMutation<T> {
+
+    /**
+     * Applies the change to the hotel.
+     *
+     * @param hotel The hotel to change.
+     * @return The result of the change.
+     */
+    T applyTo(Hotel hotel);
+
+    /**
+     * Adds a room, see {@link Hotel#addRoom(Room)}.
+     *
+     * @param room The room to add.
+     */
+    record AddRoom(Room room) implements HotelMutation<Void> {
+        @Override
+        public Void applyTo(Hotel hotel) {
+            hotel.addRoom(room);
+            return null;
+        }
+    }
+
+    /**
+     * Checks guests in, see {@link Hotel#checkIn(int, Guest, List, LocalDate, int)}.
+     *
+     * @param roomNumber  The room number.
+     * @param mainGuest   The main guest.
+     * @param others      The additional guests.
+     * @param checkInDate The date of check-in.
+     * @param duration    The duration of the stay in nights.
+     */
+    record CheckIn(int roomNumber, Guest mainGuest, List<Guest> others, LocalDate checkInDate, int duration)
+            implements HotelMutation<Void> {
+        @Override
+        public Void applyTo(Hotel hotel) {
+            hotel.checkIn(roomNumber, mainGuest, others, checkInDate, duration);
+            return null;
+        }
+    }
+
+    /**
+     * Checks a room out, see {@link Hotel#checkOut(int)}.
+     *
+     * @param roomNumber The room number.
+     */
+    record CheckOut(int roomNumber) implements HotelMutation<Double> {
+        @Override
+        public Double applyTo(Hotel hotel) {
+            return hotel.checkOut(roomNumber);
+        }
+    }
+}
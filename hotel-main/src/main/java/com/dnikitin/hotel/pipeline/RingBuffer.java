@@ -0,0 +1,161 @@
+package com.dnikitin.hotel.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded ring buffer for many producers and a single consumer.
+ * <p>
+ * Every entry gets a sequence number. A producer first claims the next sequence, waits
+ * until the consumer has freed its slot, stores the entry and publishes it by writing the
+ * sequence into the slot's marker. The consumer takes entries strictly in sequence order
+ * and only advances its cursor once per batch, so producers and the consumer share a
+ * single counter each instead of a lock.
+ * <p>
+ * After {@link #close()} no more sequences can be claimed, but every entry claimed before
+ * is still delivered; {@link #isDrained()} tells the consumer when the last one is gone.
+ *
+ * @param <E> the type of the entries
+ */
+public final class RingBuffer<E> {
+
+    private static final long CLOSED = Long.MIN_VALUE;
+    private static final int SPINS_BEFORE_YIELD = 100;
+
+    private final Object[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+
+    private final AtomicLong nextClaim = new AtomicLong();
+
+    /**
+     * The sequence of the last consumed entry. Written by the consumer only.
+     */
+    private volatile long consumed = -1;
+
+    /**
+     * The first sequence that was never claimed, or -1 while the buffer is open.
+     */
+    private volatile long end = -1;
+
+    /**
+     * Constructs an empty ring buffer.
+     *
+     * @param capacity The number of slots, a power of two.
+     * @throws IllegalArgumentException if the capacity is not a positive power of two.
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two");
+        }
+        this.entries = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Claims the next sequence, waiting while the buffer is full.
+     * The claimed slot must be filled with {@link #publish(long, Object)}.
+     *
+     * @return The claimed sequence.
+     * @throws IllegalStateException if the buffer has been closed.
+     */
+    public long claim() {
+        long sequence;
+        do {
+            sequence = nextClaim.get();
+            if (sequence == CLOSED) {
+                throw new IllegalStateException("Ring buffer is closed");
+            }
+        } while (!nextClaim.compareAndSet(sequence, sequence + 1));
+
+        int spins = 0;
+        while (consumed < sequence - entries.length) {
+            if (++spins < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Stores an entry in a claimed slot and makes it visible to the consumer.
+     *
+     * @param sequence The sequence returned by {@link #claim()}.
+     * @param entry    The entry.
+     */
+    public void publish(long sequence, E entry) {
+        int slot = (int) (sequence & mask);
+        entries[slot] = entry;
+        published.set(slot, sequence);
+    }
+
+    /**
+     * Hands up to {@code maxBatch} published entries to the handler, in sequence order.
+     * Must only be called from the consumer thread.
+     *
+     * @param maxBatch The maximal number of entries to take.
+     * @param handler  Receives the entries.
+     * @return The number of entries taken, 0 if the next entry is not published yet.
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(int maxBatch, Consumer<? super E> handler) {
+        long first = consumed + 1;
+        int count = 0;
+        while (count < maxBatch) {
+            long sequence = first + count;
+            int slot = (int) (sequence & mask);
+            if (published.get(slot) != sequence) {
+                break;
+            }
+            E entry = (E) entries[slot];
+            entries[slot] = null;
+            handler.accept(entry);
+            count++;
+        }
+        if (count > 0) {
+            consumed = first + count - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the next entry has been published.
+     */
+    public boolean hasPublished() {
+        long sequence = consumed + 1;
+        return published.get((int) (sequence & mask)) == sequence;
+    }
+
+    /**
+     * Stops accepting new entries. Entries claimed before are still delivered.
+     */
+    public void close() {
+        long last = nextClaim.getAndSet(CLOSED);
+        if (last != CLOSED) {
+            end = last;
+        }
+    }
+
+    public boolean isClosed() {
+        return end >= 0;
+    }
+
+    /**
+     * Checks whether the buffer has been closed and every claimed entry consumed.
+     */
+    public boolean isDrained() {
+        long last = end;
+        return last >= 0 && consumed == last - 1;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+}
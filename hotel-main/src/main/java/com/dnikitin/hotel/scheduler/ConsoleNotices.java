@@ -0,0 +1,35 @@
+package com.dnikitin.hotel.scheduler;
+
+import java.io.PrintStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Messages of background jobs for the console user. Jobs post them at any time, and the
+ * console prints them before its next prompt, so they never break into a prompt or into
+ * the output of a running command.
+ */
+public final class ConsoleNotices {
+
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Queues a message for the next prompt; safe to call from any thread.
+     *
+     * @param message The message to show.
+     */
+    public void post(String message) {
+        pending.add(message);
+    }
+
+    /**
+     * Prints and removes all queued messages, in the order they were posted.
+     *
+     * @param out The stream to print to.
+     */
+    public void printPending(PrintStream out) {
+        for (String message = pending.poll(); message != null; message = pending.poll()) {
+            out.println(message);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.dnikitin.hotel.scheduler;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.index.OccupancyStats;
+import com.dnikitin.hotel.index.ScheduledStay;
+import com.dnikitin.hotel.journal.WriteAheadJournal;
+import com.dnikitin.hotel.persistence.DeltaStore;
+import com.dnikitin.hotel.model.Hotel;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The background jobs of the hotel console and the wiring that schedules them.
+ * The hotel is thread-safe, so the jobs run concurrently with console commands.
+ */
+public final class HotelJobs {
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private HotelJobs() {
+    }
+
+    /**
+     * Schedules all jobs enabled in the settings.
+     *
+     * @param scheduler The scheduler to run the jobs on.
+     * @param hotel     The hotel the jobs work on.
+     * @param settings  The cadence of the jobs.
+     * @param notices   Receives the messages of jobs for the console user.
+     */
+    public static void scheduleAll(JobScheduler scheduler, Hotel hotel, SchedulerSettings settings,
+                                   ConsoleNotices notices) {
+        if (!settings.autosaveInterval().isZero()) {
+            Runnable task = settings.autosaveDirectory() == null
+                    ? autosave(hotel, settings.autosaveFile())
+                    : incrementalAutosave(new DeltaStore(Path.of(settings.autosaveDirectory()), hotel,
+                    settings.autosaveDeltas()));
+            scheduler.schedule("autosave", settings.autosaveInterval(), settings.jitter(), task);
+        }
+        if (!settings.overdueSweepInterval().isZero()) {
+            scheduler.schedule("overdue-sweep", settings.overdueSweepInterval(), settings.jitter(),
+                    overdueSweep(hotel, notices));
+        }
+        if (!settings.statsInterval().isZero()) {
+            scheduler.schedule("stats-snapshot", settings.statsInterval(), settings.jitter(),
+                    statsSnapshot(hotel, settings.statsFile()));
+        }
+    }
+
+    /**
+     * Schedules the checkpoints of a journal, unless disabled in the settings.
+     *
+     * @param scheduler The scheduler to run the job on.
+     * @param journal   The journal to checkpoint.
+     * @param settings  The cadence of the jobs.
+     */
+    public static void scheduleCheckpoints(JobScheduler scheduler, WriteAheadJournal journal,
+                                           SchedulerSettings settings) {
+        if (!settings.checkpointInterval().isZero()) {
+            scheduler.schedule("checkpoint", settings.checkpointInterval(), settings.jitter(), checkpoint(journal));
+        }
+    }
+
+    /**
+     * Creates a task writing the hotel state to the given file, without any console output.
+     *
+     * @param hotel The hotel to save.
+     * @param path  The file to write.
+     * @return The task.
+     */
+    public static Runnable autosave(Hotel hotel, String path) {
+        return () -> {
+            try {
+                hotel.writeRoomsToFile(path);
+            } catch (HotelDataException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * Creates a task saving the rooms changed since its previous run, consolidating them
+     * into a new snapshot from time to time.
+     *
+     * @param store The store to save to.
+     * @return The task.
+     */
+    public static Runnable incrementalAutosave(DeltaStore store) {
+        return () -> {
+            try {
+                store.save();
+            } catch (HotelDataException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * Creates a task snapshotting the hotel into the journal directory and truncating the log.
+     *
+     * @param journal The journal to checkpoint.
+     * @return The task.
+     */
+    public static Runnable checkpoint(WriteAheadJournal journal) {
+        return () -> {
+            try {
+                journal.checkpoint();
+            } catch (HotelDataException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * Creates a task announcing stays that should have checked out before today. The
+     * announcement is queued for the next console prompt and only repeated when the set of
+     * overdue rooms changes.
+     *
+     * @param hotel   The hotel to check.
+     * @param notices Receives the announcement.
+     * @return The task.
+     */
+    public static Runnable overdueSweep(Hotel hotel, ConsoleNotices notices) {
+        String[] lastReport = {""};
+        return () -> {
+            List<ScheduledStay> overdue = hotel.overdue(LocalDate.now());
+            String rooms = overdue.stream()
+                    .map(stay -> String.valueOf(stay.roomNumber()))
+                    .collect(Collectors.joining(", "));
+            if (!overdue.isEmpty() && !rooms.equals(lastReport[0])) {
+                notices.post("[overdue-sweep] " + overdue.size() + " overdue stay(s) in room(s): " + rooms
+                        + ". Type 'report' or 'nightaudit' for details.");
+            }
+            lastReport[0] = rooms;
+        };
+    }
+
+    /**
+     * Creates a task appending the current occupancy statistics as one line to the given file:
+     * {@code timestamp;rooms;bookedRooms;guests;beds;projectedRevenue}.
+     *
+     * @param hotel The hotel to take the statistics from.
+     * @param path  The file to append to.
+     * @return The task.
+     */
+    public static Runnable statsSnapshot(Hotel hotel, String path) {
+        return () -> {
+            OccupancyStats.Snapshot stats = hotel.getStatistics();
+            String line = String.format(Locale.ROOT, "%s;%d;%d;%d;%d;%.2f%n",
+                    LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                    stats.rooms(), stats.bookedRooms(), stats.guests(), stats.beds(), stats.projectedRevenue());
+            try (Writer writer = new FileWriter(path, true)) {
+                writer.write(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error writing file (I/O): " + path, e);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.dnikitin.hotel.scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs periodic background jobs (autosave, overdue sweeps, statistics snapshots)
+ * next to the interactive console, every job on its own virtual thread.
+ * <p>
+ * Shutdown is cooperative: {@link #shutdown()} wakes every sleeping job and lets
+ * running jobs finish their current run. {@link #close()} additionally waits for all
+ * jobs to finish, and interrupts the ones that do not finish in time.
+ * <p>
+ * Jobs never print to the console themselves: failed runs are posted to the
+ * {@link ConsoleNotices} of the scheduler, which the console prints before its next prompt.
+ */
+public class JobScheduler implements AutoCloseable {
+
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ConsoleNotices notices;
+    private final List<ScheduledJob> jobs = new ArrayList<>();
+    private boolean shutdown;
+
+    /**
+     * Creates a scheduler without jobs.
+     *
+     * @param notices Receives the failures of all jobs.
+     */
+    public JobScheduler(ConsoleNotices notices) {
+        this.notices = notices;
+    }
+
+    /**
+     * Starts a job that runs {@code task} every {@code period}, extended by a random
+     * delay of up to {@code jitter}. The first run happens after the first period.
+     *
+     * @param name   The name of the job, used in metrics and error messages.
+     * @param period The time between two runs.
+     * @param jitter The maximal random delay added to every period.
+     * @param task   The work to run.
+     * @return The handle of the started job.
+     * @throws IllegalArgumentException if the period is not positive or the jitter is negative.
+     * @throws IllegalStateException    if the scheduler has been shut down.
+     */
+    public synchronized ScheduledJob schedule(String name, Duration period, Duration jitter, Runnable task) {
+        if (period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Job period must be positive");
+        }
+        if (jitter.isNegative()) {
+            throw new IllegalArgumentException("Job jitter cannot be negative");
+        }
+        if (shutdown) {
+            throw new IllegalStateException("Scheduler has been shut down");
+        }
+        ScheduledJob job = new ScheduledJob(name, period, jitter, task, notices);
+        jobs.add(job);
+        job.start();
+        return job;
+    }
+
+    /**
+     * @return The run metrics of all jobs, in the order they were scheduled.
+     */
+    public synchronized List<JobStats> stats() {
+        List<JobStats> result = new ArrayList<>(jobs.size());
+        for (ScheduledJob job : jobs) {
+            result.add(job.stats());
+        }
+        return result;
+    }
+
+    /**
+     * Cancels all jobs without waiting for them. Runs in progress are completed.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        for (ScheduledJob job : jobs) {
+            job.cancel();
+        }
+    }
+
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Waits until every job has finished after a {@link #shutdown()}.
+     *
+     * @param timeout The maximal time to wait for all jobs together.
+     * @return true if all jobs have finished.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public boolean awaitTermination(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (ScheduledJob job : snapshot()) {
+            Duration left = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+            if (!job.awaitTermination(left)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shuts the scheduler down and waits for all jobs to finish.
+     * Jobs still running after the timeout are interrupted.
+     */
+    @Override
+    public void close() {
+        shutdown();
+        try {
+            if (!awaitTermination(CLOSE_TIMEOUT)) {
+                for (ScheduledJob job : snapshot()) {
+                    job.interrupt();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //PRIVATE HELPERS
+
+    private synchronized List<ScheduledJob> snapshot() {
+        return new ArrayList<>(jobs);
+    }
+}
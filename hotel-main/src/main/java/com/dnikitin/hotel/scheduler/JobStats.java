@@ -0,0 +1,17 @@
+package com.dnikitin.hotel.scheduler;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the run metrics of a single scheduled job.
+ *
+ * @param name            The name of the job.
+ * @param runs            The number of completed runs, failed ones included.
+ * @param failures        The number of runs that ended with an exception.
+ * @param lastDuration    The duration of the last run.
+ * @param averageDuration The average duration of all runs.
+ * @param maxDuration     The duration of the longest run.
+ */
+public record JobStats(String name, long runs, long failures, Duration lastDuration,
+                       Duration averageDuration, Duration maxDuration) {
+}
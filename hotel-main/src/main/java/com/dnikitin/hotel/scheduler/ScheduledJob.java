@@ -0,0 +1,126 @@
+package com.dnikitin.hotel.scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A periodic job running on its own virtual thread, created by {@link JobScheduler}.
+ * <p>
+ * The job sleeps for its period plus a random jitter, runs its task and repeats until it
+ * is cancelled. Cancellation is cooperative: a sleeping job wakes up and stops at once,
+ * while a running task is allowed to finish its current run. A failed run is counted and
+ * posted to the console notices of the scheduler; the job keeps running.
+ */
+public final class ScheduledJob {
+
+    private final String name;
+    private final Duration period;
+    private final Duration jitter;
+    private final Runnable task;
+    private final ConsoleNotices notices;
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final Thread thread;
+
+    private long runs;
+    private long failures;
+    private long lastNanos;
+    private long totalNanos;
+    private long maxNanos;
+
+    ScheduledJob(String name, Duration period, Duration jitter, Runnable task, ConsoleNotices notices) {
+        this.name = name;
+        this.period = period;
+        this.jitter = jitter;
+        this.task = task;
+        this.notices = notices;
+        this.thread = Thread.ofVirtual().name("job-" + name).unstarted(this::runLoop);
+    }
+
+    /**
+     * Stops the job. A run in progress is completed, but no further run is started.
+     */
+    public void cancel() {
+        cancelled.countDown();
+    }
+
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * Waits until the job's thread has finished.
+     *
+     * @param timeout The maximal time to wait.
+     * @return true if the job has finished.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public boolean awaitTermination(Duration timeout) throws InterruptedException {
+        return thread.join(timeout);
+    }
+
+    /**
+     * @return A snapshot of the run metrics of this job.
+     */
+    public synchronized JobStats stats() {
+        Duration average = Duration.ofNanos(runs == 0 ? 0 : totalNanos / runs);
+        return new JobStats(name, runs, failures, Duration.ofNanos(lastNanos), average, Duration.ofNanos(maxNanos));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    //PRIVATE HELPERS
+
+    void start() {
+        thread.start();
+    }
+
+    void interrupt() {
+        thread.interrupt();
+    }
+
+    private void runLoop() {
+        try {
+            while (!cancelled.await(nextDelay(), TimeUnit.NANOSECONDS)) {
+                runOnce();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runOnce() {
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            failed = true;
+            notices.post("Error: Background job '" + name + "' failed: " + e.getMessage());
+        }
+        record(System.nanoTime() - start, failed);
+    }
+
+    private synchronized void record(long nanos, boolean failed) {
+        runs++;
+        if (failed) {
+            failures++;
+        }
+        lastNanos = nanos;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Returns the period extended by a random jitter in {@code [0, jitter]}, so jobs
+     * with equal periods do not all wake up at the same moment.
+     */
+    private long nextDelay() {
+        long jitterNanos = jitter.toNanos();
+        long extra = jitterNanos == 0 ? 0 : ThreadLocalRandom.current().nextLong(jitterNanos + 1);
+        return period.toNanos() + extra;
+    }
+}
@@ -0,0 +1,101 @@
+package com.dnikitin.hotel.scheduler;
+
+import com.dnikitin.hotel.persistence.DeltaStore;
+
+import java.time.Duration;
+
+/**
+ * Cadence of the hotel's background jobs. A zero interval disables the job. The jobs that
+ * write files, autosave and statistics snapshots, are disabled unless their interval is set,
+ * so a console session only writes files into the working directory when asked to.
+ * <p>
+ * The settings are read from system properties, with intervals given in seconds:
+ * <ul>
+ *     <li>{@code hotel.jobs.autosave} - autosave interval (default 0, disabled),</li>
+ *     <li>{@code hotel.jobs.autosave.file} - autosave target (default {@value #DEFAULT_AUTOSAVE_FILE}),</li>
+ *     <li>{@code hotel.jobs.autosave.dir} - if set, autosave only writes the changed rooms into this
+ *     directory, see {@link DeltaStore} (default none),</li>
+ *     <li>{@code hotel.jobs.autosave.deltas} - deltas before the directory is consolidated into
+ *     a new snapshot (default {@value DeltaStore#DEFAULT_MAX_DELTAS}),</li>
+ *     <li>{@code hotel.jobs.overdue} - overdue sweep interval (default 900),</li>
+ *     <li>{@code hotel.jobs.stats} - statistics snapshot interval (default 0, disabled),</li>
+ *     <li>{@code hotel.jobs.stats.file} - statistics snapshot file (default {@value #DEFAULT_STATS_FILE}),</li>
+ *     <li>{@code hotel.jobs.checkpoint} - journal checkpoint interval, only used with a journal (default 300),</li>
+ *     <li>{@code hotel.jobs.jitter} - maximal random delay added to every interval (default 5).</li>
+ * </ul>
+ *
+ * @param autosaveInterval     The time between two autosaves.
+ * @param autosaveFile         The file the hotel state is autosaved to.
+ * @param autosaveDirectory    The directory of incremental autosaves, or {@code null} to rewrite the file.
+ * @param autosaveDeltas       The number of incremental autosaves between two consolidations.
+ * @param overdueSweepInterval The time between two overdue sweeps.
+ * @param statsInterval        The time between two statistics snapshots.
+ * @param statsFile            The file statistics snapshots are appended to.
+ * @param checkpointInterval   The time between two journal checkpoints.
+ * @param jitter               The maximal random delay added to every interval.
+ */
+public record SchedulerSettings(Duration autosaveInterval, String autosaveFile, String autosaveDirectory,
+                                int autosaveDeltas, Duration overdueSweepInterval,
+                                Duration statsInterval, String statsFile, Duration checkpointInterval,
+                                Duration jitter) {
+
+    public static final String DEFAULT_AUTOSAVE_FILE = "hotel_autosave.csv";
+    public static final String DEFAULT_STATS_FILE = "hotel_stats.csv";
+
+    /**
+     * Reads the settings from system properties, falling back to the defaults.
+     *
+     * @return The settings.
+     * @throws IllegalArgumentException if an interval is not a non-negative number of seconds.
+     */
+    public static SchedulerSettings fromSystemProperties() {
+        return new SchedulerSettings(
+                seconds("hotel.jobs.autosave", 0),
+                System.getProperty("hotel.jobs.autosave.file", DEFAULT_AUTOSAVE_FILE),
+                blankToNull(System.getProperty("hotel.jobs.autosave.dir")),
+                count("hotel.jobs.autosave.deltas", DeltaStore.DEFAULT_MAX_DELTAS),
+                seconds("hotel.jobs.overdue", 900),
+                seconds("hotel.jobs.stats", 0),
+                System.getProperty("hotel.jobs.stats.file", DEFAULT_STATS_FILE),
+                seconds("hotel.jobs.checkpoint", 300),
+                seconds("hotel.jobs.jitter", 5));
+    }
+
+    //PRIVATE HELPERS
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static int count(String property, int defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int count = Integer.parseInt(value.trim());
+            if (count < 0) {
+                throw new IllegalArgumentException("Property " + property + " cannot be negative: " + value);
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + property + " must be a number: " + value, e);
+        }
+    }
+
+    private static Duration seconds(String property, long defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) {
+            return Duration.ofSeconds(defaultValue);
+        }
+        try {
+            long seconds = Long.parseLong(value.trim());
+            if (seconds < 0) {
+                throw new IllegalArgumentException("Property " + property + " cannot be negative: " + value);
+            }
+            return Duration.ofSeconds(seconds);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + property + " must be a number of seconds: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.model.DateRange;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the indexed {@link Hotel#findAvailable} query with a full scan over {@link Hotel#getRooms()}
+ * on a large hotel where half, or most, of the rooms hold a booking. The stays began in the
+ * last week and last two to four weeks, so nearly all of them cover the searched nights:
+ * with most rooms booked the cost of the query shows whether booked rooms are still
+ * checked one by one. With {@code laterStays} every booked room also holds that many
+ * later stays spread over the next year, so it has as many gaps between stays that all end
+ * after the searched nights but almost never cover them.
+ * <p>
+ * Run with: {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.AvailabilitySearchBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilitySearchBenchmark {
+
+    @Param({"100000"})
+    private int roomCount;
+
+    @Param({"0.5", "0.9"})
+    private double bookedShare;
+
+    @Param({"0", "8"})
+    private int laterStays;
+
+    private Hotel hotel;
+    private DateRange range;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        hotel = new Hotel();
+        for (int i = 0; i < roomCount; i++) {
+            int roomNumber = 100 + i;
+            hotel.addRoom(new Room(roomNumber, 100 + random.nextInt(900), 1 + random.nextInt(4)));
+            if (random.nextDouble() < bookedShare) {
+                hotel.checkIn(roomNumber, new Guest("Guest " + i), List.of(),
+                        today.minusDays(random.nextInt(7)), 14 + random.nextInt(14));
+                for (int stay = 0; stay < laterStays; stay++) {
+                    // one stay in each of laterStays equal parts of the year after the first stay
+                    int part = 330 / laterStays;
+                    hotel.checkIn(roomNumber, new Guest("Guest " + i), List.of(),
+                            today.plusDays(30 + stay * part + random.nextInt(part - 7)), 1 + random.nextInt(6));
+                }
+            }
+        }
+        range = DateRange.ofNights(today.plusDays(10), 3);
+    }
+
+    @Benchmark
+    public List<Room> indexedSearch() {
+        return hotel.findAvailable(range, 4, 150, null);
+    }
+
+    @Benchmark
+    public List<Room> indexedSearchOnFloor() {
+        return hotel.findAvailable(range, 2, 500, 42);
+    }
+
+    @Benchmark
+    public List<Room> fullScan() {
+        return hotel.getRooms().stream()
+                .filter(room -> room.getCapacity() >= 4 && room.getPrice() <= 150)
+                .filter(room -> room.isAvailable(range.from(), range.to()))
+                .toList();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AvailabilitySearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
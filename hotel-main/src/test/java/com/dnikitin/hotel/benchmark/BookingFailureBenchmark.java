@@ -0,0 +1,64 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.exceptions.RoomOccupiedException;
+import com.dnikitin.hotel.model.BookingStatus;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a rejected check-in into an occupied room, once through the throwing
+ * {@link Hotel#checkIn} and once through {@link Hotel#tryCheckIn}.
+ * <p>
+ * Add {@code -prof gc} to compare the allocation rate of both paths:
+ * {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.BookingFailureBenchmark -prof gc}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingFailureBenchmark {
+
+    private final Guest guest = new Guest("Prober");
+    private final List<Guest> noGuests = List.of();
+    private final LocalDate today = LocalDate.now();
+    private Hotel hotel;
+
+    @Setup
+    public void setUp() {
+        hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.checkIn(101, new Guest("Occupant"), List.of(), today, 30);
+    }
+
+    @Benchmark
+    public boolean throwingCheckIn() {
+        try {
+            hotel.checkIn(101, guest, noGuests, today, 1);
+            return true;
+        } catch (RoomOccupiedException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public BookingStatus tryCheckIn() {
+        return hotel.tryCheckIn(101, guest, noGuests, today, 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingFailureBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.model.BookingStatus;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how check-ins and check-outs through the {@link Hotel} scale with the number of
+ * threads when every thread works on a room of its own.
+ * <p>
+ * Every operation checks a guest in for tonight and out again, which runs the full index
+ * maintenance: the room store, the availability, guest and stay-date indexes, the
+ * statistics and the change tracker. The threads never touch the same room, so any
+ * flattening of the throughput from 1 to 8 threads comes from locks shared by all rooms.
+ * The machine needs at least as many cores as threads for the numbers to mean anything.
+ * <p>
+ * Run with: {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.BookingScalingBenchmark}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingScalingBenchmark {
+
+    private static final int ROOMS = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class HotelState {
+        final Hotel hotel = new Hotel();
+        final AtomicInteger nextRoom = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 0; i < ROOMS; i++) {
+                hotel.addRoom(new Room(100 + i, 80 + i % 50, 1 + i % 4));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRoom {
+        int roomNumber;
+        Guest guest;
+
+        @Setup(Level.Trial)
+        public void setUp(HotelState state) {
+            int slot = state.nextRoom.getAndIncrement();
+            roomNumber = 100 + slot * (ROOMS / 64);
+            guest = new Guest("Guest " + slot);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public double threads1(HotelState state, ThreadRoom thread) {
+        return checkInAndOut(state.hotel, thread);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public double threads2(HotelState state, ThreadRoom thread) {
+        return checkInAndOut(state.hotel, thread);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double threads4(HotelState state, ThreadRoom thread) {
+        return checkInAndOut(state.hotel, thread);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public double threads8(HotelState state, ThreadRoom thread) {
+        return checkInAndOut(state.hotel, thread);
+    }
+
+    private static double checkInAndOut(Hotel hotel, ThreadRoom thread) {
+        BookingStatus status = hotel.tryCheckIn(thread.roomNumber, thread.guest, List.of(), LocalDate.now(), 1);
+        if (!status.isOk()) {
+            throw new IllegalStateException("Room " + thread.roomNumber + " was not free: " + status);
+        }
+        return hotel.tryCheckOut(thread.roomNumber).bill();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BookingScalingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.pipeline.CommandPipeline;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the lock-based {@link Hotel} with the single-writer {@link CommandPipeline}.
+ * <p>
+ * Every operation checks a guest into the thread's own room and out again:
+ * <ul>
+ *     <li>{@code locked} calls the hotel directly from every thread,</li>
+ *     <li>{@code pipelinedRoundTrip} waits for the check-in before queuing the check-out,</li>
+ *     <li>{@code pipelinedBatch} queues both and waits only for the check-out, so the writer
+ *     can apply the changes of many producers in one batch.</li>
+ * </ul>
+ * Throughput and the latency percentiles of one operation are reported for each variant.
+ * <p>
+ * Run with e.g. {@code -t 4}:
+ * {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.CommandPipelineBenchmark -t 4}
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandPipelineBenchmark {
+
+    private static final int MAX_THREADS = 256;
+
+    @State(Scope.Benchmark)
+    public static class HotelState {
+        Hotel hotel;
+        CommandPipeline pipeline;
+        final AtomicInteger nextRoom = new AtomicInteger(100);
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            hotel = new Hotel();
+            for (int i = 0; i < MAX_THREADS; i++) {
+                hotel.addRoom(new Room(100 + i, 100, 2));
+            }
+            pipeline = new CommandPipeline(hotel);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pipeline.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRoom {
+        int roomNumber;
+        final Guest guest = new Guest("Benchmark guest");
+        final LocalDate today = LocalDate.now();
+
+        @Setup(Level.Trial)
+        public void setUp(HotelState state) {
+            roomNumber = state.nextRoom.getAndIncrement();
+        }
+    }
+
+    @Benchmark
+    public double locked(HotelState state, ThreadRoom thread) {
+        state.hotel.checkIn(thread.roomNumber, thread.guest, List.of(), thread.today, 1);
+        return state.hotel.checkOut(thread.roomNumber);
+    }
+
+    @Benchmark
+    public double pipelinedRoundTrip(HotelState state, ThreadRoom thread) {
+        state.pipeline.checkIn(thread.roomNumber, thread.guest, List.of(), thread.today, 1).join();
+        return state.pipeline.checkOut(thread.roomNumber).join();
+    }
+
+    @Benchmark
+    public double pipelinedBatch(HotelState state, ThreadRoom thread) {
+        state.pipeline.checkIn(thread.roomNumber, thread.guest, List.of(), thread.today, 1);
+        CompletableFuture<Double> bill = state.pipeline.checkOut(thread.roomNumber);
+        return bill.join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CommandPipelineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
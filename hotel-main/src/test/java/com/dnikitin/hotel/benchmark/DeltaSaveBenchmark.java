@@ -0,0 +1,92 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.model.SaveResult;
+import com.dnikitin.hotel.persistence.DeltaStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares an autosave rewriting the whole state with an incremental one, when a single
+ * guest checked in and out since the previous save.
+ * <p>
+ * Run with:
+ * {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.DeltaSaveBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeltaSaveBenchmark {
+
+    @Param({"10000", "100000"})
+    int rooms;
+
+    Hotel hotel;
+    Path directory;
+    Path fullFile;
+    DeltaStore store;
+    final Guest guest = new Guest("Benchmark guest");
+    final LocalDate today = LocalDate.now();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, HotelDataException {
+        hotel = new Hotel();
+        for (int i = 0; i < rooms; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 300, 1 + i % 4));
+        }
+        directory = Files.createTempDirectory("delta-benchmark");
+        fullFile = directory.resolve("full.csv");
+        // never consolidates, so every measured save is a delta
+        store = new DeltaStore(directory.resolve("deltas"), hotel, Integer.MAX_VALUE);
+        store.save();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void changeOneRoom() {
+        hotel.checkIn(100, guest, List.of(), today, 1);
+        hotel.checkOut(100);
+    }
+
+    @Benchmark
+    public int fullSave() throws HotelDataException {
+        changeOneRoom();
+        return hotel.writeRoomsToFile(fullFile.toString());
+    }
+
+    @Benchmark
+    public SaveResult deltaSave() throws HotelDataException {
+        changeOneRoom();
+        return store.save();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DeltaSaveBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.journal.WriteAheadJournal;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares restoring a hotel by replaying its journal with loading the same state from a CSV file.
+ * Every second room holds a stay; the journal has no checkpoint, so every record is replayed.
+ * <p>
+ * Run with:
+ * {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.JournalRecoveryBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalRecoveryBenchmark {
+
+    @Param({"10000", "100000"})
+    int rooms;
+
+    Path directory;
+    Path journalDirectory;
+    Path csvFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, HotelDataException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journalDirectory = directory.resolve("journal");
+        csvFile = directory.resolve("state.csv");
+
+        Hotel hotel = new Hotel();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < rooms; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 300, 1 + i % 4));
+            if (i % 2 == 0) {
+                hotel.checkIn(100 + i, new Guest("Guest " + i), List.of(), today, 1 + i % 7);
+            }
+        }
+        hotel.writeRoomsToFile(csvFile.toString());
+
+        // loading the file journals the whole state with a single flush
+        Hotel journaled = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(journalDirectory, journaled)) {
+            journaled.readRoomsFromFile(csvFile.toString());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Hotel replayJournal() throws HotelDataException {
+        Hotel hotel = new Hotel();
+        WriteAheadJournal.open(journalDirectory, hotel).close();
+        return hotel;
+    }
+
+    @Benchmark
+    public Hotel loadCsv() throws HotelDataException {
+        Hotel hotel = new Hotel();
+        hotel.readRoomsFromFile(csvFile.toString());
+        return hotel;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JournalRecoveryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.model.AuditLedger;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Rate;
+import com.dnikitin.hotel.model.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full {@link Hotel#nightAudit} over a hotel where every room holds a stay
+ * and about half of them are due. The hotel is rebuilt before every invocation,
+ * since the audit checks the due stays out.
+ * <p>
+ * Run with: {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.NightAuditBenchmark}
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NightAuditBenchmark {
+
+    @Param({"10000"})
+    private int roomCount;
+
+    private final LocalDate auditDate = LocalDate.of(2025, 1, 31);
+    private Hotel hotel;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        Random random = new Random(42);
+        hotel = new Hotel();
+        for (int i = 0; i < roomCount; i++) {
+            int roomNumber = 100 + i;
+            Room room = new Room(roomNumber, 100 + random.nextInt(900), 2);
+            room.setRate(LocalDate.of(2025, 1, 20), LocalDate.of(2025, 1, 27), new Rate(1200));
+            hotel.addRoom(room);
+            hotel.checkIn(roomNumber, new Guest("Guest " + i), List.of(),
+                    auditDate.minusDays(random.nextInt(20)), 1 + random.nextInt(30));
+        }
+    }
+
+    @Benchmark
+    public AuditLedger nightAudit() {
+        return hotel.nightAudit(auditDate);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NightAuditBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
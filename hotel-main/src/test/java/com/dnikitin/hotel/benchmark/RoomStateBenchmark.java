@@ -0,0 +1,99 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the compare-and-set state transitions of a {@link Room} under contention.
+ * <p>
+ * Every operation checks a stay in and removes it again. In {@code sharedRoom} all threads
+ * book their own nights in one room, so every operation races on the same calendar;
+ * in {@code ownRoom} every thread has a room of its own, which is the uncontended baseline.
+ * After each iteration the rooms must be empty and every removal must have found its stay,
+ * otherwise an update was lost and the run fails.
+ * <p>
+ * Run with e.g. {@code -t 1}, {@code -t 4} and {@code -t 8} to see how throughput scales:
+ * {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.RoomStateBenchmark -t 4}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomStateBenchmark {
+
+    private static final LocalDate FIRST_NIGHT = LocalDate.of(2025, 1, 1);
+
+    @State(Scope.Benchmark)
+    public static class SharedRoom {
+        final Room room = new Room(101, 100, 2);
+        final AtomicInteger nextSlot = new AtomicInteger();
+        final AtomicLong lostUpdates = new AtomicLong();
+
+        @TearDown(Level.Iteration)
+        public void verify() {
+            if (lostUpdates.get() != 0 || !room.isFree()) {
+                throw new IllegalStateException("Lost updates: " + lostUpdates.get()
+                        + ", stays left: " + room.getReservationCount());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadStay {
+        Room ownRoom;
+        Reservation stay;
+        long lostUpdates;
+
+        @Setup(Level.Trial)
+        public void setUp(SharedRoom shared) {
+            int slot = shared.nextSlot.getAndIncrement();
+            ownRoom = new Room(1000 + slot, 100, 2);
+            stay = new Reservation(new Guest("Guest " + slot), List.of(), FIRST_NIGHT.plusDays(2L * slot), 1);
+        }
+
+        @TearDown(Level.Iteration)
+        public void verify() {
+            if (lostUpdates != 0 || !ownRoom.isFree()) {
+                throw new IllegalStateException("Lost updates in room " + ownRoom.getRoomNumber());
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean sharedRoom(SharedRoom shared, ThreadStay thread) {
+        shared.room.checkIn(thread.stay);
+        boolean removed = shared.room.removeReservation(thread.stay);
+        if (!removed) {
+            shared.lostUpdates.incrementAndGet();
+        }
+        return removed;
+    }
+
+    @Benchmark
+    public boolean ownRoom(ThreadStay thread) {
+        thread.ownRoom.checkIn(thread.stay);
+        boolean removed = thread.ownRoom.removeReservation(thread.stay);
+        if (!removed) {
+            thread.lostUpdates++;
+        }
+        return removed;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RoomStateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.model.StateFormat;
+import com.dnikitin.hotel.model.StatePartitioning;
+import com.dnikitin.map.MyMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares parsing a CSV state file on one thread with parsing it in chunks on all cores,
+ * and with reading the same state from a binary snapshot, as one file or as sixteen
+ * partition files read in parallel. Every second room holds a stay.
+ * <p>
+ * Run with:
+ * {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.StateLoadBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateLoadBenchmark {
+
+    @Param({"100000", "1000000"})
+    int rooms;
+
+    Path csvFile;
+    Path snapshotFile;
+    Path partitionDirectory;
+    final Hotel parser = new Hotel();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, HotelDataException {
+        csvFile = Files.createTempFile("load-benchmark", ".csv");
+        snapshotFile = Files.createTempFile("load-benchmark", ".hsnap");
+        partitionDirectory = Files.createTempDirectory("load-benchmark");
+
+        Hotel hotel = new Hotel();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < rooms; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 300, 1 + i % 4));
+            if (i % 2 == 0) {
+                hotel.checkIn(100 + i, new Guest("Guest " + i), List.of(), today, 1 + i % 7);
+            }
+        }
+        hotel.writeRoomsToFile(csvFile.toString());
+        hotel.writeRoomsToFile(snapshotFile.toString(), StateFormat.BINARY);
+        hotel.writeRoomsToPartitions(partitionDirectory.toString(), StatePartitioning.ofRooms(rooms / 16),
+                StateFormat.BINARY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(snapshotFile);
+        try (Stream<Path> files = Files.walk(partitionDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public MyMap<Integer, Room> sequential() throws HotelDataException {
+        return parser.parseRoomsFile(csvFile.toString(), 1);
+    }
+
+    @Benchmark
+    public MyMap<Integer, Room> chunked() throws HotelDataException {
+        return parser.parseRoomsFile(csvFile.toString());
+    }
+
+    @Benchmark
+    public MyMap<Integer, Room> binary() throws HotelDataException {
+        return parser.parseRoomsFile(snapshotFile.toString());
+    }
+
+    @Benchmark
+    public MyMap<Integer, Room> binaryPartitions() throws HotelDataException {
+        return parser.parseRoomsFile(partitionDirectory.toString());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StateLoadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
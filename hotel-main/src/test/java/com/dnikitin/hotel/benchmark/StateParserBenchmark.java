@@ -0,0 +1,152 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.map.MyMap;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time and the bytes allocated per row of a state file. {@code commonsCsvRows}
+ * only decodes the fields the way the loader did with commons-csv, while {@code hotelLoad}
+ * runs the whole sequential load with the hand-rolled parser, including building the rooms
+ * and their stays. {@code roomsOnly} builds the same rooms and stays from rows decoded in
+ * advance, so the difference to {@code hotelLoad} is what the parser itself costs per row.
+ * Every second room holds a stay, and guests repeat every 1000 rooms.
+ * <p>
+ * The GC profiler is enabled; compare the {@code gc.alloc.rate.norm} lines.
+ * Run with:
+ * {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.StateParserBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateParserBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private static final CSVFormat COMMONS_FORMAT = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+            .setDelimiter(';')
+            .setHeader("RoomNumber", "Capacity", "Price", "GuestName", "CheckinDate", "Duration", "AdditionalGuests")
+            .setSkipHeaderRecord(true)
+            .get();
+
+    Path csvFile;
+    final Hotel parser = new Hotel();
+
+    // the rows of the file, decoded in advance; a free room has no guest
+    final int[] roomNumbers = new int[ROWS];
+    final double[] prices = new double[ROWS];
+    final int[] capacities = new int[ROWS];
+    final Guest[] guests = new Guest[ROWS];
+    final LocalDate[] checkins = new LocalDate[ROWS];
+    final int[] durations = new int[ROWS];
+    final Guest child = new Guest("Child");
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, HotelDataException {
+        csvFile = Files.createTempFile("parser-benchmark", ".csv");
+
+        Hotel hotel = new Hotel();
+        LocalDate today = LocalDate.now();
+        Guest[] distinctGuests = new Guest[1000];
+        for (int i = 0; i < ROWS; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 300, 2));
+            roomNumbers[i] = 100 + i;
+            prices[i] = 100 + i % 300;
+            capacities[i] = 2;
+            if (i % 2 == 0) {
+                hotel.checkIn(100 + i, new Guest("Guest " + i % 1000), List.of(new Guest("Child")), today, 1 + i % 7);
+                if (distinctGuests[i % 1000] == null) {
+                    distinctGuests[i % 1000] = new Guest("Guest " + i % 1000);
+                }
+                guests[i] = distinctGuests[i % 1000];
+                checkins[i] = today;
+                durations[i] = 1 + i % 7;
+            }
+        }
+        hotel.writeRoomsToFile(csvFile.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void commonsCsvRows(Blackhole blackhole) throws IOException {
+        try (Reader reader = new FileReader(csvFile.toFile());
+             CSVParser csvParser = new CSVParser(reader, COMMONS_FORMAT)) {
+            for (CSVRecord csvRecord : csvParser) {
+                blackhole.consume(Integer.parseInt(csvRecord.get("RoomNumber").trim()));
+                blackhole.consume(Double.parseDouble(csvRecord.get("Price").trim()));
+                blackhole.consume(Integer.parseInt(csvRecord.get("Capacity").trim()));
+                String guestName = csvRecord.get("GuestName");
+                if (guestName != null && !guestName.isBlank()) {
+                    blackhole.consume(new Guest(guestName.trim()));
+                    blackhole.consume(LocalDate.parse(csvRecord.get("CheckinDate").trim()));
+                    blackhole.consume(Integer.parseInt(csvRecord.get("Duration").trim()));
+                    for (String name : csvRecord.get("AdditionalGuests").split("\\|")) {
+                        blackhole.consume(new Guest(name));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public MyMap<Integer, Room> hotelLoad() throws HotelDataException {
+        return parser.parseRoomsFile(csvFile.toString(), 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public MyMap<Integer, Room> roomsOnly() {
+        MyMap<Integer, Room> rooms = new MyMap<>();
+        for (int i = 0; i < ROWS; i++) {
+            Room room = rooms.get(roomNumbers[i]);
+            if (room == null) {
+                room = new Room(roomNumbers[i], prices[i], capacities[i]);
+                rooms.put(roomNumbers[i], room);
+            }
+            if (guests[i] != null) {
+                List<Guest> additionalGuests = new ArrayList<>(1);
+                additionalGuests.add(child);
+                room.checkIn(new Reservation(guests[i], additionalGuests, checkins[i], durations[i]));
+            }
+        }
+        return rooms;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StateParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
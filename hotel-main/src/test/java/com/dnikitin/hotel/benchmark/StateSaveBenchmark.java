@@ -0,0 +1,126 @@
+package com.dnikitin.hotel.benchmark;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures a full CSV save of one million rooms. {@code commonsCsv} writes the file the way
+ * the hotel did before saves were streamed: it sorts a copy of all rooms, copies the stays of
+ * each, and prints them through commons-csv with a {@link FileWriter}. {@code streamed} runs
+ * {@link Hotel#writeRoomsToFile(String)}. Every second room holds a stay.
+ * <p>
+ * Besides the GC profiler, the peak heap of each iteration is printed as
+ * {@code peak heap: N MB}; the heap already holds the hotel itself, so compare the two
+ * benchmarks with each other. Run with:
+ * {@code java -cp <test classpath> com.dnikitin.hotel.benchmark.StateSaveBenchmark}
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StateSaveBenchmark {
+
+    private static final int ROOMS = 1_000_000;
+
+    private static final CSVFormat COMMONS_FORMAT = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+            .setDelimiter(';')
+            .setHeader("RoomNumber", "Capacity", "Price", "GuestName", "CheckinDate", "Duration", "AdditionalGuests", "Seasons")
+            .get();
+
+    Hotel hotel;
+    Path csvFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csvFile = Files.createTempFile("save-benchmark", ".csv");
+
+        hotel = new Hotel();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < ROOMS; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 300, 2));
+            if (i % 2 == 0) {
+                hotel.checkIn(100 + i, new Guest("Guest " + i % 1000), List.of(new Guest("Child")), today, 1 + i % 7);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.println("peak heap: " + peak / (1024 * 1024) + " MB");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    public void commonsCsv() throws IOException {
+        List<Room> roomsList = hotel.getRooms();
+        try (Writer writer = new FileWriter(csvFile.toFile());
+             CSVPrinter printer = new CSVPrinter(writer, COMMONS_FORMAT)) {
+            for (Room room : roomsList) {
+                List<Reservation> stays = room.getReservations();
+                if (stays.isEmpty()) {
+                    printer.printRecord(room.getRoomNumber(), room.getCapacity(), room.getPrice(), "", "", "", "", "");
+                }
+                for (Reservation stay : stays) {
+                    printer.printRecord(room.getRoomNumber(), room.getCapacity(), room.getPrice(),
+                            stay.mainGuest().name(), stay.checkinDate(), stay.duration(),
+                            stay.additionalGuests().stream().map(Guest::name).collect(Collectors.joining("|")), "");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int streamed() throws HotelDataException {
+        return hotel.writeRoomsToFile(csvFile.toString());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StateSaveBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -61,11 +61,11 @@ public class CheckinCommandTest {
         hotel.addRoom(room);
 
         when(mockScanner.nextLine())
+                .thenReturn("")              // Enter check-in date (or press Enter for today):
+                .thenReturn("2")             // Enter duration of stay (nights):
                 .thenReturn("101")           // Enter room number:
                 .thenReturn("John Doe")      // Enter main guest full name:
-                .thenReturn("0")             // Enter number of additional guests:
-                .thenReturn("2")             // Enter duration of stay (nights):
-                .thenReturn("");             // Enter check-in date (or press Enter for today):
+                .thenReturn("0");            // Enter number of additional guests:
 
         cmd.execute();
 
@@ -84,13 +84,13 @@ public class CheckinCommandTest {
         hotel.addRoom(room);
 
         when(mockScanner.nextLine())
+                .thenReturn("2025-12-20")      // specific date
+                .thenReturn("5")               // duration
                 .thenReturn("202")             // room number
                 .thenReturn("Alice")           // main guest
                 .thenReturn("2")               // 2 additional guests
                 .thenReturn("Bob")             // guest 1
-                .thenReturn("Charlie")         // guest 2
-                .thenReturn("5")               // duration
-                .thenReturn("2025-12-20");     // specific date
+                .thenReturn("Charlie");        // guest 2
 
         cmd.execute();
 
@@ -105,7 +105,7 @@ public class CheckinCommandTest {
 
     @Test
     public void checkinForUnknownRoomPrintsError() {
-        when(mockScanner.nextLine()).thenReturn("404");
+        when(mockScanner.nextLine()).thenReturn("", "1", "404");
 
         cmd.execute();
 
@@ -120,7 +120,7 @@ public class CheckinCommandTest {
         hotel.addRoom(room);
         hotel.checkIn(101, new Guest("Existing Guest"), List.of(), 5);
 
-        when(mockScanner.nextLine()).thenReturn("101"); //the same room
+        when(mockScanner.nextLine()).thenReturn("", "1", "101"); //today, the same room
 
         cmd.execute();
 
@@ -135,6 +135,8 @@ public class CheckinCommandTest {
 
         // 1 main guest + 2 addtional -> 3 > 2(capacity)
         when(mockScanner.nextLine())
+                .thenReturn("")              // today
+                .thenReturn("2")             // duration
                 .thenReturn("101")           // room number
                 .thenReturn("John Doe")      // main guest
                 .thenReturn("2");            // 2 additional guests
@@ -148,15 +150,70 @@ public class CheckinCommandTest {
     public void checkinWithInvalidDatePrintsError() {
         hotel.addRoom(new Room(101, 100.0, 2));
 
-        when(mockScanner.nextLine())
-                .thenReturn("101")
-                .thenReturn("John Doe")
-                .thenReturn("0")
-                .thenReturn("2")
-                .thenReturn("not-a-date"); // not date-type
+        when(mockScanner.nextLine()).thenReturn("not-a-date"); // not date-type
 
         cmd.execute();
         String err = errContent.toString();
         assertTrue(err.contains("Error: Invalid date format. Expected YYYY-MM-DD."));
     }
+
+    @Test
+    public void checkinWithoutRoomNumberAssignsBestFittingRoom() {
+        hotel.addRoom(new Room(101, 100.0, 1));
+        hotel.addRoom(new Room(102, 300.0, 3));
+        hotel.addRoom(new Room(201, 200.0, 3));
+
+        when(mockScanner.nextLine())
+                .thenReturn("")              // today
+                .thenReturn("2")             // duration
+                .thenReturn("")              // no room number -> auto-assign
+                .thenReturn("2")             // number of guests
+                .thenReturn("John Doe")
+                .thenReturn("Jane Doe");     // additional guest 1
+
+        cmd.execute();
+
+        Room assigned = hotel.getRoom(201);
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("Assigned room 201 (capacity 3).")),
+                () -> assertTrue(outContent.toString().contains("Check-in completed successfully for room 201.")),
+                () -> assertEquals("John Doe", assigned.getReservation().mainGuest().name()),
+                () -> assertEquals(1, assigned.getReservation().additionalGuests().size()),
+                () -> assertTrue(hotel.getRoom(102).isFree())
+        );
+    }
+
+    @Test
+    public void checkinWithoutRoomNumberAssignsRoomFreeForTheGivenNights() {
+        hotel.addRoom(new Room(101, 100.0, 2));
+        hotel.addRoom(new Room(102, 200.0, 2));
+        LocalDate arrival = LocalDate.now().plusDays(10);
+        hotel.checkIn(101, new Guest("Early Bird"), List.of(), arrival.plusDays(1), 3);
+
+        when(mockScanner.nextLine())
+                .thenReturn(arrival.toString())
+                .thenReturn("2")             // overlaps the stay in 101
+                .thenReturn("")
+                .thenReturn("1")
+                .thenReturn("John Doe");
+
+        cmd.execute();
+
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("Assigned room 102 (capacity 2).")),
+                () -> assertEquals(arrival, hotel.getRoom(102).getReservation().checkinDate())
+        );
+    }
+
+    @Test
+    public void checkinWithoutRoomNumberFailsWhenNoRoomFits() {
+        hotel.addRoom(new Room(101, 100.0, 2));
+
+        when(mockScanner.nextLine())
+                .thenReturn("", "1", "")
+                .thenReturn("3");
+
+        cmd.execute();
+        assertTrue(errContent.toString().contains("Error: No free room for 3 guests."));
+    }
 }
@@ -0,0 +1,100 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.model.StateFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ConvertCommandTest {
+
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+    private ByteArrayOutputStream outContent;
+    private ByteArrayOutputStream errContent;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private Scanner mockScanner;
+
+    private ConvertCommand cmd;
+    private Hotel hotel;
+
+    @BeforeEach
+    void setUp() {
+        outContent = new ByteArrayOutputStream();
+        errContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+
+        cmd = new ConvertCommand();
+        hotel = new Hotel();
+        cmd.setHotel(hotel);
+        cmd.setScanner(mockScanner);
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    public void convertsCsvToBinarySnapshotNextToIt() throws Exception {
+        Path csv = tempDir.resolve("state.csv");
+        Files.writeString(csv, "RoomNumber;Capacity;Price;GuestName;CheckinDate;Duration;AdditionalGuests\n"
+                + "401;1;99.0;;;;\n");
+        Path snapshot = tempDir.resolve("state.hsnap");
+
+        when(mockScanner.nextLine()).thenReturn(csv.toString(), "");
+        cmd.execute();
+
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("CONVERTED 1 ROOMS TO " + snapshot.toString().toUpperCase())),
+                () -> assertEquals(StateFormat.BINARY, StateFormat.detect(snapshot.toString())),
+                () -> assertTrue(hotel.getRooms().isEmpty())
+        );
+    }
+
+    @Test
+    public void convertsBinarySnapshotToCsv() throws Exception {
+        Hotel source = new Hotel();
+        source.addRoom(new Room(101, 150.0, 1));
+        Path snapshot = tempDir.resolve("state.hsnap");
+        source.writeRoomsToFile(snapshot.toString(), StateFormat.BINARY);
+        Path csv = tempDir.resolve("copy.csv");
+
+        when(mockScanner.nextLine()).thenReturn(snapshot.toString(), csv.toString());
+        cmd.execute();
+
+        assertTrue(Files.readString(csv).contains("101;1;150.0"));
+    }
+
+    @Test
+    public void missingSourcePrintsError() {
+        String missing = tempDir.resolve("missing.csv").toString();
+        when(mockScanner.nextLine()).thenReturn(missing);
+
+        cmd.execute();
+
+        assertTrue(errContent.toString().startsWith("Error converting hotel state:"));
+        assertTrue(errContent.toString().contains(missing));
+    }
+}
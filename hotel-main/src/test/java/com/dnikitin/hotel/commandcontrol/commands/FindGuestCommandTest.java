@@ -0,0 +1,100 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class FindGuestCommandTest {
+
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+    private ByteArrayOutputStream outContent;
+    private ByteArrayOutputStream errContent;
+
+    @Mock
+    private Scanner mockScanner;
+
+    private FindGuestCommand cmd;
+
+    @BeforeEach
+    void setUp() {
+        outContent = new ByteArrayOutputStream();
+        errContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(202, 450, 4));
+        hotel.checkIn(202, new Guest("Alice Smith"), List.of(new Guest("Bob Smith")), 5);
+
+        cmd = new FindGuestCommand();
+        cmd.setHotel(hotel);
+        cmd.setScanner(mockScanner);
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    public void findsGuestByPrefix() {
+        when(mockScanner.nextLine()).thenReturn("bob");
+
+        cmd.execute();
+
+        String out = outContent.toString();
+        assertAll(
+                () -> assertTrue(out.contains("Bob Smith")),
+                () -> assertTrue(out.contains("202")),
+                () -> assertTrue(out.contains("Additional"))
+        );
+    }
+
+    @Test
+    public void suggestsSimilarNameWhenMisspelled() {
+        when(mockScanner.nextLine()).thenReturn("Alise Smith");
+
+        cmd.execute();
+
+        String out = outContent.toString();
+        assertAll(
+                () -> assertTrue(out.contains("Did you mean")),
+                () -> assertTrue(out.contains("Alice Smith"))
+        );
+    }
+
+    @Test
+    public void unknownGuestPrintsPlaceholder() {
+        when(mockScanner.nextLine()).thenReturn("Zygmunt");
+
+        cmd.execute();
+
+        assertTrue(outContent.toString().contains("(No guest found)"));
+    }
+
+    @Test
+    public void emptyNamePrintsError() {
+        when(mockScanner.nextLine()).thenReturn("  ");
+
+        cmd.execute();
+
+        assertTrue(errContent.toString().contains("Error: Guest name cannot be empty."));
+    }
+}
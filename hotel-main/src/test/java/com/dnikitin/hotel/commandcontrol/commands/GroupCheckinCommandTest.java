@@ -0,0 +1,118 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class GroupCheckinCommandTest {
+
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+    private ByteArrayOutputStream outContent;
+    private ByteArrayOutputStream errContent;
+
+    @Mock
+    private Scanner mockScanner;
+
+    @TempDir
+    Path tempDir;
+
+    private GroupCheckinCommand cmd;
+    private Hotel hotel;
+
+    @BeforeEach
+    void setUp() {
+        outContent = new ByteArrayOutputStream();
+        errContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+
+        cmd = new GroupCheckinCommand();
+        hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100.0, 2));
+        hotel.addRoom(new Room(102, 100.0, 2));
+        cmd.setHotel(hotel);
+        cmd.setScanner(mockScanner);
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    public void groupIsCheckedInFromFile() throws IOException {
+        Path file = writeGroup("""
+                RoomNumber;GuestName;CheckinDate;Duration;AdditionalGuests
+                101;Anna;;2;Ben
+                102;Dan;;1;
+                """);
+        when(mockScanner.nextLine()).thenReturn(file.toString());
+
+        cmd.execute();
+
+        String output = outContent.toString();
+        assertAll(
+                () -> assertTrue(output.contains("Anna")),
+                () -> assertTrue(output.contains("Checked in")),
+                () -> assertEquals("", errContent.toString()),
+                () -> assertFalse(hotel.getRoom(101).isFree()),
+                () -> assertFalse(hotel.getRoom(102).isFree())
+        );
+    }
+
+    @Test
+    public void invalidRowRejectsWholeGroup() throws IOException {
+        Path file = writeGroup("""
+                RoomNumber;GuestName;CheckinDate;Duration;AdditionalGuests
+                101;Anna;;2;
+                102;Dan;;1;Eve|Finn
+                """);
+        when(mockScanner.nextLine()).thenReturn(file.toString());
+
+        cmd.execute();
+
+        String output = outContent.toString();
+        String errors = errContent.toString();
+        assertAll(
+                () -> assertTrue(output.contains("Skipped")),
+                () -> assertTrue(output.contains("Rejected")),
+                () -> assertTrue(errors.contains("no guest was checked in")),
+                () -> assertTrue(errors.contains("Room 102 holds at most 2 guests")),
+                () -> assertTrue(hotel.getRoom(101).isFree())
+        );
+    }
+
+    @Test
+    public void missingFileIsReported() {
+        when(mockScanner.nextLine()).thenReturn(tempDir.resolve("missing.csv").toString());
+
+        cmd.execute();
+
+        assertTrue(errContent.toString().contains("Error loading group booking"));
+    }
+
+    private Path writeGroup(String content) throws IOException {
+        Path file = tempDir.resolve("group.csv");
+        Files.writeString(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,97 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class NightAuditCommandTest {
+
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+    private ByteArrayOutputStream outContent;
+    private ByteArrayOutputStream errContent;
+
+    @Mock
+    private Scanner mockScanner;
+
+    private NightAuditCommand cmd;
+    private Hotel hotel;
+
+    @BeforeEach
+    void setUp() {
+        outContent = new ByteArrayOutputStream();
+        errContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+
+        cmd = new NightAuditCommand();
+        hotel = new Hotel();
+        cmd.setHotel(hotel);
+        cmd.setScanner(mockScanner);
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    public void nightAuditPrintsLedgerAndFreesRooms() {
+        LocalDate day = LocalDate.of(2025, 3, 10);
+        hotel.addRoom(new Room(101, 100.0, 2));
+        hotel.addRoom(new Room(102, 50.0, 2));
+        hotel.addRoom(new Room(103, 100.0, 2));
+        hotel.checkIn(101, new Guest("Leaving Guest"), List.of(), day.minusDays(2), 2);
+        hotel.checkIn(102, new Guest("Late Guest"), List.of(), day.minusDays(5), 3);
+        hotel.checkIn(103, new Guest("Staying Guest"), List.of(), day, 2);
+
+        when(mockScanner.nextLine()).thenReturn("2025-03-10");
+        cmd.execute();
+
+        String out = outContent.toString();
+        assertAll(
+                () -> assertTrue(out.contains("LEDGER FOR 2025-03-10")),
+                () -> assertTrue(out.indexOf("Late Guest") < out.indexOf("Leaving Guest")),
+                () -> assertFalse(out.contains("Staying Guest")),
+                () -> assertTrue(out.contains("Closed stays    : 2")),
+                () -> assertTrue(out.contains("Total revenue   : 450.00$")),
+                () -> assertTrue(hotel.getRoom(101).isFree()),
+                () -> assertFalse(hotel.getRoom(103).isFree())
+        );
+    }
+
+    @Test
+    public void nightAuditWithNothingDue() {
+        hotel.addRoom(new Room(101, 100.0, 2));
+
+        when(mockScanner.nextLine()).thenReturn("");
+        cmd.execute();
+
+        assertTrue(outContent.toString().contains("(No stays due)"));
+    }
+
+    @Test
+    public void nightAuditWithInvalidDatePrintsError() {
+        when(mockScanner.nextLine()).thenReturn("tomorrow");
+
+        cmd.execute();
+        assertTrue(errContent.toString().contains("Error: Invalid date format. Expected YYYY-MM-DD."));
+    }
+}
@@ -63,4 +63,19 @@ public class PricesCommandTest {
                 () -> assertTrue(out.contains("150.0"))
         );
     }
+
+    @Test
+    public void pricesAreListedCheapestFirst() {
+        hotel.addRoom(new Room(101, 300.0, 2));
+        hotel.addRoom(new Room(102, 120.0, 1));
+        hotel.addRoom(new Room(201, 180.0, 2));
+
+        cmd.execute();
+
+        String out = outContent.toString();
+        int cheapest = out.indexOf("120.0");
+        int middle = out.indexOf("180.0");
+        int priciest = out.indexOf("300.0");
+        assertTrue(cheapest >= 0 && cheapest < middle && middle < priciest);
+    }
 }
@@ -0,0 +1,117 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Rate;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.map.RangeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RateCommandTest {
+
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+    private ByteArrayOutputStream outContent;
+    private ByteArrayOutputStream errContent;
+
+    @Mock
+    private Scanner mockScanner;
+
+    private RateCommand cmd;
+    private Hotel hotel;
+
+    @BeforeEach
+    void setUpStreams() {
+        outContent = new ByteArrayOutputStream();
+        errContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+
+        cmd = new RateCommand();
+        hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100.0, 2));
+        cmd.setHotel(hotel);
+        cmd.setScanner(mockScanner);
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    public void seasonalRateIsSetForTheGivenNights() {
+        when(mockScanner.nextLine()).thenReturn("101", "2025-07-01", "2025-09-01", "300");
+
+        cmd.execute();
+
+        LocalDate from = LocalDate.of(2025, 7, 1);
+        LocalDate to = LocalDate.of(2025, 9, 1);
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("Room 101 is charged 300.00$ per night from 2025-07-01 to 2025-09-01.")),
+                () -> assertEquals(List.of(new RangeMap.Range<>(from, to, new Rate(300))),
+                        hotel.getRoom(101).getRates().getSeasons()),
+                () -> assertEquals(100.0 + 300.0, hotel.getRoom(101).getRates().priceStay(from.minusDays(1), from.plusDays(1)))
+        );
+    }
+
+    @Test
+    public void emptyPriceClearsTheSeason() {
+        LocalDate from = LocalDate.of(2025, 7, 1);
+        hotel.setRate(101, from, from.plusDays(10), new Rate(300));
+        when(mockScanner.nextLine()).thenReturn("101", "2025-07-01", "2025-07-06", "");
+
+        cmd.execute();
+
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("Room 101 is charged its base price from 2025-07-01 to 2025-07-06.")),
+                () -> assertEquals(List.of(new RangeMap.Range<>(from.plusDays(5), from.plusDays(10), new Rate(300))),
+                        hotel.getRoom(101).getRates().getSeasons())
+        );
+    }
+
+    @Test
+    public void unknownRoomPrintsError() {
+        when(mockScanner.nextLine()).thenReturn("404", "2025-07-01", "2025-09-01", "300");
+
+        cmd.execute();
+
+        assertTrue(errContent.toString().contains("Error: Room with number 404 does not exist"));
+    }
+
+    @Test
+    public void seasonEndingBeforeItStartsPrintsError() {
+        when(mockScanner.nextLine()).thenReturn("101", "2025-09-01", "2025-07-01", "300");
+
+        cmd.execute();
+
+        assertAll(
+                () -> assertTrue(errContent.toString().startsWith("Error: ")),
+                () -> assertEquals(List.of(), hotel.getRoom(101).getRates().getSeasons())
+        );
+    }
+
+    @Test
+    public void invalidDatePrintsError() {
+        when(mockScanner.nextLine()).thenReturn("101", "July");
+
+        cmd.execute();
+
+        assertTrue(errContent.toString().contains("Error: Invalid date format. Expected YYYY-MM-DD."));
+    }
+}
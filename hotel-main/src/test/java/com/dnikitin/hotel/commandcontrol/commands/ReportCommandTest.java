@@ -0,0 +1,87 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportCommandTest {
+
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+    private ByteArrayOutputStream outContent;
+    private ByteArrayOutputStream errContent;
+
+    @Mock
+    private Scanner mockScanner;
+
+    private ReportCommand cmd;
+    private Hotel hotel;
+
+    @BeforeEach
+    void setUp() {
+        outContent = new ByteArrayOutputStream();
+        errContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+
+        cmd = new ReportCommand();
+        hotel = new Hotel();
+        cmd.setHotel(hotel);
+        cmd.setScanner(mockScanner);
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    public void reportListsArrivalsDeparturesAndOverdueStays() {
+        LocalDate day = LocalDate.of(2025, 3, 10);
+        hotel.addRoom(new Room(101, 100.0, 2));
+        hotel.addRoom(new Room(102, 100.0, 2));
+        hotel.addRoom(new Room(103, 100.0, 2));
+        hotel.checkIn(101, new Guest("Arriving Guest"), List.of(), day, 2);
+        hotel.checkIn(102, new Guest("Leaving Guest"), List.of(), day.minusDays(3), 3);
+        hotel.checkIn(103, new Guest("Late Guest"), List.of(), day.minusDays(5), 2);
+
+        when(mockScanner.nextLine()).thenReturn("2025-03-10");
+        cmd.execute();
+
+        String out = outContent.toString();
+        int arrivals = out.indexOf("ARRIVALS ON 2025-03-10");
+        int departures = out.indexOf("DEPARTURES ON 2025-03-10");
+        int overdue = out.indexOf("OVERDUE AS OF 2025-03-10");
+        assertAll(
+                () -> assertTrue(arrivals >= 0 && arrivals < departures && departures < overdue),
+                () -> assertTrue(out.indexOf("Arriving Guest") > arrivals && out.indexOf("Arriving Guest") < departures),
+                () -> assertTrue(out.indexOf("Leaving Guest") > departures && out.indexOf("Leaving Guest") < overdue),
+                () -> assertTrue(out.indexOf("Late Guest") > overdue)
+        );
+    }
+
+    @Test
+    public void reportWithInvalidDatePrintsError() {
+        when(mockScanner.nextLine()).thenReturn("tomorrow");
+
+        cmd.execute();
+        assertTrue(errContent.toString().contains("Error: Invalid date format. Expected YYYY-MM-DD."));
+    }
+}
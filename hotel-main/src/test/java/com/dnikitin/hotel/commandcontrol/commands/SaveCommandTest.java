@@ -4,6 +4,8 @@ import com.dnikitin.hotel.commandcontrol.InteractiveCommand;
 import com.dnikitin.hotel.commandcontrol.commandutils.CommandConstants;
 import com.dnikitin.hotel.model.Hotel;
 import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.model.StateFormat;
+import com.dnikitin.hotel.scheduler.ConsoleNotices;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +18,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Scanner;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,6 +40,7 @@ public class SaveCommandTest {
 
     private SaveCommand cmd;
     private Hotel hotel;
+    private ConsoleNotices notices;
 
     @BeforeEach
     void setUp() {
@@ -49,6 +53,22 @@ public class SaveCommandTest {
         hotel = new Hotel();
         cmd.setHotel(hotel);
         cmd.setScanner(mockScanner);
+        notices = new ConsoleNotices();
+        cmd.setNotices(notices);
+    }
+
+    /**
+     * Collects the notices posted until one contains the given text; the outcome of a
+     * background save is posted right after the save completes.
+     */
+    private String awaitNotice(String text) throws InterruptedException {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(printed);
+        for (int attempt = 0; attempt < 500 && !printed.toString().contains(text); attempt++) {
+            notices.printPending(stream);
+            Thread.sleep(10);
+        }
+        return printed.toString();
     }
 
     @AfterEach
@@ -88,4 +108,113 @@ public class SaveCommandTest {
         String out = outContent.toString();
         assertFalse(out.contains("Successfully saved"));
     }
+
+    @Test
+    public void testAsyncSaveWritesFileInBackground() throws Exception {
+        hotel.addRoom(new Room(101, 150.0, 1));
+        Path file = tempDir.resolve("save_async.csv");
+        when(mockScanner.nextLine()).thenReturn(file.toString());
+
+        cmd.setArguments(List.of("--async"));
+        cmd.execute();
+        hotel.awaitBackgroundSaves();
+        String posted = awaitNotice("[save] Successfully saved");
+
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("Saving 1 rooms to " + file + " in the background")),
+                () -> assertFalse(outContent.toString().contains("[save]")),
+                () -> assertTrue(posted.contains("[save] Successfully saved 1 rooms to " + file)),
+                () -> assertTrue(Files.readString(file).contains("101;1;150.0"))
+        );
+    }
+
+    @Test
+    public void testAsyncSaveFailureIsPostedAsNotice() throws Exception {
+        hotel.addRoom(new Room(101, 150.0, 1));
+        Path file = tempDir.resolve("missing").resolve("save_async.csv");
+        when(mockScanner.nextLine()).thenReturn(file.toString());
+
+        cmd.setArguments(List.of("--async"));
+        cmd.execute();
+        hotel.awaitBackgroundSaves();
+        String posted = awaitNotice("[save] Error saving hotel state");
+
+        assertAll(
+                () -> assertTrue(posted.contains("[save] Error saving hotel state")),
+                () -> assertEquals("", errContent.toString())
+        );
+    }
+
+    @Test
+    public void testSaveBinarySnapshotWithFormatOption() throws Exception {
+        hotel.addRoom(new Room(101, 150.0, 1));
+        Path file = tempDir.resolve("save_bin.hsnap");
+        when(mockScanner.nextLine()).thenReturn(file.toString());
+
+        cmd.setArguments(List.of("--format=bin"));
+        cmd.execute();
+
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("SUCCESSFULLY SAVED TO THE FILE 1 ROOMS")),
+                () -> assertEquals(StateFormat.BINARY, StateFormat.detect(file.toString())),
+                () -> assertEquals(150.0, new Hotel().parseRoomsFile(file.toString()).get(101).getPrice())
+        );
+    }
+
+    @Test
+    public void testSaveGzippedCsvWithFormatOption() throws Exception {
+        hotel.addRoom(new Room(101, 150.0, 1));
+        Path file = tempDir.resolve("save.csv.gz");
+        when(mockScanner.nextLine()).thenReturn(file.toString());
+
+        cmd.setArguments(List.of("--format=csv.gz"));
+        cmd.execute();
+
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("hotel_state.csv.gz")),
+                () -> assertEquals(StateFormat.CSV_GZIP, StateFormat.detect(file.toString())),
+                () -> assertEquals(150.0, new Hotel().parseRoomsFile(file.toString()).get(101).getPrice())
+        );
+    }
+
+    @Test
+    public void testSavePartitionsPerFloorWithPartitionOption() throws Exception {
+        hotel.addRoom(new Room(101, 150.0, 1));
+        hotel.addRoom(new Room(201, 90.0, 2));
+        Path dir = tempDir.resolve("save_parts");
+        when(mockScanner.nextLine()).thenReturn(dir.toString());
+
+        cmd.setArguments(List.of("--partition=floor"));
+        cmd.execute();
+
+        assertAll(
+                () -> assertTrue(outContent.toString().contains("hotel_state directory")),
+                () -> assertTrue(outContent.toString().contains("SUCCESSFULLY SAVED 2 ROOMS IN 2 PARTITIONS")),
+                () -> assertEquals(90.0, new Hotel().parseRoomsFile(dir.toString()).get(201).getPrice())
+        );
+    }
+
+    @Test
+    public void testPartitionedAsyncSavePrintsUsage() {
+        cmd.setArguments(List.of("--async", "--partition=10"));
+        cmd.execute();
+
+        assertTrue(errContent.toString().startsWith("Error: A partitioned state cannot be saved in the background."));
+    }
+
+    @Test
+    public void testUnknownFormatPrintsUsage() {
+        cmd.setArguments(List.of("--format=xml"));
+        cmd.execute();
+
+        assertTrue(errContent.toString().startsWith("Error: Unknown state file format: xml"));
+    }
+
+    @Test
+    public void testUnknownOptionPrintsUsage() {
+        cmd.setArguments(List.of("--fast"));
+        cmd.execute();
+
+        assertTrue(errContent.toString().startsWith("Error: Unknown option '--fast'"));
+    }
 }
@@ -0,0 +1,103 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SearchCommandTest {
+
+    private final PrintStream originalOut = System.out;
+    private final PrintStream originalErr = System.err;
+    private ByteArrayOutputStream outContent;
+    private ByteArrayOutputStream errContent;
+
+    @Mock
+    private Scanner mockScanner;
+
+    private SearchCommand cmd;
+    private Hotel hotel;
+
+    @BeforeEach
+    void setUp() {
+        outContent = new ByteArrayOutputStream();
+        errContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        System.setErr(new PrintStream(errContent));
+
+        cmd = new SearchCommand();
+        hotel = new Hotel();
+        cmd.setHotel(hotel);
+        cmd.setScanner(mockScanner);
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Test
+    public void searchListsOnlyMatchingRooms() {
+        hotel.addRoom(new Room(101, 100.0, 2));
+        hotel.addRoom(new Room(102, 120.0, 2));
+        hotel.addRoom(new Room(201, 900.0, 4));
+        hotel.checkIn(102, new Guest("Busy"), List.of(), 3);
+
+        when(mockScanner.nextLine())
+                .thenReturn("")      // today
+                .thenReturn("2")     // nights
+                .thenReturn("2")     // guests
+                .thenReturn("500")   // max price
+                .thenReturn("");     // any floor
+
+        cmd.execute();
+
+        String out = outContent.toString();
+        assertAll(
+                () -> assertTrue(out.contains("AVAILABLE ROOMS")),
+                () -> assertTrue(out.contains("101")),
+                () -> assertFalse(out.contains("102")),
+                () -> assertFalse(out.contains("201"))
+        );
+    }
+
+    @Test
+    public void searchWithoutMatchesPrintsPlaceholder() {
+        when(mockScanner.nextLine())
+                .thenReturn("2030-01-01")
+                .thenReturn("1")
+                .thenReturn("")
+                .thenReturn("")
+                .thenReturn("");
+
+        cmd.execute();
+
+        assertTrue(outContent.toString().contains("(No rooms match)"));
+    }
+
+    @Test
+    public void searchWithInvalidDurationPrintsError() {
+        when(mockScanner.nextLine())
+                .thenReturn("")
+                .thenReturn("0");
+
+        cmd.execute();
+
+        assertTrue(errContent.toString().contains("Error: Duration must be at least 1 night."));
+    }
+}
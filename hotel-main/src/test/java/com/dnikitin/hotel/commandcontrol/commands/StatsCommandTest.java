@@ -0,0 +1,65 @@
+package com.dnikitin.hotel.commandcontrol.commands;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatsCommandTest {
+
+    private final PrintStream originalOut = System.out;
+    private ByteArrayOutputStream outContent;
+
+    private StatsCommand cmd;
+    private Hotel hotel;
+
+    @BeforeEach
+    void setUp() {
+        outContent = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+
+        cmd = new StatsCommand();
+        hotel = new Hotel();
+        cmd.setHotel(hotel);
+    }
+
+    @AfterEach
+    void restoreStreams() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void statsForEmptyHotel() {
+        cmd.execute();
+
+        String out = outContent.toString();
+        assertAll(
+                () -> assertTrue(out.contains("HOTEL STATISTICS")),
+                () -> assertTrue(out.contains("Rooms           : 0"))
+        );
+    }
+
+    @Test
+    public void statsShowBookingsPerFloor() {
+        hotel.addRoom(new Room(101, 100.0, 1));
+        hotel.addRoom(new Room(102, 100.0, 1));
+        hotel.checkIn(101, new Guest("A"), List.of(), 2);
+
+        cmd.execute();
+
+        String out = outContent.toString();
+        assertAll(
+                () -> assertTrue(out.contains("Booked rooms    : 1")),
+                () -> assertTrue(out.contains("Booked share    : 50.0%")),
+                () -> assertTrue(out.contains("200.00"))
+        );
+    }
+}
@@ -0,0 +1,70 @@
+package com.dnikitin.hotel.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeTrackerTest {
+
+    @Test
+    public void changedSinceListsEveryRoomOnceInOrderOfLastChange() {
+        ChangeTracker tracker = new ChangeTracker();
+        tracker.roomChanged(101);
+        long saved = tracker.roomChanged(102);
+        tracker.roomChanged(103);
+        tracker.roomChanged(101);
+        tracker.roomChanged(103);
+
+        assertAll(
+                () -> assertEquals(5, tracker.version()),
+                () -> assertEquals(List.of(101, 103), tracker.changedSince(saved)),
+                () -> assertEquals(List.of(102, 101, 103), tracker.changedSince(0)),
+                () -> assertEquals(List.of(), tracker.changedSince(tracker.version())),
+                () -> assertFalse(tracker.resetSince(0))
+        );
+    }
+
+    @Test
+    public void resetForgetsRoomsAndInvalidatesOlderVersions() {
+        ChangeTracker tracker = new ChangeTracker();
+        long before = tracker.roomChanged(101);
+        long reset = tracker.reset();
+        tracker.roomChanged(102);
+
+        assertAll(
+                () -> assertTrue(tracker.resetSince(before)),
+                () -> assertFalse(tracker.resetSince(reset)),
+                () -> assertEquals(List.of(102), tracker.changedSince(reset))
+        );
+    }
+
+    @Test
+    public void concurrentChangesAreAllListed() throws InterruptedException {
+        ChangeTracker tracker = new ChangeTracker();
+        int threads = 4;
+        int changesPerThread = 5000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t * 100;
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < changesPerThread; i++) {
+                    tracker.roomChanged(first + i % 100);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<Integer> changed = tracker.changedSince(0);
+        assertAll(
+                () -> assertEquals((long) threads * changesPerThread, tracker.version()),
+                () -> assertEquals(threads * 100, changed.size()),
+                () -> assertEquals(threads * 100, new HashSet<>(changed).size())
+        );
+    }
+}
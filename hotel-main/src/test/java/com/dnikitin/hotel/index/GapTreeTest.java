@@ -0,0 +1,91 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GapTreeTest {
+
+    @Test
+    public void onlyGapsCoveringTheNightsAreVisited() {
+        GapTree gaps = new GapTree();
+        gaps.add(10, 20, new Room(101, 100.0, 2));
+        gaps.add(12, 30, new Room(102, 100.0, 2));
+        gaps.add(14, 16, new Room(103, 100.0, 2));
+
+        assertAll(
+                () -> assertEquals(Set.of(101, 102), covering(gaps, 13, 18)),
+                () -> assertEquals(Set.of(102), covering(gaps, 12, 25)),
+                () -> assertEquals(Set.of(), covering(gaps, 9, 12)),
+                () -> assertEquals(Set.of(101, 102, 103), covering(gaps, 14, 16))
+        );
+    }
+
+    @Test
+    public void removedRoomsAndEmptyGapsAreDropped() {
+        GapTree gaps = new GapTree();
+        Room first = new Room(101, 100.0, 2);
+        Room second = new Room(102, 100.0, 2);
+        gaps.add(10, 20, first);
+        gaps.add(10, 20, second);
+
+        gaps.remove(10, 20, first);
+        Set<Integer> afterFirst = covering(gaps, 10, 20);
+        gaps.remove(10, 20, second);
+
+        assertAll(
+                () -> assertEquals(Set.of(102), afterFirst),
+                () -> assertTrue(gaps.isEmpty())
+        );
+    }
+
+    @Test
+    public void randomChangesMatchAFullScan() {
+        Random random = new Random(42);
+        GapTree gaps = new GapTree();
+        List<long[]> filed = new ArrayList<>();
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (!filed.isEmpty() && random.nextInt(3) == 0) {
+                int victim = random.nextInt(filed.size());
+                long[] gap = filed.remove(victim);
+                gaps.remove(gap[0], gap[1], rooms.remove(victim));
+            } else {
+                long start = random.nextInt(300);
+                long[] gap = {start, start + 1 + random.nextInt(40)};
+                Room room = new Room(1000 + i, 100.0, 2);
+                filed.add(gap);
+                rooms.add(room);
+                gaps.add(gap[0], gap[1], room);
+            }
+            long fromDay = random.nextInt(320);
+            long toDay = fromDay + 1 + random.nextInt(10);
+            Set<Integer> expected = new TreeSet<>();
+            for (int g = 0; g < filed.size(); g++) {
+                if (filed.get(g)[0] <= fromDay && filed.get(g)[1] >= toDay) {
+                    expected.add(rooms.get(g).getRoomNumber());
+                }
+            }
+            assertEquals(expected, covering(gaps, fromDay, toDay));
+        }
+    }
+
+    private static Set<Integer> covering(GapTree gaps, long fromDay, long toDay) {
+        Set<Integer> result = new TreeSet<>();
+        gaps.forEachCovering(fromDay, toDay, rooms -> {
+            List<Room> found = new ArrayList<>();
+            rooms.collect(1, Double.MAX_VALUE, found);
+            for (Room room : found) {
+                assertTrue(result.add(room.getRoomNumber()), "room visited twice");
+            }
+        });
+        return result;
+    }
+}
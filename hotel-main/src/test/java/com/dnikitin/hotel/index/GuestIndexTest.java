@@ -0,0 +1,115 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GuestIndexTest {
+    private GuestIndex index;
+    private Reservation smiths;
+
+    @BeforeEach
+    public void setUp() {
+        index = new GuestIndex();
+        smiths = new Reservation(new Guest("Alice Smith"),
+                List.of(new Guest("Bob Smith")), LocalDate.parse("2025-05-01"), 3);
+        index.reservationAdded(202, smiths);
+        index.reservationAdded(101, new Reservation(new Guest("John Doe"), List.of(), LocalDate.parse("2025-05-02"), 1));
+    }
+
+    @Test
+    public void exactMatchIgnoresCaseAndWhitespace() {
+        List<GuestMatch> matches = index.findExact("  bob   SMITH ");
+
+        assertAll(
+                () -> assertEquals(1, matches.size()),
+                () -> assertEquals(202, matches.getFirst().roomNumber()),
+                () -> assertFalse(matches.getFirst().mainGuest())
+        );
+    }
+
+    @Test
+    public void prefixMatchReturnsNamesInOrder() {
+        index.reservationAdded(303, new Reservation(new Guest("Alan Turing"), List.of(), LocalDate.parse("2025-05-03"), 2));
+
+        List<String> names = index.findByPrefix("al", 10).stream().map(GuestMatch::name).toList();
+
+        assertAll(
+                () -> assertEquals(List.of("Alan Turing", "Alice Smith"), names),
+                () -> assertEquals(1, index.findByPrefix("al", 1).size()),
+                () -> assertTrue(index.findByPrefix("zz", 10).isEmpty())
+        );
+    }
+
+    @Test
+    public void fuzzyMatchFindsMisspelledName() {
+        List<GuestMatch> matches = index.findFuzzy("Alise Smyth", 5);
+
+        assertFalse(matches.isEmpty());
+        assertEquals("Alice Smith", matches.getFirst().name());
+    }
+
+    @Test
+    public void removedReservationIsNoLongerFound() {
+        index.reservationRemoved(202, smiths);
+
+        assertAll(
+                () -> assertTrue(index.findExact("Alice Smith").isEmpty()),
+                () -> assertTrue(index.findFuzzy("Bob Smith", 5).isEmpty()),
+                () -> assertEquals(1, index.size())
+        );
+    }
+
+    @Test
+    public void sameNameTwiceInOneStayIsIndexedAndRemovedTwice() {
+        Reservation twins = new Reservation(new Guest("Sam Lee"),
+                List.of(new Guest("Sam Lee")), LocalDate.parse("2025-05-04"), 2);
+        index.reservationAdded(404, twins);
+        int withTwins = index.findExact("Sam Lee").size();
+        index.reservationRemoved(404, twins);
+
+        assertAll(
+                () -> assertEquals(2, withTwins),
+                () -> assertTrue(index.findExact("Sam Lee").isEmpty()),
+                () -> assertEquals(3, index.size())
+        );
+    }
+
+    @Test
+    public void concurrentChangesOfSharedNamesLoseNothing() throws InterruptedException {
+        int threads = 4;
+        int rounds = 500;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int roomNumber = 500 + t;
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    Reservation stay = new Reservation(new Guest("Guest " + i % 10), List.of(),
+                            LocalDate.parse("2025-06-01").plusDays(i), 1);
+                    index.reservationAdded(roomNumber, stay);
+                    if (i % 2 == 1) {
+                        index.reservationRemoved(roomNumber, stay);
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertAll(
+                () -> assertEquals(3 + threads * rounds / 2, index.size()),
+                () -> assertEquals(threads * rounds / 10, index.findExact("guest 4").size()),
+                () -> assertEquals(List.of(), index.findExact("guest 5")),
+                () -> assertEquals(threads * rounds / 10, index.findFuzzy("Gest 2", 1000).stream()
+                        .filter(match -> match.name().equals("Guest 2")).count())
+        );
+    }
+}
@@ -0,0 +1,88 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedRoomStoreTest {
+
+    private IndexedRoomStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new IndexedRoomStore();
+        store.addIndex("price", Room::getPrice);
+        store.addIndex("capacity", Room::getCapacity);
+        store.put(new Room(101, 300, 2));
+        store.put(new Room(102, 100, 1));
+        store.put(new Room(201, 200, 2));
+        store.put(new Room(202, 100, 4));
+    }
+
+    @Test
+    public void lookupAndRangeScansFollowIndexOrder() {
+        assertAll(
+                () -> assertEquals(List.of(102, 202, 201, 101), numbers(store.scan("price"))),
+                () -> assertEquals(List.of(102, 202, 201), numbers(store.range("price", 100.0, 300.0))),
+                () -> assertEquals(List.of(101, 201), numbers(store.lookup("capacity", 2))),
+                () -> assertEquals(List.of(101, 201, 202), numbers(store.range("capacity", 2, null))),
+                () -> assertTrue(store.lookup("capacity", 3).isEmpty())
+        );
+    }
+
+    @Test
+    public void putReplacesRoomInEveryIndex() {
+        Room previous = store.put(new Room(102, 500, 3));
+
+        assertAll(
+                () -> assertEquals(100.0, previous.getPrice()),
+                () -> assertEquals(4, store.size()),
+                () -> assertEquals(List.of(202, 201, 101, 102), numbers(store.scan("price"))),
+                () -> assertTrue(store.lookup("capacity", 1).isEmpty())
+        );
+
+        store.remove(202);
+        assertEquals(List.of(201, 101, 102), numbers(store.scan("price")));
+    }
+
+    @Test
+    public void reindexMovesRoomAfterStateChange() {
+        store.addIndex("free", Room::isFree);
+        Room room = store.get(201);
+
+        room.checkIn(new Reservation(new Guest("A"), List.of(), LocalDate.now(), 1));
+        store.reindex(room);
+        assertEquals(List.of(201), numbers(store.lookup("free", false)));
+
+        room.checkOut();
+        store.reindex(room);
+        assertAll(
+                () -> assertTrue(store.lookup("free", false).isEmpty()),
+                () -> assertEquals(List.of(101, 102, 201, 202), numbers(store.lookup("free", true)))
+        );
+    }
+
+    @Test
+    public void unknownOrDuplicateIndexIsRejected() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> store.lookup("floor", 1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> store.addIndex("price", Room::getPrice))
+        );
+    }
+
+    private static List<Integer> numbers(List<Room> rooms) {
+        List<Integer> result = new ArrayList<>();
+        for (Room room : rooms) {
+            result.add(room.getRoomNumber());
+        }
+        return result;
+    }
+}
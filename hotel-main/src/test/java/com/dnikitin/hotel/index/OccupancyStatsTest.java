@@ -0,0 +1,110 @@
+package com.dnikitin.hotel.index;
+
+import com.dnikitin.hotel.model.BookingCalendar;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Rate;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OccupancyStatsTest {
+
+    @Test
+    public void countersStayExactUnderConcurrentUpdates() throws InterruptedException {
+        OccupancyStats stats = new OccupancyStats();
+        int threads = 8;
+        int roomsPerThread = 500;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * roomsPerThread;
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < roomsPerThread; i++) {
+                    Room room = new Room(100 + offset + i, 10.0, 2);
+                    stats.roomAdded(room);
+                    Reservation stay = new Reservation(new Guest("G"), List.of(), LocalDate.now(), 2);
+                    room.checkIn(stay);
+                    stats.reservationAdded(room, stay, room.getCalendar());
+                    if (i % 2 == 0) {
+                        room.checkOut();
+                        stats.reservationRemoved(room, stay, room.getCalendar());
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        OccupancyStats.Snapshot total = stats.total();
+        assertAll(
+                () -> assertEquals(threads * roomsPerThread, total.rooms()),
+                () -> assertEquals(threads * roomsPerThread / 2, total.bookedRooms()),
+                () -> assertEquals(threads * roomsPerThread / 2, total.stays()),
+                () -> assertEquals(threads * roomsPerThread / 2 * 20.0, total.projectedRevenue())
+        );
+    }
+
+    @Test
+    public void bookedRoomsFollowTheCalendarInstalledByTheChange() {
+        OccupancyStats stats = new OccupancyStats();
+        Room room = new Room(101, 10.0, 2);
+        stats.roomAdded(room);
+        Reservation first = new Reservation(new Guest("A"), List.of(), LocalDate.now(), 2);
+        Reservation second = new Reservation(new Guest("B"), List.of(), LocalDate.now().plusDays(5), 2);
+        room.checkIn(first);
+        BookingCalendar afterFirst = room.getCalendar();
+        room.checkIn(second);
+        BookingCalendar afterSecond = room.getCalendar();
+
+        // the events arrive after the room has changed again
+        stats.reservationAdded(room, first, afterFirst);
+        stats.reservationAdded(room, second, afterSecond);
+
+        assertEquals(1, stats.total().bookedRooms());
+    }
+
+    @Test
+    public void revenueFollowsRateChangesAndChargesAtLeastOneNight() {
+        OccupancyStats stats = new OccupancyStats();
+        LocalDate today = LocalDate.now();
+        Room room = new Room(101, 10.0, 2);
+        stats.roomAdded(room);
+        Reservation stay = new Reservation(new Guest("A"), List.of(), today, 0);
+        room.checkIn(stay);
+        stats.reservationAdded(room, stay, room.getCalendar());
+        double before = stats.total().projectedRevenue();
+
+        room.setRate(today, today.plusDays(1), new Rate(25.0));
+        stats.ratesChanged(room);
+        double after = stats.total().projectedRevenue();
+
+        room.removeReservation(stay);
+        stats.reservationRemoved(room, stay, room.getCalendar());
+
+        assertAll(
+                () -> assertEquals(10.0, before),
+                () -> assertEquals(25.0, after),
+                () -> assertEquals(0.0, stats.total().projectedRevenue())
+        );
+    }
+
+    @Test
+    public void clearResetsAllCounters() {
+        OccupancyStats stats = new OccupancyStats();
+        stats.roomAdded(new Room(101, 10.0, 1));
+
+        stats.clear();
+
+        assertAll(
+                () -> assertEquals(0, stats.total().rooms()),
+                () -> assertTrue(stats.byFloor().isEmpty())
+        );
+    }
+}
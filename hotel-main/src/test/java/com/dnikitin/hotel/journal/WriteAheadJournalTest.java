@@ -0,0 +1,295 @@
+package com.dnikitin.hotel.journal;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Rate;
+import com.dnikitin.hotel.model.Reservation;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.map.RangeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteAheadJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    public void changesAreReplayedAfterReopen() throws HotelDataException {
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            assertTrue(journal.getRecovery().isEmpty());
+            hotel.addRoom(new Room(101, 100, 2));
+            hotel.addRoom(new Room(102, 200, 3));
+            hotel.checkIn(101, new Guest("John Doe"), List.of(), today, 2);
+            hotel.checkIn(102, new Guest("Alice Smith"), List.of(new Guest("Bob Smith")), today.plusDays(1), 3);
+            hotel.checkOut(101);
+        }
+
+        Hotel restored = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, restored)) {
+            Reservation stay = restored.getRoom(102).getReservation();
+            assertAll(
+                    () -> assertEquals(5, journal.getRecovery().replayedRecords()),
+                    () -> assertFalse(journal.getRecovery().snapshotLoaded()),
+                    () -> assertFalse(journal.getRecovery().tornTail()),
+                    () -> assertEquals(2, restored.getRooms().size()),
+                    () -> assertTrue(restored.getRoom(101).isFree()),
+                    () -> assertEquals(200.0, restored.getRoom(102).getPrice()),
+                    () -> assertEquals(3, restored.getRoom(102).getCapacity()),
+                    () -> assertEquals("Alice Smith", stay.mainGuest().name()),
+                    () -> assertEquals(List.of(new Guest("Bob Smith")), stay.additionalGuests()),
+                    () -> assertEquals(today.plusDays(1), stay.checkinDate()),
+                    () -> assertEquals(3, stay.duration())
+            );
+        }
+    }
+
+    @Test
+    public void changeIsOnDiskWhenMethodReturns() throws Exception {
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            hotel.addRoom(new Room(101, 100, 2));
+
+            // the journal is still open, as after a crash
+            Path copy = Files.createDirectory(tempDir.resolve("copy"));
+            try (Stream<Path> files = Files.list(tempDir)) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    Files.copy(file, copy.resolve(file.getFileName()));
+                }
+            }
+            Hotel restored = new Hotel();
+            try (WriteAheadJournal crashed = WriteAheadJournal.open(copy, restored)) {
+                assertNotNull(restored.getRoom(101));
+            }
+            assertTrue(journal.getFlushes() > 0);
+        }
+    }
+
+    @Test
+    public void tornRecordAtTheEndIsDropped() throws Exception {
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            hotel.addRoom(new Room(101, 100, 2));
+            hotel.addRoom(new Room(102, 100, 2));
+        }
+        Path segment = tempDir.resolve("journal-000000.wal");
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        Hotel restored = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, restored)) {
+            assertAll(
+                    () -> assertTrue(journal.getRecovery().tornTail()),
+                    () -> assertEquals(1, journal.getRecovery().replayedRecords()),
+                    () -> assertNotNull(restored.getRoom(101)),
+                    () -> assertNull(restored.getRoom(102))
+            );
+            restored.addRoom(new Room(103, 100, 2));
+        }
+
+        Hotel again = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, again)) {
+            assertAll(
+                    () -> assertFalse(journal.getRecovery().tornTail()),
+                    () -> assertEquals(List.of(101, 103), again.getRooms().stream().map(Room::getRoomNumber).toList())
+            );
+        }
+    }
+
+    @Test
+    public void checkpointReplacesLogWithSnapshot() throws Exception {
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            hotel.addRoom(new Room(101, 100, 2));
+            hotel.checkIn(101, new Guest("John Doe"), List.of(), today, 2);
+
+            assertEquals(1, journal.checkpoint());
+            hotel.addRoom(new Room(102, 150, 1));
+        }
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(List.of("journal-000001.wal", "snapshot-000001.csv"),
+                    files.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+
+        Hotel restored = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, restored)) {
+            assertAll(
+                    () -> assertTrue(journal.getRecovery().snapshotLoaded()),
+                    () -> assertEquals(1, journal.getRecovery().snapshotRooms()),
+                    () -> assertEquals(1, journal.getRecovery().replayedRecords()),
+                    () -> assertEquals("John Doe", restored.getRoom(101).getReservation().mainGuest().name()),
+                    () -> assertNotNull(restored.getRoom(102))
+            );
+        }
+    }
+
+    @Test
+    public void loadingFileIsJournaledAsReset() throws Exception {
+        Path file = tempDir.resolve("state.csv");
+        Hotel source = new Hotel();
+        source.addRoom(new Room(201, 300, 4));
+        source.checkIn(201, new Guest("Alice Smith"), List.of(), today, 1);
+        source.writeRoomsToFile(file.toString());
+
+        Path journalDir = tempDir.resolve("journal");
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(journalDir, hotel)) {
+            hotel.addRoom(new Room(101, 100, 2));
+            hotel.readRoomsFromFile(file.toString());
+        }
+
+        Hotel restored = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(journalDir, restored)) {
+            assertAll(
+                    () -> assertNull(restored.getRoom(101)),
+                    () -> assertFalse(restored.getRoom(201).isFree())
+            );
+        }
+    }
+
+    @Test
+    public void concurrentChangesShareFlushes() throws Exception {
+        Hotel hotel = new Hotel();
+        int threads = 8;
+        int roomsPerThread = 50;
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            for (int i = 0; i < threads * roomsPerThread; i++) {
+                hotel.addRoom(new Room(1000 + i, 100, 2));
+            }
+            long flushesBefore = journal.getFlushes();
+
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int first = 1000 + t * roomsPerThread;
+                workers[t] = Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < roomsPerThread; i++) {
+                        hotel.checkIn(first + i, new Guest("Guest " + i), List.of(), today, 1);
+                    }
+                });
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            assertTrue(journal.getFlushes() - flushesBefore <= threads * roomsPerThread);
+        }
+
+        Hotel restored = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, restored)) {
+            assertEquals(threads * roomsPerThread, restored.getStatistics().bookedRooms());
+        }
+    }
+
+    @Test
+    public void addedRoomIsReplayedWithItsStays() throws HotelDataException {
+        Room booked = new Room(101, 100, 2);
+        booked.checkIn(new Reservation(new Guest("John Doe"), List.of(), today, 2));
+        booked.checkIn(new Reservation(new Guest("Alice Smith"), List.of(), today.plusDays(5), 1));
+
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            hotel.addRoom(booked);
+        }
+
+        Hotel restored = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, restored)) {
+            List<Reservation> stays = restored.getRoom(101).getReservations();
+            assertAll(
+                    () -> assertEquals(3, journal.getRecovery().replayedRecords()),
+                    () -> assertEquals(2, stays.size()),
+                    () -> assertEquals("John Doe", stays.get(0).mainGuest().name()),
+                    () -> assertEquals(today.plusDays(5), stays.get(1).checkinDate())
+            );
+        }
+    }
+
+    @Test
+    public void seasonalRatesAreReplayed() throws HotelDataException {
+        Room seasonal = new Room(102, 100, 2);
+        seasonal.setRate(today, today.plusDays(7), new Rate(150));
+
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            hotel.addRoom(new Room(101, 100, 2));
+            hotel.addRoom(seasonal);
+            hotel.setRate(101, today, today.plusDays(10), new Rate(200));
+            hotel.clearRate(101, today.plusDays(2), today.plusDays(4));
+        }
+
+        Hotel restored = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, restored)) {
+            assertAll(
+                    () -> assertEquals(5, journal.getRecovery().replayedRecords()),
+                    () -> assertEquals(hotel.getRoom(101).getRates().getSeasons(),
+                            restored.getRoom(101).getRates().getSeasons()),
+                    () -> assertEquals(List.of(new RangeMap.Range<>(today, today.plusDays(7), new Rate(150))),
+                            restored.getRoom(102).getRates().getSeasons())
+            );
+        }
+    }
+
+    @Test
+    public void rateChangeIsRolledBackWhenItsFlushFails() throws Exception {
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            hotel.addRoom(new Room(101, 100, 2));
+            hotel.setRate(101, today, today.plusDays(3), new Rate(150));
+
+            Field segment = WriteAheadJournal.class.getDeclaredField("segment");
+            segment.setAccessible(true);
+            ((FileChannel) segment.get(journal)).close();
+            assertThrows(UncheckedIOException.class,
+                    () -> hotel.setRate(101, today, today.plusDays(10), new Rate(300)));
+
+            assertEquals(List.of(new RangeMap.Range<>(today, today.plusDays(3), new Rate(150))),
+                    hotel.getRoom(101).getRates().getSeasons());
+        }
+    }
+
+    @Test
+    public void changesAreRejectedAfterAFailedFlush() throws Exception {
+        Hotel hotel = new Hotel();
+        try (WriteAheadJournal journal = WriteAheadJournal.open(tempDir, hotel)) {
+            hotel.addRoom(new Room(101, 100, 2));
+            assertTrue(journal.isHealthy());
+
+            // the disk goes away: the next flush fails
+            Field segment = WriteAheadJournal.class.getDeclaredField("segment");
+            segment.setAccessible(true);
+            ((FileChannel) segment.get(journal)).close();
+            UncheckedIOException failed = assertThrows(UncheckedIOException.class,
+                    () -> hotel.checkIn(101, new Guest("John Doe"), List.of(), today, 2));
+            boolean rolledBack = hotel.getRoom(101).isFree();
+
+            UncheckedIOException rejected = assertThrows(UncheckedIOException.class,
+                    () -> hotel.addRoom(new Room(102, 100, 2)));
+            assertAll(
+                    () -> assertFalse(journal.isHealthy()),
+                    () -> assertTrue(failed.getMessage().startsWith("Error writing journal")),
+                    () -> assertTrue(rolledBack),
+                    () -> assertTrue(rejected.getMessage().startsWith("Journal is not writable, change rejected")),
+                    () -> assertNull(hotel.getRoom(102)),
+                    () -> assertEquals(0, hotel.findGuests("John Doe").size())
+            );
+        }
+    }
+}
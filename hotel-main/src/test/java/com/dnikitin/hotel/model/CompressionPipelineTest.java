@@ -0,0 +1,133 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.map.MyMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDate today = LocalDate.of(2025, 3, 1);
+
+    /**
+     * A hotel whose state files span several compression chunks.
+     */
+    private Hotel largeHotel() {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < 60_000; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 70 + 0.5, 2));
+            if (i % 2 == 0) {
+                hotel.checkIn(100 + i, new Guest("Guest " + i), List.of(new Guest("Child " + i % 7)), today, 1 + i % 5);
+            }
+        }
+        return hotel;
+    }
+
+    private static byte[] gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    public void gzippedCsvHoldsTheSameRowsAsThePlainFile() throws IOException, HotelDataException {
+        Hotel hotel = largeHotel();
+        Path csv = tempDir.resolve("state.csv");
+        Path gzip = tempDir.resolve("state.csv.gz");
+
+        hotel.writeRoomsToFile(csv.toString());
+        hotel.writeRoomsToFile(gzip.toString(), StateFormat.CSV_GZIP);
+
+        MyMap<Integer, Room> rooms = hotel.parseRoomsFile(gzip.toString());
+        assertAll(
+                () -> assertEquals(StateFormat.CSV_GZIP, StateFormat.detect(gzip.toString())),
+                () -> assertTrue(Files.size(csv) > CompressionPipeline.CHUNK_BYTES),
+                () -> assertTrue(Files.size(gzip) < Files.size(csv) / 3),
+                () -> assertArrayEquals(Files.readAllBytes(csv), gunzip(gzip)),
+                () -> assertEquals(60_000, rooms.size()),
+                () -> assertEquals(hotel.getRoom(60_098).getReservations(), rooms.get(60_098).getReservations())
+        );
+    }
+
+    @Test
+    public void deflatedSnapshotHoldsTheSameRoomsAsThePlainOne() throws IOException, HotelDataException {
+        Hotel hotel = largeHotel();
+        Path plain = tempDir.resolve("state.hsnap");
+        Path deflated = tempDir.resolve("state.hsnap.z");
+
+        hotel.writeRoomsToFile(plain.toString(), StateFormat.BINARY);
+        hotel.writeRoomsToFile(deflated.toString(), StateFormat.BINARY_DEFLATE);
+
+        MyMap<Integer, Room> fromPlain = hotel.parseRoomsFile(plain.toString());
+        MyMap<Integer, Room> fromDeflated = hotel.parseRoomsFile(deflated.toString());
+        assertAll(
+                () -> assertEquals(StateFormat.BINARY_DEFLATE, StateFormat.detect(deflated.toString())),
+                () -> assertTrue(Files.size(plain) > CompressionPipeline.CHUNK_BYTES),
+                () -> assertTrue(Files.size(deflated) < Files.size(plain) / 2),
+                () -> assertEquals(fromPlain.keys(), fromDeflated.keys()),
+                () -> assertEquals(fromPlain.get(60_098).getReservations(), fromDeflated.get(60_098).getReservations())
+        );
+    }
+
+    @Test
+    public void damagedFrameIsDetectedByItsChecksum() throws IOException, HotelDataException {
+        Path deflated = tempDir.resolve("state.hsnap.z");
+        largeHotel().writeRoomsToFile(deflated.toString(), StateFormat.BINARY_DEFLATE);
+        byte[] bytes = Files.readAllBytes(deflated);
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(deflated, bytes);
+
+        HotelDataException e = assertThrows(HotelDataException.class,
+                () -> new Hotel().parseRoomsFile(deflated.toString()));
+
+        assertTrue(e.getMessage().startsWith("Corrupted compressed data in file " + deflated + ": "
+                + "Checksum mismatch in compressed frame "), e.getMessage());
+    }
+
+    @Test
+    public void cutOffGzipFileIsRejected() throws IOException, HotelDataException {
+        Path gzip = tempDir.resolve("state.csv.gz");
+        largeHotel().writeRoomsToFile(gzip.toString(), StateFormat.CSV_GZIP);
+        byte[] bytes = Files.readAllBytes(gzip);
+        Path cut = tempDir.resolve("cut.csv.gz");
+        Files.write(cut, Arrays.copyOf(bytes, bytes.length / 2));
+
+        HotelDataException e = assertThrows(HotelDataException.class,
+                () -> new Hotel().parseRoomsFile(cut.toString()));
+
+        assertTrue(e.getMessage().startsWith("Corrupted compressed data in file " + cut), e.getMessage());
+    }
+
+    @Test
+    public void convertingKeepsTheCompressionOfTheTargetName() throws IOException, HotelDataException {
+        Hotel hotel = largeHotel();
+        Path csv = tempDir.resolve("state.csv");
+        Path deflated = tempDir.resolve("state.hsnap.z");
+        Path back = tempDir.resolve("back.csv");
+        hotel.writeRoomsToFile(csv.toString());
+
+        Hotel converter = new Hotel();
+        converter.convertStateFile(csv.toString(), deflated.toString(), StateFormat.BINARY_DEFLATE);
+        converter.convertStateFile(deflated.toString(), back.toString(), StateFormat.CSV);
+
+        assertAll(
+                () -> assertEquals(StateFormat.BINARY_DEFLATE, StateFormat.forFileName(deflated.toString())),
+                () -> assertEquals("state.csv.gz", StateFormat.CSV_GZIP.withExtension("state.hsnap.z")),
+                () -> assertEquals(Files.readString(csv), Files.readString(back))
+        );
+    }
+}
@@ -0,0 +1,149 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.RoomFreeException;
+import com.dnikitin.hotel.index.OccupancyStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotelConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ROOMS_PER_THREAD = 100;
+    private static final int ROUNDS = 20;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void parallelCheckInsAndCheckOutsKeepIndexesConsistent() throws Exception {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < THREADS * ROOMS_PER_THREAD; i++) {
+            hotel.addRoom(new Room(100 + i, 100, 2));
+        }
+        LocalDate today = LocalDate.now();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int first = 100 + t * ROOMS_PER_THREAD;
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int room = first; room < first + ROOMS_PER_THREAD; room++) {
+                            hotel.checkIn(room, new Guest("Guest " + room), List.of(), today, 1);
+                        }
+                        for (int room = first; room < first + ROOMS_PER_THREAD; room += 2) {
+                            hotel.checkOut(room);
+                        }
+                        if (round < ROUNDS - 1) {
+                            for (int room = first + 1; room < first + ROOMS_PER_THREAD; room += 2) {
+                                hotel.checkOut(room);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        Thread reader = Thread.ofPlatform().start(() -> {
+            try {
+                for (int i = 0; i < 50; i++) {
+                    hotel.findAvailable(DateRange.ofNights(today, 1), 1, 1000, null);
+                    hotel.findGuestsByPrefix("guest", 10);
+                    hotel.writeRoomsToFile(tempDir.resolve("snapshot.csv").toString());
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        reader.join();
+
+        int occupied = THREADS * ROOMS_PER_THREAD / 2;
+        OccupancyStats.Snapshot stats = hotel.getStatistics();
+        assertAll(
+                () -> assertTrue(failures.isEmpty(), () -> "Unexpected failure: " + failures.peek()),
+                () -> assertEquals(occupied, stats.bookedRooms()),
+                () -> assertEquals(occupied, hotel.departuresOn(today.plusDays(1)).size()),
+                () -> assertEquals(occupied, hotel.findGuestsByPrefix("guest", Integer.MAX_VALUE).size()),
+                () -> assertEquals(occupied, hotel.findAvailable(DateRange.ofNights(today, 1), 1, 1000, null).size())
+        );
+    }
+
+    @Test
+    public void sameRoomIsNeverDoubleBooked() throws Exception {
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100, 2));
+        LocalDate today = LocalDate.now();
+        ConcurrentLinkedQueue<Integer> winners = new ConcurrentLinkedQueue<>();
+
+        List<Thread> guests = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int guest = t;
+            guests.add(Thread.ofPlatform().start(() -> {
+                try {
+                    hotel.checkIn(101, new Guest("Guest " + guest), List.of(), today, 3);
+                    winners.add(guest);
+                } catch (RuntimeException expected) {
+                    // the room was taken by another thread
+                }
+            }));
+        }
+        for (Thread guest : guests) {
+            guest.join();
+        }
+
+        assertAll(
+                () -> assertEquals(1, winners.size()),
+                () -> assertEquals(1, hotel.getRoom(101).getReservationCount()),
+                () -> assertEquals(1, hotel.getStatistics().stays())
+        );
+    }
+
+    @Test
+    public void loadDoesNotInterleaveWithRoomOperations() throws Exception {
+        Hotel source = new Hotel();
+        for (int i = 0; i < 300; i++) {
+            source.addRoom(new Room(100 + i, 100, 2));
+        }
+        Path file = tempDir.resolve("state.csv");
+        source.writeRoomsToFile(file.toString());
+
+        Hotel hotel = new Hotel();
+        hotel.loadRoomsFromFile(file.toString());
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        Thread frontDesk = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 300; i++) {
+                try {
+                    hotel.checkIn(100 + i, new Guest("G"), List.of(), 1);
+                    hotel.checkOut(100 + i);
+                } catch (RoomFreeException expected) {
+                    // a load replaced the room between check-in and check-out
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }
+        });
+        for (int i = 0; i < 5; i++) {
+            hotel.loadRoomsFromFile(file.toString());
+        }
+        frontDesk.join();
+
+        assertAll(
+                () -> assertTrue(failures.isEmpty(), () -> "Unexpected failure: " + failures.peek()),
+                () -> assertEquals(300, hotel.getStatistics().rooms()),
+                () -> assertEquals(0, hotel.getStatistics().stays())
+        );
+    }
+}
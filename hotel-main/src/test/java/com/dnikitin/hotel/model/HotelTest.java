@@ -2,6 +2,8 @@ package com.dnikitin.hotel.model;
 
 import com.dnikitin.hotel.exceptions.HotelDataException;
 import com.dnikitin.hotel.exceptions.RoomNotFoundException;
+import com.dnikitin.hotel.index.RoomPreferences;
+import com.dnikitin.hotel.index.ScheduledStay;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -11,11 +13,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class HotelTest {
     Hotel hotel;
+    private final DateRange tonight = DateRange.ofNights(LocalDate.now(), 1);
 
     @TempDir
     Path tempDir;
@@ -120,7 +124,7 @@ public class HotelTest {
     public void testSaveAndLoadRoomsSuccess() throws HotelDataException, IOException {
         Room room101 = new Room(101, 150, 1);
         Room room102 = new Room(102, 250, 2);
-        String header = "RoomNumber;Capacity;Price;GuestName;CheckinDate;Duration;AdditionalGuests";
+        String header = "RoomNumber;Capacity;Price;GuestName;CheckinDate;Duration;AdditionalGuests;Seasons";
 
         hotel.addRoom(room101);
         hotel.addRoom(room102);
@@ -191,4 +195,483 @@ public class HotelTest {
                 () -> h.saveRoomsToFile(tempDir.toString()));
         assertTrue(ex.getMessage().startsWith("Error writing file (I/O):"));
     }
+
+    @Test
+    public void saveAndLoadKeepsAdvanceBookings() throws HotelDataException, IOException {
+        hotel.addRoom(new Room(101, 150, 2));
+        hotel.checkIn(101, new Guest("Alice"), List.of(), LocalDate.parse("2025-10-10"), 3);
+        hotel.checkIn(101, new Guest("Bob"), List.of(), LocalDate.parse("2025-10-20"), 2);
+
+        Path file = tempDir.resolve("bookings.csv");
+        hotel.saveRoomsToFile(file.toString());
+
+        Hotel newHotel = new Hotel();
+        newHotel.loadRoomsFromFile(file.toString());
+
+        Room loaded = newHotel.getRoom(101);
+        assertAll(
+                () -> assertEquals(3, Files.readAllLines(file).size()), // header + one row per stay
+                () -> assertEquals(1, newHotel.getRooms().size()),
+                () -> assertEquals(2, loaded.getReservations().size()),
+                () -> assertEquals("Bob", loaded.getReservations().get(1).mainGuest().name())
+        );
+    }
+
+    @Test
+    public void loadRoomsWithOverlappingStaysFails() throws IOException {
+        String header = "RoomNumber;Capacity;Price;GuestName;CheckinDate;Duration;AdditionalGuests";
+        Path file = tempDir.resolve("overlap.csv");
+        Files.writeString(file, header + "\n"
+                + "101;2;100.0;A;2025-01-01;5;\n"
+                + "101;2;100.0;B;2025-01-03;2;");
+
+        HotelDataException ex = assertThrows(HotelDataException.class,
+                () -> new Hotel().loadRoomsFromFile(file.toString()));
+        assertTrue(ex.getMessage().startsWith("Inconsistent reservation in file near line 2"));
+    }
+
+    @Test
+    public void findAvailableFiltersByCapacityPriceAndFloor() {
+        hotel.addRoom(new Room(101, 100, 1));
+        hotel.addRoom(new Room(102, 200, 2));
+        hotel.addRoom(new Room(201, 150, 3));
+        hotel.addRoom(new Room(202, 500, 4));
+        DateRange range = DateRange.ofNights(LocalDate.now(), 2);
+
+        assertAll(
+                () -> assertEquals(List.of(201, 102), roomNumbers(hotel.findAvailable(range, 2, 300, null))),
+                () -> assertEquals(List.of(201, 202), roomNumbers(hotel.findAvailable(range, 1, 1000, 2))),
+                () -> assertTrue(hotel.findAvailable(range, 5, 1000, null).isEmpty())
+        );
+    }
+
+    @Test
+    public void findAvailableFollowsCheckInsAndCheckOuts() {
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 120, 2));
+        LocalDate today = LocalDate.now();
+        hotel.checkIn(101, new Guest("A"), List.of(), today, 3);
+
+        List<Integer> duringStay = roomNumbers(hotel.findAvailable(DateRange.ofNights(today, 2), 1, 1000, null));
+        List<Integer> afterStay = roomNumbers(hotel.findAvailable(DateRange.ofNights(today.plusDays(3), 2), 1, 1000, null));
+        hotel.checkOut(101);
+        List<Integer> afterCheckout = roomNumbers(hotel.findAvailable(DateRange.ofNights(today, 2), 1, 1000, null));
+
+        assertAll(
+                () -> assertEquals(List.of(102), duringStay),
+                () -> assertEquals(List.of(101, 102), afterStay),
+                () -> assertEquals(List.of(101, 102), afterCheckout)
+        );
+    }
+
+    @Test
+    public void findAvailableIsRebuiltAfterLoad() throws Exception {
+        String header = "RoomNumber;Capacity;Price;GuestName;CheckinDate;Duration;AdditionalGuests";
+        Path file = tempDir.resolve("search.csv");
+        Files.writeString(file, header + "\n"
+                + "101;2;100.0;A;" + LocalDate.now() + ";5;\n"
+                + "102;2;100.0;;;;");
+        hotel.addRoom(new Room(999, 10, 2));
+
+        hotel.loadRoomsFromFile(file.toString());
+
+        assertEquals(List.of(102),
+                roomNumbers(hotel.findAvailable(DateRange.ofNights(LocalDate.now(), 1), 1, 1000, null)));
+    }
+
+    @Test
+    public void findAvailableMatchesCalendarsBeforeBetweenAndAfterStays() {
+        LocalDate today = LocalDate.now();
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            int roomNumber = 100 + i;
+            hotel.addRoom(new Room(roomNumber, 50 + random.nextInt(100), 1 + random.nextInt(3)));
+            for (int stay = 0; stay < random.nextInt(4); stay++) {
+                hotel.tryCheckIn(roomNumber, new Guest("Guest " + i), List.of(),
+                        today.plusDays(random.nextInt(20)), 1 + random.nextInt(4));
+            }
+        }
+
+        for (int from = 0; from < 25; from++) {
+            for (int nights = 1; nights <= 5; nights++) {
+                DateRange range = DateRange.ofNights(today.plusDays(from), nights);
+                List<Integer> expected = hotel.getRoomsByPrice().stream()
+                        .filter(room -> room.getCapacity() >= 2 && room.getPrice() <= 120)
+                        .filter(room -> room.isAvailable(range.from(), range.to()))
+                        .map(Room::getRoomNumber)
+                        .toList();
+                assertEquals(expected, roomNumbers(hotel.findAvailable(range, 2, 120, null)), range::toString);
+            }
+        }
+    }
+
+    private static List<Integer> roomNumbers(List<Room> rooms) {
+        return rooms.stream().map(Room::getRoomNumber).toList();
+    }
+
+    @Test
+    public void guestIndexFollowsCheckInCheckOutAndLoad() throws Exception {
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.checkIn(101, new Guest("Alice"), List.of(new Guest("Bob")), LocalDate.now().minusDays(1), 3);
+
+        assertEquals(101, hotel.findGuests("bob").getFirst().roomNumber());
+
+        hotel.checkOut(101);
+        assertTrue(hotel.findGuests("Bob").isEmpty());
+
+        String header = "RoomNumber;Capacity;Price;GuestName;CheckinDate;Duration;AdditionalGuests";
+        Path file = tempDir.resolve("guests_index.csv");
+        Files.writeString(file, header + "\n" + "303;3;300.0;Main;2025-01-01;2;G1|G2");
+        hotel.loadRoomsFromFile(file.toString());
+
+        assertAll(
+                () -> assertEquals(303, hotel.findGuests("G2").getFirst().roomNumber()),
+                () -> assertEquals(1, hotel.findGuestsByPrefix("ma", 10).size())
+        );
+    }
+
+    @Test
+    public void statisticsFollowCheckInsAndCheckOuts() {
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 100, 2));
+        hotel.addRoom(new Room(201, 300, 4));
+        hotel.checkIn(101, new Guest("A"), List.of(new Guest("B")), LocalDate.now().minusDays(1), 3);
+        hotel.checkIn(201, new Guest("C"), List.of(), LocalDate.now(), 2);
+
+        var total = hotel.getStatistics();
+        var floors = hotel.getFloorStatistics();
+        assertAll(
+                () -> assertEquals(3, total.rooms()),
+                () -> assertEquals(2, total.bookedRooms()),
+                () -> assertEquals(1, total.unbookedRooms()),
+                () -> assertEquals(3, total.guests()),
+                () -> assertEquals(300.0 + 600.0, total.projectedRevenue()),
+                () -> assertEquals(50.0, floors.get(1).bookedPercent()),
+                () -> assertEquals(100.0, floors.get(2).bookedPercent())
+        );
+
+        hotel.checkOut(101);
+
+        assertAll(
+                () -> assertEquals(1, hotel.getStatistics().bookedRooms()),
+                () -> assertEquals(600.0, hotel.getStatistics().projectedRevenue()),
+                () -> assertEquals(0, hotel.getFloorStatistics().get(1).bookedRooms())
+        );
+
+        LocalDate today = LocalDate.now();
+        hotel.getRoom(201).setRate(today, today.plusDays(1), new Rate(500));
+        assertEquals(500.0 + 300.0, hotel.getStatistics().projectedRevenue());
+    }
+
+
+    @Test
+    public void autoAssignPicksSmallestFittingThenCheapestFreeRoom() {
+        hotel.addRoom(new Room(101, 100, 1));
+        hotel.addRoom(new Room(102, 250, 2));
+        hotel.addRoom(new Room(201, 200, 2));
+        hotel.addRoom(new Room(202, 400, 4));
+
+        assertAll(
+                () -> assertEquals(101, hotel.autoAssign(tonight, 1, RoomPreferences.none()).getRoomNumber()),
+                () -> assertEquals(201, hotel.autoAssign(tonight, 2, RoomPreferences.none()).getRoomNumber()),
+                () -> assertEquals(202, hotel.autoAssign(tonight, 3, RoomPreferences.none()).getRoomNumber()),
+                () -> assertEquals(102, hotel.autoAssign(tonight, 2, new RoomPreferences(1, 1000)).getRoomNumber()),
+                () -> assertEquals(101, hotel.autoAssign(tonight, 1, new RoomPreferences(null, 150)).getRoomNumber()),
+                () -> assertNull(hotel.autoAssign(tonight, 2, new RoomPreferences(null, 150))),
+                () -> assertNull(hotel.autoAssign(tonight, 5, RoomPreferences.none())),
+                () -> assertNull(hotel.autoAssign(tonight, 1, new RoomPreferences(3, 1000)))
+        );
+    }
+
+    @Test
+    public void autoAssignPicksRoomsFreeForTheRequestedNights() {
+        LocalDate today = LocalDate.now();
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 150, 2));
+        hotel.addRoom(new Room(103, 300, 4));
+        hotel.checkIn(101, new Guest("A"), List.of(), today, 2);
+        hotel.checkIn(101, new Guest("B"), List.of(), today.plusDays(6), 2);
+        hotel.checkIn(102, new Guest("C"), List.of(), today.plusDays(3), 1);
+
+        assertAll(
+                // in the gap of 101
+                () -> assertEquals(101, hotel.autoAssign(new DateRange(today.plusDays(2), today.plusDays(6)), 2,
+                        RoomPreferences.none()).getRoomNumber()),
+                // 101 is booked on the last night, 102 on the third
+                () -> assertEquals(103, hotel.autoAssign(new DateRange(today.plusDays(2), today.plusDays(7)), 1,
+                        RoomPreferences.none()).getRoomNumber()),
+                // 102 is free until its stay
+                () -> assertEquals(102, hotel.autoAssign(new DateRange(today, today.plusDays(3)), 1,
+                        RoomPreferences.none()).getRoomNumber()),
+                // after both last stays
+                () -> assertEquals(101, hotel.autoAssign(DateRange.ofNights(today.plusDays(8), 5), 1,
+                        RoomPreferences.none()).getRoomNumber()),
+                () -> assertNull(hotel.autoAssign(DateRange.ofNights(today, 1), 2, new RoomPreferences(null, 120)))
+        );
+    }
+
+    @Test
+    public void autoAssignSkipsRoomsBookedForTheNightsUntilCheckout() {
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 200, 2));
+
+        hotel.checkIn(101, new Guest("A"), List.of(), LocalDate.now().plusDays(5), 2);
+        DateRange later = DateRange.ofNights(LocalDate.now().plusDays(4), 2);
+        assertEquals(101, hotel.autoAssign(tonight, 2, RoomPreferences.none()).getRoomNumber());
+        assertEquals(102, hotel.autoAssign(later, 2, RoomPreferences.none()).getRoomNumber());
+
+        hotel.checkIn(102, new Guest("B"), List.of(), 6);
+        assertNull(hotel.autoAssign(later, 1, RoomPreferences.none()));
+
+        hotel.checkOut(102);
+        assertEquals(102, hotel.autoAssign(later, 1, RoomPreferences.none()).getRoomNumber());
+    }
+
+    @Test
+    public void secondaryIndexesFollowAddRoomAndLoad() throws Exception {
+        hotel.addRoom(new Room(101, 300, 2));
+        hotel.addRoom(new Room(102, 100, 1));
+        hotel.addRoom(new Room(201, 200, 2));
+
+        assertAll(
+                () -> assertEquals(List.of(102, 201, 101), roomNumbers(hotel.getRoomsByPrice())),
+                () -> assertEquals(List.of(102, 201), roomNumbers(hotel.getRoomsInPriceRange(100, 300))),
+                () -> assertEquals(List.of(101, 102), roomNumbers(hotel.getRoomsOnFloor(1)))
+        );
+
+        Path file = tempDir.resolve("indexed.csv");
+        hotel.saveRoomsToFile(file.toString());
+        Hotel loaded = new Hotel();
+        loaded.addRoom(new Room(301, 50, 1));
+        loaded.loadRoomsFromFile(file.toString());
+
+        assertAll(
+                () -> assertEquals(List.of(102, 201, 101), roomNumbers(loaded.getRoomsByPrice())),
+                () -> assertTrue(loaded.getRoomsOnFloor(3).isEmpty())
+        );
+    }
+
+    @Test
+    public void departureIndexFollowsCheckInCheckOutAndLoad() throws Exception {
+        LocalDate today = LocalDate.now();
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 100, 2));
+        hotel.addRoom(new Room(201, 100, 2));
+        hotel.checkIn(101, new Guest("A"), List.of(), today.minusDays(2), 2);
+        hotel.checkIn(102, new Guest("B"), List.of(), today.minusDays(4), 1);
+        hotel.checkIn(201, new Guest("C"), List.of(), today.plusDays(1), 3);
+
+        assertAll(
+                () -> assertEquals(List.of(101), stayRooms(hotel.departuresOn(today))),
+                () -> assertEquals(List.of(102), stayRooms(hotel.overdue(today))),
+                () -> assertEquals(List.of(201), stayRooms(hotel.arrivalsOn(today.plusDays(1)))),
+                () -> assertEquals(List.of(201), stayRooms(hotel.departuresOn(today.plusDays(4))))
+        );
+
+        hotel.checkOut(102);
+        assertTrue(hotel.overdue(today).isEmpty());
+
+        Path file = tempDir.resolve("departures.csv");
+        hotel.saveRoomsToFile(file.toString());
+        Hotel loaded = new Hotel();
+        loaded.loadRoomsFromFile(file.toString());
+
+        assertAll(
+                () -> assertEquals(List.of(101), stayRooms(loaded.departuresOn(today))),
+                () -> assertEquals(List.of(101), stayRooms(loaded.overdue(today.plusDays(1))))
+        );
+    }
+
+    private static List<Integer> stayRooms(List<ScheduledStay> stays) {
+        return stays.stream().map(ScheduledStay::roomNumber).toList();
+    }
+
+    @Test
+    public void nightAuditClosesAndBillsDueStays() {
+        LocalDate day = LocalDate.of(2025, 6, 10);
+        Room seasonal = new Room(101, 100, 2);
+        seasonal.setRate(day.minusDays(1), day, new Rate(250));
+        hotel.addRoom(seasonal);
+        hotel.addRoom(new Room(102, 80, 2));
+        hotel.addRoom(new Room(201, 120, 2));
+        hotel.checkIn(101, new Guest("A"), List.of(), day.minusDays(3), 3);
+        hotel.checkIn(102, new Guest("B"), List.of(), day.minusDays(5), 2);
+        hotel.checkIn(201, new Guest("C"), List.of(), day.minusDays(1), 4);
+
+        AuditLedger ledger = hotel.nightAudit(day);
+
+        assertAll(
+                () -> assertEquals(List.of(102, 101), ledger.entries().stream().map(AuditEntry::roomNumber).toList()),
+                // 102 was due 3 days ago and is billed up to the audit date
+                () -> assertEquals(5 * 80.0, ledger.entries().get(0).bill()),
+                () -> assertEquals(day, ledger.entries().get(0).checkoutDate()),
+                () -> assertEquals(100 + 100 + 250.0, ledger.entries().get(1).bill()),
+                () -> assertEquals(850.0, ledger.total()),
+                () -> assertTrue(hotel.getRoom(101).isFree()),
+                () -> assertTrue(hotel.getRoom(102).isFree()),
+                () -> assertFalse(hotel.getRoom(201).isFree()),
+                () -> assertTrue(hotel.overdue(day.plusDays(1)).isEmpty()),
+                () -> assertEquals(1, hotel.getStatistics().stays())
+        );
+        assertEquals(0, hotel.nightAudit(day).size());
+    }
+
+    @Test
+    public void nightAuditBillsOverdueStayLikeACheckOut() {
+        LocalDate today = LocalDate.now();
+        for (int roomNumber : List.of(101, 102)) {
+            Room room = new Room(roomNumber, 100, 2);
+            room.setRate(today.minusDays(2), today, new Rate(150));
+            hotel.addRoom(room);
+            hotel.checkIn(roomNumber, new Guest("Guest " + roomNumber), List.of(), today.minusDays(4), 1);
+        }
+
+        double checkedOut = hotel.checkOut(101);
+        AuditEntry audited = hotel.nightAudit(today).entries().getFirst();
+
+        assertAll(
+                () -> assertEquals(100 + 100 + 150 + 150.0, checkedOut),
+                () -> assertEquals(102, audited.roomNumber()),
+                () -> assertEquals(checkedOut, audited.bill()),
+                () -> assertEquals(today, audited.checkoutDate())
+        );
+    }
+
+    @Test
+    public void checkInAllChecksInWholeGroup() {
+        LocalDate day = LocalDate.of(2025, 6, 10);
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 100, 3));
+        List<CheckinRequest> requests = List.of(
+                new CheckinRequest(102, new Guest("A"), List.of(new Guest("B"), new Guest("C")), day, 2),
+                new CheckinRequest(101, new Guest("D"), List.of(), day, 2),
+                new CheckinRequest(101, new Guest("E"), List.of(), day.plusDays(2), 1));
+
+        List<CheckinResult> results = hotel.checkInAll(requests);
+
+        assertAll(
+                () -> assertTrue(results.stream().allMatch(CheckinResult::isCheckedIn)),
+                () -> assertEquals(requests, results.stream().map(CheckinResult::request).toList()),
+                () -> assertEquals(2, hotel.getRoom(101).getReservationCount()),
+                () -> assertEquals(5, hotel.getStatistics().guests())
+        );
+    }
+
+    @Test
+    public void checkInAllAppliesNothingIfAnyRequestIsInvalid() {
+        LocalDate day = LocalDate.of(2025, 6, 10);
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 100, 1));
+        List<CheckinRequest> requests = List.of(
+                new CheckinRequest(101, new Guest("A"), List.of(), day, 3),
+                new CheckinRequest(101, new Guest("B"), List.of(), day.plusDays(1), 1),
+                new CheckinRequest(102, new Guest("C"), List.of(new Guest("D")), day, 1),
+                new CheckinRequest(999, new Guest("E"), List.of(), day, 1));
+
+        List<CheckinResult> results = hotel.checkInAll(requests);
+
+        assertAll(
+                () -> assertEquals(List.of(CheckinResult.Status.SKIPPED, CheckinResult.Status.REJECTED,
+                                CheckinResult.Status.REJECTED, CheckinResult.Status.REJECTED),
+                        results.stream().map(CheckinResult::status).toList()),
+                () -> assertEquals("Room 101 already occupied", results.get(1).message()),
+                () -> assertEquals("Room 102 holds at most 1 guests", results.get(2).message()),
+                () -> assertEquals("Room with number 999 does not exist", results.get(3).message()),
+                () -> assertTrue(hotel.getRoom(101).isFree()),
+                () -> assertTrue(hotel.getRoom(102).isFree()),
+                () -> assertEquals(0, hotel.getStatistics().stays())
+        );
+    }
+
+    @Test
+    public void readCheckinRequestsParsesGroupFile() throws IOException, HotelDataException {
+        Path file = tempDir.resolve("group.csv");
+        Files.writeString(file, """
+                RoomNumber;GuestName;CheckinDate;Duration;AdditionalGuests
+                101;Anna;2025-06-10;2;Ben|Cleo
+                102;Dan;;1;
+                """);
+
+        List<CheckinRequest> requests = hotel.readCheckinRequests(file.toString());
+
+        assertAll(
+                () -> assertEquals(2, requests.size()),
+                () -> assertEquals(new CheckinRequest(101, new Guest("Anna"), List.of(new Guest("Ben"), new Guest("Cleo")),
+                        LocalDate.of(2025, 6, 10), 2), requests.get(0)),
+                () -> assertEquals(LocalDate.now(), requests.get(1).checkinDate()),
+                () -> assertTrue(requests.get(1).additionalGuests().isEmpty())
+        );
+    }
+
+    @Test
+    public void readCheckinRequestsReportsBadLine() throws IOException {
+        Path file = tempDir.resolve("group.csv");
+        Files.writeString(file, """
+                RoomNumber;GuestName;CheckinDate;Duration;AdditionalGuests
+                101;Anna;2025-06-10;2;
+                102;Dan;2025-06-10;two;
+                """);
+
+        HotelDataException e = assertThrows(HotelDataException.class,
+                () -> hotel.readCheckinRequests(file.toString()));
+        assertTrue(e.getMessage().contains("line 2"));
+    }
+
+    @Test
+    public void tryCheckInAndTryCheckOutReportStatus() {
+        LocalDate today = LocalDate.now();
+        hotel.addRoom(new Room(101, 100, 1));
+
+        assertAll(
+                () -> assertEquals(BookingStatus.ROOM_NOT_FOUND,
+                        hotel.tryCheckIn(999, new Guest("A"), List.of(), today, 1)),
+                () -> assertEquals(BookingStatus.CAPACITY_EXCEEDED,
+                        hotel.tryCheckIn(101, new Guest("A"), List.of(new Guest("B")), today, 1)),
+                () -> assertEquals(BookingStatus.ROOM_FREE, hotel.tryCheckOut(101).status()),
+                () -> assertEquals(BookingStatus.OK, hotel.tryCheckIn(101, new Guest("A"), List.of(), today, 1)),
+                () -> assertEquals(BookingStatus.ROOM_OCCUPIED,
+                        hotel.tryCheckIn(101, new Guest("B"), List.of(), today, 1)),
+                () -> assertEquals(1, hotel.findGuestsByPrefix("a", 10).size()),
+                () -> assertEquals(BookingStatus.ROOM_NOT_FOUND, hotel.tryCheckOut(999).status()),
+                () -> assertEquals(CheckoutResult.billed(100), hotel.tryCheckOut(101)),
+                () -> assertEquals(0, hotel.getStatistics().bookedRooms())
+        );
+    }
+
+    @Test
+    public void backgroundSaveWritesStateCapturedAtStart() throws Exception {
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 150, 2));
+        Path file = tempDir.resolve("async.csv");
+        int[] lastProgress = {0, 0};
+
+        BackgroundSave save = hotel.saveRoomsInBackground(file.toString(), (written, total) -> {
+            lastProgress[0] = written;
+            lastProgress[1] = total;
+        });
+        hotel.checkIn(101, new Guest("Late Guest"), List.of(), 1);
+        int saved = save.result().get();
+        hotel.awaitBackgroundSaves();
+
+        String content = Files.readString(file);
+        assertAll(
+                () -> assertEquals(2, saved),
+                () -> assertTrue(save.isDone()),
+                () -> assertEquals(2, save.getWrittenRooms()),
+                () -> assertArrayEquals(new int[]{2, 2}, lastProgress),
+                () -> assertTrue(content.contains("101;2;100.0;;")),
+                () -> assertFalse(content.contains("Late Guest")),
+                () -> assertEquals(List.of("async.csv"), Files.list(tempDir).map(p -> p.getFileName().toString()).toList())
+        );
+    }
+
+    @Test
+    public void failedBackgroundSaveCompletesExceptionally() {
+        hotel.addRoom(new Room(101, 100, 2));
+        BackgroundSave save = hotel.saveRoomsInBackground(tempDir.resolve("missing").resolve("x.csv").toString(), null);
+
+        java.util.concurrent.ExecutionException e = assertThrows(java.util.concurrent.ExecutionException.class,
+                () -> save.result().get());
+        assertInstanceOf(HotelDataException.class, e.getCause());
+    }
 }
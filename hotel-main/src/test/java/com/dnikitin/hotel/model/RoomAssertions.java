@@ -0,0 +1,32 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.map.MyMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Assertions shared by the tests of the state file readers and writers.
+ */
+final class RoomAssertions {
+
+    private RoomAssertions() {
+    }
+
+    /**
+     * Asserts that two sets of rooms hold the same room numbers, and that every room has the
+     * same price, capacity, stays and seasonal rates in both.
+     *
+     * @param expected The rooms as they were written.
+     * @param actual   The rooms as they were read back.
+     */
+    static void assertSameRooms(MyMap<Integer, Room> expected, MyMap<Integer, Room> actual) {
+        assertEquals(expected.keys(), actual.keys());
+        for (java.util.Map.Entry<Integer, Room> entry : expected) {
+            Room room = actual.get(entry.getKey());
+            assertEquals(entry.getValue().getPrice(), room.getPrice());
+            assertEquals(entry.getValue().getCapacity(), room.getCapacity());
+            assertEquals(entry.getValue().getReservations(), room.getReservations());
+            assertEquals(entry.getValue().getRates().getSeasons(), room.getRates().getSeasons());
+        }
+    }
+}
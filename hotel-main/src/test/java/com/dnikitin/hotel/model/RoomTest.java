@@ -7,7 +7,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,5 +106,227 @@ public class RoomTest {
         assertEquals(room.getPrice() * duration, price);
     }
 
+    @Test
+    public void priceStayUsesBasePriceWithoutSeasons() {
+        LocalDate from = LocalDate.parse("2025-01-01");
+        assertEquals(room.getPrice() * 30, room.priceStay(from, from.plusDays(30)));
+    }
+
+    @Test
+    public void priceStaySumsOverlappingSeasons() {
+        LocalDate from = LocalDate.parse("2025-07-01");
+        // 3 nights at base, 4 nights in high season, 3 nights in promotion
+        room.setRate(from.plusDays(3), from.plusDays(7), new Rate(300.0));
+        room.setRate(from.plusDays(7), from.plusDays(20), new Rate(150.0));
+
+        double expected = 3 * 200.0 + 4 * 300.0 + 3 * 150.0;
+        assertEquals(expected, room.priceStay(from, from.plusDays(10)), 1e-9);
+    }
+
+    @Test
+    public void checkOutChargesSeasonalRate() {
+        LocalDate checkinDate = LocalDate.now().minusDays(2);
+        room.setRate(checkinDate.plusDays(1), checkinDate.plusDays(5), new Rate(500.0));
+        room.checkIn(new Reservation(guest, List.of(), checkinDate, 2));
+
+        assertEquals(200.0 + 500.0, room.checkOut(), 1e-9);
+    }
+
+    @Test
+    public void advanceBookingAfterCurrentStayIsAccepted() {
+        LocalDate today = LocalDate.now();
+        room.checkIn(reservation); // today + 2 nights
+        Reservation future = new Reservation(new Guest("Jane Roe"), List.of(), today.plusDays(2), 3);
+
+        room.checkIn(future);
+
+        assertAll(
+                () -> assertEquals(2, room.getReservations().size()),
+                () -> assertEquals(reservation, room.getReservation()),
+                () -> assertTrue(room.isBookedOn(today.plusDays(4))),
+                () -> assertFalse(room.isBookedOn(today.plusDays(5))),
+                () -> assertEquals(future, room.getReservationOn(today.plusDays(3)))
+        );
+    }
+
+    @Test
+    public void overlappingAdvanceBookingIsRejected() {
+        LocalDate today = LocalDate.now();
+        room.checkIn(new Reservation(guest, List.of(), today.plusDays(10), 5));
+        Reservation overlapping = new Reservation(guest, List.of(), today.plusDays(8), 3);
+
+        assertAll(
+                () -> assertThrows(RoomOccupiedException.class, () -> room.checkIn(overlapping)),
+                () -> assertTrue(room.isAvailable(today, today.plusDays(10))),
+                () -> assertFalse(room.isAvailable(today.plusDays(14), today.plusDays(16)))
+        );
+    }
+
+    @Test
+    public void nextFreeDateSkipsBackToBackStays() {
+        LocalDate today = LocalDate.now();
+        room.checkIn(new Reservation(guest, List.of(), today, 2));
+        room.checkIn(new Reservation(guest, List.of(), today.plusDays(2), 3));
+
+        assertAll(
+                () -> assertEquals(today.plusDays(5), room.nextFreeDate(today)),
+                () -> assertEquals(today.plusDays(6), room.nextFreeDate(today.plusDays(6)))
+        );
+    }
+
+    @Test
+    public void checkOutClosesEarliestStayOnly() {
+        LocalDate today = LocalDate.now();
+        Reservation future = new Reservation(guest, List.of(), today.plusDays(7), 2);
+        room.checkIn(reservation);
+        room.checkIn(future);
+
+        room.checkOut();
+
+        assertAll(
+                () -> assertFalse(room.isFree()),
+                () -> assertEquals(future, room.getReservation())
+        );
+    }
+
+    @Test
+    public void checkOutLeavesFutureBookingInPlace() {
+        Reservation future = new Reservation(guest, List.of(), LocalDate.now().plusDays(3), 2);
+        room.checkIn(future);
+
+        assertAll(
+                () -> assertThrows(RoomFreeException.class, () -> room.checkOut()),
+                () -> assertEquals(BookingStatus.ROOM_FREE, room.tryCheckOut().status()),
+                () -> assertEquals(List.of(future), room.getReservations())
+        );
+    }
+
+    @Test
+    public void concurrentCheckInsOfSameNightHaveSingleWinner() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger losers = new AtomicInteger();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Reservation stay = new Reservation(new Guest("Guest " + t), List.of(), LocalDate.now(), 1);
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    room.checkIn(stay);
+                    winners.incrementAndGet();
+                } catch (RoomOccupiedException e) {
+                    losers.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertAll(
+                () -> assertEquals(1, winners.get()),
+                () -> assertEquals(threads - 1, losers.get()),
+                () -> assertEquals(1, room.getReservationCount())
+        );
+    }
+
+    @Test
+    public void concurrentCheckInsAndCheckOutsLoseNoUpdates() throws Exception {
+        int threads = 8;
+        int rounds = 2000;
+        LocalDate today = LocalDate.now();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger checkOuts = new AtomicInteger();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Reservation stay = new Reservation(new Guest("Guest " + t), List.of(), today.minusDays(10L * (t + 1)), 1);
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    for (int i = 0; i < rounds; i++) {
+                        room.checkIn(stay);
+                        if (!room.removeReservation(stay)) {
+                            failures.add(new AssertionError("Stay of " + stay.checkinDate() + " was lost"));
+                        }
+                    }
+                    room.checkIn(stay);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        int booked = room.getReservationCount();
+
+        workers.clear();
+        for (int t = 0; t < threads; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                while (true) {
+                    try {
+                        room.checkOut();
+                        checkOuts.incrementAndGet();
+                    } catch (RoomFreeException e) {
+                        break;
+                    }
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertAll(
+                () -> assertTrue(failures.isEmpty(), () -> "Unexpected failure: " + failures.peek()),
+                () -> assertEquals(threads, booked),
+                () -> assertEquals(threads, checkOuts.get()),
+                () -> assertTrue(room.isFree())
+        );
+    }
 
+    @Test
+    public void tryCheckInReportsStatusInsteadOfThrowing() {
+        Reservation overlapping = new Reservation(guest, List.of(), LocalDate.now().plusDays(1), 1);
+        Reservation tooBig = new Reservation(guest, List.of(new Guest("A"), new Guest("B")),
+                LocalDate.now().plusDays(5), 1);
+
+        assertAll(
+                () -> assertEquals(BookingStatus.OK, room.tryCheckIn(reservation)),
+                () -> assertEquals(BookingStatus.ROOM_OCCUPIED, room.tryCheckIn(overlapping)),
+                () -> assertEquals(BookingStatus.CAPACITY_EXCEEDED, room.tryCheckIn(tooBig)),
+                () -> assertEquals(1, room.getReservationCount())
+        );
+    }
+
+    @Test
+    public void tryCheckOutReturnsBillOrSharedFailure() {
+        room.checkIn(new Reservation(guest, List.of(), LocalDate.now().minusDays(2), 2));
+
+        CheckoutResult billed = room.tryCheckOut();
+        CheckoutResult free = room.tryCheckOut();
+
+        assertAll(
+                () -> assertTrue(billed.isOk()),
+                () -> assertEquals(400.0, billed.bill()),
+                () -> assertEquals(BookingStatus.ROOM_FREE, free.status()),
+                () -> assertSame(free, room.tryCheckOut())
+        );
+    }
+
+    @Test
+    public void bookingExceptionsHaveNoStackTrace() {
+        room.checkIn(reservation);
+
+        RoomOccupiedException e = assertThrows(RoomOccupiedException.class, () -> room.checkIn(reservation));
+        assertAll(
+                () -> assertEquals("Room 101 already occupied", e.getMessage()),
+                () -> assertEquals(0, e.getStackTrace().length)
+        );
+    }
 }
@@ -0,0 +1,311 @@
+package com.dnikitin.hotel.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateCsvParserTest {
+
+    private static final String HEADER = "RoomNumber;Capacity;Price;GuestName;CheckinDate;Duration;AdditionalGuests";
+
+    @TempDir
+    Path tempDir;
+
+    private StateCsvParser parse(String rows) throws IOException {
+        Path file = tempDir.resolve("state.csv");
+        Files.writeString(file, HEADER + "\r\n" + rows);
+        return StateCsvParser.open(file.toString());
+    }
+
+    @Test
+    public void readsPlainAndQuotedFields() throws IOException {
+        try (StateCsvParser parser = parse("101;2;150.5; John Doe ;2025-03-01;3;A|B\r\n"
+                + "102;1;99.0;\"Smith; \"\"Jr\"\"\";2025-03-02;1;\"Line\nbreak\"\r\n")) {
+            assertTrue(parser.next());
+            assertAll(
+                    () -> assertEquals(1, parser.recordNumber()),
+                    () -> assertEquals(101, parser.intField(StateCsvParser.ROOM_NUMBER)),
+                    () -> assertEquals(150.5, parser.doubleField(StateCsvParser.PRICE)),
+                    () -> assertEquals(new Guest("John Doe"), parser.guestField(StateCsvParser.GUEST_NAME)),
+                    () -> assertEquals(LocalDate.of(2025, 3, 1), parser.dateField(StateCsvParser.CHECKIN_DATE)),
+                    () -> assertEquals(List.of(new Guest("A"), new Guest("B")),
+                            parser.guestListField(StateCsvParser.ADDITIONAL_GUESTS))
+            );
+            assertTrue(parser.next());
+            assertAll(
+                    () -> assertEquals(2, parser.recordNumber()),
+                    () -> assertEquals(new Guest("Smith; \"Jr\""), parser.guestField(StateCsvParser.GUEST_NAME)),
+                    () -> assertEquals(List.of(new Guest("Line\nbreak")),
+                            parser.guestListField(StateCsvParser.ADDITIONAL_GUESTS))
+            );
+            assertFalse(parser.next());
+        }
+    }
+
+    @Test
+    public void skipsEmptyLinesAndAcceptsAllLineEnds() throws IOException {
+        try (StateCsvParser parser = parse("\n101;2;100.0;;;;\r\r\n102;2;100.0;;;;\r103;2;100.0;;;;")) {
+            assertTrue(parser.next());
+            assertEquals(101, parser.intField(StateCsvParser.ROOM_NUMBER));
+            assertTrue(parser.next());
+            assertEquals(102, parser.intField(StateCsvParser.ROOM_NUMBER));
+            assertTrue(parser.next());
+            assertAll(
+                    () -> assertEquals(3, parser.recordNumber()),
+                    () -> assertEquals(103, parser.intField(StateCsvParser.ROOM_NUMBER)),
+                    () -> assertNull(parser.guestField(StateCsvParser.GUEST_NAME)),
+                    () -> assertEquals(List.of(), parser.guestListField(StateCsvParser.ADDITIONAL_GUESTS))
+            );
+            assertFalse(parser.next());
+        }
+    }
+
+    @Test
+    public void valuesOutsideTheFastPathsParseLikeTheJdk() throws IOException {
+        try (StateCsvParser parser = parse("+7;-3;1.0E7;G;+10000-03-01;2147483647;|A||B||\n"
+                + "-2147483648;0;0.1234567890123456789;G;2025-03-01;1;|\n")) {
+            assertTrue(parser.next());
+            assertAll(
+                    () -> assertEquals(7, parser.intField(StateCsvParser.ROOM_NUMBER)),
+                    () -> assertEquals(-3, parser.intField(StateCsvParser.CAPACITY)),
+                    () -> assertEquals(1.0E7, parser.doubleField(StateCsvParser.PRICE)),
+                    () -> assertEquals(LocalDate.of(10000, 3, 1), parser.dateField(StateCsvParser.CHECKIN_DATE)),
+                    () -> assertEquals(Integer.MAX_VALUE, parser.intField(StateCsvParser.DURATION)),
+                    () -> assertEquals(List.of(new Guest(""), new Guest("A"), new Guest(""), new Guest("B")),
+                            parser.guestListField(StateCsvParser.ADDITIONAL_GUESTS))
+            );
+            assertTrue(parser.next());
+            assertAll(
+                    () -> assertEquals(Integer.MIN_VALUE, parser.intField(StateCsvParser.ROOM_NUMBER)),
+                    () -> assertEquals(Double.parseDouble("0.1234567890123456789"),
+                            parser.doubleField(StateCsvParser.PRICE)),
+                    () -> assertEquals(List.of(), parser.guestListField(StateCsvParser.ADDITIONAL_GUESTS))
+            );
+        }
+    }
+
+    @Test
+    public void malformedValuesFailWithTheJdkExceptions() throws IOException {
+        try (StateCsvParser parser = parse("10x;2147483648; ;G;2025-02-30;1\n")) {
+            assertTrue(parser.next());
+
+            NumberFormatException badInt = assertThrows(NumberFormatException.class,
+                    () -> parser.intField(StateCsvParser.ROOM_NUMBER));
+            NumberFormatException overflow = assertThrows(NumberFormatException.class,
+                    () -> parser.intField(StateCsvParser.CAPACITY));
+            NumberFormatException empty = assertThrows(NumberFormatException.class,
+                    () -> parser.doubleField(StateCsvParser.PRICE));
+            DateTimeParseException badDate = assertThrows(DateTimeParseException.class,
+                    () -> parser.dateField(StateCsvParser.CHECKIN_DATE));
+            IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+                    () -> parser.guestListField(StateCsvParser.ADDITIONAL_GUESTS));
+
+            assertAll(
+                    () -> assertEquals(assertThrows(NumberFormatException.class,
+                            () -> Integer.parseInt("10x")).getMessage(), badInt.getMessage()),
+                    () -> assertEquals(assertThrows(NumberFormatException.class,
+                            () -> Integer.parseInt("2147483648")).getMessage(), overflow.getMessage()),
+                    () -> assertEquals("empty String", empty.getMessage()),
+                    () -> assertEquals("2025-02-30", badDate.getParsedString()),
+                    () -> assertEquals("Missing value for column AdditionalGuests", missing.getMessage())
+            );
+        }
+    }
+
+    @Test
+    public void repeatedGuestsAndDatesComeFromTheCache() throws IOException {
+        try (StateCsvParser parser = parse("101;2;100.0;Alice;2025-03-01;1;Bob\n"
+                + "102;2;100.0;Bob;2025-03-01;1;Alice\n")) {
+            parser.next();
+            Guest alice = parser.guestField(StateCsvParser.GUEST_NAME);
+            LocalDate date = parser.dateField(StateCsvParser.CHECKIN_DATE);
+            Guest bob = parser.guestListField(StateCsvParser.ADDITIONAL_GUESTS).getFirst();
+            parser.next();
+
+            assertAll(
+                    () -> assertSame(bob, parser.guestField(StateCsvParser.GUEST_NAME)),
+                    () -> assertSame(alice, parser.guestListField(StateCsvParser.ADDITIONAL_GUESTS).getFirst()),
+                    () -> assertSame(date, parser.dateField(StateCsvParser.CHECKIN_DATE))
+            );
+        }
+    }
+
+    @Test
+    public void recordsLargerThanTheBufferAreRead() throws IOException {
+        String longName = "N".repeat(200_000);
+        try (StateCsvParser parser = parse("101;2;100.0;\"" + longName + "\";2025-03-01;1;\n102;2;100.0;;;;\n")) {
+            assertTrue(parser.next());
+            assertEquals(longName, parser.guestField(StateCsvParser.GUEST_NAME).name());
+            assertTrue(parser.next());
+            assertEquals(102, parser.intField(StateCsvParser.ROOM_NUMBER));
+        }
+    }
+
+    @Test
+    public void unterminatedQuoteIsAnIoError() throws IOException {
+        try (StateCsvParser parser = parse("101;2;100.0;\"Open;2025-03-01;1;\n")) {
+            assertThrows(IOException.class, parser::next);
+        }
+    }
+
+    @Test
+    public void mappedWindowsReadTheSameRowsAsTheBuffer() throws IOException {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            rows.append(100 + i).append(";2;100.0;\"Guest; ").append(i).append("\";2025-03-01;1;A|B;2025-07-01/2025-09-01=300.0\r\n");
+        }
+        rows.append("200;2;100.0;\"").append("N".repeat(300)).append("\";2025-03-01;1;;\n");
+        Path file = tempDir.resolve("state.csv");
+        Files.writeString(file, HEADER + "\r\n" + rows);
+
+        List<String> buffered = readAll(file, 0, false);
+        List<String> mapped = readAll(file, StateCsvParser.MAP_WINDOW_BYTES, true);
+        List<String> smallWindows = readAll(file, 64, true);
+
+        assertAll(
+                () -> assertEquals(51 * 8, buffered.size()),
+                () -> assertEquals(buffered, mapped),
+                () -> assertEquals(buffered, smallWindows)
+        );
+    }
+
+    @Test
+    public void channelsThatCannotBeMappedAreReadThroughTheBuffer() throws IOException {
+        Path file = tempDir.resolve("state.csv");
+        Files.writeString(file, HEADER + "\r\n101;2;100.0;Alice;2025-03-01;1;\r\n");
+        FileChannel channel = new UnmappableChannel(FileChannel.open(file));
+
+        try (StateCsvParser parser = StateCsvParser.open(channel, 0, channel.size(), true)) {
+            assertFalse(parser.isMapped());
+            assertTrue(parser.next());
+            assertEquals(new Guest("Alice"), parser.guestField(StateCsvParser.GUEST_NAME));
+            assertFalse(parser.next());
+        }
+        assertFalse(channel.isOpen());
+    }
+
+    private static List<String> readAll(Path file, int mapWindow, boolean expectMapped) throws IOException {
+        FileChannel channel = FileChannel.open(file);
+        List<String> fields = new ArrayList<>();
+        try (StateCsvParser parser = StateCsvParser.open(channel, 0, channel.size(), true, mapWindow)) {
+            assertEquals(expectMapped, parser.isMapped());
+            while (parser.next()) {
+                for (int column = 0; column < Hotel.STATE_HEADERS.length; column++) {
+                    fields.add(parser.stringField(column));
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * A file channel that only supports reading, like one of a file system without mmap.
+     */
+    private static final class UnmappableChannel extends FileChannel {
+        private final FileChannel delegate;
+
+        private UnmappableChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileChannel truncate(long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void force(boolean metaData) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
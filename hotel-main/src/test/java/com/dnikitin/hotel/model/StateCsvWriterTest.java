@@ -0,0 +1,119 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.map.MyMap;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateCsvWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDate today = LocalDate.of(2025, 3, 1);
+
+    /**
+     * Prints the rooms the way state files were written with commons-csv.
+     */
+    private static String printedByCommonsCsv(Hotel hotel) throws IOException {
+        CSVFormat format = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+                .setDelimiter(';')
+                .setHeader(Hotel.STATE_HEADERS)
+                .get();
+        StringWriter out = new StringWriter();
+        try (CSVPrinter printer = new CSVPrinter(out, format)) {
+            for (Room room : hotel.getRooms()) {
+                String seasons = room.getRates().getSeasons().stream()
+                        .map(season -> season.from() + "/" + season.to() + "=" + season.value().nightlyPrice())
+                        .collect(Collectors.joining("|"));
+                if (room.getReservations().isEmpty()) {
+                    printer.printRecord(room.getRoomNumber(), room.getCapacity(), room.getPrice(), "", "", "", "", seasons);
+                }
+                for (Reservation stay : room.getReservations()) {
+                    printer.printRecord(room.getRoomNumber(), room.getCapacity(), room.getPrice(),
+                            stay.mainGuest().name(), stay.checkinDate(), stay.duration(),
+                            stay.additionalGuests().stream().map(Guest::name).collect(Collectors.joining("|")),
+                            seasons);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    @Test
+    public void writesTheSameBytesAsCommonsCsv() throws IOException, HotelDataException {
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(101, 150.0, 2));
+        hotel.addRoom(new Room(102, 99.99, 3));
+        hotel.addRoom(new Room(103, 1e7, 4));
+        hotel.addRoom(new Room(104, 80.5, 2));
+        hotel.checkIn(102, new Guest("Smith; \"Jr\""), List.of(new Guest("Żaneta"), new Guest("Ann ")), today, 3);
+        hotel.checkIn(102, new Guest("#Hash"), List.of(), today.plusDays(10), 1);
+        hotel.checkIn(103, new Guest("Ünal 😀"), List.of(new Guest("Multi\nLine")), today, 12);
+        hotel.setRate(102, today, today.plusDays(2), new Rate(120.5));
+        hotel.setRate(102, today.plusDays(7), today.plusDays(14), new Rate(1e7));
+        hotel.setRate(104, today, today.plusDays(1), new Rate(0.1));
+        Path file = tempDir.resolve("state.csv");
+
+        hotel.writeRoomsToFile(file.toString());
+
+        assertEquals(printedByCommonsCsv(hotel), Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void seasonalRatesAreReadBack() throws HotelDataException {
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100.0, 2));
+        hotel.addRoom(new Room(102, 100.0, 2));
+        hotel.checkIn(101, new Guest("John Doe"), List.of(), today, 3);
+        hotel.checkIn(101, new Guest("Alice Smith"), List.of(), today.plusDays(5), 2);
+        hotel.setRate(101, today.plusDays(1), today.plusDays(6), new Rate(150.25));
+        hotel.setRate(102, today, today.plusDays(30), new Rate(80.0));
+        Path file = tempDir.resolve("state.csv");
+
+        hotel.writeRoomsToFile(file.toString());
+        MyMap<Integer, Room> rooms = hotel.parseRoomsFile(file.toString());
+
+        assertAll(
+                () -> assertEquals(hotel.getRoom(101).getRates().getSeasons(), rooms.get(101).getRates().getSeasons()),
+                () -> assertEquals(hotel.getRoom(102).getRates().getSeasons(), rooms.get(102).getRates().getSeasons()),
+                () -> assertEquals(2, rooms.get(101).getReservations().size()),
+                () -> assertEquals(100.0 + 150.25 * 2, rooms.get(101).getRates().priceStay(today, today.plusDays(3)))
+        );
+    }
+
+    @Test
+    public void roomsLargerThanTheBufferAreReadBack() throws IOException, HotelDataException {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < 40_000; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 70 + 0.5, 2));
+            if (i % 2 == 0) {
+                hotel.checkIn(100 + i, new Guest("Guest " + i), List.of(new Guest("Child " + i % 7)), today, 1 + i % 5);
+            }
+        }
+        Path file = tempDir.resolve("state.csv");
+
+        hotel.writeRoomsToFile(file.toString());
+
+        MyMap<Integer, Room> rooms = hotel.parseRoomsFile(file.toString());
+        assertAll(
+                () -> assertTrue(Files.size(file) > StateCsvWriter.BUFFER_BYTES),
+                () -> assertEquals(printedByCommonsCsv(hotel), Files.readString(file, StandardCharsets.UTF_8)),
+                () -> assertEquals(40_000, rooms.size()),
+                () -> assertEquals(hotel.getRoom(40_098).getReservations(), rooms.get(40_098).getReservations())
+        );
+    }
+}
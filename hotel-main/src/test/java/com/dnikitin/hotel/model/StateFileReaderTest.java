@@ -0,0 +1,117 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.map.MyMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.dnikitin.hotel.model.RoomAssertions.assertSameRooms;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateFileReaderTest {
+
+    private static final String HEADER = "RoomNumber;Capacity;Price;GuestName;CheckinDate;Duration;AdditionalGuests";
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDate today = LocalDate.of(2025, 3, 1);
+
+    private Path saveHotel(int roomCount) throws HotelDataException {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < roomCount; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 50, 3));
+        }
+        for (int i = 0; i < roomCount; i += 3) {
+            // several stays per room, and names that have to be quoted
+            hotel.checkIn(100 + i, new Guest("Guest; \"no\" " + i), List.of(new Guest("Line\nbreak")), today, 2);
+            hotel.checkIn(100 + i, new Guest("Later " + i), List.of(), today.plusDays(5), 1);
+        }
+        Path file = tempDir.resolve("state.csv");
+        hotel.writeRoomsToFile(file.toString());
+        return file;
+    }
+
+    @Test
+    public void chunkedReadMatchesSequentialRead() throws Exception {
+        Path file = saveHotel(3000);
+
+        MyMap<Integer, Room> sequential = StateFileReader.readSequential(file.toString());
+
+        for (int chunks : List.of(2, 7, 64)) {
+            assertSameRooms(sequential, StateFileReader.readChunked(file.toString(), chunks));
+        }
+        assertEquals(3000, sequential.size());
+    }
+
+    @Test
+    public void chunkedReadMergesRoomsSplitAcrossChunks() throws IOException, HotelDataException {
+        StringBuilder content = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < 200; i++) {
+            content.append("101;2;100.0;Guest ").append(i).append(';')
+                    .append(today.plusDays(2L * i)).append(";1;\n");
+        }
+        // an unsorted, hand-written file
+        content.append("99;1;50.0;;;;\n");
+        content.append("101;2;100.0;Last;").append(today.plusDays(1000)).append(";1;\n");
+        Path file = tempDir.resolve("split.csv");
+        Files.writeString(file, content);
+
+        MyMap<Integer, Room> rooms = StateFileReader.readChunked(file.toString(), 9);
+
+        assertAll(
+                () -> assertEquals(List.of(99, 101), rooms.keys()),
+                () -> assertEquals(201, rooms.get(101).getReservationCount()),
+                () -> assertSameRooms(StateFileReader.readSequential(file.toString()), rooms)
+        );
+    }
+
+    @Test
+    public void chunkedReadReportsSameLineAsSequentialRead() throws IOException {
+        StringBuilder content = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < 500; i++) {
+            String date = i == 321 ? "2025-13-40" : today.toString();
+            content.append(100 + i).append(";2;100.0;Guest;").append(date).append(";1;\n");
+        }
+        Path file = tempDir.resolve("bad.csv");
+        Files.writeString(file, content);
+
+        HotelDataException sequential = assertThrows(HotelDataException.class,
+                () -> StateFileReader.readSequential(file.toString()));
+        HotelDataException chunked = assertThrows(HotelDataException.class,
+                () -> StateFileReader.readChunked(file.toString(), 8));
+
+        assertAll(
+                () -> assertEquals("Error parsing data in file near line 322: 2025-13-40", sequential.getMessage()),
+                () -> assertEquals(sequential.getMessage(), chunked.getMessage())
+        );
+    }
+
+    @Test
+    public void chunkedReadReportsOverlapAcrossChunksAtLaterRow() throws IOException {
+        StringBuilder content = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < 300; i++) {
+            content.append("101;2;100.0;Guest ").append(i).append(';')
+                    .append(today.plusDays(2L * i)).append(";1;\n");
+        }
+        content.append("101;2;100.0;Overlap;").append(today).append(";1;\n");
+        Path file = tempDir.resolve("overlap.csv");
+        Files.writeString(file, content);
+
+        HotelDataException sequential = assertThrows(HotelDataException.class,
+                () -> StateFileReader.readSequential(file.toString()));
+        HotelDataException chunked = assertThrows(HotelDataException.class,
+                () -> StateFileReader.readChunked(file.toString(), 4));
+
+        assertAll(
+                () -> assertTrue(sequential.getMessage().startsWith("Inconsistent reservation in file near line 301:")),
+                () -> assertEquals(sequential.getMessage(), chunked.getMessage())
+        );
+    }
+}
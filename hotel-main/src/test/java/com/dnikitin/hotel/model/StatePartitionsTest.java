@@ -0,0 +1,118 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.map.MyMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatePartitionsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDate today = LocalDate.of(2025, 3, 1);
+
+    /**
+     * A hotel with five floors of twenty rooms, every third room booked.
+     */
+    private Hotel hotel() {
+        Hotel hotel = new Hotel();
+        for (int floor = 1; floor <= 5; floor++) {
+            for (int i = 1; i <= 20; i++) {
+                int number = floor * 100 + i;
+                hotel.addRoom(new Room(number, 80 + i, 2));
+                if (i % 3 == 0) {
+                    hotel.checkIn(number, new Guest("Guest " + number), List.of(), today, 2);
+                }
+            }
+        }
+        return hotel;
+    }
+
+    private List<String> files(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    public void partitionsPerFloorLoadAsTheSavedRooms() throws IOException, HotelDataException {
+        Hotel hotel = hotel();
+        Path dir = tempDir.resolve("state");
+
+        PartitionSaveResult result = hotel.writeRoomsToPartitions(dir.toString(), StatePartitioning.byFloor(), StateFormat.CSV);
+        MyMap<Integer, Room> rooms = new Hotel().parseRoomsFile(dir.toString());
+
+        List<String> manifest = Files.readAllLines(dir.resolve(StatePartitions.MANIFEST));
+        assertAll(
+                () -> assertEquals(new PartitionSaveResult(100, 5, 5), result),
+                () -> assertEquals(6, files(dir).size()),
+                () -> assertEquals("File;Rooms;Checksum", manifest.getFirst()),
+                () -> assertTrue(manifest.get(1).matches("floor-1-[0-9a-f]{8}\\.csv;20;[0-9a-f]{8}"), manifest.get(1)),
+                () -> assertEquals(100, rooms.size()),
+                () -> assertEquals(hotel.getRoom(306).getReservations(), rooms.get(306).getReservations())
+        );
+    }
+
+    @Test
+    public void onlyChangedPartitionsAreWrittenAgain() throws IOException, HotelDataException {
+        Hotel hotel = hotel();
+        Path dir = tempDir.resolve("state");
+        hotel.writeRoomsToPartitions(dir.toString(), StatePartitioning.byFloor(), StateFormat.CSV);
+        List<String> before = files(dir);
+
+        hotel.checkIn(201, new Guest("Late Guest"), List.of(), today, 1);
+        PartitionSaveResult result = hotel.writeRoomsToPartitions(dir.toString(), StatePartitioning.byFloor(), StateFormat.CSV);
+        List<String> after = files(dir);
+
+        assertAll(
+                () -> assertEquals(new PartitionSaveResult(100, 5, 1), result),
+                () -> assertEquals(6, after.size()),
+                () -> assertEquals(before.stream().filter(file -> !file.startsWith("floor-2-")).toList(),
+                        after.stream().filter(file -> !file.startsWith("floor-2-")).toList()),
+                () -> assertNotEquals(before, after),
+                () -> assertEquals("Late Guest",
+                        new Hotel().parseRoomsFile(dir.toString()).get(201).getReservations().getFirst().mainGuest().name())
+        );
+    }
+
+    @Test
+    public void partitionsOfRoomRunsInBinaryFormat() throws IOException, HotelDataException {
+        Hotel hotel = hotel();
+        Path dir = tempDir.resolve("state");
+        hotel.writeRoomsToPartitions(dir.toString(), StatePartitioning.byFloor(), StateFormat.CSV);
+
+        PartitionSaveResult result = hotel.writeRoomsToPartitions(dir.toString(), StatePartitioning.ofRooms(30), StateFormat.BINARY);
+        MyMap<Integer, Room> rooms = new Hotel().parseRoomsFile(dir.toString());
+
+        assertAll(
+                () -> assertEquals(new PartitionSaveResult(100, 4, 4), result),
+                () -> assertEquals(List.of("manifest.csv"), files(dir).stream().filter(file -> !file.startsWith("rooms-")).toList()),
+                () -> assertTrue(files(dir).stream().allMatch(file -> file.equals("manifest.csv") || file.endsWith(".hsnap"))),
+                () -> assertEquals(hotel.getRooms().stream().map(Room::getRoomNumber).toList(), rooms.keys()),
+                () -> assertEquals(hotel.getRoom(515).getReservations(), rooms.get(515).getReservations())
+        );
+    }
+
+    @Test
+    public void partitionWithOtherRoomsThanTheManifestListsIsRejected() throws IOException, HotelDataException {
+        Path dir = tempDir.resolve("state");
+        hotel().writeRoomsToPartitions(dir.toString(), StatePartitioning.byFloor(), StateFormat.CSV);
+        Path manifest = dir.resolve(StatePartitions.MANIFEST);
+        Files.writeString(manifest, Files.readString(manifest).replaceFirst(";20;", ";21;"));
+
+        HotelDataException e = assertThrows(HotelDataException.class, () -> new Hotel().parseRoomsFile(dir.toString()));
+
+        assertTrue(e.getMessage().matches("Partition file .*floor-1-[0-9a-f]{8}\\.csv holds 20 rooms, "
+                + "but the manifest lists 21"), e.getMessage());
+    }
+}
@@ -0,0 +1,142 @@
+package com.dnikitin.hotel.model;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.map.MyMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.dnikitin.hotel.model.RoomAssertions.assertSameRooms;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateSnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDate today = LocalDate.of(2025, 3, 1);
+
+    private Hotel hotelWithStays(int roomCount) {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < roomCount; i++) {
+            hotel.addRoom(new Room(100 + i, 100 + i % 50 + 0.25, 3));
+        }
+        for (int i = 0; i < roomCount; i += 3) {
+            hotel.checkIn(100 + i, new Guest("Guest; \"no\" " + i % 10), List.of(new Guest("Żaneta")), today, 2);
+            hotel.checkIn(100 + i, new Guest("Later " + i), List.of(), today.plusDays(5), 1);
+        }
+        for (int i = 0; i < roomCount; i += 7) {
+            hotel.setRate(100 + i, today, today.plusDays(3), new Rate(150.75));
+            hotel.setRate(100 + i, today.plusDays(10 + i % 5), today.plusDays(40), new Rate(90.0 + i % 11));
+        }
+        return hotel;
+    }
+
+    @Test
+    public void binarySnapshotHoldsTheSameStateAsCsv() throws HotelDataException {
+        Hotel hotel = hotelWithStays(10_000);
+        Path csv = tempDir.resolve("state.csv");
+        Path binary = tempDir.resolve("state.hsnap");
+
+        hotel.writeRoomsToFile(csv.toString());
+        int written = hotel.writeRoomsToFile(binary.toString(), StateFormat.BINARY);
+
+        MyMap<Integer, Room> fromBinary = hotel.parseRoomsFile(binary.toString());
+        assertAll(
+                () -> assertEquals(10_000, written),
+                () -> assertEquals(StateFormat.BINARY, StateFormat.detect(binary.toString())),
+                () -> assertEquals(StateFormat.CSV, StateFormat.detect(csv.toString())),
+                () -> assertSameRooms(hotel.parseRoomsFile(csv.toString()), fromBinary)
+        );
+    }
+
+    @Test
+    public void repeatedGuestNamesAreStoredOnce() throws IOException, HotelDataException {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < 100; i++) {
+            hotel.addRoom(new Room(100 + i, 100.0, 2));
+            hotel.checkIn(100 + i, new Guest("Bartholomew"), List.of(new Guest("Bartholomew")), today, 1);
+        }
+        Path binary = tempDir.resolve("state.hsnap");
+        hotel.writeRoomsToFile(binary.toString(), StateFormat.BINARY);
+
+        String content = new String(Files.readAllBytes(binary), StandardCharsets.ISO_8859_1);
+        MyMap<Integer, Room> rooms = hotel.parseRoomsFile(binary.toString());
+        assertAll(
+                () -> assertEquals(content.indexOf("Bartholomew"), content.lastIndexOf("Bartholomew")),
+                () -> assertSame(rooms.get(100).getReservation().mainGuest(),
+                        rooms.get(199).getReservation().additionalGuests().getFirst())
+        );
+    }
+
+    @Test
+    public void damagedBlockIsDetectedByItsChecksum() throws IOException, HotelDataException {
+        Path binary = tempDir.resolve("state.hsnap");
+        hotelWithStays(100).writeRoomsToFile(binary.toString(), StateFormat.BINARY);
+        byte[] bytes = Files.readAllBytes(binary);
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(binary, bytes);
+
+        HotelDataException e = assertThrows(HotelDataException.class,
+                () -> new Hotel().parseRoomsFile(binary.toString()));
+
+        assertTrue(e.getMessage().startsWith("Corrupted block "), e.getMessage());
+        assertTrue(e.getMessage().endsWith(": checksum mismatch"), e.getMessage());
+    }
+
+    @Test
+    public void truncatedSnapshotIsRejected() throws IOException, HotelDataException {
+        Path binary = tempDir.resolve("state.hsnap");
+        hotelWithStays(100).writeRoomsToFile(binary.toString(), StateFormat.BINARY);
+        byte[] bytes = Files.readAllBytes(binary);
+        Path cut = tempDir.resolve("cut.hsnap");
+        // drops the end block
+        Files.write(cut, Arrays.copyOf(bytes, bytes.length - 17));
+
+        HotelDataException e = assertThrows(HotelDataException.class,
+                () -> new Hotel().parseRoomsFile(cut.toString()));
+
+        assertTrue(e.getMessage().startsWith("Snapshot file is cut off"), e.getMessage());
+    }
+
+    @Test
+    public void unknownVersionIsRejected() throws IOException, HotelDataException {
+        Path binary = tempDir.resolve("state.hsnap");
+        new Hotel().writeRoomsToFile(binary.toString(), StateFormat.BINARY);
+        byte[] bytes = Files.readAllBytes(binary);
+        bytes[4] = 9;
+        Files.write(binary, bytes);
+
+        HotelDataException e = assertThrows(HotelDataException.class,
+                () -> new Hotel().parseRoomsFile(binary.toString()));
+
+        assertEquals("Unsupported snapshot version 9 in file: " + binary, e.getMessage());
+    }
+
+    @Test
+    public void convertingToBinaryAndBackRestoresTheCsvFile() throws IOException, HotelDataException {
+        Hotel hotel = hotelWithStays(500);
+        Path csv = tempDir.resolve("state.csv");
+        Path binary = tempDir.resolve("state.hsnap");
+        Path back = tempDir.resolve("back.csv");
+        hotel.writeRoomsToFile(csv.toString());
+
+        Hotel converter = new Hotel();
+        int toBinary = converter.convertStateFile(csv.toString(), binary.toString(), StateFormat.BINARY);
+        int toCsv = converter.convertStateFile(binary.toString(), back.toString(), StateFormat.CSV);
+
+        assertAll(
+                () -> assertEquals(500, toBinary),
+                () -> assertEquals(500, toCsv),
+                () -> assertEquals(Files.readString(csv), Files.readString(back)),
+                () -> assertTrue(converter.getRooms().isEmpty())
+        );
+    }
+}
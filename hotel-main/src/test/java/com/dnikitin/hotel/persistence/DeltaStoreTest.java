@@ -0,0 +1,139 @@
+package com.dnikitin.hotel.persistence;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.model.SaveResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDate today = LocalDate.now();
+
+    private Hotel createHotel(int rooms) {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < rooms; i++) {
+            hotel.addRoom(new Room(100 + i, 100, 2));
+        }
+        return hotel;
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> paths = Files.list(tempDir)) {
+            return paths.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    public void firstSaveIsCompleteAndLaterSavesHoldOnlyChangedRooms() throws Exception {
+        Hotel hotel = createHotel(50);
+        DeltaStore store = new DeltaStore(tempDir, hotel, 10);
+
+        SaveResult first = store.save();
+        hotel.checkIn(120, new Guest("John Doe"), List.of(), today, 2);
+        hotel.checkIn(130, new Guest("Alice Smith"), List.of(), today, 1);
+        hotel.checkOut(130);
+        SaveResult delta = store.save();
+        SaveResult unchanged = store.save();
+
+        assertAll(
+                () -> assertTrue(first.complete()),
+                () -> assertEquals(50, first.rooms()),
+                () -> assertFalse(delta.complete()),
+                () -> assertEquals(2, delta.rooms()),
+                () -> assertEquals(0, unchanged.rooms()),
+                () -> assertEquals(List.of("state-000001.csv", "state-000001.delta-000001.csv"), files())
+        );
+    }
+
+    @Test
+    public void loadAppliesDeltasOnTopOfSnapshot() throws Exception {
+        Hotel hotel = createHotel(5);
+        DeltaStore store = new DeltaStore(tempDir, hotel, 10);
+        store.save();
+        hotel.checkIn(101, new Guest("John Doe"), List.of(), today, 2);
+        store.save();
+        hotel.checkOut(101);
+        hotel.addRoom(new Room(200, 300, 4));
+        hotel.checkIn(102, new Guest("Alice Smith"), List.of(new Guest("Bob Smith")), today, 3);
+        store.save();
+
+        Hotel restored = new Hotel();
+        DeltaStore reopened = new DeltaStore(tempDir, restored, 10);
+        int loaded = reopened.load();
+
+        assertAll(
+                () -> assertEquals(6, loaded),
+                () -> assertEquals(2, reopened.getDeltaCount()),
+                () -> assertTrue(restored.getRoom(101).isFree()),
+                () -> assertEquals("Alice Smith", restored.getRoom(102).getReservation().mainGuest().name()),
+                () -> assertEquals(300.0, restored.getRoom(200).getPrice()),
+                () -> assertEquals(0, reopened.save().rooms())
+        );
+    }
+
+    @Test
+    public void deltasAreConsolidatedIntoNewSnapshot() throws Exception {
+        Hotel hotel = createHotel(3);
+        DeltaStore store = new DeltaStore(tempDir, hotel, 2);
+        store.save();
+        for (int i = 0; i < 3; i++) {
+            hotel.checkIn(100 + i, new Guest("Guest " + i), List.of(), today, 1);
+            store.save();
+        }
+
+        Hotel restored = new Hotel();
+        new DeltaStore(tempDir, restored, 2).load();
+
+        assertAll(
+                () -> assertEquals(List.of("state-000002.csv"), files()),
+                () -> assertEquals(0, store.getDeltaCount()),
+                () -> assertEquals(3, restored.getStatistics().bookedRooms())
+        );
+    }
+
+    @Test
+    public void loadingFileForcesCompleteSave() throws Exception {
+        Path file = tempDir.resolve("other.csv");
+        createHotel(2).writeRoomsToFile(file.toString());
+        Path directory = tempDir.resolve("saves");
+
+        Hotel hotel = createHotel(4);
+        DeltaStore store = new DeltaStore(directory, hotel, 10);
+        store.save();
+        hotel.readRoomsFromFile(file.toString());
+        SaveResult afterLoad = store.save();
+
+        Hotel restored = new Hotel();
+        new DeltaStore(directory, restored, 10).load();
+
+        assertAll(
+                () -> assertTrue(afterLoad.complete()),
+                () -> assertEquals(2, restored.getRooms().size())
+        );
+    }
+
+    @Test
+    public void loadFromEmptyDirectoryKeepsHotel() throws HotelDataException {
+        Hotel hotel = createHotel(2);
+
+        assertAll(
+                () -> assertEquals(0, new DeltaStore(tempDir.resolve("missing"), hotel, 10).load()),
+                () -> assertEquals(2, hotel.getRooms().size())
+        );
+    }
+}
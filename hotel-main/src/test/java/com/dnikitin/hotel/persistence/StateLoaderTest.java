@@ -0,0 +1,74 @@
+package com.dnikitin.hotel.persistence;
+
+import com.dnikitin.hotel.exceptions.HotelDataException;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import com.dnikitin.hotel.model.StateFormat;
+import com.dnikitin.hotel.model.StatePartitioning;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Hotel createHotel() {
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(201, 150, 3));
+        return hotel;
+    }
+
+    @Test
+    public void loadsPartitionedDirectory() throws HotelDataException {
+        Path dir = tempDir.resolve("partitions");
+        createHotel().writeRoomsToPartitions(dir.toString(), StatePartitioning.byFloor(), StateFormat.CSV);
+        Hotel hotel = new Hotel();
+
+        assertAll(
+                () -> assertEquals(2, StateLoader.load(hotel, dir.toString())),
+                () -> assertEquals(150.0, hotel.getRoom(201).getPrice())
+        );
+    }
+
+    @Test
+    public void loadsIncrementalSaves() throws HotelDataException {
+        Path dir = tempDir.resolve("autosave");
+        new DeltaStore(dir, createHotel(), DeltaStore.DEFAULT_MAX_DELTAS).save();
+        Hotel hotel = new Hotel();
+
+        assertAll(
+                () -> assertEquals(2, StateLoader.load(hotel, dir.toString())),
+                () -> assertEquals(150.0, hotel.getRoom(201).getPrice())
+        );
+    }
+
+    @Test
+    public void loadsSingleFile() throws HotelDataException {
+        Path file = tempDir.resolve("state.hsnap");
+        createHotel().writeRoomsToFile(file.toString(), StateFormat.BINARY);
+
+        assertEquals(2, StateLoader.load(new Hotel(), file.toString()));
+    }
+
+    @Test
+    public void directoryWithoutSavedStateIsRejected() throws IOException {
+        Files.writeString(tempDir.resolve("notes.txt"), "not a state");
+        Hotel hotel = createHotel();
+
+        HotelDataException e = assertThrows(HotelDataException.class, () -> StateLoader.load(hotel, tempDir.toString()));
+
+        assertAll(
+                () -> assertEquals("No saved hotel state in directory " + tempDir
+                        + ": neither manifest.csv nor state-*.csv files found", e.getMessage()),
+                () -> assertEquals(2, hotel.getRooms().size())
+        );
+    }
+}
@@ -0,0 +1,119 @@
+package com.dnikitin.hotel.pipeline;
+
+import com.dnikitin.hotel.exceptions.RoomFreeException;
+import com.dnikitin.hotel.exceptions.RoomNotFoundException;
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandPipelineTest {
+
+    private final Guest guest = new Guest("John Doe");
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    public void mutationsAreAppliedInSubmissionOrder() {
+        Hotel hotel = new Hotel();
+        try (CommandPipeline pipeline = new CommandPipeline(hotel, 8, 4)) {
+            pipeline.addRoom(new Room(101, 100, 2));
+            pipeline.checkIn(101, guest, List.of(), today, 2);
+            CompletableFuture<Double> bill = pipeline.checkOut(101);
+            pipeline.checkIn(101, guest, List.of(), today, 1).join();
+
+            assertAll(
+                    () -> assertEquals(100.0, bill.join()),
+                    () -> assertFalse(pipeline.hotel().getRoom(101).isFree()),
+                    () -> assertEquals(4, pipeline.getAppliedMutations())
+            );
+        }
+    }
+
+    @Test
+    public void failedMutationCompletesFutureExceptionallyAndPipelineContinues() {
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100, 2));
+        try (CommandPipeline pipeline = new CommandPipeline(hotel)) {
+            CompletableFuture<Double> missing = pipeline.checkOut(999);
+            CompletableFuture<Double> free = pipeline.checkOut(101);
+            CompletableFuture<Void> checkIn = pipeline.checkIn(101, guest, List.of(), today, 1);
+
+            CompletionException notFound = assertThrows(CompletionException.class, missing::join);
+            CompletionException roomFree = assertThrows(CompletionException.class, free::join);
+            checkIn.join();
+
+            assertAll(
+                    () -> assertInstanceOf(RoomNotFoundException.class, notFound.getCause()),
+                    () -> assertInstanceOf(RoomFreeException.class, roomFree.getCause()),
+                    () -> assertFalse(hotel.getRoom(101).isFree())
+            );
+        }
+    }
+
+    @Test
+    public void closeAppliesQueuedMutationsAndRejectsNewOnes() {
+        Hotel hotel = new Hotel();
+        CommandPipeline pipeline = new CommandPipeline(hotel, 4, 1);
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            queued.add(pipeline.addRoom(new Room(100 + i, 100, 2)));
+        }
+
+        pipeline.close();
+
+        assertAll(
+                () -> assertTrue(queued.stream().allMatch(CompletableFuture::isDone)),
+                () -> assertEquals(20, hotel.getRooms().size()),
+                () -> assertThrows(IllegalStateException.class, () -> pipeline.checkOut(100))
+        );
+    }
+
+    @Test
+    public void manyProducersLoseNoMutations() throws Exception {
+        int producers = 8;
+        int roomsPerProducer = 50;
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < producers * roomsPerProducer; i++) {
+            hotel.addRoom(new Room(100 + i, 100, 2));
+        }
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+
+        try (CommandPipeline pipeline = new CommandPipeline(hotel, 16, 8)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int first = 100 + p * roomsPerProducer;
+                threads.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        List<CompletableFuture<?>> results = new ArrayList<>();
+                        for (int room = first; room < first + roomsPerProducer; room++) {
+                            results.add(pipeline.checkIn(room, guest, List.of(), today, 1));
+                            results.add(pipeline.checkOut(room));
+                            results.add(pipeline.checkIn(room, guest, List.of(), today, 1));
+                        }
+                        results.forEach(CompletableFuture::join);
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertAll(
+                    () -> assertTrue(failures.isEmpty(), () -> "Unexpected failure: " + failures.peek()),
+                    () -> assertEquals(3L * producers * roomsPerProducer, pipeline.getAppliedMutations()),
+                    () -> assertEquals(producers * roomsPerProducer, hotel.getStatistics().bookedRooms())
+            );
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.dnikitin.hotel.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferTest {
+
+    @Test
+    public void entriesAreDeliveredInOrderAcrossWrapAround() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        List<Integer> received = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            ring.publish(ring.claim(), i);
+            ring.drain(4, received::add);
+        }
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), received);
+    }
+
+    @Test
+    public void drainStopsAtBatchSizeAndUnpublishedSlot() {
+        RingBuffer<String> ring = new RingBuffer<>(8);
+        List<String> received = new ArrayList<>();
+        ring.publish(ring.claim(), "a");
+        ring.publish(ring.claim(), "b");
+        ring.publish(ring.claim(), "c");
+        long unpublished = ring.claim();
+
+        assertAll(
+                () -> assertEquals(2, ring.drain(2, received::add)),
+                () -> assertEquals(1, ring.drain(8, received::add)),
+                () -> assertEquals(0, ring.drain(8, received::add)),
+                () -> assertFalse(ring.hasPublished()),
+                () -> assertEquals(List.of("a", "b", "c"), received)
+        );
+
+        ring.publish(unpublished, "d");
+        assertTrue(ring.hasPublished());
+    }
+
+    @Test
+    public void closedBufferRejectsClaimsButDeliversClaimedEntries() {
+        RingBuffer<String> ring = new RingBuffer<>(4);
+        long claimed = ring.claim();
+        ring.close();
+
+        assertThrows(IllegalStateException.class, ring::claim);
+        assertFalse(ring.isDrained());
+
+        ring.publish(claimed, "last");
+        List<String> received = new ArrayList<>();
+        ring.drain(4, received::add);
+
+        assertAll(
+                () -> assertEquals(List.of("last"), received),
+                () -> assertTrue(ring.isDrained())
+        );
+    }
+
+    @Test
+    public void capacityMustBePowerOfTwo() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(6)),
+                () -> assertEquals(8, new RingBuffer<>(8).capacity())
+        );
+    }
+}
@@ -0,0 +1,113 @@
+package com.dnikitin.hotel.scheduler;
+
+import com.dnikitin.hotel.model.Guest;
+import com.dnikitin.hotel.model.Hotel;
+import com.dnikitin.hotel.model.Room;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotelJobsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void autosaveWritesLoadableState() throws Exception {
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.checkIn(101, new Guest("John Doe"), List.of(), 2);
+        Path file = tempDir.resolve("autosave.csv");
+
+        HotelJobs.autosave(hotel, file.toString()).run();
+
+        Hotel loaded = new Hotel();
+        loaded.loadRoomsFromFile(file.toString());
+        assertEquals("John Doe", loaded.getRoom(101).getReservation().mainGuest().name());
+    }
+
+    @Test
+    public void statsSnapshotAppendsOneLinePerRun() throws Exception {
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.addRoom(new Room(102, 100, 2));
+        hotel.checkIn(101, new Guest("John Doe"), List.of(), 2);
+        Path file = tempDir.resolve("stats.csv");
+        Runnable snapshot = HotelJobs.statsSnapshot(hotel, file.toString());
+
+        snapshot.run();
+        snapshot.run();
+
+        List<String> lines = Files.readAllLines(file);
+        assertAll(
+                () -> assertEquals(2, lines.size()),
+                () -> assertTrue(lines.get(0).endsWith(";2;1;1;4;200.00"))
+        );
+    }
+
+    @Test
+    public void overdueSweepQueuesItsAnnouncementForTheNextPrompt() {
+        Hotel hotel = new Hotel();
+        hotel.addRoom(new Room(101, 100, 2));
+        hotel.checkIn(101, new Guest("John Doe"), List.of(), LocalDate.now().minusDays(5), 2);
+        ConsoleNotices notices = new ConsoleNotices();
+        Runnable sweep = HotelJobs.overdueSweep(hotel, notices);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        sweep.run();
+        sweep.run();
+        notices.printPending(new PrintStream(out, true));
+        String printed = out.toString();
+        out.reset();
+        notices.printPending(new PrintStream(out, true));
+
+        assertAll(
+                () -> assertEquals("[overdue-sweep] 1 overdue stay(s) in room(s): 101. "
+                        + "Type 'report' or 'nightaudit' for details." + System.lineSeparator(), printed),
+                () -> assertEquals("", out.toString())
+        );
+    }
+
+    @Test
+    public void fileWritingJobsAreDisabledByDefault() {
+        SchedulerSettings settings = SchedulerSettings.fromSystemProperties();
+
+        assertAll(
+                () -> assertTrue(settings.autosaveInterval().isZero()),
+                () -> assertTrue(settings.statsInterval().isZero())
+        );
+    }
+
+    @Test
+    public void autosaveRunsWhileRoomsAreCheckedIn() throws Exception {
+        Hotel hotel = new Hotel();
+        for (int i = 0; i < 200; i++) {
+            hotel.addRoom(new Room(100 + i, 100, 2));
+        }
+        Path file = tempDir.resolve("concurrent.csv");
+
+        Thread frontDesk = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 200; i++) {
+                hotel.checkIn(100 + i, new Guest("Guest " + i), List.of(), 1);
+            }
+        });
+        Runnable autosave = HotelJobs.autosave(hotel, file.toString());
+        for (int i = 0; i < 20; i++) {
+            autosave.run();
+        }
+        frontDesk.join();
+        autosave.run();
+
+        Hotel loaded = new Hotel();
+        loaded.loadRoomsFromFile(file.toString());
+        assertEquals(200, loaded.getStatistics().bookedRooms());
+    }
+}
@@ -0,0 +1,106 @@
+package com.dnikitin.hotel.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JobSchedulerTest {
+
+    @Test
+    public void jobRunsPeriodicallyAndRecordsMetrics() throws InterruptedException {
+        CountDownLatch threeRuns = new CountDownLatch(3);
+        AtomicBoolean virtual = new AtomicBoolean(true);
+        try (JobScheduler scheduler = new JobScheduler(new ConsoleNotices())) {
+            ScheduledJob job = scheduler.schedule("tick", Duration.ofMillis(5), Duration.ofMillis(2), () -> {
+                virtual.compareAndSet(true, Thread.currentThread().isVirtual());
+                threeRuns.countDown();
+            });
+
+            assertTrue(threeRuns.await(5, TimeUnit.SECONDS));
+            scheduler.shutdown();
+            assertTrue(scheduler.awaitTermination(Duration.ofSeconds(5)));
+            JobStats stats = job.stats();
+            assertAll(
+                    () -> assertTrue(virtual.get()),
+                    () -> assertEquals("tick", stats.name()),
+                    () -> assertTrue(stats.runs() >= 3),
+                    () -> assertEquals(0, stats.failures()),
+                    () -> assertTrue(stats.maxDuration().compareTo(stats.averageDuration()) >= 0)
+            );
+        }
+    }
+
+    @Test
+    public void failingRunIsCountedAndJobKeepsRunning() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch secondRun = new CountDownLatch(2);
+        ConsoleNotices notices = new ConsoleNotices();
+        try (JobScheduler scheduler = new JobScheduler(notices)) {
+            ScheduledJob job = scheduler.schedule("flaky", Duration.ofMillis(5), Duration.ZERO, () -> {
+                secondRun.countDown();
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("disk full");
+                }
+            });
+
+            assertTrue(secondRun.await(5, TimeUnit.SECONDS));
+            scheduler.shutdown();
+            assertTrue(scheduler.awaitTermination(Duration.ofSeconds(5)));
+            assertEquals(1, job.stats().failures());
+        }
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        notices.printPending(new PrintStream(printed));
+        assertEquals("Error: Background job 'flaky' failed: disk full", printed.toString().trim());
+    }
+
+    @Test
+    public void shutdownLetsRunningJobFinish() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        JobScheduler scheduler = new JobScheduler(new ConsoleNotices());
+        ScheduledJob job = scheduler.schedule("slow", Duration.ofMillis(1), Duration.ZERO, () -> {
+            started.countDown();
+            try {
+                release.await();
+                finished.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scheduler.shutdown();
+        assertFalse(scheduler.awaitTermination(Duration.ofMillis(50)));
+
+        release.countDown();
+        assertTrue(scheduler.awaitTermination(Duration.ofSeconds(5)));
+        assertAll(
+                () -> assertTrue(finished.get()),
+                () -> assertTrue(job.isCancelled()),
+                () -> assertEquals(1, job.stats().runs())
+        );
+    }
+
+    @Test
+    public void invalidScheduleIsRejected() {
+        JobScheduler scheduler = new JobScheduler(new ConsoleNotices());
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> scheduler.schedule("zero", Duration.ZERO, Duration.ZERO, () -> {})),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> scheduler.schedule("jitter", Duration.ofSeconds(1), Duration.ofSeconds(-1), () -> {}))
+        );
+        scheduler.close();
+        assertThrows(IllegalStateException.class,
+                () -> scheduler.schedule("late", Duration.ofSeconds(1), Duration.ZERO, () -> {}));
+    }
+}
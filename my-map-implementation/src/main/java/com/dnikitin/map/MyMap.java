@@ -88,6 +88,39 @@ public class MyMap<K, V> implements Map<K, V>, Iterable<java.util.Map.Entry<K, V
     }
 
 
+    /**
+     * Builds a map from entries that are already sorted by strictly ascending keys.
+     * <p>
+     * The entries become a perfectly balanced tree in one pass, which takes O(N)
+     * instead of the O(N log N) of inserting them one by one, and needs no rotations.
+     * The map uses the natural ordering of its keys.
+     *
+     * @param entries the entries in strictly ascending key order
+     * @param <K>     the type of keys
+     * @param <V>     the type of values
+     * @return a new map containing the given entries
+     * @throws IllegalArgumentException if a key or value is null, or the keys are not
+     *                                  strictly ascending
+     */
+    public static <K extends Comparable<? super K>, V> MyMap<K, V> ofSorted(
+            List<? extends java.util.Map.Entry<K, V>> entries) {
+        MyMap<K, V> map = new MyMap<>();
+        K previous = null;
+        for (java.util.Map.Entry<K, V> entry : entries) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new IllegalArgumentException("Null key or value in sorted entries");
+            }
+            if (previous != null && previous.compareTo(entry.getKey()) >= 0) {
+                throw new IllegalArgumentException("Keys are not strictly ascending at " + entry.getKey());
+            }
+            previous = entry.getKey();
+        }
+        map.root = buildBalanced(entries, 0, entries.size());
+        map.size = entries.size();
+        return map;
+    }
+
+
     // PUBLIC METHODS FROM MAP INTERFACE (java doc description provided in Map interface)
 
 
@@ -192,6 +225,94 @@ public class MyMap<K, V> implements Map<K, V>, Iterable<java.util.Map.Entry<K, V
         return new EntryIterator();
     }
 
+    // NAVIGATION METHODS
+
+    /**
+     * Returns the entry with the greatest key less than or equal to the given key,
+     * or {@code null} if there is no such key. Runs in O(log n).
+     *
+     * @param key the key to search for
+     * @return the floor entry, or {@code null} if there is none
+     */
+    public java.util.Map.Entry<K, V> floorEntry(K key) {
+        return nearest(key, true, true);
+    }
+
+    /**
+     * Returns the entry with the greatest key strictly less than the given key,
+     * or {@code null} if there is no such key. Runs in O(log n).
+     *
+     * @param key the key to search for
+     * @return the lower entry, or {@code null} if there is none
+     */
+    public java.util.Map.Entry<K, V> lowerEntry(K key) {
+        return nearest(key, true, false);
+    }
+
+    /**
+     * Returns the entry with the least key greater than or equal to the given key,
+     * or {@code null} if there is no such key. Runs in O(log n).
+     *
+     * @param key the key to search for
+     * @return the ceiling entry, or {@code null} if there is none
+     */
+    public java.util.Map.Entry<K, V> ceilingEntry(K key) {
+        return nearest(key, false, true);
+    }
+
+    /**
+     * Returns the entry with the least key strictly greater than the given key,
+     * or {@code null} if there is no such key. Runs in O(log n).
+     *
+     * @param key the key to search for
+     * @return the higher entry, or {@code null} if there is none
+     */
+    public java.util.Map.Entry<K, V> higherEntry(K key) {
+        return nearest(key, false, false);
+    }
+
+    /**
+     * Returns the entry with the smallest key, or {@code null} if the map is empty.
+     *
+     * @return the first entry, or {@code null} if the map is empty
+     */
+    public java.util.Map.Entry<K, V> firstEntry() {
+        Node<K, V> node = root;
+        while (node != null && node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the entry with the greatest key, or {@code null} if the map is empty.
+     *
+     * @return the last entry, or {@code null} if the map is empty
+     */
+    public java.util.Map.Entry<K, V> lastEntry() {
+        Node<K, V> node = root;
+        while (node != null && node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Returns a lazy, in-order view of the entries whose keys lie in the half-open
+     * range {@code [fromInclusive, toExclusive)}. A {@code null} bound means the
+     * range is unbounded on that side.
+     * <p>
+     * Positioning the iterator costs O(log n) and every further step is amortized
+     * O(1), so visiting {@code k} entries takes O(log n + k).
+     *
+     * @param fromInclusive the lowest key to include, or {@code null} for no lower bound
+     * @param toExclusive   the first key to exclude, or {@code null} for no upper bound
+     * @return an iterable over the matching entries in ascending key order
+     */
+    public Iterable<java.util.Map.Entry<K, V>> range(K fromInclusive, K toExclusive) {
+        return () -> new EntryIterator(fromInclusive, toExclusive);
+    }
+
     // PRIVATE UTILITY METHODS
 
     /**
@@ -271,6 +392,68 @@ public class MyMap<K, V> implements Map<K, V>, Iterable<java.util.Map.Entry<K, V
     }
 
 
+    /**
+     * Recursive helper for {@code ofSorted}. Makes the middle entry of the range the root
+     * and builds both halves the same way, so the heights of sibling subtrees differ by at most one.
+     *
+     * @param entries The sorted entries
+     * @param from    The first entry of the range (inclusive)
+     * @param to      The end of the range (exclusive)
+     * @return The root of the built subtree, or {@code null} for an empty range
+     */
+    private static <K, V> Node<K, V> buildBalanced(List<? extends java.util.Map.Entry<K, V>> entries,
+                                                   int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        java.util.Map.Entry<K, V> entry = entries.get(middle);
+        Node<K, V> node = new Node<>(entry.getKey(), entry.getValue());
+        node.left = buildBalanced(entries, from, middle);
+        node.right = buildBalanced(entries, middle + 1, to);
+        node.updateHeight();
+        return node;
+    }
+
+    /**
+     * Shared descent for the floor/lower/ceiling/higher lookups.
+     *
+     * @param key       The key to search for
+     * @param below     {@code true} to look for keys below the given key, {@code false} for keys above it
+     * @param inclusive {@code true} if an exact match is an acceptable answer
+     * @return The closest matching node, or {@code null} if there is none
+     */
+    private Node<K, V> nearest(K key, boolean below, boolean inclusive) {
+        if (key == null) {
+            return null;
+        }
+        Node<K, V> best = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(key, node.key);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (below) {
+                if (cmp > 0) {
+                    best = node;
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            } else {
+                if (cmp < 0) {
+                    best = node;
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+        return best;
+    }
+
+
     // INNER CLASSES (NODE(ENTRY) AND ENTRY_ITERATOR)
 
     /**
@@ -425,16 +608,47 @@ public class MyMap<K, V> implements Map<K, V>, Iterable<java.util.Map.Entry<K, V
         //Symulacja rekurencji poprzez uzycie stosu
         private final Deque<Node<K, V>> stack = new ArrayDeque<>();
 
+        /**
+         * Upper bound (exclusive) of the traversal, or {@code null} if unbounded.
+         */
+        private final K toExclusive;
+
         /**
          * Creates an iterator starting at the smallest key.
          */
         public EntryIterator() {
+            this.toExclusive = null;
             pushAllLeftNodes(root);
         }
 
+        /**
+         * Creates an iterator over the keys in {@code [fromInclusive, toExclusive)}.
+         * A {@code null} bound leaves that side of the range open.
+         */
+        EntryIterator(K fromInclusive, K toExclusive) {
+            this.toExclusive = toExclusive;
+            if (fromInclusive == null) {
+                pushAllLeftNodes(root);
+            } else {
+                // keep only the path of nodes that are >= fromInclusive
+                Node<K, V> node = root;
+                while (node != null) {
+                    if (comparator.compare(node.key, fromInclusive) >= 0) {
+                        stack.push(node);
+                        node = node.left;
+                    } else {
+                        node = node.right;
+                    }
+                }
+            }
+        }
+
         @Override
         public boolean hasNext() {
-            return !stack.isEmpty();
+            if (stack.isEmpty()) {
+                return false;
+            }
+            return toExclusive == null || comparator.compare(stack.peek().key, toExclusive) < 0;
         }
 
         @Override
@@ -0,0 +1,261 @@
+package com.dnikitin.map;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A map from non-overlapping, half-open key ranges {@code [from, to)} to values,
+ * built on top of the {@link MyMap} AVL tree.
+ * <p>
+ * Ranges are stored in a {@link MyMap} keyed by their lower bound. Because ranges
+ * never overlap, the range containing a point is always the floor entry of that
+ * point, which makes point lookups O(log n). Querying or replacing {@code k}
+ * ranges inside an interval costs O(log n + k).
+ * <p>
+ * Putting a range overwrites whatever was mapped inside it (splitting partially
+ * covered ranges), and adjacent ranges that end up with equal values are
+ * coalesced into a single range.
+ *
+ * @param <K> the type of the range bounds
+ * @param <V> the type of mapped values
+ */
+public class RangeMap<K, V> implements Iterable<RangeMap.Range<K, V>> {
+
+    /**
+     * A single mapping of the half-open interval {@code [from, to)} to a value.
+     *
+     * @param from  the lower bound (inclusive)
+     * @param to    the upper bound (exclusive)
+     * @param value the value mapped to every key inside the interval
+     * @param <K>   the type of the range bounds
+     * @param <V>   the type of the mapped value
+     */
+    public record Range<K, V>(K from, K to, V value) {
+    }
+
+    /**
+     * Ranges indexed by their lower bound.
+     */
+    private final MyMap<K, Range<K, V>> ranges;
+
+    /**
+     * The comparator used to order range bounds.
+     */
+    private final Comparator<? super K> comparator;
+
+    // CONSTRUCTORS
+
+    /**
+     * Constructs a new, empty range map ordered by the natural ordering of its keys.
+     */
+    @SuppressWarnings("unchecked")
+    public RangeMap() {
+        this((k1, k2) -> ((Comparable<K>) k1).compareTo(k2));
+    }
+
+    /**
+     * Constructs a new, empty range map ordered by the given comparator.
+     *
+     * @param comparator the comparator used to order range bounds
+     */
+    public RangeMap(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+        this.ranges = new MyMap<>(comparator);
+    }
+
+    // PUBLIC METHODS
+
+    /**
+     * Maps every key in {@code [from, to)} to the given value, replacing any previous
+     * mappings inside that interval. Neighbouring ranges with an equal value are
+     * merged with the new range.
+     *
+     * @param from  the lower bound (inclusive, not null)
+     * @param to    the upper bound (exclusive, not null)
+     * @param value the value to map (not null)
+     * @throws IllegalArgumentException if the range is empty or any argument is null
+     */
+    public void put(K from, K to, V value) {
+        requireRange(from, to);
+        if (value == null) {
+            throw new IllegalArgumentException("Range value cannot be null");
+        }
+        remove(from, to);
+
+        K start = from;
+        K end = to;
+
+        java.util.Map.Entry<K, Range<K, V>> left = ranges.lowerEntry(from);
+        if (left != null && comparator.compare(left.getValue().to(), from) == 0
+                && left.getValue().value().equals(value)) {
+            start = left.getKey();
+            ranges.remove(left.getKey());
+        }
+
+        Range<K, V> right = ranges.get(to);
+        if (right != null && right.value().equals(value)) {
+            end = right.to();
+            ranges.remove(to);
+        }
+
+        ranges.put(start, new Range<>(start, end, value));
+    }
+
+    /**
+     * Removes all mappings inside {@code [from, to)}. Ranges that only partially
+     * overlap the interval are trimmed, and a range that spans the whole interval
+     * is split in two.
+     *
+     * @param from the lower bound (inclusive, not null)
+     * @param to   the upper bound (exclusive, not null)
+     * @throws IllegalArgumentException if the range is empty or any bound is null
+     */
+    public void remove(K from, K to) {
+        requireRange(from, to);
+
+        java.util.Map.Entry<K, Range<K, V>> left = ranges.lowerEntry(from);
+        if (left != null && comparator.compare(left.getValue().to(), from) > 0) {
+            Range<K, V> spanning = left.getValue();
+            ranges.put(spanning.from(), new Range<>(spanning.from(), from, spanning.value()));
+            if (comparator.compare(spanning.to(), to) > 0) {
+                ranges.put(to, new Range<>(to, spanning.to(), spanning.value()));
+            }
+        }
+
+        List<Range<K, V>> inside = new ArrayList<>();
+        for (java.util.Map.Entry<K, Range<K, V>> entry : ranges.range(from, to)) {
+            inside.add(entry.getValue());
+        }
+        for (Range<K, V> range : inside) {
+            ranges.remove(range.from());
+            if (comparator.compare(range.to(), to) > 0) {
+                ranges.put(to, new Range<>(to, range.to(), range.value()));
+            }
+        }
+    }
+
+    /**
+     * Returns the value mapped to the range containing the given key.
+     * Runs in O(log n).
+     *
+     * @param key the key to look up
+     * @return the mapped value, or {@code null} if no range contains the key
+     */
+    public V get(K key) {
+        Range<K, V> range = getRange(key);
+        return range == null ? null : range.value();
+    }
+
+    /**
+     * Returns the range containing the given key. Runs in O(log n).
+     *
+     * @param key the key to look up
+     * @return the containing range, or {@code null} if no range contains the key
+     */
+    public Range<K, V> getRange(K key) {
+        java.util.Map.Entry<K, Range<K, V>> floor = ranges.floorEntry(key);
+        if (floor == null || comparator.compare(key, floor.getValue().to()) >= 0) {
+            return null;
+        }
+        return floor.getValue();
+    }
+
+    /**
+     * Returns all ranges that intersect {@code [from, to)} in ascending order.
+     * The returned ranges are not clipped to the query interval.
+     * Runs in O(log n + k), where k is the number of returned ranges.
+     *
+     * @param from the lower bound of the query (inclusive, not null)
+     * @param to   the upper bound of the query (exclusive, not null)
+     * @return the overlapping ranges, possibly empty
+     */
+    public List<Range<K, V>> overlapping(K from, K to) {
+        requireRange(from, to);
+        List<Range<K, V>> result = new ArrayList<>();
+
+        java.util.Map.Entry<K, Range<K, V>> left = ranges.lowerEntry(from);
+        if (left != null && comparator.compare(left.getValue().to(), from) > 0) {
+            result.add(left.getValue());
+        }
+        for (java.util.Map.Entry<K, Range<K, V>> entry : ranges.range(from, to)) {
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of disjoint ranges stored in this map.
+     *
+     * @return the number of ranges
+     */
+    public int size() {
+        return ranges.size();
+    }
+
+    /**
+     * Returns {@code true} if no range is mapped.
+     *
+     * @return {@code true} if this map is empty
+     */
+    public boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+
+    /**
+     * Removes all ranges from this map.
+     */
+    public void clear() {
+        ranges.clear();
+    }
+
+    /**
+     * Returns an iterator over the stored ranges in ascending order of their lower bound.
+     *
+     * @return an in-order iterator over the ranges
+     */
+    @Override
+    public Iterator<Range<K, V>> iterator() {
+        Iterator<java.util.Map.Entry<K, Range<K, V>>> entries = ranges.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Range<K, V> next() {
+                return entries.next().getValue();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Range<K, V> range : this) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append('[').append(range.from()).append(", ").append(range.to()).append(")=")
+                    .append(Objects.toString(range.value()));
+        }
+        return sb.append('}').toString();
+    }
+
+    // PRIVATE HELPERS
+
+    /**
+     * Validates that both bounds are present and describe a non-empty range.
+     */
+    private void requireRange(K from, K to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Range bounds cannot be null");
+        }
+        if (comparator.compare(from, to) >= 0) {
+            throw new IllegalArgumentException("Range lower bound must be below its upper bound");
+        }
+    }
+}
@@ -253,4 +253,110 @@ public class MyMapTest {
         assertEquals("two", newMap.get(2));
     }
 
+
+    @Test
+    public void floorAndCeilingEntries() {
+        map.put(10, "ten");
+        map.put(20, "twenty");
+        map.put(30, "thirty");
+
+        assertAll(
+                () -> assertEquals(20, map.floorEntry(25).getKey()),
+                () -> assertEquals(20, map.floorEntry(20).getKey()),
+                () -> assertNull(map.floorEntry(5)),
+                () -> assertEquals(30, map.ceilingEntry(25).getKey()),
+                () -> assertEquals(20, map.ceilingEntry(20).getKey()),
+                () -> assertNull(map.ceilingEntry(35))
+        );
+    }
+
+    @Test
+    public void lowerAndHigherEntriesAreStrict() {
+        map.put(10, "ten");
+        map.put(20, "twenty");
+        map.put(30, "thirty");
+
+        assertAll(
+                () -> assertEquals(10, map.lowerEntry(20).getKey()),
+                () -> assertNull(map.lowerEntry(10)),
+                () -> assertEquals(30, map.higherEntry(20).getKey()),
+                () -> assertNull(map.higherEntry(30))
+        );
+    }
+
+    @Test
+    public void firstAndLastEntries() {
+        assertNull(map.firstEntry());
+        assertNull(map.lastEntry());
+
+        for (int key : List.of(50, 10, 40, 20, 30)) {
+            map.put(key, "val-" + key);
+        }
+
+        assertEquals(10, map.firstEntry().getKey());
+        assertEquals(50, map.lastEntry().getKey());
+    }
+
+    @Test
+    public void rangeReturnsKeysInHalfOpenInterval() {
+        for (int key = 1; key <= 20; key++) {
+            map.put(key, "val-" + key);
+        }
+
+        List<Integer> keys = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : map.range(5, 9)) {
+            keys.add(entry.getKey());
+        }
+        List<Integer> tail = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : map.range(18, null)) {
+            tail.add(entry.getKey());
+        }
+
+        assertAll(
+                () -> assertEquals(List.of(5, 6, 7, 8), keys),
+                () -> assertEquals(List.of(18, 19, 20), tail),
+                () -> assertFalse(map.range(21, null).iterator().hasNext())
+        );
+    }
+
+
+    @Test
+    public void ofSortedBuildsBalancedMapFromAscendingEntries() {
+        List<Map.Entry<Integer, String>> entries = new ArrayList<>();
+        for (int key = 1; key <= 1000; key++) {
+            entries.add(Map.entry(key, "val-" + key));
+        }
+
+        MyMap<Integer, String> built = MyMap.ofSorted(entries);
+        built.put(1001, "val-1001");
+        built.remove(500);
+
+        assertAll(
+                () -> assertEquals(1000, built.size()),
+                () -> assertEquals("val-1", built.get(1)),
+                () -> assertNull(built.get(500)),
+                () -> assertEquals(1001, built.lastEntry().getKey()),
+                () -> assertEquals(List.of(498, 499, 501), keysOf(built.range(498, 502)))
+        );
+    }
+
+    @Test
+    public void ofSortedRejectsUnorderedOrDuplicateKeys() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> MyMap.ofSorted(List.of(Map.entry(2, "b"), Map.entry(1, "a")))),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> MyMap.ofSorted(List.of(Map.entry(1, "a"), Map.entry(1, "b")))),
+                () -> assertTrue(MyMap.<Integer, String>ofSorted(List.of()).isEmpty())
+        );
+    }
+
+    private static List<Integer> keysOf(Iterable<Map.Entry<Integer, String>> entries) {
+        List<Integer> keys = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : entries) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
 }
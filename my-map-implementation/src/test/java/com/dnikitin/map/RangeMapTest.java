@@ -0,0 +1,120 @@
+package com.dnikitin.map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RangeMapTest {
+
+    private RangeMap<Integer, String> map;
+
+    @BeforeEach
+    public void setUp() {
+        map = new RangeMap<>();
+    }
+
+    @Test
+    public void getReturnsValueInsideRangeOnly() {
+        map.put(10, 20, "A");
+
+        assertAll(
+                () -> assertNull(map.get(9)),
+                () -> assertEquals("A", map.get(10)),
+                () -> assertEquals("A", map.get(19)),
+                () -> assertNull(map.get(20))
+        );
+    }
+
+    @Test
+    public void putOverwritesAndSplitsOverlappedRange() {
+        map.put(0, 30, "A");
+        map.put(10, 20, "B");
+
+        assertAll(
+                () -> assertEquals(3, map.size()),
+                () -> assertEquals("A", map.get(9)),
+                () -> assertEquals("B", map.get(10)),
+                () -> assertEquals("A", map.get(20)),
+                () -> assertEquals("{[0, 10)=A, [10, 20)=B, [20, 30)=A}", map.toString())
+        );
+    }
+
+    @Test
+    public void putTrimsPartiallyCoveredRanges() {
+        map.put(0, 10, "A");
+        map.put(20, 30, "C");
+        map.put(5, 25, "B");
+
+        assertEquals("{[0, 5)=A, [5, 25)=B, [25, 30)=C}", map.toString());
+    }
+
+    @Test
+    public void adjacentEqualValuesAreCoalesced() {
+        map.put(0, 10, "A");
+        map.put(20, 30, "A");
+        map.put(10, 20, "A");
+
+        assertAll(
+                () -> assertEquals(1, map.size()),
+                () -> assertEquals(new RangeMap.Range<>(0, 30, "A"), map.getRange(15))
+        );
+    }
+
+    @Test
+    public void adjacentDifferentValuesAreKeptApart() {
+        map.put(0, 10, "A");
+        map.put(10, 20, "B");
+
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void removeCutsHoleInRange() {
+        map.put(0, 30, "A");
+        map.remove(10, 20);
+
+        assertAll(
+                () -> assertEquals("{[0, 10)=A, [20, 30)=A}", map.toString()),
+                () -> assertNull(map.get(15))
+        );
+    }
+
+    @Test
+    public void overlappingReturnsIntersectingRanges() {
+        map.put(0, 10, "A");
+        map.put(10, 20, "B");
+        map.put(30, 40, "C");
+
+        List<String> values = new ArrayList<>();
+        for (RangeMap.Range<Integer, String> range : map.overlapping(5, 31)) {
+            values.add(range.value());
+        }
+
+        assertAll(
+                () -> assertEquals(List.of("A", "B", "C"), values),
+                () -> assertTrue(map.overlapping(20, 30).isEmpty())
+        );
+    }
+
+    @Test
+    public void emptyOrInvertedRangeIsRejected() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> map.put(5, 5, "A")),
+                () -> assertThrows(IllegalArgumentException.class, () -> map.put(6, 5, "A")),
+                () -> assertThrows(IllegalArgumentException.class, () -> map.put(1, 5, null))
+        );
+    }
+
+    @Test
+    public void clearRemovesAllRanges() {
+        map.put(0, 10, "A");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+    }
+}